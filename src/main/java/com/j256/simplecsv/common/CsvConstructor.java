@@ -0,0 +1,30 @@
+package com.j256.simplecsv.common;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to be added to a constructor or static factory method of an immutable entity so the processor can build
+ * the entity from the column values. The converted values of a row are collected and the constructor or method is
+ * called once at the end of the row instead of setting the fields or calling set methods.
+ *
+ * <p>
+ * When an entity has a CsvConstructor, you can use the {@link CsvColumn} annotation on just the get/is methods
+ * without any set methods.
+ * </p>
+ *
+ * @author graywatson
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.CONSTRUCTOR, ElementType.METHOD })
+public @interface CsvConstructor {
+
+	/**
+	 * The column names that correspond to the arguments of the constructor or method in order. By default the
+	 * arguments are in the order that the {@link CsvColumn} fields are defined in the class. Since Java does not define
+	 * the order of methods, you should set this if you are using get/is methods.
+	 */
+	public String[] columnNames() default {};
+}
@@ -2,6 +2,7 @@ package com.j256.simplecsv.converter;
 
 import java.text.DecimalFormat;
 import java.text.ParseException;
+import java.text.ParsePosition;
 
 import com.j256.simplecsv.processor.ColumnInfo;
 import com.j256.simplecsv.processor.ParseError;
@@ -24,6 +25,14 @@ public abstract class AbstractNumberConverter<T extends Number> implements Conve
 	 */
 	protected abstract T parseString(String value) throws NumberFormatException;
 
+	/**
+	 * Returns false if the value definitely can't be parsed by {@link #parseString(String)} so the error can be reported
+	 * without the cost of throwing and catching an exception. Default is true.
+	 */
+	protected boolean isValidString(String value) {
+		return true;
+	}
+
 	@Override
 	public boolean isNeedsQuotes(DecimalFormat decimalFormat) {
 		if (decimalFormat == null) {
@@ -33,6 +42,12 @@ public abstract class AbstractNumberConverter<T extends Number> implements Conve
 		}
 	}
 
+	@Override
+	public boolean isOutputSafe(DecimalFormat decimalFormat) {
+		// toString() only uses digits, signs, '.', and exponent or NaN/Infinity letters but a format could use anything
+		return (decimalFormat == null);
+	}
+
 	@Override
 	public boolean isAlwaysTrimInput() {
 		return true;
@@ -55,7 +70,10 @@ public abstract class AbstractNumberConverter<T extends Number> implements Conve
 		} else if (decimalFormat == null) {
 			return value.toString();
 		} else {
-			return decimalFormat.format(numberToValue(value));
+			// DecimalFormat is not thread safe
+			synchronized (decimalFormat) {
+				return decimalFormat.format(numberToValue(value));
+			}
 		}
 	}
 
@@ -66,16 +84,36 @@ public abstract class AbstractNumberConverter<T extends Number> implements Conve
 		if (value.length() == 0) {
 			return null;
 		} else if (decimalFormat == null) {
+			if (!isValidString(value)) {
+				parseError.setErrorType(ErrorType.INVALID_FORMAT);
+				parseError.setMessage("For input string: \"%s\"", value);
+				parseError.setLinePos(linePos);
+				return null;
+			}
 			try {
 				return parseString(value);
 			} catch (NumberFormatException nfe) {
+				// out of range numbers still get here
 				parseError.setErrorType(ErrorType.INVALID_FORMAT);
-				parseError.setMessage(nfe.getMessage());
+				parseError.setMessage("%s", nfe);
+				parseError.setCause(nfe);
 				parseError.setLinePos(linePos);
 				return null;
 			}
 		} else {
-			return numberToValue(decimalFormat.parse(value));
+			// this doesn't throw on errors like parse(String)
+			ParsePosition parsePosition = new ParsePosition(0);
+			Number number;
+			synchronized (decimalFormat) {
+				number = decimalFormat.parse(value, parsePosition);
+			}
+			if (number == null) {
+				parseError.setErrorType(ErrorType.INVALID_FORMAT);
+				parseError.setMessage("Unparseable number: \"%s\"", value);
+				parseError.setLinePos(linePos + parsePosition.getErrorIndex());
+				return null;
+			}
+			return numberToValue(number);
 		}
 	}
 }
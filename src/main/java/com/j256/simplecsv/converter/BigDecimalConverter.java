@@ -3,9 +3,11 @@ package com.j256.simplecsv.converter;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.ParseException;
+import java.text.ParsePosition;
 
 import com.j256.simplecsv.processor.ColumnInfo;
 import com.j256.simplecsv.processor.ParseError;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
 
 /**
  * Converter for the Java BigDecimal type.
@@ -39,6 +41,12 @@ public class BigDecimalConverter implements Converter<BigDecimal, DecimalFormat>
 		return true;
 	}
 
+	@Override
+	public boolean isOutputSafe(DecimalFormat decimalFormat) {
+		// toString() only uses digits, signs, '.', and exponent or NaN/Infinity letters but a format could use anything
+		return (decimalFormat == null);
+	}
+
 	@Override
 	public boolean isAlwaysTrimInput() {
 		return true;
@@ -52,7 +60,10 @@ public class BigDecimalConverter implements Converter<BigDecimal, DecimalFormat>
 		} else if (decimalFormat == null) {
 			return value.toString();
 		} else {
-			return decimalFormat.format(value);
+			// DecimalFormat is not thread safe
+			synchronized (decimalFormat) {
+				return decimalFormat.format(value);
+			}
 		}
 	}
 
@@ -63,9 +74,27 @@ public class BigDecimalConverter implements Converter<BigDecimal, DecimalFormat>
 		if (value.isEmpty()) {
 			return null;
 		} else if (decimalFormat == null) {
+			if (!ConverterUtils.isDecimalString(value, false)) {
+				parseError.setErrorType(ErrorType.INVALID_FORMAT);
+				parseError.setMessage("Invalid big-decimal: \"%s\"", value);
+				parseError.setLinePos(linePos);
+				return null;
+			}
+			// exponents that are too large still throw
 			return new BigDecimal(value);
 		} else {
-			return (BigDecimal) decimalFormat.parse(value);
+			// this doesn't throw on errors like parse(String)
+			ParsePosition parsePosition = new ParsePosition(0);
+			BigDecimal bigDecimal;
+			synchronized (decimalFormat) {
+				bigDecimal = (BigDecimal) decimalFormat.parse(value, parsePosition);
+			}
+			if (bigDecimal == null) {
+				parseError.setErrorType(ErrorType.INVALID_FORMAT);
+				parseError.setMessage("Unparseable number: \"%s\"", value);
+				parseError.setLinePos(linePos + parsePosition.getErrorIndex());
+			}
+			return bigDecimal;
 		}
 	}
 }
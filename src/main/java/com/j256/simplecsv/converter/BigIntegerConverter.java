@@ -4,9 +4,11 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.text.DecimalFormat;
 import java.text.ParseException;
+import java.text.ParsePosition;
 
 import com.j256.simplecsv.processor.ColumnInfo;
 import com.j256.simplecsv.processor.ParseError;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
 
 /**
  * Converter for the Java BigInteger type.
@@ -41,6 +43,12 @@ public class BigIntegerConverter implements Converter<BigInteger, DecimalFormat>
 		return true;
 	}
 
+	@Override
+	public boolean isOutputSafe(DecimalFormat decimalFormat) {
+		// toString() only uses digits, signs, '.', and exponent or NaN/Infinity letters but a format could use anything
+		return (decimalFormat == null);
+	}
+
 	@Override
 	public boolean isAlwaysTrimInput() {
 		return true;
@@ -54,7 +62,10 @@ public class BigIntegerConverter implements Converter<BigInteger, DecimalFormat>
 		} else if (decimalFormat == null) {
 			return value.toString();
 		} else {
-			return decimalFormat.format(value);
+			// DecimalFormat is not thread safe
+			synchronized (decimalFormat) {
+				return decimalFormat.format(value);
+			}
 		}
 	}
 
@@ -65,9 +76,26 @@ public class BigIntegerConverter implements Converter<BigInteger, DecimalFormat>
 		if (value.isEmpty()) {
 			return null;
 		} else if (decimalFormat == null) {
+			if (!ConverterUtils.isIntegerString(value)) {
+				parseError.setErrorType(ErrorType.INVALID_FORMAT);
+				parseError.setMessage("Invalid big-integer: \"%s\"", value);
+				parseError.setLinePos(linePos);
+				return null;
+			}
 			return new BigInteger(value);
 		} else {
-			BigDecimal bigDecimal = (BigDecimal) decimalFormat.parse(value);
+			// this doesn't throw on errors like parse(String)
+			ParsePosition parsePosition = new ParsePosition(0);
+			BigDecimal bigDecimal;
+			synchronized (decimalFormat) {
+				bigDecimal = (BigDecimal) decimalFormat.parse(value, parsePosition);
+			}
+			if (bigDecimal == null) {
+				parseError.setErrorType(ErrorType.INVALID_FORMAT);
+				parseError.setMessage("Unparseable number: \"%s\"", value);
+				parseError.setLinePos(linePos + parsePosition.getErrorIndex());
+				return null;
+			}
 			return bigDecimal.toBigInteger();
 		}
 	}
@@ -1,5 +1,8 @@
 package com.j256.simplecsv.converter;
 
+import java.util.Arrays;
+import java.util.Collection;
+
 import com.j256.simplecsv.common.CsvColumn;
 import com.j256.simplecsv.processor.ColumnInfo;
 import com.j256.simplecsv.processor.ParseError;
@@ -45,6 +48,7 @@ public class BooleanConverter implements Converter<Boolean, BooleanConverter.Con
 
 	private static final String DEFAULT_TRUE_STRING = "true";
 	private static final String DEFAULT_FALSE_STRING = "false";
+	private static final Collection<Boolean> FINITE_VALUES = Arrays.asList(Boolean.TRUE, Boolean.FALSE);
 
 	/**
 	 * Get singleton for class.
@@ -77,7 +81,8 @@ public class BooleanConverter implements Converter<Boolean, BooleanConverter.Con
 		boolean parseErrorOnInvalid = ((flags & PARSE_ERROR_ON_INVALID_VALUE) != 0);
 		boolean caseSensitive = ((flags & CASE_SENSITIVE) != 0);
 		boolean needsQuotes = ((flags & NEEDS_QUOTES) != 0);
-		return new ConfigInfo(trueString, falseString, parseErrorOnInvalid, caseSensitive, needsQuotes);
+		boolean outputSafe = (ConverterUtils.isSafeOutput(trueString) && ConverterUtils.isSafeOutput(falseString));
+		return new ConfigInfo(trueString, falseString, parseErrorOnInvalid, caseSensitive, needsQuotes, outputSafe);
 	}
 
 	@Override
@@ -85,6 +90,16 @@ public class BooleanConverter implements Converter<Boolean, BooleanConverter.Con
 		return configInfo.needsQuotes;
 	}
 
+	@Override
+	public boolean isOutputSafe(ConfigInfo configInfo) {
+		return configInfo.outputSafe;
+	}
+
+	@Override
+	public Collection<Boolean> getFiniteValues(ConfigInfo configInfo) {
+		return FINITE_VALUES;
+	}
+
 	@Override
 	public boolean isAlwaysTrimInput() {
 		return false;
@@ -139,14 +154,16 @@ public class BooleanConverter implements Converter<Boolean, BooleanConverter.Con
 		final boolean parseErrorOnInvalid;
 		final boolean caseSensitive;
 		final boolean needsQuotes;
+		final boolean outputSafe;
 
 		private ConfigInfo(String trueString, String falseString, boolean parseErrorOnInvalid, boolean caseSensitive,
-				boolean needsQuotes) {
+				boolean needsQuotes, boolean outputSafe) {
 			this.trueString = trueString;
 			this.falseString = falseString;
 			this.parseErrorOnInvalid = parseErrorOnInvalid;
 			this.caseSensitive = caseSensitive;
 			this.needsQuotes = needsQuotes;
+			this.outputSafe = outputSafe;
 		}
 	}
 }
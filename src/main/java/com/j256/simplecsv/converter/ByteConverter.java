@@ -34,4 +34,9 @@ public class ByteConverter extends AbstractNumberConverter<Byte> {
 	protected Byte parseString(String value) throws NumberFormatException {
 		return Byte.parseByte(value);
 	}
+
+	@Override
+	protected boolean isValidString(String value) {
+		return ConverterUtils.isIntegerString(value);
+	}
 }
@@ -1,6 +1,7 @@
 package com.j256.simplecsv.converter;
 
 import java.text.ParseException;
+import java.util.Collection;
 
 import com.j256.simplecsv.processor.ColumnInfo;
 import com.j256.simplecsv.processor.ParseError;
@@ -45,6 +46,24 @@ public interface Converter<T, C> {
 	 */
 	public boolean isNeedsQuotes(C configInfo);
 
+	/**
+	 * Returns true if the output of {@link #javaToString(ColumnInfo, Object)} can only ever contain characters for which
+	 * {@link ConverterUtils#isSafeOutputChar(char)} returns true. The processor can then write the column without
+	 * scanning it for quotes, separators, or line terminations. Default is false.
+	 */
+	default boolean isOutputSafe(C configInfo) {
+		return false;
+	}
+
+	/**
+	 * Returns the values that this converter can write if it is a finite set, or null if it is not. The processor will
+	 * convert and escape each of them once with {@link #javaToString(ColumnInfo, Object)} and then copy the resulting
+	 * tokens for each row so the output for a value must not change. Default is null.
+	 */
+	default Collection<T> getFiniteValues(C configInfo) {
+		return null;
+	}
+
 	/**
 	 * Returns true if the field should trim the string before it is passed to
 	 * {@link #stringToJava(String, int, int, ColumnInfo, String, ParseError)}.
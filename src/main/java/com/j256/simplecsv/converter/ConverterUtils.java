@@ -42,6 +42,150 @@ public class ConverterUtils {
 		converterMap.put(UUID.class, UuidConverter.getSingleton());
 	}
 
+	/**
+	 * Returns true if the character can be written in a column without quoting or escaping: letters, digits, and the
+	 * characters in "_$.+-:". This assumes that the column separator and quote are not one of these characters.
+	 */
+	public static boolean isSafeOutputChar(char ch) {
+		return (Character.isLetterOrDigit(ch) || ch == '_' || ch == '$' || ch == '.' || ch == '+' || ch == '-'
+				|| ch == ':');
+	}
+
+	/**
+	 * Returns true if all of the characters in the string are safe according to {@link #isSafeOutputChar(char)}.
+	 */
+	public static boolean isSafeOutput(String str) {
+		for (int i = 0; i < str.length(); i++) {
+			if (!isSafeOutputChar(str.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns false if the string is definitely not an integer that {@link Integer#parseInt(String)} and friends could
+	 * parse so the converters can report the error without the cost of an exception. An optional sign followed by
+	 * digits returns true although the number may still be out of range.
+	 */
+	static boolean isIntegerString(String str) {
+		int length = str.length();
+		int start = 0;
+		if (length > 0 && (str.charAt(0) == '-' || str.charAt(0) == '+')) {
+			start = 1;
+		}
+		if (start >= length) {
+			return false;
+		}
+		for (int i = start; i < length; i++) {
+			if (Character.digit(str.charAt(i), 10) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns false if the string is definitely not a decimal number so the converters can report the error without
+	 * the cost of an exception.
+	 * 
+	 * @param javaFloat
+	 *            If true then the string is checked for {@link Double#parseDouble(String)} which ignores surrounding
+	 *            whitespace, allows a trailing type suffix, and only ASCII digits. Strings that might be hexadecimal,
+	 *            NaN, or Infinity return true and are left to the parser. If false then it is checked for
+	 *            {@link java.math.BigDecimal#BigDecimal(String)}.
+	 */
+	static boolean isDecimalString(String str, boolean javaFloat) {
+		int start = 0;
+		int end = str.length();
+		if (javaFloat) {
+			while (start < end && str.charAt(start) <= ' ') {
+				start++;
+			}
+			while (end > start && str.charAt(end - 1) <= ' ') {
+				end--;
+			}
+			for (int i = start; i < end; i++) {
+				char ch = str.charAt(i);
+				if (ch == 'x' || ch == 'X' || ch == 'N' || ch == 'I') {
+					return true;
+				}
+			}
+			if (end > start) {
+				char last = str.charAt(end - 1);
+				if (last == 'f' || last == 'F' || last == 'd' || last == 'D') {
+					end--;
+				}
+			}
+		}
+		int pos = start;
+		if (pos < end && (str.charAt(pos) == '-' || str.charAt(pos) == '+')) {
+			pos++;
+		}
+		int digitStart = pos;
+		pos = skipDigits(str, pos, end, javaFloat);
+		int digitCount = pos - digitStart;
+		if (pos < end && str.charAt(pos) == '.') {
+			int fractionStart = ++pos;
+			pos = skipDigits(str, pos, end, javaFloat);
+			digitCount += pos - fractionStart;
+		}
+		if (digitCount == 0) {
+			return false;
+		}
+		if (pos < end && (str.charAt(pos) == 'e' || str.charAt(pos) == 'E')) {
+			pos++;
+			if (pos < end && (str.charAt(pos) == '-' || str.charAt(pos) == '+')) {
+				pos++;
+			}
+			int exponentStart = pos;
+			pos = skipDigits(str, pos, end, javaFloat);
+			if (pos == exponentStart) {
+				return false;
+			}
+		}
+		return (pos == end);
+	}
+
+	/**
+	 * Returns false if the string is definitely not a UUID that {@link java.util.UUID#fromString(String)} could parse:
+	 * five dash separated groups of hexadecimal digits.
+	 */
+	static boolean isUuidString(String str) {
+		int length = str.length();
+		if (length > 36) {
+			return false;
+		}
+		int dashCount = 0;
+		int groupLength = 0;
+		for (int i = 0; i < length; i++) {
+			char ch = str.charAt(i);
+			if (ch == '-') {
+				if (groupLength == 0) {
+					return false;
+				}
+				dashCount++;
+				groupLength = 0;
+			} else if (Character.digit(ch, 16) < 0) {
+				return false;
+			} else {
+				groupLength++;
+			}
+		}
+		return (dashCount == 4 && groupLength > 0);
+	}
+
+	private static int skipDigits(String str, int pos, int end, boolean asciiOnly) {
+		while (pos < end) {
+			char ch = str.charAt(pos);
+			if (asciiOnly ? (ch < '0' || ch > '9') : Character.digit(ch, 10) < 0) {
+				break;
+			}
+			pos++;
+		}
+		return pos;
+	}
+
 	/**
 	 * Construct a converter instance.
 	 */
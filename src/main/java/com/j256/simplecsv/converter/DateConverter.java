@@ -1,12 +1,14 @@
 package com.j256.simplecsv.converter;
 
 import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import com.j256.simplecsv.common.CsvColumn;
 import com.j256.simplecsv.processor.ColumnInfo;
 import com.j256.simplecsv.processor.ParseError;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
 
 /**
  * Converter for the Java java.util.Date type which uses the {@link SimpleDateFormat} -- don't worry I protect it for
@@ -85,14 +87,15 @@ public class DateConverter implements Converter<Date, String> {
 			return null;
 		}
 		String datePattern = (String) columnInfo.getConfigInfo();
-		try {
-			return threadLocal.get().parse(datePattern, value);
-		} catch (ParseException pe) {
-			ParseException wrappedPe =
-					new ParseException("Problem when using date-pattern: " + datePattern, pe.getErrorOffset());
-			wrappedPe.initCause(pe);
-			throw wrappedPe;
+		// this doesn't throw on errors like parse(String)
+		ParsePosition parsePosition = new ParsePosition(0);
+		Date date = threadLocal.get().parse(datePattern, value, parsePosition);
+		if (date == null) {
+			parseError.setErrorType(ErrorType.INVALID_FORMAT);
+			parseError.setMessage("Problem when using date-pattern: %s", datePattern);
+			parseError.setLinePos(linePos + parsePosition.getErrorIndex());
 		}
+		return date;
 	}
 
 	/**
@@ -103,8 +106,8 @@ public class DateConverter implements Converter<Date, String> {
 		private String format;
 		private SimpleDateFormat formatter;
 
-		public Date parse(String format, String dateString) throws ParseException {
-			return checkFormatter(format).parse(dateString);
+		public Date parse(String format, String dateString, ParsePosition parsePosition) {
+			return checkFormatter(format).parse(dateString, parsePosition);
 		}
 
 		public String format(String format, Date date) {
@@ -34,4 +34,9 @@ public class DoubleConverter extends AbstractNumberConverter<Double> {
 	protected Double parseString(String value) throws NumberFormatException {
 		return Double.parseDouble(value);
 	}
+
+	@Override
+	protected boolean isValidString(String value) {
+		return ConverterUtils.isDecimalString(value, true);
+	}
 }
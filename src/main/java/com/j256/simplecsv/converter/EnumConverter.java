@@ -1,6 +1,6 @@
 package com.j256.simplecsv.converter;
 
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -41,12 +41,14 @@ public class EnumConverter implements Converter<Enum<?>, EnumConverter.ConfigInf
 	public ConfigInfo configure(String format, long flags, ColumnInfo<Enum<?>> columnInfo) {
 
 		Map<String, Enum<?>> enumStringMap = new HashMap<String, Enum<?>>();
+		boolean outputSafe = true;
 		Enum<?>[] constants = (Enum<?>[]) columnInfo.getType().getEnumConstants();
 		if (constants == null) {
 			throw new IllegalArgumentException("Field " + columnInfo + " improperly configured as a enum");
 		}
 		for (Enum<?> enumVal : constants) {
 			enumStringMap.put(enumVal.name(), enumVal);
+			outputSafe = (outputSafe && ConverterUtils.isSafeOutput(enumVal.name()));
 		}
 
 		Enum<?> unknownValue = null;
@@ -58,7 +60,7 @@ public class EnumConverter implements Converter<Enum<?>, EnumConverter.ConfigInf
 			}
 		}
 
-		return new ConfigInfo(enumStringMap, unknownValue);
+		return new ConfigInfo(enumStringMap, unknownValue, outputSafe);
 	}
 
 	@Override
@@ -66,6 +68,16 @@ public class EnumConverter implements Converter<Enum<?>, EnumConverter.ConfigInf
 		return true;
 	}
 
+	@Override
+	public boolean isOutputSafe(ConfigInfo configInfo) {
+		return configInfo.outputSafe;
+	}
+
+	@Override
+	public Collection<Enum<?>> getFiniteValues(ConfigInfo configInfo) {
+		return configInfo.enumStringMap.values();
+	}
+
 	@Override
 	public boolean isAlwaysTrimInput() {
 		return true;
@@ -94,9 +106,7 @@ public class EnumConverter implements Converter<Enum<?>, EnumConverter.ConfigInf
 			return configInfo.unknownValue;
 		} else {
 			parseError.setErrorType(ErrorType.INVALID_FORMAT);
-			parseError.setMessage(value);
-			String possibleValues = Arrays.toString(columnInfo.getType().getEnumConstants());
-			parseError.setMessage("enum string not in " + possibleValues);
+			parseError.setMessage("enum string not in %s", columnInfo.getType().getEnumConstants());
 			parseError.setLinePos(linePos);
 			return null;
 		}
@@ -105,10 +115,12 @@ public class EnumConverter implements Converter<Enum<?>, EnumConverter.ConfigInf
 	static class ConfigInfo {
 		final Map<String, Enum<?>> enumStringMap;
 		final Enum<?> unknownValue;
+		final boolean outputSafe;
 
-		private ConfigInfo(Map<String, Enum<?>> enumStringMap, Enum<?> unknownValue) {
+		private ConfigInfo(Map<String, Enum<?>> enumStringMap, Enum<?> unknownValue, boolean outputSafe) {
 			this.enumStringMap = enumStringMap;
 			this.unknownValue = unknownValue;
+			this.outputSafe = outputSafe;
 		}
 	}
 }
@@ -34,4 +34,9 @@ public class FloatConverter extends AbstractNumberConverter<Float> {
 	protected Float parseString(String value) throws NumberFormatException {
 		return Float.parseFloat(value);
 	}
+
+	@Override
+	protected boolean isValidString(String value) {
+		return ConverterUtils.isDecimalString(value, true);
+	}
 }
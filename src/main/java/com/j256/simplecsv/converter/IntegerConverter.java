@@ -34,4 +34,9 @@ public class IntegerConverter extends AbstractNumberConverter<Integer> {
 	protected Integer parseString(String value) throws NumberFormatException {
 		return Integer.parseInt(value);
 	}
+
+	@Override
+	protected boolean isValidString(String value) {
+		return ConverterUtils.isIntegerString(value);
+	}
 }
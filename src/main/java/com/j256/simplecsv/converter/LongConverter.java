@@ -34,4 +34,9 @@ public class LongConverter extends AbstractNumberConverter<Long> {
 	protected Long parseString(String value) throws NumberFormatException {
 		return Long.parseLong(value);
 	}
+
+	@Override
+	protected boolean isValidString(String value) {
+		return ConverterUtils.isIntegerString(value);
+	}
 }
@@ -34,4 +34,9 @@ public class ShortConverter extends AbstractNumberConverter<Short> {
 	protected Short parseString(String value) throws NumberFormatException {
 		return Short.parseShort(value);
 	}
+
+	@Override
+	protected boolean isValidString(String value) {
+		return ConverterUtils.isIntegerString(value);
+	}
 }
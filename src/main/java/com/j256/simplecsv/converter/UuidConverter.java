@@ -4,6 +4,7 @@ import java.util.UUID;
 
 import com.j256.simplecsv.processor.ColumnInfo;
 import com.j256.simplecsv.processor.ParseError;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
 
 /**
  * Converter for the Java UUID type.
@@ -32,6 +33,12 @@ public class UuidConverter implements Converter<UUID, Void> {
 		return true;
 	}
 
+	@Override
+	public boolean isOutputSafe(Void configInfo) {
+		// hex digits and dashes
+		return true;
+	}
+
 	@Override
 	public boolean isAlwaysTrimInput() {
 		return true;
@@ -51,8 +58,16 @@ public class UuidConverter implements Converter<UUID, Void> {
 			ParseError parseError) {
 		if (value.isEmpty()) {
 			return null;
-		} else {
-			return UUID.fromString(value);
+		} else if (ConverterUtils.isUuidString(value)) {
+			try {
+				return UUID.fromString(value);
+			} catch (IllegalArgumentException iae) {
+				// groups with too many digits still get here
+			}
 		}
+		parseError.setErrorType(ErrorType.INVALID_FORMAT);
+		parseError.setMessage("Invalid UUID string: %s", value);
+		parseError.setLinePos(linePos);
+		return null;
 	}
 }
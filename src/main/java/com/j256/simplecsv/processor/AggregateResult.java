@@ -0,0 +1,448 @@
+package com.j256.simplecsv.processor;
+
+import java.util.Arrays;
+
+/**
+ * Results of a {@link CsvAggregator}: the row count of each group along with the count, sum, min, and max of the
+ * non-blank values of each of the aggregated columns. Groups are numbered from 0 in the order they were first seen.
+ *
+ * <p>
+ * The groups are found with an open-addressing hash table of group numbers which is probed with a 64-bit hash of the
+ * group-by values so looking up a row's group does not allocate. Integral group-by columns are hashed and compared as
+ * longs. The accumulators are primitive arrays indexed by group number. Sums of integral columns are kept as longs and
+ * those of other columns as doubles.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class AggregateResult {
+
+	private static final int INITIAL_GROUP_CAPACITY = 16;
+
+	private final String[] groupByColumns;
+	private final String[] aggregateColumns;
+	private final boolean[] groupByIntegral;
+	private final boolean[] aggregateIntegral;
+	// group-number + 1 of each slot so 0 is empty
+	private int[] slots;
+	private int groupCount;
+	private long[] groupHashes;
+	// by group-by column and then group
+	private final Object[][] groupValues;
+	private final long[][] groupLongs;
+	private long[] rowCounts;
+	// by aggregate column and then group, the long or double arrays are null depending on the column type
+	private final long[][] counts;
+	private final long[][] longSums;
+	private final long[][] longMins;
+	private final long[][] longMaxes;
+	private final double[][] sums;
+	private final double[][] mins;
+	private final double[][] maxes;
+	// reused for the group-by values of each row
+	private final Object[] keyValues;
+
+	AggregateResult(String[] groupByColumns, Class<?>[] groupByTypes, String[] aggregateColumns,
+			Class<?>[] aggregateTypes) {
+		this.groupByColumns = groupByColumns;
+		this.aggregateColumns = aggregateColumns;
+		this.groupByIntegral = new boolean[groupByColumns.length];
+		this.groupValues = new Object[groupByColumns.length][];
+		this.groupLongs = new long[groupByColumns.length][];
+		for (int i = 0; i < groupByColumns.length; i++) {
+			groupByIntegral[i] = (isIntegral(groupByTypes[i]) || groupByTypes[i] == char.class
+					|| groupByTypes[i] == Character.class);
+			groupValues[i] = new Object[INITIAL_GROUP_CAPACITY];
+			if (groupByIntegral[i]) {
+				groupLongs[i] = new long[INITIAL_GROUP_CAPACITY];
+			}
+		}
+		this.aggregateIntegral = new boolean[aggregateColumns.length];
+		this.counts = new long[aggregateColumns.length][];
+		this.longSums = new long[aggregateColumns.length][];
+		this.longMins = new long[aggregateColumns.length][];
+		this.longMaxes = new long[aggregateColumns.length][];
+		this.sums = new double[aggregateColumns.length][];
+		this.mins = new double[aggregateColumns.length][];
+		this.maxes = new double[aggregateColumns.length][];
+		for (int i = 0; i < aggregateColumns.length; i++) {
+			aggregateIntegral[i] = isIntegral(aggregateTypes[i]);
+			counts[i] = new long[INITIAL_GROUP_CAPACITY];
+			if (aggregateIntegral[i]) {
+				longSums[i] = new long[INITIAL_GROUP_CAPACITY];
+				longMins[i] = new long[INITIAL_GROUP_CAPACITY];
+				longMaxes[i] = new long[INITIAL_GROUP_CAPACITY];
+			} else {
+				sums[i] = new double[INITIAL_GROUP_CAPACITY];
+				mins[i] = new double[INITIAL_GROUP_CAPACITY];
+				maxes[i] = new double[INITIAL_GROUP_CAPACITY];
+			}
+		}
+		this.slots = new int[INITIAL_GROUP_CAPACITY * 2];
+		this.groupHashes = new long[INITIAL_GROUP_CAPACITY];
+		this.rowCounts = new long[INITIAL_GROUP_CAPACITY];
+		this.keyValues = new Object[groupByColumns.length];
+	}
+
+	/**
+	 * Number of groups that were found. If there are no group-by columns then there is one group with all of the rows
+	 * if any were aggregated.
+	 */
+	public int getGroupCount() {
+		return groupCount;
+	}
+
+	/**
+	 * Returns the value of the group-by column of the group which may be null if the column was blank.
+	 */
+	public Object getGroupValue(int group, String groupByColumn) {
+		checkGroup(group);
+		return groupValues[columnIndex(groupByColumns, groupByColumn, "grouped by")][group];
+	}
+
+	/**
+	 * Find the group with the group-by values in the order of the group-by columns. Integral columns can be looked up
+	 * with any integral number.
+	 *
+	 * @return The group number or -1 if there is no group with the values.
+	 */
+	public int findGroup(Object... values) {
+		if (values.length != groupByColumns.length) {
+			throw new IllegalArgumentException(
+					"Expected " + groupByColumns.length + " group-by values but got " + values.length);
+		}
+		return findGroup(hashKey(values), values);
+	}
+
+	/**
+	 * Number of rows in the group.
+	 */
+	public long getRowCount(int group) {
+		checkGroup(group);
+		return rowCounts[group];
+	}
+
+	/**
+	 * Number of rows in the group whose value of the column was not blank.
+	 */
+	public long getCount(int group, String aggregateColumn) {
+		checkGroup(group);
+		return counts[columnIndex(aggregateColumns, aggregateColumn, "aggregated")][group];
+	}
+
+	/**
+	 * Sum of the values of the column in the group.
+	 */
+	public double getSum(int group, String aggregateColumn) {
+		checkGroup(group);
+		int index = columnIndex(aggregateColumns, aggregateColumn, "aggregated");
+		if (aggregateIntegral[index]) {
+			return longSums[index][group];
+		} else {
+			return sums[index][group];
+		}
+	}
+
+	/**
+	 * Sum of the values of an integral column in the group without the rounding of {@link #getSum(int, String)}.
+	 */
+	public long getLongSum(int group, String aggregateColumn) {
+		checkGroup(group);
+		int index = columnIndex(aggregateColumns, aggregateColumn, "aggregated");
+		if (!aggregateIntegral[index]) {
+			throw new IllegalArgumentException("Column '" + aggregateColumn + "' is not an integral column");
+		}
+		return longSums[index][group];
+	}
+
+	/**
+	 * Minimum value of the column in the group or NaN if there were no values.
+	 */
+	public double getMin(int group, String aggregateColumn) {
+		checkGroup(group);
+		int index = columnIndex(aggregateColumns, aggregateColumn, "aggregated");
+		if (counts[index][group] == 0) {
+			return Double.NaN;
+		} else if (aggregateIntegral[index]) {
+			return longMins[index][group];
+		} else {
+			return mins[index][group];
+		}
+	}
+
+	/**
+	 * Maximum value of the column in the group or NaN if there were no values.
+	 */
+	public double getMax(int group, String aggregateColumn) {
+		checkGroup(group);
+		int index = columnIndex(aggregateColumns, aggregateColumn, "aggregated");
+		if (counts[index][group] == 0) {
+			return Double.NaN;
+		} else if (aggregateIntegral[index]) {
+			return longMaxes[index][group];
+		} else {
+			return maxes[index][group];
+		}
+	}
+
+	/**
+	 * Average value of the column in the group or NaN if there were no values.
+	 */
+	public double getAverage(int group, String aggregateColumn) {
+		long count = getCount(group, aggregateColumn);
+		if (count == 0) {
+			return Double.NaN;
+		} else {
+			return getSum(group, aggregateColumn) / count;
+		}
+	}
+
+	/**
+	 * Add a row to its group.
+	 *
+	 * @param values
+	 *            Converted values of the row by column position.
+	 * @param groupByPositions
+	 *            Positions of the group-by columns in the values.
+	 * @param aggregatePositions
+	 *            Positions of the aggregated columns in the values.
+	 */
+	void add(Object[] values, int[] groupByPositions, int[] aggregatePositions) {
+		for (int i = 0; i < groupByPositions.length; i++) {
+			keyValues[i] = values[groupByPositions[i]];
+		}
+		long hash = hashKey(keyValues);
+		int group = findGroup(hash, keyValues);
+		if (group < 0) {
+			group = addGroup(hash, keyValues);
+		}
+		rowCounts[group]++;
+		for (int i = 0; i < aggregatePositions.length; i++) {
+			Object value = values[aggregatePositions[i]];
+			if (value == null) {
+				continue;
+			}
+			long count = counts[i][group]++;
+			if (aggregateIntegral[i]) {
+				long longValue = ((Number) value).longValue();
+				longSums[i][group] += longValue;
+				if (count == 0 || longValue < longMins[i][group]) {
+					longMins[i][group] = longValue;
+				}
+				if (count == 0 || longValue > longMaxes[i][group]) {
+					longMaxes[i][group] = longValue;
+				}
+			} else {
+				double doubleValue = ((Number) value).doubleValue();
+				sums[i][group] += doubleValue;
+				if (count == 0 || doubleValue < mins[i][group]) {
+					mins[i][group] = doubleValue;
+				}
+				if (count == 0 || doubleValue > maxes[i][group]) {
+					maxes[i][group] = doubleValue;
+				}
+			}
+		}
+		// don't hold onto the row's values
+		Arrays.fill(keyValues, null);
+	}
+
+	/**
+	 * Merge the groups of another result that was aggregated with the same columns into this one. The groups of the
+	 * other result that are not in this one are numbered after ours.
+	 */
+	void merge(AggregateResult other) {
+		for (int otherGroup = 0; otherGroup < other.groupCount; otherGroup++) {
+			for (int i = 0; i < groupByColumns.length; i++) {
+				keyValues[i] = other.groupValues[i][otherGroup];
+			}
+			long hash = other.groupHashes[otherGroup];
+			int group = findGroup(hash, keyValues);
+			if (group < 0) {
+				group = addGroup(hash, keyValues);
+			}
+			rowCounts[group] += other.rowCounts[otherGroup];
+			for (int i = 0; i < aggregateColumns.length; i++) {
+				long otherCount = other.counts[i][otherGroup];
+				if (otherCount == 0) {
+					continue;
+				}
+				long count = counts[i][group];
+				counts[i][group] = count + otherCount;
+				if (aggregateIntegral[i]) {
+					longSums[i][group] += other.longSums[i][otherGroup];
+					if (count == 0 || other.longMins[i][otherGroup] < longMins[i][group]) {
+						longMins[i][group] = other.longMins[i][otherGroup];
+					}
+					if (count == 0 || other.longMaxes[i][otherGroup] > longMaxes[i][group]) {
+						longMaxes[i][group] = other.longMaxes[i][otherGroup];
+					}
+				} else {
+					sums[i][group] += other.sums[i][otherGroup];
+					if (count == 0 || other.mins[i][otherGroup] < mins[i][group]) {
+						mins[i][group] = other.mins[i][otherGroup];
+					}
+					if (count == 0 || other.maxes[i][otherGroup] > maxes[i][group]) {
+						maxes[i][group] = other.maxes[i][otherGroup];
+					}
+				}
+			}
+		}
+		Arrays.fill(keyValues, null);
+	}
+
+	/**
+	 * Returns true if values of the type are summed as longs and, for group-by columns, compared as longs.
+	 */
+	static boolean isIntegral(Class<?> type) {
+		return (type == long.class || type == Long.class || type == int.class || type == Integer.class
+				|| type == short.class || type == Short.class || type == byte.class || type == Byte.class);
+	}
+
+	/**
+	 * Returns true if the type can be aggregated. Numbers that are not integral are summed as doubles.
+	 */
+	static boolean isNumeric(Class<?> type) {
+		return (isIntegral(type) || type == double.class || type == float.class || Number.class.isAssignableFrom(type));
+	}
+
+	private int findGroup(long hash, Object[] values) {
+		int mask = slots.length - 1;
+		for (int slot = (int) hash & mask;; slot = (slot + 1) & mask) {
+			int group = slots[slot] - 1;
+			if (group < 0) {
+				return -1;
+			}
+			if (groupHashes[group] == hash && matches(group, values)) {
+				return group;
+			}
+		}
+	}
+
+	private int addGroup(long hash, Object[] values) {
+		if (groupCount == groupHashes.length) {
+			growGroups();
+		}
+		int group = groupCount++;
+		groupHashes[group] = hash;
+		for (int i = 0; i < values.length; i++) {
+			Object value = values[i];
+			groupValues[i][group] = value;
+			if (groupByIntegral[i] && value != null) {
+				groupLongs[i][group] = longValue(value);
+			}
+		}
+		insertSlot(group);
+		return group;
+	}
+
+	private boolean matches(int group, Object[] values) {
+		for (int i = 0; i < values.length; i++) {
+			Object value = values[i];
+			Object groupValue = groupValues[i][group];
+			if (value == null || groupValue == null) {
+				if (value != groupValue) {
+					return false;
+				}
+			} else if (groupByIntegral[i]) {
+				if (!(value instanceof Number || value instanceof Character)
+						|| longValue(value) != groupLongs[i][group]) {
+					return false;
+				}
+			} else if (!value.equals(groupValue)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long hashKey(Object[] values) {
+		long hash = 0;
+		for (int i = 0; i < values.length; i++) {
+			Object value = values[i];
+			long valueHash;
+			if (value == null) {
+				valueHash = 0x9e3779b97f4a7c15L;
+			} else if (groupByIntegral[i] && (value instanceof Number || value instanceof Character)) {
+				valueHash = longValue(value);
+			} else {
+				valueHash = value.hashCode();
+			}
+			hash = mix(hash * 31 + valueHash);
+		}
+		return hash;
+	}
+
+	private void growGroups() {
+		int capacity = groupHashes.length * 2;
+		groupHashes = Arrays.copyOf(groupHashes, capacity);
+		rowCounts = Arrays.copyOf(rowCounts, capacity);
+		for (int i = 0; i < groupByColumns.length; i++) {
+			groupValues[i] = Arrays.copyOf(groupValues[i], capacity);
+			if (groupByIntegral[i]) {
+				groupLongs[i] = Arrays.copyOf(groupLongs[i], capacity);
+			}
+		}
+		for (int i = 0; i < aggregateColumns.length; i++) {
+			counts[i] = Arrays.copyOf(counts[i], capacity);
+			if (aggregateIntegral[i]) {
+				longSums[i] = Arrays.copyOf(longSums[i], capacity);
+				longMins[i] = Arrays.copyOf(longMins[i], capacity);
+				longMaxes[i] = Arrays.copyOf(longMaxes[i], capacity);
+			} else {
+				sums[i] = Arrays.copyOf(sums[i], capacity);
+				mins[i] = Arrays.copyOf(mins[i], capacity);
+				maxes[i] = Arrays.copyOf(maxes[i], capacity);
+			}
+		}
+		// keep the table at most half full
+		slots = new int[capacity * 2];
+		for (int group = 0; group < groupCount; group++) {
+			insertSlot(group);
+		}
+	}
+
+	private void insertSlot(int group) {
+		int mask = slots.length - 1;
+		int slot = (int) groupHashes[group] & mask;
+		while (slots[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		slots[slot] = group + 1;
+	}
+
+	private void checkGroup(int group) {
+		if (group < 0 || group >= groupCount) {
+			throw new IndexOutOfBoundsException("Group " + group + " is not between 0 and " + groupCount);
+		}
+	}
+
+	private static int columnIndex(String[] columns, String column, String label) {
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i].equals(column)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Column '" + column + "' was not " + label);
+	}
+
+	private static long longValue(Object value) {
+		if (value instanceof Character) {
+			return (Character) value;
+		} else {
+			return ((Number) value).longValue();
+		}
+	}
+
+	/**
+	 * Final mix of murmur3 so all of the bits depend on all of the input bits.
+	 */
+	private static long mix(long value) {
+		value ^= (value >>> 33);
+		value *= 0xff51afd7ed558ccdL;
+		value ^= (value >>> 33);
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= (value >>> 33);
+		return value;
+	}
+}
@@ -0,0 +1,28 @@
+package com.j256.simplecsv.processor;
+
+import java.text.ParseException;
+import java.util.List;
+
+import com.j256.simplecsv.processor.ParseError.ErrorType;
+
+/**
+ * Row validator callback that can be registered with the
+ * {@link CsvProcessor#setBatchRowValidator(BatchRowValidator)} that validates blocks of entities _after_ they have been
+ * parsed. This allows lookups of reference data or duplicate checks to be done for many rows at once instead of once
+ * per row like a {@link RowValidator}.
+ * 
+ * @author graywatson
+ */
+public interface BatchRowValidator<T> {
+
+	/**
+	 * Validate a batch of entities that were parsed and passed any {@link RowValidator} without errors. The
+	 * line-numbers and parse-errors arrays may be longer than the list of entities but the first entries are at the
+	 * same indexes. If there is a problem with an entity then set the parse-error at its index with error information,
+	 * using at least the {@link ParseError#setErrorType(ErrorType)} (probably with {@link ErrorType#INVALID_ENTITY}) and
+	 * optimally a message. The line and line-number of the error are set afterwards if they have not been. You can
+	 * also throw a ParseException from this method which will be caught to set the parse-error of every entity in the
+	 * batch if necessary.
+	 */
+	public void validateRows(List<T> entities, int[] lineNumbers, ParseError[] parseErrors) throws ParseException;
+}
@@ -17,6 +17,10 @@ public class BufferedReaderLineCounter extends BufferedReader {
 		super(reader);
 	}
 
+	public BufferedReaderLineCounter(Reader reader, int bufferSize) {
+		super(reader, bufferSize);
+	}
+
 	@Override
 	public String readLine() throws IOException {
 		String line = super.readLine();
@@ -0,0 +1,170 @@
+package com.j256.simplecsv.processor;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results from reading a number of files with {@link CsvProcessor#readAll(java.util.Collection)}. It holds the
+ * entities and parse errors for each of the files in the order that they were passed in along with some throughput
+ * metrics.
+ *
+ * @author graywatson
+ */
+public class BulkReadResult<T> {
+
+	private final List<FileResult<T>> fileResults;
+	private final long elapsedNanos;
+	private final long rowCount;
+	private final long parseErrorCount;
+	private final long byteCount;
+	private final int failedFileCount;
+
+	BulkReadResult(List<FileResult<T>> fileResults, long elapsedNanos) {
+		this.fileResults = Collections.unmodifiableList(fileResults);
+		this.elapsedNanos = elapsedNanos;
+		long rowCount = 0;
+		long parseErrorCount = 0;
+		long byteCount = 0;
+		int failedFileCount = 0;
+		for (FileResult<T> fileResult : fileResults) {
+			rowCount += fileResult.getEntities().size();
+			parseErrorCount += fileResult.getParseErrors().size();
+			byteCount += fileResult.getByteCount();
+			if (fileResult.getException() != null) {
+				failedFileCount++;
+			}
+		}
+		this.rowCount = rowCount;
+		this.parseErrorCount = parseErrorCount;
+		this.byteCount = byteCount;
+		this.failedFileCount = failedFileCount;
+	}
+
+	/**
+	 * Results for each of the files in the same order as the paths that were passed in.
+	 */
+	public List<FileResult<T>> getFileResults() {
+		return fileResults;
+	}
+
+	/**
+	 * Number of entities that were read from all of the files.
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Number of parse errors from all of the files.
+	 */
+	public long getParseErrorCount() {
+		return parseErrorCount;
+	}
+
+	/**
+	 * Number of bytes in all of the files.
+	 */
+	public long getByteCount() {
+		return byteCount;
+	}
+
+	/**
+	 * Number of files that could not be read because of an exception.
+	 */
+	public int getFailedFileCount() {
+		return failedFileCount;
+	}
+
+	/**
+	 * Wall-clock time that it took to read all of the files.
+	 */
+	public long getElapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+	}
+
+	/**
+	 * Number of files read per second of wall-clock time.
+	 */
+	public double getFilesPerSecond() {
+		return perSecond(fileResults.size());
+	}
+
+	/**
+	 * Number of entities read per second of wall-clock time.
+	 */
+	public double getRowsPerSecond() {
+		return perSecond(rowCount);
+	}
+
+	/**
+	 * Number of bytes read per second of wall-clock time.
+	 */
+	public double getBytesPerSecond() {
+		return perSecond(byteCount);
+	}
+
+	private double perSecond(long count) {
+		if (elapsedNanos <= 0) {
+			return 0;
+		}
+		return count * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	/**
+	 * Results from reading one file.
+	 */
+	public static class FileResult<T> {
+
+		private final Path path;
+		private final List<T> entities;
+		private final List<ParseError> parseErrors;
+		private final Exception exception;
+		private final long byteCount;
+		private final long elapsedNanos;
+
+		FileResult(Path path, List<T> entities, List<ParseError> parseErrors, Exception exception, long byteCount,
+				long elapsedNanos) {
+			this.path = path;
+			this.entities = entities;
+			this.parseErrors = parseErrors;
+			this.exception = exception;
+			this.byteCount = byteCount;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * Entities read from the file. This will be empty if the header was not valid or the file could not be read.
+		 */
+		public List<T> getEntities() {
+			return entities;
+		}
+
+		/**
+		 * Parse errors for the rows in the file that were skipped or the header.
+		 */
+		public List<ParseError> getParseErrors() {
+			return parseErrors;
+		}
+
+		/**
+		 * Exception thrown when reading the file or null if none.
+		 */
+		public Exception getException() {
+			return exception;
+		}
+
+		public long getByteCount() {
+			return byteCount;
+		}
+
+		public long getElapsedMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+		}
+	}
+}
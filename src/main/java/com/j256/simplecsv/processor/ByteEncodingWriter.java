@@ -0,0 +1,240 @@
+package com.j256.simplecsv.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * Writer which encodes characters into a reusable byte buffer and writes it to an output-stream or channel when it
+ * fills. If the charset encodes ASCII as single identical bytes, like UTF-8 or ISO-8859-1, then runs of ASCII
+ * characters, which is most of a typical CSV row, are copied straight into the buffer and the charset encoder is only
+ * used for the other characters. This avoids the per-call overhead of {@link java.io.OutputStreamWriter} and the extra
+ * copy of a {@link java.io.BufferedWriter} in front of it.
+ *
+ * <p>
+ * This is not thread safe.
+ * </p>
+ *
+ * @author graywatson
+ */
+class ByteEncodingWriter extends Writer {
+
+	private static final int SCRATCH_SIZE = 1024;
+
+	private final OutputStream outputStream;
+	private final WritableByteChannel channel;
+	private final boolean closeTarget;
+	private final CharsetEncoder encoder;
+	private final boolean asciiCompatible;
+	private final ByteBuffer buffer;
+	private final byte[] bytes;
+	private final char[] scratch = new char[SCRATCH_SIZE];
+	// high surrogate at the end of a write waiting for its low surrogate
+	private char pendingSurrogate;
+	private boolean closed;
+
+	public ByteEncodingWriter(OutputStream outputStream, CharsetEncoder encoder, int bufferSize, boolean closeTarget) {
+		this(outputStream, null, encoder, bufferSize, closeTarget);
+	}
+
+	public ByteEncodingWriter(WritableByteChannel channel, CharsetEncoder encoder, int bufferSize,
+			boolean closeTarget) {
+		this(null, channel, encoder, bufferSize, closeTarget);
+	}
+
+	private ByteEncodingWriter(OutputStream outputStream, WritableByteChannel channel, CharsetEncoder encoder,
+			int bufferSize, boolean closeTarget) {
+		this.outputStream = outputStream;
+		this.channel = channel;
+		this.closeTarget = closeTarget;
+		this.encoder = encoder;
+		this.asciiCompatible = isAsciiCompatible(encoder);
+		// must be able to hold the longest encoded character
+		this.buffer = ByteBuffer.allocate(Math.max(bufferSize, (int) Math.ceil(encoder.maxBytesPerChar()) * 2));
+		this.bytes = buffer.array();
+	}
+
+	@Override
+	public void write(char[] chars, int offset, int length) throws IOException {
+		checkOpen();
+		int end = offset + length;
+		int charPos = offset;
+		if (pendingSurrogate != 0 && charPos < end) {
+			encode(CharBuffer.wrap(new char[] { pendingSurrogate, chars[charPos] }));
+			charPos++;
+		}
+		while (charPos < end) {
+			if (asciiCompatible) {
+				int bytePos = buffer.position();
+				int stop = charPos + Math.min(end - charPos, bytes.length - bytePos);
+				while (charPos < stop) {
+					char ch = chars[charPos];
+					if (ch >= 0x80) {
+						break;
+					}
+					bytes[bytePos++] = (byte) ch;
+					charPos++;
+				}
+				buffer.position(bytePos);
+				if (charPos >= end) {
+					break;
+				}
+				if (chars[charPos] < 0x80) {
+					// buffer is full
+					writeBuffer();
+					continue;
+				}
+			}
+			// encode the run of non-ASCII characters or everything if the charset isn't ASCII compatible
+			int runEnd = charPos + 1;
+			if (asciiCompatible) {
+				while (runEnd < end && chars[runEnd] >= 0x80) {
+					runEnd++;
+				}
+			} else {
+				runEnd = end;
+			}
+			encode(CharBuffer.wrap(chars, charPos, runEnd - charPos));
+			charPos = runEnd;
+		}
+	}
+
+	/**
+	 * Copy the string through our scratch buffer in chunks so rows written as strings aren't copied into a new array.
+	 */
+	@Override
+	public void write(String str, int offset, int length) throws IOException {
+		int end = offset + length;
+		while (offset < end) {
+			int num = Math.min(end - offset, scratch.length);
+			str.getChars(offset, offset + num, scratch, 0);
+			write(scratch, 0, num);
+			offset += num;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		checkOpen();
+		writeBuffer();
+		if (outputStream != null) {
+			outputStream.flush();
+		}
+	}
+
+	/**
+	 * Finish the encoding, write out the buffer, and close the target if we were told to.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			CharBuffer remaining;
+			if (pendingSurrogate == 0) {
+				remaining = CharBuffer.allocate(0);
+			} else {
+				remaining = CharBuffer.wrap(new char[] { pendingSurrogate });
+				pendingSurrogate = 0;
+			}
+			while (true) {
+				CoderResult result = encoder.encode(remaining, buffer, true);
+				if (!result.isOverflow()) {
+					checkResult(result);
+					break;
+				}
+				writeBuffer();
+			}
+			while (encoder.flush(buffer).isOverflow()) {
+				writeBuffer();
+			}
+			flush();
+		} finally {
+			closed = true;
+			if (closeTarget) {
+				if (outputStream == null) {
+					channel.close();
+				} else {
+					outputStream.close();
+				}
+			}
+		}
+	}
+
+	private void encode(CharBuffer input) throws IOException {
+		pendingSurrogate = 0;
+		while (true) {
+			CoderResult result = encoder.encode(input, buffer, false);
+			if (!result.isOverflow()) {
+				checkResult(result);
+				break;
+			}
+			writeBuffer();
+		}
+		// the encoder leaves a trailing high surrogate so it can be encoded with the next write
+		if (input.hasRemaining()) {
+			pendingSurrogate = input.get();
+		}
+	}
+
+	private void checkResult(CoderResult result) throws CharacterCodingException {
+		// can't happen if the encoder replaces malformed and unmappable characters
+		if (result.isError()) {
+			result.throwException();
+		}
+	}
+
+	private void writeBuffer() throws IOException {
+		if (buffer.position() == 0) {
+			return;
+		}
+		if (outputStream == null) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} else {
+			outputStream.write(bytes, 0, buffer.position());
+		}
+		buffer.clear();
+	}
+
+	private void checkOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Writer has been closed");
+		}
+	}
+
+	/**
+	 * Returns true if the encoder encodes all ASCII characters as the same single bytes.
+	 */
+	private static boolean isAsciiCompatible(CharsetEncoder encoder) {
+		char[] ascii = new char[0x80];
+		for (int i = 0; i < ascii.length; i++) {
+			ascii[i] = (char) i;
+		}
+		ByteBuffer encoded;
+		try {
+			// a new encoder so we don't disturb the state of ours
+			encoded = encoder.charset().newEncoder().encode(CharBuffer.wrap(ascii));
+		} catch (CharacterCodingException cce) {
+			return false;
+		}
+		if (encoded.remaining() != ascii.length) {
+			return false;
+		}
+		for (int i = 0; i < ascii.length; i++) {
+			if (encoded.get(i) != i) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,17 @@
+package com.j256.simplecsv.processor;
+
+/**
+ * Filter callback that can be registered with {@link CsvProcessor#setColumnFilter(String, ColumnFilter)} or
+ * {@link CsvProcessor#setRawColumnFilter(String, ColumnFilter)} that decides whether a row is read from the value of
+ * one of its columns. It is called _before_ the rest of the row is converted so rows that are filtered out do not have
+ * their other columns converted or their entity constructed.
+ *
+ * @author graywatson
+ */
+public interface ColumnFilter<V> {
+
+	/**
+	 * Returns true if the row with the column value should be read or false to skip it. Skipped rows are not errors.
+	 */
+	public boolean acceptColumn(V value);
+}
@@ -32,9 +32,11 @@ public class ColumnInfo<T> {
 	private final Object configInfo;
 	private final String columnName;
 	private int position;
+	private int argumentIndex = -1;
 	private final boolean mustNotBeBlank;
 	private final boolean trimInput;
 	private final boolean needsQuotes;
+	private final boolean outputSafe;
 	private final String defaultValue;
 	private final boolean mustBeSupplied;
 	private final String afterColumn;
@@ -60,6 +62,7 @@ public class ColumnInfo<T> {
 		@SuppressWarnings("unchecked")
 		Converter<Object, Object> castConverter = (Converter<Object, Object>) converter;
 		this.needsQuotes = castConverter.isNeedsQuotes(configInfo);
+		this.outputSafe = castConverter.isOutputSafe(configInfo);
 	}
 
 	/**
@@ -80,10 +83,13 @@ public class ColumnInfo<T> {
 
 	/**
 	 * Set the value associated with this field from the object parameter either by setting via the field or calling the
-	 * set method.
+	 * set method. If the entity is constructed with arguments then the object parameter is the argument array and the
+	 * value is stored at our argument-index.
 	 */
 	public void setValue(Object obj, T value) throws IllegalAccessException, InvocationTargetException {
-		if (field == null) {
+		if (argumentIndex >= 0) {
+			((Object[]) obj)[argumentIndex] = value;
+		} else if (field == null) {
 			setMethod.invoke(obj, value);
 		} else {
 			field.set(obj, value);
@@ -159,6 +165,21 @@ public class ColumnInfo<T> {
 		this.position = position;
 	}
 
+	/**
+	 * Returns the index of this column in the constructor or factory arguments or -1 if the entity is constructed with a
+	 * no-arg constructor and the column is set directly.
+	 */
+	public int getArgumentIndex() {
+		return argumentIndex;
+	}
+
+	/**
+	 * Set the index of this column in the constructor or factory arguments.
+	 */
+	public void setArgumentIndex(int argumentIndex) {
+		this.argumentIndex = argumentIndex;
+	}
+
 	/**
 	 * Returns whether this column is required.
 	 * 
@@ -184,6 +205,15 @@ public class ColumnInfo<T> {
 		return needsQuotes;
 	}
 
+	/**
+	 * Returns whether the converter's output for this column never needs to be scanned for special characters.
+	 * 
+	 * @see Converter#isOutputSafe(Object)
+	 */
+	public boolean isOutputSafe() {
+		return outputSafe;
+	}
+
 	/**
 	 * Returns the default string for the column or null if none.
 	 * 
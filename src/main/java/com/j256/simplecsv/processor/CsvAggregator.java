@@ -0,0 +1,445 @@
+package com.j256.simplecsv.processor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Computes the count, sum, min, and max of numeric columns grouped by the values of other columns in a single pass over
+ * the rows without constructing any entities. Only the group-by and aggregated columns are converted, with the same
+ * converters and settings as when reading entities, and the rest are skipped over. Create one with
+ * {@link CsvProcessor#newAggregator()}.
+ *
+ * <p>
+ * Files can be aggregated in parallel with {@link #setThreadCount(int)}. The file's row index from
+ * {@link CsvProcessor#loadRowIndex(Path, Charset)} is used to split the rows into ranges which are aggregated by their
+ * own threads and then merged. Any custom converters must be thread-safe in that case.
+ * </p>
+ *
+ * <p>
+ * The row-validators, batch-row-validator, and duplicate-key column of the processor are not used since there are no
+ * entities but rows are skipped by its column filters. Errors are written to the processor's reject-writer and counted
+ * against its max-parse-errors.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class CsvAggregator<T> {
+
+	private final CsvProcessor<T> processor;
+	private String[] groupByColumns = new String[0];
+	private String[] aggregateColumns = new String[0];
+	private int threadCount = 1;
+
+	CsvAggregator(CsvProcessor<T> processor) {
+		this.processor = processor;
+	}
+
+	/**
+	 * Aggregate the rows from the reader.
+	 *
+	 * @param reader
+	 *            Where to read the header and rows from. NOTE: It must be closed by the caller.
+	 * @param parseErrors
+	 *            If not null, any errors will be added to the collection and the rows skipped. If this is null then a
+	 *            ParseException will be thrown on parsing problems.
+	 * @return The aggregates of each group or null if validateHeader is true and the first-line header was not valid.
+	 * @throws ParseException
+	 *             Thrown on any parsing problems. If parseErrors is not null then parse errors will be added there and
+	 *             an exception should not be thrown.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when reading.
+	 */
+	public AggregateResult aggregate(Reader reader, Collection<ParseError> parseErrors)
+			throws ParseException, IOException {
+		// the header sets the column positions so we need our own processor
+		CsvProcessor<T> rowProcessor = processor.copyWithSharedColumns();
+		BufferedReaderLineCounter bufferedReader = new BufferedReaderLineCounter(reader);
+		if (!readHeader(rowProcessor, bufferedReader, parseErrors)) {
+			return null;
+		}
+		Columns columns = new Columns(rowProcessor);
+		AggregateResult result = columns.newResult();
+		RecordReader recordReader = rowProcessor.buildRecordReader(bufferedReader, bufferedReader.getLineCount());
+		aggregateRows(rowProcessor, columns, recordReader, Long.MAX_VALUE, result, parseErrors, null);
+		return result;
+	}
+
+	/**
+	 * Aggregate the rows from the file using the platform default charset. See
+	 * {@link #aggregate(Path, Charset, Collection)}.
+	 */
+	public AggregateResult aggregate(File file, Collection<ParseError> parseErrors)
+			throws ParseException, IOException {
+		return aggregate(file.toPath(), Charset.defaultCharset(), parseErrors);
+	}
+
+	/**
+	 * Aggregate the rows from the file. If the thread-count is more than 1 then the file's row index is used to split it
+	 * into that many ranges which are aggregated at the same time and then merged. Parse errors are added to the
+	 * collection in the order of the file once all of the ranges are done.
+	 *
+	 * @param path
+	 *            Where to read the header and rows from.
+	 * @param charset
+	 *            Charset used to decode the file. If the thread-count is more than 1 then it must encode the
+	 *            line-termination, separator, and quote characters as single ASCII bytes.
+	 * @param parseErrors
+	 *            If not null, any errors will be added to the collection and the rows skipped. If this is null then a
+	 *            ParseException will be thrown on parsing problems.
+	 * @return The aggregates of each group or null if validateHeader is true and the first-line header was not valid.
+	 * @throws ParseException
+	 *             Thrown on any parsing problems. If parseErrors is not null then parse errors will be added there and
+	 *             an exception should not be thrown.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when reading.
+	 */
+	public AggregateResult aggregate(Path path, Charset charset, Collection<ParseError> parseErrors)
+			throws ParseException, IOException {
+		CsvProcessor<T> rowProcessor = processor.copyWithSharedColumns();
+		if (threadCount <= 1) {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				BufferedReaderLineCounter bufferedReader = rowProcessor.newChannelReader(channel, charset);
+				if (!readHeader(rowProcessor, bufferedReader, parseErrors)) {
+					return null;
+				}
+				Columns columns = new Columns(rowProcessor);
+				AggregateResult result = columns.newResult();
+				RecordReader recordReader =
+						rowProcessor.buildRecordReader(bufferedReader, bufferedReader.getLineCount());
+				aggregateRows(rowProcessor, columns, recordReader, Long.MAX_VALUE, result, parseErrors, null);
+				return result;
+			}
+		}
+
+		CsvRowIndex rowIndex = processor.loadRowIndex(path, charset);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (!readHeader(rowProcessor, rowProcessor.newChannelReader(channel, charset), parseErrors)) {
+				return null;
+			}
+		}
+		Columns columns = new Columns(rowProcessor);
+		int interval = rowIndex.getInterval();
+		// each range starts at an entry in the index so no rows have to be skipped
+		long rowsPerRange = (rowIndex.getRowCount() + threadCount - 1) / threadCount;
+		rowsPerRange = Math.max(1, (rowsPerRange + interval - 1) / interval) * interval;
+		int rangeCount = (int) ((rowIndex.getRowCount() + rowsPerRange - 1) / rowsPerRange);
+		// shared so a range can tell when it and the ranges before it have hit the max-parse-errors
+		AtomicLongArray rangeErrorCounts = new AtomicLongArray(rangeCount);
+		List<RangeAggregator> ranges = new ArrayList<RangeAggregator>(rangeCount);
+		for (long fromRow = 0; fromRow < rowIndex.getRowCount(); fromRow += rowsPerRange) {
+			ranges.add(new RangeAggregator(rowProcessor, columns, path, charset, rowIndex,
+					(int) (fromRow / interval), Math.min(rowsPerRange, rowIndex.getRowCount() - fromRow),
+					(parseErrors != null), ranges.size(), rangeErrorCounts));
+		}
+
+		AggregateResult result = columns.newResult();
+		if (ranges.isEmpty()) {
+			return result;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, ranges.size()),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "simplecsv-aggregate");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		try {
+			List<Future<AggregateResult>> futures = executor.invokeAll(ranges);
+			long errorCount = 0;
+			for (int i = 0; i < ranges.size(); i++) {
+				result.merge(getResult(futures.get(i)));
+				if (parseErrors != null) {
+					for (ParseError parseError : ranges.get(i).parseErrors) {
+						rowProcessor.addParseError(parseErrors, parseError, ++errorCount);
+					}
+				}
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while aggregating " + path, ie);
+		} finally {
+			executor.shutdownNow();
+		}
+		return result;
+	}
+
+	/**
+	 * Set the names of the columns whose values group the rows. Default is none which aggregates all of the rows into a
+	 * single group.
+	 */
+	public void setGroupBy(String... groupByColumns) {
+		this.groupByColumns = groupByColumns;
+	}
+
+	/**
+	 * Set the names of the columns whose values group the rows. Default is none which aggregates all of the rows into a
+	 * single group.
+	 */
+	public CsvAggregator<T> withGroupBy(String... groupByColumns) {
+		this.groupByColumns = groupByColumns;
+		return this;
+	}
+
+	/**
+	 * Set the names of the numeric columns whose values are counted, summed, and have their min and max tracked for each
+	 * group. Default is none which just counts the rows of each group.
+	 */
+	public void setAggregate(String... aggregateColumns) {
+		this.aggregateColumns = aggregateColumns;
+	}
+
+	/**
+	 * Set the names of the numeric columns whose values are counted, summed, and have their min and max tracked for each
+	 * group. Default is none which just counts the rows of each group.
+	 */
+	public CsvAggregator<T> withAggregate(String... aggregateColumns) {
+		this.aggregateColumns = aggregateColumns;
+		return this;
+	}
+
+	/**
+	 * Set the number of threads that aggregate a file at the same time. Readers are always aggregated by the calling
+	 * thread. Default is 1.
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("Thread count must be at least 1: " + threadCount);
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Set the number of threads that aggregate a file at the same time. Readers are always aggregated by the calling
+	 * thread. Default is 1.
+	 */
+	public CsvAggregator<T> withThreadCount(int threadCount) {
+		setThreadCount(threadCount);
+		return this;
+	}
+
+	/**
+	 * Read the header if there is one.
+	 *
+	 * @return False if the header was not valid.
+	 */
+	private boolean readHeader(CsvProcessor<T> rowProcessor, BufferedReader bufferedReader,
+			Collection<ParseError> parseErrors) throws ParseException, IOException {
+		if (!rowProcessor.isFirstLineHeader()) {
+			return true;
+		}
+		ParseError parseError = null;
+		if (parseErrors != null) {
+			parseError = new ParseError();
+		}
+		if (rowProcessor.readHeader(bufferedReader, parseError) == null) {
+			if (parseError != null && parseError.isError()) {
+				parseErrors.add(parseError);
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Add up to count records from the reader to the result.
+	 *
+	 * @param range
+	 *            If null then the errors are added to the collection with the processor which writes them to the
+	 *            reject-writer and checks the max-parse-errors. Otherwise they are just collected and the range stops
+	 *            once the rest of its errors can't be needed.
+	 */
+	private void aggregateRows(CsvProcessor<T> rowProcessor, Columns columns, RecordReader recordReader,
+			long count, AggregateResult result, Collection<ParseError> parseErrors, RangeAggregator range)
+			throws ParseException, IOException {
+		Object[] values = new Object[columns.wanted.length];
+		StringBuilder sb = new StringBuilder(32);
+		ParseError parseError = null;
+		if (parseErrors != null) {
+			parseError = new ParseError();
+		}
+		long errorCount = 0;
+		for (long i = 0; i < count; i++) {
+			String record = recordReader.readRecord();
+			if (record == null) {
+				break;
+			}
+			int lineNumber = recordReader.getRecordLineNumber();
+			if (!rowProcessor.acceptRecord(record, lineNumber)) {
+				continue;
+			}
+			if (parseError != null) {
+				parseError.reset();
+			}
+			if (rowProcessor.processColumns(record, lineNumber, columns.wanted, values, sb, parseError)) {
+				result.add(values, columns.groupByPositions, columns.aggregatePositions);
+			} else if (range != null) {
+				parseErrors.add(parseError);
+				parseError = new ParseError();
+				if (range.isPastMaxParseErrors()) {
+					break;
+				}
+			} else if (rowProcessor.addParseError(parseErrors, parseError, ++errorCount)) {
+				parseError = new ParseError();
+			}
+		}
+	}
+
+	private static AggregateResult getResult(Future<AggregateResult> future) throws ParseException, IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while aggregating", ie);
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if (cause instanceof ParseException) {
+				throw (ParseException) cause;
+			} else if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new IOException("aggregating failed", cause);
+			}
+		}
+	}
+
+	/**
+	 * Positions of the group-by and aggregated columns once the header has been read.
+	 */
+	private class Columns {
+
+		final int[] groupByPositions;
+		final Class<?>[] groupByTypes;
+		final int[] aggregatePositions;
+		final Class<?>[] aggregateTypes;
+		final boolean[] wanted;
+
+		public Columns(CsvProcessor<T> rowProcessor) {
+			this.groupByPositions = new int[groupByColumns.length];
+			this.groupByTypes = new Class<?>[groupByColumns.length];
+			int maxPosition = -1;
+			for (int i = 0; i < groupByColumns.length; i++) {
+				groupByPositions[i] = findPosition(rowProcessor, groupByColumns[i]);
+				groupByTypes[i] = rowProcessor.getColumnInfo(groupByPositions[i]).getType();
+				maxPosition = Math.max(maxPosition, groupByPositions[i]);
+			}
+			this.aggregatePositions = new int[aggregateColumns.length];
+			this.aggregateTypes = new Class<?>[aggregateColumns.length];
+			for (int i = 0; i < aggregateColumns.length; i++) {
+				aggregatePositions[i] = findPosition(rowProcessor, aggregateColumns[i]);
+				aggregateTypes[i] = rowProcessor.getColumnInfo(aggregatePositions[i]).getType();
+				if (!AggregateResult.isNumeric(aggregateTypes[i])) {
+					throw new IllegalArgumentException("Aggregate column '" + aggregateColumns[i]
+							+ "' is not numeric: " + aggregateTypes[i].getSimpleName());
+				}
+				maxPosition = Math.max(maxPosition, aggregatePositions[i]);
+			}
+			this.wanted = new boolean[maxPosition + 1];
+			for (int position : groupByPositions) {
+				wanted[position] = true;
+			}
+			for (int position : aggregatePositions) {
+				wanted[position] = true;
+			}
+		}
+
+		public AggregateResult newResult() {
+			return new AggregateResult(groupByColumns, groupByTypes, aggregateColumns, aggregateTypes);
+		}
+
+		private int findPosition(CsvProcessor<T> rowProcessor, String columnName) {
+			int position = rowProcessor.findColumnPosition(columnName);
+			if (position < 0) {
+				throw new IllegalArgumentException("Column '" + columnName + "' is not a column of the input");
+			}
+			return position;
+		}
+	}
+
+	/**
+	 * Aggregates a range of the rows of a file into its own result.
+	 */
+	private class RangeAggregator implements Callable<AggregateResult> {
+
+		private final CsvProcessor<T> rowProcessor;
+		private final Columns columns;
+		private final Path path;
+		private final Charset charset;
+		private final CsvRowIndex rowIndex;
+		private final int entryIndex;
+		private final long count;
+		private final int rangeIndex;
+		private final AtomicLongArray rangeErrorCounts;
+		final List<ParseError> parseErrors;
+
+		public RangeAggregator(CsvProcessor<T> rowProcessor, Columns columns, Path path, Charset charset,
+				CsvRowIndex rowIndex, int entryIndex, long count, boolean collectErrors, int rangeIndex,
+				AtomicLongArray rangeErrorCounts) {
+			this.rowProcessor = rowProcessor;
+			this.columns = columns;
+			this.path = path;
+			this.charset = charset;
+			this.rowIndex = rowIndex;
+			this.entryIndex = entryIndex;
+			this.count = count;
+			this.rangeIndex = rangeIndex;
+			this.rangeErrorCounts = rangeErrorCounts;
+			if (collectErrors) {
+				this.parseErrors = new ArrayList<ParseError>();
+			} else {
+				this.parseErrors = null;
+			}
+		}
+
+		@Override
+		public AggregateResult call() throws ParseException, IOException {
+			AggregateResult result = columns.newResult();
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				channel.position(rowIndex.getOffset(entryIndex));
+				BufferedReader bufferedReader = rowProcessor.newChannelReader(channel, charset);
+				RecordReader recordReader =
+						rowProcessor.buildRecordReader(bufferedReader, rowIndex.getLineNumber(entryIndex) - 1);
+				// the errors are added to the caller's collection in order once all of the ranges are done
+				aggregateRows(rowProcessor, columns, recordReader, count, result, parseErrors, this);
+			}
+			return result;
+		}
+
+		/**
+		 * Count an error collected by this range and return true if there are more than the max-parse-errors in this
+		 * range and the ones before it. The errors are added in range order so the error that aborts the aggregation
+		 * has already been collected and the rest of this range is not needed. The counts of the ranges before us only
+		 * go up so this stays true.
+		 */
+		boolean isPastMaxParseErrors() {
+			rangeErrorCounts.incrementAndGet(rangeIndex);
+			long errorCount = 0;
+			for (int i = 0; i <= rangeIndex; i++) {
+				errorCount += rangeErrorCounts.get(i);
+			}
+			return rowProcessor.isPastMaxParseErrors(errorCount);
+		}
+	}
+}
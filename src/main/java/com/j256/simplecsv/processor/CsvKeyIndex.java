@@ -0,0 +1,345 @@
+package com.j256.simplecsv.processor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hash index from the values of a key column to the byte offsets of the rows in a CSV file so individual rows can be
+ * looked up with {@link #lookup(String)} without reading in the whole file. Only the rows whose key matches are
+ * converted into entities.
+ *
+ * <p>
+ * The index is an open-addressing hash table that is saved next to the file with a ".&lt;column&gt;.kidx" suffix and
+ * memory-mapped so it does not take up heap space. It is stored with the file's size and last-modified time so it can
+ * be reused until the file changes. If it can't be saved then it is kept in a direct buffer. Keys are compared as the raw column strings, trimmed the same way as when the
+ * column is converted.
+ * </p>
+ *
+ * <p>
+ * The index should be closed when it is no longer needed to close the CSV file. Lookups can be made from multiple
+ * threads.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class CsvKeyIndex<T> implements Closeable {
+
+	private static final String INDEX_SUFFIX = ".kidx";
+	private static final int INDEX_MAGIC = 0x43534b49;
+	private static final int INDEX_VERSION = 1;
+	// hash of the key, line-number of the row, offset of the row + 1 so 0 is an empty slot
+	private static final int SLOT_SIZE = 4 + 4 + 8;
+	private static final int MIN_SLOT_COUNT = 16;
+	private static final int MAX_SLOT_COUNT = 1 << 26;
+	private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+	private static final int LOOKUP_BUFFER_SIZE = 1024;
+
+	private final CsvProcessor<T> processor;
+	private final Charset charset;
+	private final FileChannel channel;
+	private final int keyPosition;
+	private final ByteBuffer slots;
+	private final int slotMask;
+	private final long rowCount;
+
+	private CsvKeyIndex(CsvProcessor<T> processor, Charset charset, FileChannel channel, int keyPosition,
+			ByteBuffer slots, long rowCount) {
+		this.processor = processor;
+		this.charset = charset;
+		this.channel = channel;
+		this.keyPosition = keyPosition;
+		this.slots = slots;
+		this.slotMask = slots.capacity() / SLOT_SIZE - 1;
+		this.rowCount = rowCount;
+	}
+
+	/**
+	 * Look up the rows whose key column matches the key.
+	 *
+	 * @param key
+	 *            Value of the key column.
+	 * @return The entities of the matching rows in the order they appear in the file or an empty list if none.
+	 * @throws ParseException
+	 *             Thrown on any parsing problems with the matching rows.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when reading the rows.
+	 */
+	public List<T> lookup(String key) throws ParseException, IOException {
+		List<T> results = new ArrayList<T>();
+		int hash = key.hashCode();
+		for (int slot = spread(hash) & slotMask;; slot = (slot + 1) & slotMask) {
+			int slotOffset = slot * SLOT_SIZE;
+			long rowOffset = slots.getLong(slotOffset + 8) - 1;
+			if (rowOffset < 0) {
+				break;
+			}
+			if (slots.getInt(slotOffset) != hash) {
+				continue;
+			}
+			int lineNumber = slots.getInt(slotOffset + 4);
+			RecordScanner scanner =
+					processor.newRecordScanner(channel, rowOffset, lineNumber - 1, true, LOOKUP_BUFFER_SIZE);
+			if (!scanner.nextRecord()) {
+				// file was truncated underneath us
+				break;
+			}
+			String record = decode(scanner.getRecord(), charset);
+			if (key.equals(processor.extractKeyColumn(record, keyPosition))) {
+				T entity = processor.processRow(record, null, lineNumber, null);
+				// null if it was skipped by a column filter
+				if (entity != null) {
+					results.add(entity);
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Number of rows in the file not including the header.
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		// the mapping is released when the buffer is garbage collected
+		channel.close();
+	}
+
+	/**
+	 * Returns the path of the index file for a CSV file and key column.
+	 */
+	static Path indexPath(Path path, String keyColumnName) {
+		return path.resolveSibling(
+				path.getFileName() + "." + keyColumnName.replaceAll("[^A-Za-z0-9_-]", "_") + INDEX_SUFFIX);
+	}
+
+	/**
+	 * Open the index for the file, reusing the saved index if it still matches the file and settings otherwise
+	 * building it.
+	 *
+	 * @param processor
+	 *            Processor that is used only by the index since the header sets its column positions.
+	 * @param rowCount
+	 *            Number of rows in the file which is used to size the index if it needs to be built.
+	 */
+	static <T> CsvKeyIndex<T> open(CsvProcessor<T> processor, Path path, Charset charset, String keyColumnName,
+			String settings, long rowCount, boolean rebuild) throws IOException, ParseException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		boolean success = false;
+		try {
+			// get these before we read so we'll rebuild if the file is changed while we are scanning
+			long fileSize = channel.size();
+			long lastModifiedMillis = Files.getLastModifiedTime(path).toMillis();
+			if (CsvRowIndex.isGzip(channel)) {
+				throw new IllegalArgumentException("Cannot index a compressed file: " + path);
+			}
+			RecordScanner scanner = processor.newRecordScanner(channel, 0, 0, true, SCAN_BUFFER_SIZE);
+			if (processor.isFirstLineHeader()) {
+				if (!scanner.nextRecord()) {
+					throw new ParseException("no header line read", 0);
+				}
+				processor.validateHeaderRecord(decode(scanner.getRecord(), charset), scanner.getRecordLineNumber());
+			}
+			int keyPosition = processor.findColumnPosition(keyColumnName);
+			if (keyPosition < 0) {
+				throw new IllegalArgumentException("Key column '" + keyColumnName + "' is not in file: " + path);
+			}
+
+			Path indexPath = indexPath(path, keyColumnName);
+			ByteBuffer slots = null;
+			if (!rebuild) {
+				slots = mapIndex(indexPath, fileSize, lastModifiedMillis, settings);
+			}
+			if (slots == null) {
+				slots = buildIndex(processor, indexPath, scanner, charset, keyPosition, fileSize, lastModifiedMillis,
+						settings, rowCount);
+			}
+			CsvKeyIndex<T> keyIndex = new CsvKeyIndex<T>(processor, charset, channel, keyPosition, slots, rowCount);
+			success = true;
+			return keyIndex;
+		} finally {
+			if (!success) {
+				channel.close();
+			}
+		}
+	}
+
+	/**
+	 * Build the slots of the index by scanning the rest of the file. They are written to a temporary file which is then
+	 * moved into place so another reader or a crash never sees a partial index and an index that another
+	 * {@link CsvKeyIndex} has mapped is not changed underneath it. If the index can't be saved then the slots are kept
+	 * in a direct buffer.
+	 */
+	private static ByteBuffer buildIndex(CsvProcessor<?> processor, Path indexPath, RecordScanner scanner,
+			Charset charset, int keyPosition, long fileSize, long lastModifiedMillis, String settings, long rowCount)
+			throws IOException {
+		long slotCount = Math.max(Long.highestOneBit(Math.max(rowCount, 1)) * 4, MIN_SLOT_COUNT);
+		if (slotCount > MAX_SLOT_COUNT) {
+			throw new IllegalArgumentException("Too many rows to key index: " + rowCount);
+		}
+		indexPath = indexPath.toAbsolutePath();
+		Path tempPath;
+		try {
+			tempPath = Files.createTempFile(indexPath.getParent(), indexPath.getFileName().toString(), ".tmp");
+		} catch (IOException ioe) {
+			// can't write next to the file so the index is just kept in memory
+			ByteBuffer slots = ByteBuffer.allocateDirect((int) slotCount * SLOT_SIZE);
+			fillSlots(processor, indexPath, scanner, charset, keyPosition, rowCount, slots);
+			return slots;
+		}
+		try {
+			ByteBuffer header = buildHeader(fileSize, lastModifiedMillis, settings, (int) slotCount);
+			MappedByteBuffer mapped;
+			try (FileChannel indexChannel =
+					FileChannel.open(tempPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				while (header.hasRemaining()) {
+					indexChannel.write(header);
+				}
+				mapped = indexChannel.map(MapMode.READ_WRITE, header.capacity(), slotCount * SLOT_SIZE);
+				fillSlots(processor, indexPath, scanner, charset, keyPosition, rowCount, mapped);
+				mapped.force();
+				indexChannel.force(true);
+			}
+			try {
+				try {
+					Files.move(tempPath, indexPath, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException amnse) {
+					Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} catch (IOException ioe) {
+				// couldn't be saved so it will be rebuilt next time
+				return copyToDirect(mapped);
+			}
+			ByteBuffer slots = mapIndex(indexPath, fileSize, lastModifiedMillis, settings);
+			if (slots == null) {
+				// replaced by another build of a different version of the file since we moved it
+				return copyToDirect(mapped);
+			}
+			return slots;
+		} finally {
+			Files.deleteIfExists(tempPath);
+		}
+	}
+
+	private static void fillSlots(CsvProcessor<?> processor, Path indexPath, RecordScanner scanner, Charset charset,
+			int keyPosition, long rowCount, ByteBuffer slots) throws IOException {
+		int slotMask = slots.capacity() / SLOT_SIZE - 1;
+		long count = 0;
+		while (scanner.nextRecord()) {
+			if (++count > rowCount) {
+				// the file grew since the row count was taken so the table may not be big enough
+				throw new IllegalStateException("File changed while building the key index: " + indexPath);
+			}
+			String key = processor.extractKeyColumn(decode(scanner.getRecord(), charset), keyPosition);
+			if (key == null) {
+				// row doesn't have the key column or can't be parsed so it can't be looked up
+				continue;
+			}
+			int hash = key.hashCode();
+			int slot = spread(hash) & slotMask;
+			while (slots.getLong(slot * SLOT_SIZE + 8) != 0) {
+				slot = (slot + 1) & slotMask;
+			}
+			slots.putInt(slot * SLOT_SIZE, hash);
+			slots.putInt(slot * SLOT_SIZE + 4, scanner.getRecordLineNumber());
+			slots.putLong(slot * SLOT_SIZE + 8, scanner.getRecordStart() + 1);
+		}
+	}
+
+	private static ByteBuffer copyToDirect(ByteBuffer slots) {
+		ByteBuffer source = slots.duplicate();
+		source.clear();
+		ByteBuffer copy = ByteBuffer.allocateDirect(source.capacity());
+		copy.put(source);
+		copy.clear();
+		return copy;
+	}
+
+	/**
+	 * Map in the index if it exists and still matches the file and settings.
+	 *
+	 * @return The mapped slots or null if there isn't a valid index.
+	 */
+	private static MappedByteBuffer mapIndex(Path indexPath, long fileSize, long lastModifiedMillis,
+			String settings) {
+		if (!Files.isRegularFile(indexPath)) {
+			return null;
+		}
+		try (FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+			ByteBuffer expected = buildHeader(fileSize, lastModifiedMillis, settings, 0);
+			// the slot-count is at the end of the header
+			int headerSize = expected.capacity();
+			ByteBuffer header = ByteBuffer.allocate(headerSize);
+			while (header.hasRemaining()) {
+				if (indexChannel.read(header) < 0) {
+					// truncated index so it will be rebuilt
+					return null;
+				}
+			}
+			int slotCount = header.getInt(headerSize - 4);
+			header.putInt(headerSize - 4, 0);
+			header.flip();
+			if (!header.equals(expected) || slotCount < MIN_SLOT_COUNT || slotCount > MAX_SLOT_COUNT
+					|| Integer.bitCount(slotCount) != 1
+					|| indexChannel.size() != headerSize + (long) slotCount * SLOT_SIZE) {
+				return null;
+			}
+			return indexChannel.map(MapMode.READ_ONLY, headerSize, (long) slotCount * SLOT_SIZE);
+		} catch (IOException ioe) {
+			// unreadable index so it will be rebuilt
+			return null;
+		}
+	}
+
+	private static ByteBuffer buildHeader(long fileSize, long lastModifiedMillis, String settings, int slotCount) {
+		byte[] settingsBytes = settings.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer header = ByteBuffer.allocate(4 + 4 + 8 + 8 + 4 + settingsBytes.length + 4);
+		header.putInt(INDEX_MAGIC);
+		header.putInt(INDEX_VERSION);
+		header.putLong(fileSize);
+		header.putLong(lastModifiedMillis);
+		header.putInt(settingsBytes.length);
+		header.put(settingsBytes);
+		header.putInt(slotCount);
+		header.flip();
+		return header;
+	}
+
+	/**
+	 * The scanner returns the record as ISO-8859-1 so we re-decode it with the file's charset.
+	 */
+	private static String decode(String record, Charset charset) {
+		if (charset.equals(StandardCharsets.ISO_8859_1)) {
+			return record;
+		} else {
+			return new String(record.getBytes(StandardCharsets.ISO_8859_1), charset);
+		}
+	}
+
+	/**
+	 * Spread the bits of the hash-code so keys with similar hash-codes don't cluster.
+	 */
+	private static int spread(int hash) {
+		hash ^= (hash >>> 16);
+		hash *= 0x85ebca6b;
+		hash ^= (hash >>> 13);
+		return hash;
+	}
+}
@@ -1,29 +1,63 @@
 package com.j256.simplecsv.processor;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import com.j256.simplecsv.common.CsvColumn;
+import com.j256.simplecsv.common.CsvConstructor;
 import com.j256.simplecsv.common.CsvField;
 import com.j256.simplecsv.converter.Converter;
 import com.j256.simplecsv.converter.ConverterUtils;
@@ -42,7 +76,9 @@ import com.j256.simplecsv.processor.ParseError.ErrorType;
  * 
  * @param <T>
  *            Entity type that we are processing. It should have a public no-arg constructor so it can be created by
- *            this library.
+ *            this library. If it does not then it can have a constructor or static factory method marked with
+ *            {@link CsvConstructor} or a public constructor or static factory method whose arguments match the types
+ *            of the {@link CsvColumn} fields in the order that they are defined, such as an immutable or record class.
  * 
  * @author graywatson
  */
@@ -63,6 +99,47 @@ public class CsvProcessor<T> {
 	 * {@link #setLineTermination(String)}.
 	 */
 	public static final String DEFAULT_LINE_TERMINATION = System.getProperty("line.separator");
+	/**
+	 * Default number of rows that are converted together by a worker when reading pipelined.
+	 */
+	public static final int DEFAULT_PIPELINE_BATCH_SIZE = 1000;
+	/**
+	 * Default number of characters that are read from the input at a time when reading pipelined.
+	 */
+	public static final int DEFAULT_PIPELINE_BUFFER_SIZE = 64 * 1024;
+	/**
+	 * Default number of rows that a publisher reads ahead of the subscriber's demand.
+	 */
+	public static final int DEFAULT_PUBLISHER_READ_AHEAD = 128;
+	/**
+	 * Default size of the buffers used when reading and writing files.
+	 */
+	public static final int DEFAULT_FILE_BUFFER_SIZE = 8192;
+	/**
+	 * Default number of rows between the entries in a row index.
+	 */
+	public static final int DEFAULT_ROW_INDEX_INTERVAL = 1000;
+	/**
+	 * Default number of rows that are formatted together by a thread when writing in parallel.
+	 */
+	public static final int DEFAULT_WRITE_BATCH_SIZE = 1000;
+	/**
+	 * Default number of entities that are passed to the batch-row-validator at a time.
+	 */
+	public static final int DEFAULT_BATCH_VALIDATION_SIZE = 1000;
+	/**
+	 * Default number of keys that the duplicate key filter is sized for.
+	 */
+	public static final long DEFAULT_DUPLICATE_KEY_EXPECTED_COUNT = 1000000;
+
+	/**
+	 * Files up to this size are read into memory before they are parsed when reading many files at once.
+	 */
+	private static final int BULK_IN_MEMORY_FILE_SIZE = 1024 * 1024;
+	private static final String GZIP_SUFFIX = ".gz";
+	private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+	private static final int GZIP_MAGIC1 = 0x1f;
+	private static final int GZIP_MAGIC2 = 0x8b;
 
 	private static ColumnNameMatcher stringEqualsColumnNameMatcher = new ColumnNameMatcher() {
 		@Override
@@ -83,16 +160,41 @@ public class CsvProcessor<T> {
 	private boolean allowLineTerminationInColumns;
 	private boolean superClassColumnsFirst;
 	private RowValidator<T> rowValidator;
+	private BatchRowValidator<T> batchRowValidator;
+	private PartitionedRowValidator<T> partitionedRowValidator;
+	private String duplicateKeyColumn;
+	private long duplicateKeyExpectedCount = DEFAULT_DUPLICATE_KEY_EXPECTED_COUNT;
+	private Path duplicateKeySpillDirectory;
+	private Map<String, FilterInfo> columnFilters;
+	private volatile PositionFilters positionFilters;
+	private int batchValidationSize = DEFAULT_BATCH_VALIDATION_SIZE;
 	private ColumnNameMatcher columnNameMatcher = stringEqualsColumnNameMatcher;
+	private int pipelineWorkerCount = Runtime.getRuntime().availableProcessors();
+	private int pipelineBatchSize = DEFAULT_PIPELINE_BATCH_SIZE;
+	private int pipelineBufferSize = DEFAULT_PIPELINE_BUFFER_SIZE;
+	private int publisherReadAhead = DEFAULT_PUBLISHER_READ_AHEAD;
+	private int bulkThreadCount = Runtime.getRuntime().availableProcessors();
+	private int gzipBlockRowCount;
+	private int readBufferSize = DEFAULT_FILE_BUFFER_SIZE;
+	private int writeBufferSize = DEFAULT_FILE_BUFFER_SIZE;
+	private int rowIndexInterval = DEFAULT_ROW_INDEX_INTERVAL;
+	private int writeThreadCount;
+	private int writeBatchSize = DEFAULT_WRITE_BATCH_SIZE;
+	private int maxParseErrors;
+	private long readOffset;
+	private long readLimit;
+	private ReadCanceller readCanceller;
+	private Writer rejectWriter;
 
 	private Class<T> entityClass;
-	private Constructor<T> constructor;
+	private EntityCreator<T> entityCreator;
 	private Callable<T> constructorCallable;
 
 	private final Map<Class<?>, Converter<?, ?>> converterMap = new HashMap<Class<?>, Converter<?, ?>>();
 
 	private List<ColumnInfo<Object>> allColumnInfos;
 	private Map<Integer, ColumnInfo<Object>> columnPositionInfoMap;
+	private volatile WriteCache writeCache;
 
 	{
 		ConverterUtils.addInternalConverters(converterMap);
@@ -159,7 +261,8 @@ public class CsvProcessor<T> {
 	}
 
 	/**
-	 * Read in all of the entities in the file passed in.
+	 * Read in all of the entities in the file passed in. If the file starts with the gzip magic bytes then it will be
+	 * decompressed as it is read.
 	 * 
 	 * @param file
 	 *            Where to read the header and entities from.
@@ -175,11 +278,38 @@ public class CsvProcessor<T> {
 	 *             If there are any IO exceptions thrown when reading.
 	 */
 	public List<T> readAll(File file, Collection<ParseError> parseErrors) throws ParseException, IOException {
+		return readAll(file.toPath(), Charset.defaultCharset(), parseErrors);
+	}
+
+	/**
+	 * Read in all of the entities in the file passed in using the charset to decode it. The file is read through a NIO
+	 * channel using buffers of {@link #setReadBufferSize(int)}. If the file starts with the gzip magic bytes then it
+	 * will be decompressed as it is read.
+	 * 
+	 * @param path
+	 *            Where to read the header and entities from.
+	 * @param charset
+	 *            Charset used to decode the file. Malformed input is replaced like {@link java.io.FileReader}.
+	 * @param parseErrors
+	 *            If not null, any errors will be added to the collection and null will be returned. If validateHeader
+	 *            is true and the header does not match then no additional lines will be returned. If this is null then
+	 *            a ParseException will be thrown on parsing problems.
+	 * @param options
+	 *            Options used to open the file. Default is {@link StandardOpenOption#READ}.
+	 * @return A list of entities read in or null if validateHeader is true and the first-line header was not valid.
+	 * @throws ParseException
+	 *             Thrown on any parsing problems. If parseErrors is not null then parse errors will be added there and
+	 *             an exception should not be thrown.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when reading.
+	 */
+	public List<T> readAll(Path path, Charset charset, Collection<ParseError> parseErrors, OpenOption... options)
+			throws ParseException, IOException {
 		checkEntityConfig();
-		FileReader reader = null;
+		Reader reader = null;
 		try {
-			reader = new FileReader(file);
-			return readAll(reader, parseErrors);
+			reader = openPathReader(path, charset, options);
+			return readAll(new BufferedReaderLineCounter(reader, readBufferSize), parseErrors);
 		} finally {
 			if (reader != null) {
 				reader.close();
@@ -206,7 +336,16 @@ public class CsvProcessor<T> {
 	 */
 	public List<T> readAll(Reader reader, Collection<ParseError> parseErrors) throws ParseException, IOException {
 		checkEntityConfig();
-		BufferedReader bufferedReader = new BufferedReaderLineCounter(reader);
+		return readAll(new BufferedReaderLineCounter(reader), parseErrors);
+	}
+
+	private List<T> readAll(BufferedReader bufferedReader, Collection<ParseError> parseErrors)
+			throws ParseException, IOException {
+		return readAll(bufferedReader, parseErrors, new ArrayList<T>());
+	}
+
+	private <C extends Collection<T>> C readAll(BufferedReader bufferedReader, Collection<ParseError> parseErrors,
+			C results) throws ParseException, IOException {
 		if (firstLineHeader) {
 			ParseError parseError = null;
 			// we do this to reuse the parse error objects if we can
@@ -220,7 +359,245 @@ public class CsvProcessor<T> {
 				return null;
 			}
 		}
-		return readRows(bufferedReader, parseErrors);
+		readRows(bufferedReader, parseErrors, results);
+		return results;
+	}
+
+	/**
+	 * Read in all of the entities in the file passed in and store them off-heap. See
+	 * {@link #readAllOffHeap(Reader, Collection)}.
+	 */
+	public CsvRowStore<T> readAllOffHeap(File file, Collection<ParseError> parseErrors)
+			throws ParseException, IOException {
+		checkEntityConfig();
+		Reader reader = null;
+		try {
+			reader = openPathReader(file.toPath(), Charset.defaultCharset());
+			return readAll(new BufferedReaderLineCounter(reader, readBufferSize), parseErrors,
+					new CsvRowStore<T>(this, allColumnInfos));
+		} finally {
+			if (reader != null) {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * Read in all of the entities in the reader passed in and store their column values packed into off-heap buffers
+	 * instead of keeping the entities. This is for large data sets that have to be kept in memory. Entities are
+	 * constructed when they are accessed. See {@link CsvRowStore}.
+	 * 
+	 * @param reader
+	 *            Where to read the header and entities from. NOTE: It must be closed by the caller.
+	 * @param parseErrors
+	 *            If not null, any errors will be added to the collection. If validateHeader is true and the header
+	 *            does not match then null will be returned. If this is null then a ParseException will be thrown on
+	 *            parsing problems.
+	 * @return A store of the entities read in or null if validateHeader is true and the first-line header was not
+	 *         valid.
+	 * @throws ParseException
+	 *             Thrown on any parsing problems. If parseErrors is not null then parse errors will be added there and
+	 *             an exception should not be thrown.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when reading.
+	 */
+	public CsvRowStore<T> readAllOffHeap(Reader reader, Collection<ParseError> parseErrors)
+			throws ParseException, IOException {
+		checkEntityConfig();
+		return readAll(new BufferedReaderLineCounter(reader), parseErrors, new CsvRowStore<T>(this, allColumnInfos));
+	}
+
+	/**
+	 * Read in all of the entities from a number of files at the same time using the default charset. See
+	 * {@link #readAll(Collection, Charset)}.
+	 */
+	public BulkReadResult<T> readAll(Collection<Path> paths) {
+		return readAll(paths, Charset.defaultCharset());
+	}
+
+	/**
+	 * Read in all of the entities from a number of files at the same time. On JDK 21 and above each file is read in a
+	 * virtual thread, otherwise a pool of {@link #setBulkThreadCount(int)} threads is used. See
+	 * {@link #readAll(Collection, Charset, Executor)}.
+	 * 
+	 * @param paths
+	 *            Files to read the header and entities from.
+	 * @param charset
+	 *            Charset of the files.
+	 * @return Entities and parse errors from each of the files along with throughput metrics.
+	 */
+	public BulkReadResult<T> readAll(Collection<Path> paths, Charset charset) {
+		checkEntityConfig();
+		ExecutorService executor = newBulkExecutor();
+		try {
+			return readAll(paths, charset, executor);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Read in all of the entities from a number of files at the same time using the default charset and the executor
+	 * passed in. See {@link #readAll(Collection, Charset, Executor)}.
+	 */
+	public BulkReadResult<T> readAll(Collection<Path> paths, Executor executor) {
+		return readAll(paths, Charset.defaultCharset(), executor);
+	}
+
+	/**
+	 * Read in all of the entities from a number of files at the same time using the executor passed in. The entity
+	 * configuration is shared across the files but each file gets its own header column positions so the files can
+	 * have different column orders if flexible-order or unknown columns are enabled. Small files are read into memory
+	 * before they are parsed so a virtual thread is not pinned while blocking on IO.
+	 * 
+	 * <p>
+	 * <b>NOTE:</b> Any {@link RowValidator} and custom converters are called from multiple threads at the same time so
+	 * they must be thread-safe.
+	 * </p>
+	 * 
+	 * @param paths
+	 *            Files to read the header and entities from.
+	 * @param charset
+	 *            Charset of the files.
+	 * @param executor
+	 *            Executor that runs the tasks which read each of the files. It is not shutdown.
+	 * @return Entities and parse errors from each of the files along with throughput metrics. Any IO exceptions are
+	 *         recorded with the results for the file.
+	 */
+	public BulkReadResult<T> readAll(Collection<Path> paths, final Charset charset, Executor executor) {
+		checkEntityConfig();
+		long startNanos = System.nanoTime();
+		List<CompletableFuture<BulkReadResult.FileResult<T>>> futures =
+				new ArrayList<CompletableFuture<BulkReadResult.FileResult<T>>>(paths.size());
+		for (final Path path : paths) {
+			futures.add(CompletableFuture.supplyAsync(new Supplier<BulkReadResult.FileResult<T>>() {
+				@Override
+				public BulkReadResult.FileResult<T> get() {
+					return readPath(path, charset);
+				}
+			}, executor));
+		}
+		List<BulkReadResult.FileResult<T>> fileResults = new ArrayList<BulkReadResult.FileResult<T>>(paths.size());
+		for (CompletableFuture<BulkReadResult.FileResult<T>> future : futures) {
+			try {
+				fileResults.add(future.join());
+			} catch (CompletionException ce) {
+				if (ce.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) ce.getCause();
+				}
+				throw ce;
+			}
+		}
+		return new BulkReadResult<T>(fileResults, System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Create an aggregator which computes the count, sum, min, and max of numeric columns grouped by other columns
+	 * without constructing the entities. See {@link CsvAggregator}. The aggregator uses the settings of this processor
+	 * at the time each aggregation is started.
+	 */
+	public CsvAggregator<T> newAggregator() {
+		checkEntityConfig();
+		return new CsvAggregator<T>(this);
+	}
+
+	/**
+	 * Read in the entities from the file passed in using a pipeline of threads. See
+	 * {@link #readAllPipelined(Reader, Collection)}. Gzip files are decompressed as they are read. If the file was
+	 * written with {@link #setGzipBlockRowCount(int)} then the blocks are decompressed on the worker threads as well.
+	 * 
+	 * @param file
+	 *            Where to read the header and entities from. It will be closed when the returned reader is closed or
+	 *            has read all of the entities.
+	 * @param parseErrors
+	 *            If not null, any errors will be added to the collection as the entities are read. If this is null
+	 *            then a ParseException will be thrown on parsing problems.
+	 * @return Reader that returns the entities in order and which must be closed.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when opening the file.
+	 */
+	public PipelinedRowReader<T> readAllPipelined(File file, Collection<ParseError> parseErrors)
+			throws IOException {
+		checkEntityConfig();
+		BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(file), pipelineBufferSize);
+		try {
+			if (GzipBlocks.isGzipBlocks(inputStream)) {
+				return new PipelinedRowReader<T>(this, null, inputStream, Charset.defaultCharset(), inputStream,
+						parseErrors, pipelineWorkerCount, pipelineBatchSize, pipelineBufferSize);
+			}
+			Reader reader = new InputStreamReader(GzipBlocks.decompressIfGzip(inputStream), Charset.defaultCharset());
+			return new PipelinedRowReader<T>(this, reader, null, null, reader, parseErrors, pipelineWorkerCount,
+					pipelineBatchSize, pipelineBufferSize);
+		} catch (IOException ioe) {
+			inputStream.close();
+			throw ioe;
+		}
+	}
+
+	/**
+	 * Read in the entities from the reader passed in using a pipeline of threads. One thread reads large buffers from
+	 * the reader, another splits them into records, and a pool of worker threads converts batches of records into
+	 * entities while the caller is consuming the earlier ones. The entities are returned in the same order as the
+	 * input. This is useful for large files where the conversion of the columns is the bottleneck.
+	 * 
+	 * <p>
+	 * <b>NOTE:</b> Any {@link RowValidator} and custom converters are called from multiple threads at the same time so
+	 * they must be thread-safe. Also, if you are using flexible-order or unknown columns, this processor should not be
+	 * used to read other files until the returned reader is finished.
+	 * </p>
+	 * 
+	 * @param reader
+	 *            Where to read the header and entities from. NOTE: It must be closed by the caller after the returned
+	 *            reader is closed.
+	 * @param parseErrors
+	 *            If not null, any errors will be added to the collection as the entities are read. If this is null
+	 *            then a ParseException will be thrown on parsing problems.
+	 * @return Reader that returns the entities in order and which must be closed.
+	 */
+	public PipelinedRowReader<T> readAllPipelined(Reader reader, Collection<ParseError> parseErrors) {
+		checkEntityConfig();
+		return new PipelinedRowReader<T>(this, reader, null, null, null, parseErrors, pipelineWorkerCount,
+				pipelineBatchSize, pipelineBufferSize);
+	}
+
+	/**
+	 * Publish the entities from the file passed in to a subscriber. See
+	 * {@link #publishAll(Reader, Executor, ParseErrorListener)}.
+	 * 
+	 * @param file
+	 *            Where to read the header and entities from. It will be closed when the subscription completes, fails,
+	 *            or is cancelled.
+	 * @param executor
+	 *            Executor that runs the tasks which read the rows and call the subscriber.
+	 * @param parseErrorListener
+	 *            If not null, it will be called with any errors and the rows skipped. If this is null then the
+	 *            subscriber's onError will be called with a ParseException on parsing problems.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when opening the file.
+	 */
+	public RowPublisher<T> publishAll(File file, Executor executor, ParseErrorListener parseErrorListener)
+			throws IOException {
+		checkEntityConfig();
+		Reader reader = openPathReader(file.toPath(), Charset.defaultCharset());
+		return new RowPublisher<T>(this, reader, reader, executor, parseErrorListener, publisherReadAhead);
+	}
+
+	/**
+	 * Publish the entities from the reader passed in to a subscriber. Rows are read as the subscriber requests them,
+	 * along with a bounded number of read-ahead rows, so ingestion is back-pressured by the subscriber.
+	 * 
+	 * @param reader
+	 *            Where to read the header and entities from. NOTE: It must be closed by the caller after the
+	 *            subscription completes.
+	 * @param executor
+	 *            Executor that runs the tasks which read the rows and call the subscriber.
+	 * @param parseErrorListener
+	 *            If not null, it will be called with any errors and the rows skipped. If this is null then the
+	 *            subscriber's onError will be called with a ParseException on parsing problems.
+	 */
+	public RowPublisher<T> publishAll(Reader reader, Executor executor, ParseErrorListener parseErrorListener) {
+		checkEntityConfig();
+		return new RowPublisher<T>(this, reader, null, executor, parseErrorListener, publisherReadAhead);
 	}
 
 	/**
@@ -285,29 +662,301 @@ public class CsvProcessor<T> {
 	public List<T> readRows(BufferedReader bufferedReader, Collection<ParseError> parseErrors)
 			throws ParseException, IOException {
 		checkEntityConfig();
+		List<T> results = new ArrayList<T>();
+		readRows(bufferedReader, parseErrors, results);
+		return results;
+	}
+
+	private void readRows(BufferedReader bufferedReader, Collection<ParseError> parseErrors, Collection<T> results)
+			throws ParseException, IOException {
+		skipOffsetRecords(bufferedReader);
+		long maxSize = (readLimit > 0 ? results.size() + readLimit : Long.MAX_VALUE);
 		ParseError parseError = null;
 		// we do this to reuse the parse error objects if we can
 		if (parseErrors != null) {
 			parseError = new ParseError();
 		}
+		ValidationBatch<T> validationBatch = null;
+		if (batchRowValidator != null) {
+			validationBatch = new ValidationBatch<T>(batchValidationSize);
+		}
+		RowValidator<T> partition = createPartition();
+		DuplicateKeyFilter duplicateKeyFilter = createDuplicateKeyFilter();
+		long errorCount = 0;
+		try {
+			while (results.size() < maxSize && !isReadCancelled()) {
+				if (parseError != null) {
+					parseError.reset();
+				}
+				String line = bufferedReader.readLine();
+				if (line == null) {
+					break;
+				}
+				int lineNumber = getLineNumber(bufferedReader);
+				LineInfo lineInfo = new LineInfo(line);
+				// with a batch-row-validator the keys are checked once the batch has been validated
+				T result = processRow(lineInfo, bufferedReader, parseError, lineNumber, partition,
+						(validationBatch == null ? duplicateKeyFilter : null));
+				if (result != null) {
+					if (validationBatch == null) {
+						results.add(result);
+					} else if (validationBatch.add(result, lineNumber, lineInfo.getRecord())
+							|| results.size() + validationBatch.size() >= maxSize) {
+						// validated early if the batch could reach the limit so we don't read past it
+						errorCount = addValidatedRows(validationBatch, duplicateKeyFilter, parseErrors, results,
+								errorCount);
+					}
+				} else if (parseError != null && parseError.isError()) {
+					// if there was an error then add it to the list
+					if (addParseError(parseErrors, parseError, ++errorCount)) {
+						// once we use it, we need to create another one
+						parseError = new ParseError();
+					}
+				}
+			}
+			if (validationBatch != null) {
+				addValidatedRows(validationBatch, duplicateKeyFilter, parseErrors, results, errorCount);
+			}
+		} finally {
+			mergePartition(partition);
+			if (duplicateKeyFilter != null) {
+				duplicateKeyFilter.close();
+			}
+		}
+	}
+
+	/**
+	 * Validate the entities in the batch, check the keys of the valid ones with the duplicate key filter if it is not
+	 * null, and add the valid ones to the results and the errors to the parse-errors.
+	 * 
+	 * @return The number of parse errors so far in this read.
+	 */
+	private long addValidatedRows(ValidationBatch<T> validationBatch, DuplicateKeyFilter duplicateKeyFilter,
+			Collection<ParseError> parseErrors, Collection<T> results, long errorCount)
+			throws ParseException, IOException {
+		if (validationBatch.size() == 0) {
+			return errorCount;
+		}
+		validationBatch.validate(batchRowValidator, (parseErrors != null));
+		if (duplicateKeyFilter != null) {
+			validationBatch.checkDuplicateKeys(this, duplicateKeyFilter, (parseErrors != null));
+		}
+		if (parseErrors == null) {
+			validationBatch.throwFirstError();
+		}
+		for (int i = 0; i < validationBatch.size(); i++) {
+			ParseError parseError = validationBatch.getParseError(i);
+			if (parseError == null) {
+				results.add(validationBatch.getEntity(i));
+			} else if (addParseError(parseErrors, parseError, ++errorCount)) {
+				validationBatch.releaseParseError(i);
+			}
+		}
+		validationBatch.clear();
+		return errorCount;
+	}
+
+	/**
+	 * Read in a range of rows from the file using the platform default charset. See
+	 * {@link #readRows(Path, Charset, long, int, Collection)}.
+	 */
+	public List<T> readRows(File file, long fromRow, int count, Collection<ParseError> parseErrors)
+			throws ParseException, IOException {
+		return readRows(file.toPath(), Charset.defaultCharset(), fromRow, count, parseErrors);
+	}
+
+	/**
+	 * Read in a range of rows from the file. This uses the row index from {@link #loadRowIndex(Path, Charset)} to seek
+	 * to the closest indexed row before fromRow so it does not have to read the file from the start. If there is a
+	 * header then it is read first so the column positions match the file.
+	 * 
+	 * @param path
+	 *            Where to read the header and entities from.
+	 * @param charset
+	 *            Charset used to decode the file. It must encode the line-termination, separator, and quote characters
+	 *            as single ASCII bytes.
+	 * @param fromRow
+	 *            Row to start reading from. The first row after the header is 0.
+	 * @param count
+	 *            Number of rows to read. Rows with parse errors are counted.
+	 * @param parseErrors
+	 *            If not null, any errors will be added to the collection. If validateHeader is true and the header
+	 *            does not match then null will be returned. If this is null then a ParseException will be thrown on
+	 *            parsing problems.
+	 * @return A list of entities read in or null if validateHeader is true and the first-line header was not valid.
+	 * @throws ParseException
+	 *             Thrown on any parsing problems. If parseErrors is not null then parse errors will be added there and
+	 *             an exception should not be thrown.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when reading.
+	 */
+	public List<T> readRows(Path path, Charset charset, long fromRow, int count, Collection<ParseError> parseErrors)
+			throws ParseException, IOException {
+		checkEntityConfig();
+		CsvRowIndex rowIndex = loadRowIndex(path, charset);
 		List<T> results = new ArrayList<T>();
-		while (true) {
-			if (parseError != null) {
-				parseError.reset();
-			}
-			T result = readRow(bufferedReader, parseError);
-			if (result != null) {
-				results.add(result);
-			} else if (parseErrors != null && parseError != null && parseError.isError()) {
-				// if there was an error then add it to the list
-				parseErrors.add(parseError);
-				// once we use it, we need to create another one
+		if (fromRow >= rowIndex.getRowCount() || count <= 0) {
+			return results;
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ParseError parseError = null;
+			if (parseErrors != null) {
 				parseError = new ParseError();
-			} else {
-				// if no result and no error then EOF
-				return results;
 			}
+			if (firstLineHeader) {
+				BufferedReader headerReader = newChannelReader(channel, charset);
+				if (readHeader(headerReader, parseError) == null) {
+					if (parseError != null && parseError.isError()) {
+						parseErrors.add(parseError);
+					}
+					return null;
+				}
+			}
+			int entryIndex = (int) (fromRow / rowIndex.getInterval());
+			// the header reader may have read ahead so we have to set the position
+			channel.position(rowIndex.getOffset(entryIndex));
+			BufferedReader bufferedReader = newChannelReader(channel, charset);
+			RecordReader recordReader = buildRecordReader(bufferedReader, rowIndex.getLineNumber(entryIndex) - 1);
+			for (long row = (long) entryIndex * rowIndex.getInterval(); row < fromRow; row++) {
+				if (recordReader.readRecord() == null) {
+					return results;
+				}
+			}
+			ValidationBatch<T> validationBatch = null;
+			if (batchRowValidator != null) {
+				validationBatch = new ValidationBatch<T>(Math.min(count, batchValidationSize));
+			}
+			RowValidator<T> partition = createPartition();
+			DuplicateKeyFilter duplicateKeyFilter = createDuplicateKeyFilter();
+			long errorCount = 0;
+			try {
+				for (int i = 0; i < count; i++) {
+					String record = recordReader.readRecord();
+					if (record == null) {
+						break;
+					}
+					if (parseError != null) {
+						parseError.reset();
+					}
+					int lineNumber = recordReader.getRecordLineNumber();
+					T result = processRow(new LineInfo(record), null, parseError, lineNumber, partition,
+							(validationBatch == null ? duplicateKeyFilter : null));
+					if (result != null) {
+						if (validationBatch == null) {
+							results.add(result);
+						} else if (validationBatch.add(result, lineNumber, record)) {
+							errorCount = addValidatedRows(validationBatch, duplicateKeyFilter, parseErrors, results,
+									errorCount);
+						}
+					} else if (parseError != null && parseError.isError()) {
+						if (addParseError(parseErrors, parseError, ++errorCount)) {
+							parseError = new ParseError();
+						}
+					}
+				}
+				if (validationBatch != null) {
+					addValidatedRows(validationBatch, duplicateKeyFilter, parseErrors, results, errorCount);
+				}
+			} finally {
+				mergePartition(partition);
+				if (duplicateKeyFilter != null) {
+					duplicateKeyFilter.close();
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Build the row index for the file and save it next to the file with a ".idx" suffix. See {@link CsvRowIndex}.
+	 * 
+	 * @param path
+	 *            File to index.
+	 * @param charset
+	 *            Charset of the file. It must encode the line-termination, separator, and quote characters as single
+	 *            ASCII bytes.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when reading the file or writing the index.
+	 */
+	public CsvRowIndex buildRowIndex(Path path, Charset charset) throws IOException {
+		String settings = buildRowIndexSettings(charset);
+		CsvRowIndex rowIndex = CsvRowIndex.build(path, settings, columnSeparator, columnQuote,
+				allowLineTerminationInColumns, firstLineHeader, rowIndexInterval);
+		rowIndex.write(path);
+		return rowIndex;
+	}
+
+	/**
+	 * Load the row index for the file that was saved next to it. If it doesn't exist or the file or our settings have
+	 * changed since it was built then it will be rebuilt like {@link #buildRowIndex(Path, Charset)}. If the rebuilt
+	 * index can't be saved, because the directory isn't writable for example, then it is only kept in memory.
+	 * 
+	 * @param path
+	 *            File whose index we are loading.
+	 * @param charset
+	 *            Charset of the file.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when reading the file or reading the index.
+	 */
+	public CsvRowIndex loadRowIndex(Path path, Charset charset) throws IOException {
+		String settings = buildRowIndexSettings(charset);
+		CsvRowIndex rowIndex = CsvRowIndex.read(path, settings);
+		if (rowIndex != null) {
+			return rowIndex;
+		}
+		rowIndex = CsvRowIndex.build(path, settings, columnSeparator, columnQuote, allowLineTerminationInColumns,
+				firstLineHeader, rowIndexInterval);
+		try {
+			rowIndex.write(path);
+		} catch (IOException ioe) {
+			// reads shouldn't fail because the index couldn't be saved so it will be rebuilt next time
 		}
+		return rowIndex;
+	}
+
+	/**
+	 * Build the key index for the file from the values of the key column and save it next to the file with a
+	 * ".&lt;column&gt;.kidx" suffix. See {@link CsvKeyIndex}. The row index from {@link #loadRowIndex(Path, Charset)} is
+	 * used to size the index.
+	 * 
+	 * @param path
+	 *            File to index.
+	 * @param charset
+	 *            Charset of the file. It must encode the line-termination, separator, and quote characters as single
+	 *            ASCII bytes.
+	 * @param keyColumnName
+	 *            Name of the column whose values are the keys. See {@link CsvColumn#columnName()}.
+	 * @return The index which should be closed when it is no longer needed. If it couldn't be saved then it is kept in
+	 *         memory instead.
+	 * @throws ParseException
+	 *             If the header of the file is not valid.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when reading the file.
+	 */
+	public CsvKeyIndex<T> buildKeyIndex(Path path, Charset charset, String keyColumnName)
+			throws ParseException, IOException {
+		return openKeyIndex(path, charset, keyColumnName, true);
+	}
+
+	/**
+	 * Load the key index for the file that was saved next to it. If it doesn't exist or the file or our settings have
+	 * changed since it was built then it will be rebuilt with {@link #buildKeyIndex(Path, Charset, String)}.
+	 * 
+	 * @param path
+	 *            File whose index we are loading.
+	 * @param charset
+	 *            Charset of the file.
+	 * @param keyColumnName
+	 *            Name of the column whose values are the keys.
+	 * @return The index which should be closed when it is no longer needed.
+	 * @throws ParseException
+	 *             If the header of the file is not valid.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when reading the file.
+	 */
+	public CsvKeyIndex<T> loadKeyIndex(Path path, Charset charset, String keyColumnName)
+			throws ParseException, IOException {
+		return openKeyIndex(path, charset, keyColumnName, false);
 	}
 
 	/**
@@ -329,21 +978,36 @@ public class CsvProcessor<T> {
 	 */
 	public T readRow(BufferedReader bufferedReader, ParseError parseError) throws ParseException, IOException {
 		checkEntityConfig();
-		String line = bufferedReader.readLine();
-		if (line == null) {
-			return null;
-		} else {
-			return processRow(line, bufferedReader, parseError, getLineNumber(bufferedReader));
-		}
+		return readRow(bufferedReader, parseError, null, null);
 	}
 
 	/**
-	 * Validate the header row against the configured header columns.
-	 * 
-	 * @param line
-	 *            Line to process to get our validate our header.
-	 * @param parseError
-	 *            If not null, this will be set with the first parse error and it will return null. If this is null then
+	 * Read an entity line from the reader and validate it with the row-validator of the partition and check its key
+	 * with the duplicate key filter if they are not null.
+	 */
+	T readRow(BufferedReader bufferedReader, ParseError parseError, RowValidator<T> partition,
+			DuplicateKeyFilter duplicateKeyFilter) throws ParseException, IOException {
+		while (true) {
+			String line = bufferedReader.readLine();
+			if (line == null) {
+				return null;
+			}
+			T entity = processRow(new LineInfo(line), bufferedReader, parseError, getLineNumber(bufferedReader),
+					partition, duplicateKeyFilter);
+			if (entity != null || columnFilters == null || (parseError != null && parseError.isError())) {
+				return entity;
+			}
+			// the row was skipped by a column filter so we read the next one
+		}
+	}
+
+	/**
+	 * Validate the header row against the configured header columns.
+	 * 
+	 * @param line
+	 *            Line to process to get our validate our header.
+	 * @param parseError
+	 *            If not null, this will be set with the first parse error and it will return null. If this is null then
 	 *            a ParseException will be thrown instead.
 	 * @return true if the header matched the column names configured here otherwise false.
 	 * @throws ParseException
@@ -406,7 +1070,8 @@ public class CsvProcessor<T> {
 	 * @param parseError
 	 *            If not null, this will be set with the first parse error and it will return null. If this is null then
 	 *            a ParseException will be thrown instead.
-	 * @return Returns a processed entity or null if an error and parseError has been set.
+	 * @return Returns a processed entity or null if an error and parseError has been set or if the line was skipped by
+	 *         a column filter.
 	 * @throws ParseException
 	 *             Thrown on any parsing problems. If parseError is not null then the error will be added there and an
 	 *             exception should not be thrown.
@@ -414,7 +1079,7 @@ public class CsvProcessor<T> {
 	public T processRow(String line, ParseError parseError) throws ParseException {
 		checkEntityConfig();
 		try {
-			return processRow(line, null, parseError, 1);
+			return processRow(new LineInfo(line), null, parseError, 1, null, null);
 		} catch (IOException e) {
 			// this won't happen because processRow won't do any IO
 			return null;
@@ -438,7 +1103,8 @@ public class CsvProcessor<T> {
 	}
 
 	/**
-	 * Write a collection of entities to the writer.
+	 * Write a collection of entities to the writer. If the file name ends with ".gz" then the output will be gzip
+	 * compressed.
 	 * 
 	 * @param file
 	 *            Where to write the header and entities.
@@ -450,19 +1116,42 @@ public class CsvProcessor<T> {
 	 *             If there are any IO exceptions thrown when writing.
 	 */
 	public void writeAll(File file, Collection<T> entities, boolean writeHeader) throws IOException {
-		Writer writer = null;
+		writeAll(file.toPath(), Charset.defaultCharset(), entities, writeHeader);
+	}
+
+	/**
+	 * Write a collection of entities to the file using the charset to encode it. The file is written through a NIO
+	 * channel using buffers of {@link #setWriteBufferSize(int)}. If the file name ends with ".gz" then the output will
+	 * be gzip compressed.
+	 * 
+	 * @param path
+	 *            Where to write the header and entities.
+	 * @param charset
+	 *            Charset used to encode the file. Unmappable characters are replaced like {@link java.io.FileWriter}.
+	 * @param entities
+	 *            Collection of entities to write to the writer.
+	 * @param writeHeader
+	 *            Set to true to write header at the start of the output file.
+	 * @param options
+	 *            Options used to open the file. Default is to create or truncate the file. See
+	 *            {@link #openWriter(Path, Charset, boolean, OpenOption...)}.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when writing.
+	 */
+	public void writeAll(Path path, Charset charset, Collection<T> entities, boolean writeHeader,
+			OpenOption... options) throws IOException {
+		CsvWriter<T> csvWriter = openWriter(path, charset, writeHeader, options);
 		try {
-			writer = new BufferedWriter(new FileWriter(file));
-			writeAll(writer, entities, writeHeader);
+			csvWriter.writeAll(entities);
 		} finally {
-			if (writer != null) {
-				writer.close();
-			}
+			csvWriter.close();
 		}
 	}
 
 	/**
-	 * Write an optional header and then the collection of entities to the writer.
+	 * Write an optional header and then the collection of entities to the writer. If
+	 * {@link #setWriteThreadCount(int)} is more than 1 then batches of the entities are formatted on that many threads
+	 * and written out in order so the output is the same as writing them one at a time.
 	 * 
 	 * NOTE: it is up to the caller to close the writer.
 	 * 
@@ -481,15 +1170,205 @@ public class CsvProcessor<T> {
 			if (writeHeader) {
 				writeHeader(writer, true);
 			}
-			for (T entity : entities) {
-				writeRow(writer, entity, true);
+			writeRows(writer, entities.iterator(), false);
+		} finally {
+			// NOTE: we should not close it here because we didn't open it.
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Write an optional header and then the collection of entities to the output-stream using the charset to encode
+	 * them. The characters are encoded into a buffer of {@link #setWriteBufferSize(int)} bytes which is written to the
+	 * stream when it fills. With an ASCII compatible charset, such as UTF-8, the ASCII characters are copied directly
+	 * into the buffer and only the other characters go through the charset encoder which is faster than wrapping the
+	 * stream in an {@link java.io.OutputStreamWriter}.
+	 * 
+	 * @param outputStream
+	 *            Where to write the header and entities. NOTE: It must be closed by the caller.
+	 * @param charset
+	 *            Charset used to encode the output. Unmappable characters are replaced like
+	 *            {@link java.io.OutputStreamWriter}.
+	 * @param entities
+	 *            Collection of entities to write to the stream.
+	 * @param writeHeader
+	 *            Set to true to write header at the start of the stream.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when writing.
+	 */
+	public void writeAll(OutputStream outputStream, Charset charset, Collection<T> entities, boolean writeHeader)
+			throws IOException {
+		Writer writer = new ByteEncodingWriter(outputStream, newEncoder(charset), writeBufferSize, false);
+		try {
+			writeAll(writer, entities, writeHeader);
+		} finally {
+			// this finishes the encoding and flushes but doesn't close the stream
+			writer.close();
+		}
+	}
+
+	/**
+	 * Write an optional header and then the entities from the iterator to the output-stream using the charset to encode
+	 * them. The stream is flushed after every {@link #setWriteBatchSize(int)} rows. See
+	 * {@link #writeAll(OutputStream, Charset, Collection, boolean)}.
+	 */
+	public void writeAll(OutputStream outputStream, Charset charset, Iterator<T> entities, boolean writeHeader)
+			throws IOException {
+		Writer writer = new ByteEncodingWriter(outputStream, newEncoder(charset), writeBufferSize, false);
+		try {
+			writeAll(writer, entities, writeHeader);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Write an optional header and then the collection of entities to the channel using the charset to encode them.
+	 * The buffer of {@link #setWriteBufferSize(int)} bytes is written to the channel when it fills. See
+	 * {@link #writeAll(OutputStream, Charset, Collection, boolean)}.
+	 * 
+	 * @param channel
+	 *            Where to write the header and entities. NOTE: It must be closed by the caller.
+	 */
+	public void writeAll(WritableByteChannel channel, Charset charset, Collection<T> entities, boolean writeHeader)
+			throws IOException {
+		Writer writer = new ByteEncodingWriter(channel, newEncoder(charset), writeBufferSize, false);
+		try {
+			writeAll(writer, entities, writeHeader);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Write an optional header and then the entities from the iterator to the channel using the charset to encode them.
+	 * The buffer is written to the channel at least every {@link #setWriteBatchSize(int)} rows. See
+	 * {@link #writeAll(OutputStream, Charset, Collection, boolean)}.
+	 */
+	public void writeAll(WritableByteChannel channel, Charset charset, Iterator<T> entities, boolean writeHeader)
+			throws IOException {
+		Writer writer = new ByteEncodingWriter(channel, newEncoder(charset), writeBufferSize, false);
+		try {
+			writeAll(writer, entities, writeHeader);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Write an optional header and then the entities from the iterator to the writer. The entities are written as
+	 * they are read from the iterator so they don't all have to be in memory and the writer is flushed after every
+	 * {@link #setWriteBatchSize(int)} rows. If {@link #setWriteThreadCount(int)} is more than 1 then batches of the
+	 * entities are formatted in parallel.
+	 * 
+	 * @param writer
+	 *            Where to write the header and entities. NOTE: It must be closed by the caller.
+	 * @param entities
+	 *            Iterator of the entities to write to the writer.
+	 * @param writeHeader
+	 *            Set to true to write header at the start of the writer.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when writing.
+	 */
+	public void writeAll(Writer writer, Iterator<T> entities, boolean writeHeader) throws IOException {
+		checkEntityConfig();
+		try {
+			if (writeHeader) {
+				writeHeader(writer, true);
 			}
+			writeRows(writer, entities, true);
 		} finally {
 			// NOTE: we should not close it here because we didn't open it.
 			writer.flush();
 		}
 	}
 
+	/**
+	 * Write an optional header and then the entities to the writer. See {@link #writeAll(Writer, Iterator, boolean)}.
+	 */
+	public void writeAll(Writer writer, Iterable<T> entities, boolean writeHeader) throws IOException {
+		writeAll(writer, entities.iterator(), writeHeader);
+	}
+
+	/**
+	 * Write an optional header and then the entities from the stream to the writer. See
+	 * {@link #writeAll(Writer, Iterator, boolean)}.
+	 */
+	public void writeAll(Writer writer, Stream<T> entities, boolean writeHeader) throws IOException {
+		writeAll(writer, entities.iterator(), writeHeader);
+	}
+
+	/**
+	 * Open a writer handle which writes an optional header and then entities one at a time to the writer.
+	 * 
+	 * @param writer
+	 *            Where to write the header and entities. Closing the returned writer flushes but does not close it.
+	 * @param writeHeader
+	 *            Set to true to write header at the start of the writer.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when writing the header.
+	 */
+	public CsvWriter<T> openWriter(Writer writer, boolean writeHeader) throws IOException {
+		checkEntityConfig();
+		CsvWriter<T> csvWriter = new CsvWriter<T>(copyWithSharedColumns(), writer, false, null, 0);
+		if (writeHeader) {
+			csvWriter.writeHeader();
+		}
+		return csvWriter;
+	}
+
+	/**
+	 * Open a writer handle which writes an optional header and then entities one at a time to the file using the
+	 * charset to encode it. The file is written through a NIO channel using buffers of
+	 * {@link #setWriteBufferSize(int)}. If the file name ends with ".gz" then the output will be gzip compressed.
+	 * 
+	 * @param path
+	 *            Where to write the header and entities. It is closed when the returned writer is closed.
+	 * @param charset
+	 *            Charset used to encode the file. Unmappable characters are replaced like {@link java.io.FileWriter}.
+	 * @param writeHeader
+	 *            Set to true to write header at the start of the output file.
+	 * @param options
+	 *            Options used to open the file. Default is to create or truncate the file. Like
+	 *            {@link Files#newOutputStream(Path, OpenOption...)}, {@link StandardOpenOption#WRITE} is always added.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when opening the file or writing the header.
+	 */
+	public CsvWriter<T> openWriter(Path path, Charset charset, boolean writeHeader, OpenOption... options)
+			throws IOException {
+		checkEntityConfig();
+		FileChannel channel = FileChannel.open(path, writeOptions(options));
+		Writer writer = null;
+		CsvWriter<T> csvWriter = null;
+		try {
+			boolean gzip = path.getFileName().toString().endsWith(GZIP_SUFFIX);
+			GzipBlocks.BlockOutputStream blockStream = null;
+			if (gzip && gzipBlockRowCount > 0) {
+				// rows are written in blocks so they can be decompressed in parallel when they are read
+				blockStream = new GzipBlocks.BlockOutputStream(Channels.newOutputStream(channel));
+				writer = new ByteEncodingWriter(blockStream, newEncoder(charset), writeBufferSize, true);
+			} else if (gzip) {
+				OutputStream outputStream = new GZIPOutputStream(Channels.newOutputStream(channel), writeBufferSize);
+				writer = new ByteEncodingWriter(outputStream, newEncoder(charset), writeBufferSize, true);
+			} else {
+				writer = new ByteEncodingWriter(channel, newEncoder(charset), writeBufferSize, true);
+			}
+			csvWriter = new CsvWriter<T>(copyWithSharedColumns(), writer, true, blockStream, gzipBlockRowCount);
+			if (writeHeader) {
+				csvWriter.writeHeader();
+			}
+			return csvWriter;
+		} finally {
+			if (csvWriter == null) {
+				if (writer == null) {
+					channel.close();
+				} else {
+					writer.close();
+				}
+			}
+		}
+	}
+
 	/**
 	 * Write the header line to the writer.
 	 * 
@@ -531,28 +1410,7 @@ public class CsvProcessor<T> {
 	 */
 	public String buildHeaderLine(boolean appendLineTermination) {
 		checkEntityConfig();
-		StringBuilder sb = new StringBuilder();
-		boolean first = true;
-		for (ColumnInfo<?> columnInfo : allColumnInfos) {
-			if (first) {
-				first = false;
-			} else {
-				sb.append(columnSeparator);
-			}
-			String header = columnInfo.getColumnName();
-			// need to protect the column if it contains a quote
-			if (header.indexOf(columnQuote) >= 0) {
-				writeQuoted(sb, header);
-				continue;
-			}
-			sb.append(columnQuote);
-			sb.append(header);
-			sb.append(columnQuote);
-		}
-		if (appendLineTermination) {
-			sb.append(lineTermination);
-		}
-		return sb.toString();
+		return getWriteCache().getHeaderLine(appendLineTermination);
 	}
 
 	/**
@@ -564,55 +1422,140 @@ public class CsvProcessor<T> {
 	public String buildLine(T entity, boolean appendLineTermination) {
 		checkEntityConfig();
 		StringBuilder sb = new StringBuilder();
-		boolean first = true;
-		for (ColumnInfo<Object> columnInfo : allColumnInfos) {
-			if (first) {
-				first = false;
-			} else {
+		appendLine(sb, entity, appendLineTermination);
+		return sb.toString();
+	}
+
+	/**
+	 * Write the entities to the writer, in parallel if {@link #setWriteThreadCount(int)} is more than 1.
+	 * 
+	 * @param flushBatches
+	 *            Set to true to flush the writer after each batch of rows.
+	 * @return The number of rows written.
+	 */
+	long writeRows(Writer writer, Iterator<T> entities, boolean flushBatches) throws IOException {
+		return writeRows(writer, entities, writeThreadCount > 1, flushBatches);
+	}
+
+	/**
+	 * Write the contents of the string-builder to the writer using the char array as a buffer.
+	 * 
+	 * @return The char array which may have been grown to fit.
+	 */
+	static char[] writeBuilder(Writer writer, StringBuilder sb, char[] chars) throws IOException {
+		int length = sb.length();
+		if (length > chars.length) {
+			chars = new char[Math.max(length, chars.length * 2)];
+		}
+		sb.getChars(0, length, chars, 0);
+		writer.write(chars, 0, length);
+		return chars;
+	}
+
+	/**
+	 * Append the line for the entity to the string-builder.
+	 */
+	void appendLine(StringBuilder sb, T entity, boolean appendLineTermination) {
+		WriteCache writeCache = getWriteCache();
+		boolean safeDelimiters = writeCache.isSafeDelimiters();
+		List<ColumnInfo<Object>> columnInfos = allColumnInfos;
+		for (int i = 0; i < columnInfos.size(); i++) {
+			if (i > 0) {
 				sb.append(columnSeparator);
 			}
+			ColumnInfo<Object> columnInfo = columnInfos.get(i);
 			Object value;
 			try {
 				value = columnInfo.getValue(entity);
 			} catch (Exception e) {
 				throw new IllegalStateException("Could not get value from entity field: " + columnInfo);
 			}
-			@SuppressWarnings("unchecked")
-			Converter<Object, Object> castConverter = (Converter<Object, Object>) columnInfo.getConverter();
-			String str = castConverter.javaToString(columnInfo, value);
-			boolean needsQuotes = columnInfo.isNeedsQuotes();
-			if (str == null) {
-				if (needsQuotes) {
-					sb.append(columnQuote).append(columnQuote);
-				}
-				continue;
-			}
-			// need to protect the column if it contains a quote
-			if (str.indexOf(columnQuote) >= 0) {
-				writeQuoted(sb, str);
-				continue;
-			}
-			if (!needsQuotes) {
-				for (int i = 0; i < str.length(); i++) {
-					char ch = str.charAt(i);
-					if (ch == columnSeparator || ch == '\r' || ch == '\n' || ch == '\t' || ch == '\b') {
-						needsQuotes = true;
-						break;
-					}
-				}
+			char[] token = writeCache.getToken(i, value);
+			if (token == null) {
+				appendValue(sb, columnInfo, value, safeDelimiters);
+			} else {
+				sb.append(token);
 			}
+		}
+		if (appendLineTermination) {
+			sb.append(lineTermination);
+		}
+	}
+
+	/**
+	 * Convert the value of the column and append it to the string-builder, escaping it if necessary.
+	 */
+	private void appendValue(StringBuilder sb, ColumnInfo<Object> columnInfo, Object value, boolean safeDelimiters) {
+		@SuppressWarnings("unchecked")
+		Converter<Object, Object> castConverter = (Converter<Object, Object>) columnInfo.getConverter();
+		String str = castConverter.javaToString(columnInfo, value);
+		boolean needsQuotes = columnInfo.isNeedsQuotes();
+		if (str == null) {
 			if (needsQuotes) {
-				sb.append(columnQuote);
+				sb.append(columnQuote).append(columnQuote);
 			}
-			sb.append(str);
+		} else if (safeDelimiters && columnInfo.isOutputSafe()) {
 			if (needsQuotes) {
-				sb.append(columnQuote);
+				sb.append(columnQuote).append(str).append(columnQuote);
+			} else {
+				sb.append(str);
 			}
+		} else {
+			appendEscaped(sb, str, needsQuotes);
 		}
-		if (appendLineTermination) {
-			sb.append(lineTermination);
+	}
+
+	/**
+	 * Get the cached header and column tokens, rebuilding them if the columns, separator, quote, or line-termination
+	 * have changed since they were built.
+	 */
+	private WriteCache getWriteCache() {
+		WriteCache cache = writeCache;
+		if (cache == null || !cache.matches(allColumnInfos, columnSeparator, columnQuote, lineTermination)) {
+			// racing threads may build this twice which is fine
+			cache = buildWriteCache();
+			writeCache = cache;
 		}
-		return sb.toString();
+		return cache;
+	}
+
+	private WriteCache buildWriteCache() {
+		List<ColumnInfo<Object>> columnInfos = allColumnInfos;
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < columnInfos.size(); i++) {
+			if (i > 0) {
+				sb.append(columnSeparator);
+			}
+			appendEscaped(sb, columnInfos.get(i).getColumnName(), true);
+		}
+		String headerLine = sb.toString();
+
+		// safe columns can only skip the scan if the separator and quote can't appear in them
+		boolean safeDelimiters =
+				(!ConverterUtils.isSafeOutputChar(columnSeparator) && !ConverterUtils.isSafeOutputChar(columnQuote));
+		// null for the columns that are not pre-encoded
+		List<Map<Object, char[]>> columnTokens = new ArrayList<Map<Object, char[]>>(columnInfos.size());
+		for (int i = 0; i < columnInfos.size(); i++) {
+			ColumnInfo<Object> columnInfo = columnInfos.get(i);
+			@SuppressWarnings("unchecked")
+			Converter<Object, Object> castConverter = (Converter<Object, Object>) columnInfo.getConverter();
+			Collection<Object> values = castConverter.getFiniteValues(columnInfo.getConfigInfo());
+			if (values == null) {
+				columnTokens.add(null);
+				continue;
+			}
+			Map<Object, char[]> tokens = new HashMap<Object, char[]>();
+			for (Object value : values) {
+				sb.setLength(0);
+				appendValue(sb, columnInfo, value, safeDelimiters);
+				char[] token = new char[sb.length()];
+				sb.getChars(0, token.length, token, 0);
+				tokens.put(value, token);
+			}
+			columnTokens.add(tokens);
+		}
+		return new WriteCache(columnInfos, columnSeparator, columnQuote, lineTermination, headerLine, safeDelimiters,
+				columnTokens);
 	}
 
 	/**
@@ -837,34 +1780,1112 @@ public class CsvProcessor<T> {
 		return this;
 	}
 
-	/**
-	 * Set to true to allow line-termination characters inside of a column.
-	 */
-	public void setAllowLineTerminationInColumns(boolean allowLineTerminationInColumns) {
-		this.allowLineTerminationInColumns = allowLineTerminationInColumns;
+	/**
+	 * Set to true to allow line-termination characters inside of a column.
+	 */
+	public void setAllowLineTerminationInColumns(boolean allowLineTerminationInColumns) {
+		this.allowLineTerminationInColumns = allowLineTerminationInColumns;
+	}
+
+	/**
+	 * Set to true to mean that the fields discovered in the superclass come _before_ the sub-classes. Default is false.
+	 */
+	public CsvProcessor<T> withSuperClassColumnsFirst(boolean superClassColumnsFirst) {
+		this.superClassColumnsFirst = superClassColumnsFirst;
+		return this;
+	}
+
+	/**
+	 * Set to true to mean that the fields discovered in the superclass come _before_ the sub-classes. Default is false.
+	 */
+	public void setSuperClassColumnsFirst(boolean superClassColumnsFirst) {
+		this.superClassColumnsFirst = superClassColumnsFirst;
+	}
+
+	/**
+	 * Set the validator which will validate each entity after it has been parsed.
+	 */
+	public CsvProcessor<T> withRowValidator(RowValidator<T> rowValidator) {
+		this.rowValidator = rowValidator;
+		return this;
+	}
+
+	/**
+	 * Set the validator which will validate blocks of entities after they have been parsed and passed the row-validator.
+	 * It is used when reading multiple rows with the readAll and readRows methods and the pipelined reader which
+	 * validates each of its batches in the worker threads. The errors of a batch are reported after it is validated so
+	 * they may come after the parse errors of later rows. It is not used by the single row methods or the publisher.
+	 */
+	public void setBatchRowValidator(BatchRowValidator<T> batchRowValidator) {
+		this.batchRowValidator = batchRowValidator;
+	}
+
+	/**
+	 * Set the validator which will validate blocks of entities after they have been parsed and passed the row-validator.
+	 * It is used when reading multiple rows with the readAll and readRows methods and the pipelined reader which
+	 * validates each of its batches in the worker threads. The errors of a batch are reported after it is validated so
+	 * they may come after the parse errors of later rows. It is not used by the single row methods or the publisher.
+	 */
+	public CsvProcessor<T> withBatchRowValidator(BatchRowValidator<T> batchRowValidator) {
+		this.batchRowValidator = batchRowValidator;
+		return this;
+	}
+
+	/**
+	 * Set the validator which creates a row validator for each partition of the rows so it can keep state without
+	 * synchronizing when the rows are read concurrently. It is called after the row-validator. It is used when reading
+	 * with the readAll and readRows methods, the pipelined reader, and the publisher but not by the single row methods.
+	 * See {@link PartitionedRowValidator}.
+	 */
+	public void setPartitionedRowValidator(PartitionedRowValidator<T> partitionedRowValidator) {
+		this.partitionedRowValidator = partitionedRowValidator;
+	}
+
+	/**
+	 * Set the validator which creates a row validator for each partition of the rows so it can keep state without
+	 * synchronizing when the rows are read concurrently. It is called after the row-validator. It is used when reading
+	 * with the readAll and readRows methods, the pipelined reader, and the publisher but not by the single row methods.
+	 * See {@link PartitionedRowValidator}.
+	 */
+	public CsvProcessor<T> withPartitionedRowValidator(PartitionedRowValidator<T> partitionedRowValidator) {
+		this.partitionedRowValidator = partitionedRowValidator;
+		return this;
+	}
+
+	/**
+	 * Set the name of a column whose value must be unique. Rows whose value duplicates the value of an earlier row in
+	 * the same read are rejected with {@link ErrorType#DUPLICATE_KEY}. The values are remembered with a bloom filter and
+	 * confirmed exactly against the earlier values which are spilled to disk so the heap does not hold all of them.
+	 * Integral numbers are compared by value and other types by their converted strings. Null values are never
+	 * duplicates. The check is done after the row-validators and the batch-row-validator so a row that they reject does
+	 * not hold onto its key. It is used when reading with the readAll and readRows methods, the pipelined reader, and
+	 * the publisher but not by the single row methods. Default is null which means none.
+	 */
+	public void setDuplicateKeyColumn(String duplicateKeyColumn) {
+		this.duplicateKeyColumn = duplicateKeyColumn;
+	}
+
+	/**
+	 * Set the name of a column whose value must be unique. Rows whose value duplicates the value of an earlier row in
+	 * the same read are rejected with {@link ErrorType#DUPLICATE_KEY}. The values are remembered with a bloom filter and
+	 * confirmed exactly against the earlier values which are spilled to disk so the heap does not hold all of them.
+	 * Integral numbers are compared by value and other types by their converted strings. Null values are never
+	 * duplicates. The check is done after the row-validators and the batch-row-validator so a row that they reject does
+	 * not hold onto its key. It is used when reading with the readAll and readRows methods, the pipelined reader, and
+	 * the publisher but not by the single row methods. Default is null which means none.
+	 */
+	public CsvProcessor<T> withDuplicateKeyColumn(String duplicateKeyColumn) {
+		this.duplicateKeyColumn = duplicateKeyColumn;
+		return this;
+	}
+
+	/**
+	 * Set the filter of the converted values of a column, replacing any earlier one for the column. Before a row is
+	 * converted, the columns that have filters are found and converted and rows whose values are not accepted are
+	 * skipped without converting their other columns or constructing their entity. Skipped rows are not errors. If a
+	 * filtered column can't be converted then the row is converted as normal so the error is reported. Filters are
+	 * used by all of the read methods and the aggregators. Set the filter to null to remove it.
+	 */
+	public <V> void setColumnFilter(String columnName, ColumnFilter<V> columnFilter) {
+		@SuppressWarnings("unchecked")
+		ColumnFilter<Object> valueFilter = (ColumnFilter<Object>) columnFilter;
+		FilterInfo filterInfo = (columnFilters == null ? null : columnFilters.get(columnName));
+		putColumnFilter(columnName, (filterInfo == null ? null : filterInfo.rawFilter), valueFilter);
+	}
+
+	/**
+	 * Set the filter of the converted values of a column, replacing any earlier one for the column. Before a row is
+	 * converted, the columns that have filters are found and converted and rows whose values are not accepted are
+	 * skipped without converting their other columns or constructing their entity. Skipped rows are not errors. If a
+	 * filtered column can't be converted then the row is converted as normal so the error is reported. Filters are
+	 * used by all of the read methods and the aggregators. Set the filter to null to remove it.
+	 */
+	public <V> CsvProcessor<T> withColumnFilter(String columnName, ColumnFilter<V> columnFilter) {
+		setColumnFilter(columnName, columnFilter);
+		return this;
+	}
+
+	/**
+	 * Set the filter of the raw characters of a column, replacing any earlier one for the column. This works like
+	 * {@link #setColumnFilter(String, ColumnFilter)} but the column is not converted or trimmed. It is passed the
+	 * characters with any quotes removed in a reused buffer which is only valid during the call. If a column has both
+	 * a raw filter and a filter then the raw one is called first. Set the filter to null to remove it.
+	 */
+	public void setRawColumnFilter(String columnName, ColumnFilter<CharSequence> columnFilter) {
+		FilterInfo filterInfo = (columnFilters == null ? null : columnFilters.get(columnName));
+		putColumnFilter(columnName, columnFilter, (filterInfo == null ? null : filterInfo.valueFilter));
+	}
+
+	/**
+	 * Set the filter of the raw characters of a column, replacing any earlier one for the column. This works like
+	 * {@link #setColumnFilter(String, ColumnFilter)} but the column is not converted or trimmed. It is passed the
+	 * characters with any quotes removed in a reused buffer which is only valid during the call. If a column has both
+	 * a raw filter and a filter then the raw one is called first. Set the filter to null to remove it.
+	 */
+	public CsvProcessor<T> withRawColumnFilter(String columnName, ColumnFilter<CharSequence> columnFilter) {
+		setRawColumnFilter(columnName, columnFilter);
+		return this;
+	}
+
+	/**
+	 * Set the number of unique keys that are expected in a read which sizes the bloom filter of the duplicate key
+	 * column at about 10 bits per key and the number of buckets that the spilled keys are split into. If there are more
+	 * keys then more of them have to be confirmed on disk. Default is {@link #DEFAULT_DUPLICATE_KEY_EXPECTED_COUNT}.
+	 */
+	public void setDuplicateKeyExpectedCount(long duplicateKeyExpectedCount) {
+		this.duplicateKeyExpectedCount = duplicateKeyExpectedCount;
+	}
+
+	/**
+	 * Set the number of unique keys that are expected in a read which sizes the bloom filter of the duplicate key
+	 * column at about 10 bits per key and the number of buckets that the spilled keys are split into. If there are more
+	 * keys then more of them have to be confirmed on disk. Default is {@link #DEFAULT_DUPLICATE_KEY_EXPECTED_COUNT}.
+	 */
+	public CsvProcessor<T> withDuplicateKeyExpectedCount(long duplicateKeyExpectedCount) {
+		this.duplicateKeyExpectedCount = duplicateKeyExpectedCount;
+		return this;
+	}
+
+	/**
+	 * Set the directory where the keys of the duplicate key column are spilled to. A temporary file is created inside
+	 * of it for each read and removed when the read finishes. Default is null which means the default temporary-file
+	 * directory.
+	 */
+	public void setDuplicateKeySpillDirectory(Path duplicateKeySpillDirectory) {
+		this.duplicateKeySpillDirectory = duplicateKeySpillDirectory;
+	}
+
+	/**
+	 * Set the directory where the keys of the duplicate key column are spilled to. A temporary file is created inside
+	 * of it for each read and removed when the read finishes. Default is null which means the default temporary-file
+	 * directory.
+	 */
+	public CsvProcessor<T> withDuplicateKeySpillDirectory(Path duplicateKeySpillDirectory) {
+		this.duplicateKeySpillDirectory = duplicateKeySpillDirectory;
+		return this;
+	}
+
+	/**
+	 * Set the number of entities that are passed to the batch-row-validator at a time. The pipelined reader uses its
+	 * batch-size instead. Default is {@link #DEFAULT_BATCH_VALIDATION_SIZE}.
+	 */
+	public void setBatchValidationSize(int batchValidationSize) {
+		if (batchValidationSize < 1) {
+			throw new IllegalArgumentException("Batch validation size must be at least 1: " + batchValidationSize);
+		}
+		this.batchValidationSize = batchValidationSize;
+	}
+
+	/**
+	 * Set the number of entities that are passed to the batch-row-validator at a time. The pipelined reader uses its
+	 * batch-size instead. Default is {@link #DEFAULT_BATCH_VALIDATION_SIZE}.
+	 */
+	public CsvProcessor<T> withBatchValidationSize(int batchValidationSize) {
+		setBatchValidationSize(batchValidationSize);
+		return this;
+	}
+
+	/**
+	 * Set the number of worker threads that convert rows when reading pipelined. Default is the number of available
+	 * processors.
+	 */
+	public void setPipelineWorkerCount(int pipelineWorkerCount) {
+		this.pipelineWorkerCount = pipelineWorkerCount;
+	}
+
+	/**
+	 * Set the number of worker threads that convert rows when reading pipelined. Default is the number of available
+	 * processors.
+	 */
+	public CsvProcessor<T> withPipelineWorkerCount(int pipelineWorkerCount) {
+		this.pipelineWorkerCount = pipelineWorkerCount;
+		return this;
+	}
+
+	/**
+	 * Set the number of rows that are converted together by a worker thread when reading pipelined. Default is
+	 * {@link #DEFAULT_PIPELINE_BATCH_SIZE}.
+	 */
+	public void setPipelineBatchSize(int pipelineBatchSize) {
+		this.pipelineBatchSize = pipelineBatchSize;
+	}
+
+	/**
+	 * Set the number of rows that are converted together by a worker thread when reading pipelined. Default is
+	 * {@link #DEFAULT_PIPELINE_BATCH_SIZE}.
+	 */
+	public CsvProcessor<T> withPipelineBatchSize(int pipelineBatchSize) {
+		this.pipelineBatchSize = pipelineBatchSize;
+		return this;
+	}
+
+	/**
+	 * Set the number of characters that are read from the input at a time when reading pipelined. Default is
+	 * {@link #DEFAULT_PIPELINE_BUFFER_SIZE}.
+	 */
+	public void setPipelineBufferSize(int pipelineBufferSize) {
+		this.pipelineBufferSize = pipelineBufferSize;
+	}
+
+	/**
+	 * Set the number of characters that are read from the input at a time when reading pipelined. Default is
+	 * {@link #DEFAULT_PIPELINE_BUFFER_SIZE}.
+	 */
+	public CsvProcessor<T> withPipelineBufferSize(int pipelineBufferSize) {
+		this.pipelineBufferSize = pipelineBufferSize;
+		return this;
+	}
+
+	/**
+	 * Set the number of rows that a publisher reads ahead of the subscriber's demand. Default is
+	 * {@link #DEFAULT_PUBLISHER_READ_AHEAD}.
+	 */
+	public void setPublisherReadAhead(int publisherReadAhead) {
+		this.publisherReadAhead = publisherReadAhead;
+	}
+
+	/**
+	 * Set the number of rows that a publisher reads ahead of the subscriber's demand. Default is
+	 * {@link #DEFAULT_PUBLISHER_READ_AHEAD}.
+	 */
+	public CsvProcessor<T> withPublisherReadAhead(int publisherReadAhead) {
+		this.publisherReadAhead = publisherReadAhead;
+		return this;
+	}
+
+	/**
+	 * Set the number of threads used to read files when calling {@link #readAll(Collection)} on JDK versions before
+	 * virtual threads are available. Default is the number of available processors.
+	 */
+	public void setBulkThreadCount(int bulkThreadCount) {
+		this.bulkThreadCount = bulkThreadCount;
+	}
+
+	/**
+	 * Set the number of threads used to read files when calling {@link #readAll(Collection)} on JDK versions before
+	 * virtual threads are available. Default is the number of available processors.
+	 */
+	public CsvProcessor<T> withBulkThreadCount(int bulkThreadCount) {
+		this.bulkThreadCount = bulkThreadCount;
+		return this;
+	}
+
+	/**
+	 * Set the number of rows in each gzip block when writing to a ".gz" file. Each block is an independent gzip member
+	 * so the file can be read by any gzip tool but {@link #readAllPipelined(File, Collection)} can decompress and parse
+	 * the blocks on different threads. A block is ended early if its rows get larger than 16m chars. Default is 0 which
+	 * writes the file as one gzip stream.
+	 */
+	public void setGzipBlockRowCount(int gzipBlockRowCount) {
+		this.gzipBlockRowCount = gzipBlockRowCount;
+	}
+
+	/**
+	 * Set the number of rows in each gzip block when writing to a ".gz" file. Each block is an independent gzip member
+	 * so the file can be read by any gzip tool but {@link #readAllPipelined(File, Collection)} can decompress and parse
+	 * the blocks on different threads. A block is ended early if its rows get larger than 16m chars. Default is 0 which
+	 * writes the file as one gzip stream.
+	 */
+	public CsvProcessor<T> withGzipBlockRowCount(int gzipBlockRowCount) {
+		this.gzipBlockRowCount = gzipBlockRowCount;
+		return this;
+	}
+
+	/**
+	 * Set the size of the buffers used when reading files. Larger buffers can be a lot faster on network file-systems.
+	 * Default is {@link #DEFAULT_FILE_BUFFER_SIZE}.
+	 */
+	public void setReadBufferSize(int readBufferSize) {
+		this.readBufferSize = readBufferSize;
+	}
+
+	/**
+	 * Set the size of the buffers used when reading files. Larger buffers can be a lot faster on network file-systems.
+	 * Default is {@link #DEFAULT_FILE_BUFFER_SIZE}.
+	 */
+	public CsvProcessor<T> withReadBufferSize(int readBufferSize) {
+		this.readBufferSize = readBufferSize;
+		return this;
+	}
+
+	/**
+	 * Set the size of the buffers used when writing files, streams, and channels. Larger buffers can be a lot faster on
+	 * network file-systems. Default is {@link #DEFAULT_FILE_BUFFER_SIZE}.
+	 */
+	public void setWriteBufferSize(int writeBufferSize) {
+		this.writeBufferSize = writeBufferSize;
+	}
+
+	/**
+	 * Set the size of the buffers used when writing files, streams, and channels. Larger buffers can be a lot faster on
+	 * network file-systems. Default is {@link #DEFAULT_FILE_BUFFER_SIZE}.
+	 */
+	public CsvProcessor<T> withWriteBufferSize(int writeBufferSize) {
+		this.writeBufferSize = writeBufferSize;
+		return this;
+	}
+
+	/**
+	 * Set the number of rows between the entries in a row index. Smaller intervals make the index bigger but mean fewer
+	 * rows need to be skipped when seeking. Default is {@link #DEFAULT_ROW_INDEX_INTERVAL}.
+	 */
+	public void setRowIndexInterval(int rowIndexInterval) {
+		this.rowIndexInterval = rowIndexInterval;
+	}
+
+	/**
+	 * Set the number of rows between the entries in a row index. Smaller intervals make the index bigger but mean fewer
+	 * rows need to be skipped when seeking. Default is {@link #DEFAULT_ROW_INDEX_INTERVAL}.
+	 */
+	public CsvProcessor<T> withRowIndexInterval(int rowIndexInterval) {
+		this.rowIndexInterval = rowIndexInterval;
+		return this;
+	}
+
+	/**
+	 * Set the number of threads that format the entities when writing. If this is more than 1 then
+	 * {@link #writeAll(Writer, Collection, boolean)} formats batches of {@link #setWriteBatchSize(int)} entities in
+	 * parallel and writes them out in order. Default is 0 which writes the entities one at a time on the calling thread.
+	 */
+	public void setWriteThreadCount(int writeThreadCount) {
+		this.writeThreadCount = writeThreadCount;
+	}
+
+	/**
+	 * Set the number of threads that format the entities when writing. Alternative way to do
+	 * {@link #setWriteThreadCount(int)}.
+	 */
+	public CsvProcessor<T> withWriteThreadCount(int writeThreadCount) {
+		this.writeThreadCount = writeThreadCount;
+		return this;
+	}
+
+	/**
+	 * Set the number of entities that are formatted together by a thread when writing in parallel. Default is
+	 * {@link #DEFAULT_WRITE_BATCH_SIZE}.
+	 */
+	public void setWriteBatchSize(int writeBatchSize) {
+		this.writeBatchSize = writeBatchSize;
+	}
+
+	/**
+	 * Set the number of entities that are formatted together by a thread when writing in parallel. Default is
+	 * {@link #DEFAULT_WRITE_BATCH_SIZE}.
+	 */
+	public CsvProcessor<T> withWriteBatchSize(int writeBatchSize) {
+		this.writeBatchSize = writeBatchSize;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of rows with parse errors that are allowed when reading with a parse-errors collection
+	 * before the reading is aborted with a {@link ParseException}. The error that goes over the max is still added to
+	 * the collection. Default is 0 which means no maximum. See {@link ParseErrorCollector} to limit the number of
+	 * errors that are held onto.
+	 */
+	public void setMaxParseErrors(int maxParseErrors) {
+		this.maxParseErrors = maxParseErrors;
+	}
+
+	/**
+	 * Set the maximum number of rows with parse errors that are allowed when reading with a parse-errors collection
+	 * before the reading is aborted with a {@link ParseException}. The error that goes over the max is still added to
+	 * the collection. Default is 0 which means no maximum. See {@link ParseErrorCollector} to limit the number of
+	 * errors that are held onto.
+	 */
+	public CsvProcessor<T> withMaxParseErrors(int maxParseErrors) {
+		this.maxParseErrors = maxParseErrors;
+		return this;
+	}
+
+	/**
+	 * Set the number of rows after the header that are skipped when reading. The skipped rows are found by scanning
+	 * for the ends of the records so they are not converted, filtered, or validated and they can't cause parse
+	 * errors. This is used by the readAll, readRows without a row range, readAllOffHeap, readAllPipelined, and
+	 * publishAll methods and each file of a bulk read. Default is 0.
+	 */
+	public void setReadOffset(long readOffset) {
+		this.readOffset = readOffset;
+	}
+
+	/**
+	 * Set the number of rows after the header that are skipped when reading. Alternative way to do
+	 * {@link #setReadOffset(long)}.
+	 */
+	public CsvProcessor<T> withReadOffset(long readOffset) {
+		this.readOffset = readOffset;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of entities that are returned by a read. Rows that are skipped by a column filter or that
+	 * have errors are not counted. Once the limit is reached the rest of the input is not read. This is used by the
+	 * same methods as {@link #setReadOffset(long)}. Default is 0 which means no limit.
+	 */
+	public void setReadLimit(long readLimit) {
+		this.readLimit = readLimit;
+	}
+
+	/**
+	 * Set the maximum number of entities that are returned by a read. Alternative way to do
+	 * {@link #setReadLimit(long)}.
+	 */
+	public CsvProcessor<T> withReadLimit(long readLimit) {
+		this.readLimit = readLimit;
+		return this;
+	}
+
+	/**
+	 * Set a hook that is checked before each row is read which can stop a read early without throwing. The entities
+	 * that have been read so far are returned, the pipelined reader returns null, and the publisher completes. This
+	 * is used by the same methods as {@link #setReadOffset(long)}.
+	 */
+	public void setReadCanceller(ReadCanceller readCanceller) {
+		this.readCanceller = readCanceller;
+	}
+
+	/**
+	 * Set a hook that is checked before each row is read which can stop a read early. Alternative way to do
+	 * {@link #setReadCanceller(ReadCanceller)}.
+	 */
+	public CsvProcessor<T> withReadCanceller(ReadCanceller readCanceller) {
+		this.readCanceller = readCanceller;
+		return this;
+	}
+
+	/**
+	 * Set a writer that the rows with parse or validation errors are written to as they are read so they don't have to
+	 * be extracted from the input afterwards. Each rejected row is written as the line-number, the name of the
+	 * {@link ErrorType}, and the quoted error message followed by the separator and the original record. A record with
+	 * line-termination characters inside of a quoted column is joined with the line-termination string. This is only
+	 * used when reading with a parse-errors collection or listener and the writer is not flushed or closed by the
+	 * processor. Default is null which means none.
+	 */
+	public void setRejectWriter(Writer rejectWriter) {
+		this.rejectWriter = rejectWriter;
+	}
+
+	/**
+	 * Set a writer that the rows with parse or validation errors are written to as they are read so they don't have to
+	 * be extracted from the input afterwards. Each rejected row is written as the line-number, the name of the
+	 * {@link ErrorType}, and the quoted error message followed by the separator and the original record. A record with
+	 * line-termination characters inside of a quoted column is joined with the line-termination string. This is only
+	 * used when reading with a parse-errors collection or listener and the writer is not flushed or closed by the
+	 * processor. Default is null which means none.
+	 */
+	public CsvProcessor<T> withRejectWriter(Writer rejectWriter) {
+		this.rejectWriter = rejectWriter;
+		return this;
+	}
+
+	boolean isFirstLineHeader() {
+		return firstLineHeader;
+	}
+
+	BatchRowValidator<T> getBatchRowValidator() {
+		return batchRowValidator;
+	}
+
+	boolean hasDuplicateKeyColumn() {
+		return (duplicateKeyColumn != null);
+	}
+
+	/**
+	 * Create the row validator for a new partition of the rows or null if there is no partitioned-row-validator.
+	 */
+	RowValidator<T> createPartition() {
+		if (partitionedRowValidator == null) {
+			return null;
+		} else {
+			return partitionedRowValidator.createPartition();
+		}
+	}
+
+	/**
+	 * Run the column filters on a record that has already been read in.
+	 * 
+	 * @return True if the row should be converted or false if it was skipped by a filter.
+	 */
+	boolean acceptRecord(String record, int lineNumber) {
+		if (columnFilters == null) {
+			return true;
+		} else {
+			return acceptRecord(record, lineNumber, getPositionFilters());
+		}
+	}
+
+	/**
+	 * Create the filter for the duplicate key column of a new read or null if there is no column.
+	 */
+	DuplicateKeyFilter createDuplicateKeyFilter() {
+		if (duplicateKeyColumn == null) {
+			return null;
+		}
+		checkEntityConfig();
+		for (ColumnInfo<Object> columnInfo : allColumnInfos) {
+			if (columnInfo.getColumnName().equals(duplicateKeyColumn)) {
+				return new DuplicateKeyFilter(columnInfo, duplicateKeyExpectedCount, duplicateKeySpillDirectory);
+			}
+		}
+		throw new IllegalArgumentException(
+				"Duplicate key column '" + duplicateKeyColumn + "' is not a column of " + entityClass);
+	}
+
+	/**
+	 * Check the key of the entity against the keys of the earlier rows in the filter.
+	 * 
+	 * @param parseError
+	 *            If not null, this will be set if the key is a duplicate. If this is null then a ParseException will be
+	 *            thrown instead.
+	 * @return True if the key is a duplicate.
+	 */
+	boolean checkDuplicateKey(DuplicateKeyFilter duplicateKeyFilter, T entity, String record, int lineNumber,
+			ParseError parseError) throws ParseException, IOException {
+		ColumnInfo<Object> columnInfo = duplicateKeyFilter.getColumnInfo();
+		Object key;
+		try {
+			key = columnInfo.getValue(entity);
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not get value from entity field: " + columnInfo);
+		}
+		if (duplicateKeyFilter.add(key)) {
+			return false;
+		}
+		if (parseError == null) {
+			throw new ParseException("Duplicate key '" + key + "' in column " + columnInfo.getColumnName() + " on line "
+					+ lineNumber + ": " + record, 0);
+		}
+		parseError.setErrorType(ErrorType.DUPLICATE_KEY);
+		parseError.setMessage("column '%s' duplicates an earlier row", columnInfo.getColumnName());
+		assignParseErrorFields(parseError, columnInfo, String.valueOf(key));
+		parseError.setLine(record);
+		parseError.setLineNumber(lineNumber);
+		return true;
+	}
+
+	/**
+	 * Merge the row validator of a partition that has been read.
+	 */
+	void mergePartition(RowValidator<T> partition) {
+		PartitionedRowValidator<T> validator = partitionedRowValidator;
+		if (partition == null || validator == null) {
+			return;
+		}
+		synchronized (validator) {
+			validator.mergePartition(partition);
+		}
+	}
+
+	/**
+	 * Write the rejected row, add the parse error to the collection, and then throw if there have been more than the
+	 * max-parse-errors.
+	 * 
+	 * @param errorCount
+	 *            Number of parse errors so far in this read including this one.
+	 * @return True if the collection held onto the parse error so another one has to be created for the next row.
+	 */
+	boolean addParseError(Collection<ParseError> parseErrors, ParseError parseError, long errorCount)
+			throws ParseException, IOException {
+		writeReject(parseError);
+		boolean added = parseErrors.add(parseError);
+		checkMaxParseErrors(parseError, errorCount);
+		return added;
+	}
+
+	/**
+	 * Write the row with the error to the reject-writer if there is one. This is done before the error is handed off
+	 * because a collection may drop the line.
+	 */
+	void writeReject(ParseError parseError) throws IOException {
+		Writer writer = rejectWriter;
+		if (writer == null || parseError.getLine() == null) {
+			return;
+		}
+		String line = parseError.getLine();
+		StringBuilder sb = new StringBuilder(line.length() + 64);
+		sb.append(parseError.getLineNumber()).append(columnSeparator);
+		sb.append(parseError.getErrorType().name()).append(columnSeparator);
+		String message = parseError.getMessage();
+		appendEscaped(sb, (message == null ? "" : message), true);
+		sb.append(columnSeparator).append(line).append(lineTermination);
+		// the publisher and multiple readers can share the writer
+		synchronized (writer) {
+			writer.append(sb);
+		}
+	}
+
+	/**
+	 * Throw if there have been more than the max-parse-errors.
+	 */
+	void checkMaxParseErrors(ParseError parseError, long errorCount) throws ParseException {
+		if (isPastMaxParseErrors(errorCount)) {
+			throw new ParseException("Aborted after " + errorCount + " parse errors, last on line "
+					+ parseError.getLineNumber() + " (" + parseError + ")", parseError.getLinePos());
+		}
+	}
+
+	/**
+	 * Return true if the error count is more than the max-parse-errors.
+	 */
+	boolean isPastMaxParseErrors(long errorCount) {
+		return (maxParseErrors > 0 && errorCount > maxParseErrors);
+	}
+
+	/**
+	 * Skip over the read-offset records without converting them.
+	 */
+	void skipOffsetRecords(BufferedReader bufferedReader) throws IOException {
+		if (readOffset > 0) {
+			buildRecordReader(bufferedReader, 0).skipRecords(readOffset);
+		}
+	}
+
+	long getReadOffset() {
+		return readOffset;
+	}
+
+	/**
+	 * Returns true if the number of entities that have been returned has reached the read-limit.
+	 */
+	boolean isReadLimitReached(long entityCount) {
+		return (readLimit > 0 && entityCount >= readLimit);
+	}
+
+	boolean isReadCancelled() {
+		return (readCanceller != null && readCanceller.isCancelled());
+	}
+
+	/**
+	 * Build a reader that splits the input into records using our configuration.
+	 */
+	RecordReader buildRecordReader(BufferedReader bufferedReader, int lineCount) {
+		return new RecordReader(bufferedReader, columnSeparator, columnQuote, allowLineTerminationInColumns,
+				lineTermination, lineCount);
+	}
+
+	/**
+	 * Process a row that has already been read in and validate it with the row-validator of the partition if not null.
+	 * This is called by the pipeline workers.
+	 */
+	T processRow(String line, ParseError parseError, int lineNumber, RowValidator<T> partition)
+			throws ParseException {
+		try {
+			return processRow(new LineInfo(line), null, parseError, lineNumber, partition, null);
+		} catch (IOException e) {
+			// this won't happen because processRow won't do any IO
+			return null;
+		}
+	}
+
+	/**
+	 * Construct an entity from column values in the order of the configured columns. Null values are not assigned.
+	 */
+	T buildEntity(Object[] values) throws ParseException {
+		T entity = null;
+		Object[] arguments = null;
+		if (constructorCallable == null && entityCreator.isArgumentBased()) {
+			arguments = entityCreator.getArguments();
+		} else {
+			entity = constructEntity();
+		}
+		Object target = (arguments == null ? entity : arguments);
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null) {
+				continue;
+			}
+			ColumnInfo<Object> columnInfo = allColumnInfos.get(i);
+			try {
+				columnInfo.setValue(target, values[i]);
+			} catch (Exception e) {
+				ParseException parseException =
+						new ParseException("setting value for field '" + columnInfo.getFieldName() + "' error", 0);
+				parseException.initCause(e);
+				throw parseException;
+			}
+		}
+		if (arguments != null) {
+			entity = constructEntity(arguments, null);
+		}
+		return entity;
+	}
+
+	/**
+	 * Process and validate a header record that has already been read in.
+	 */
+	void validateHeaderRecord(String record, int lineNumber) throws ParseException {
+		String[] columns;
+		try {
+			columns = processHeader(record, null, lineNumber);
+		} catch (IOException e) {
+			// this won't happen because processHeader won't do any IO
+			throw new ParseException("Problems parsing header line: " + record, 0);
+		}
+		if (headerValidation && !validateHeaderColumns(columns, null, lineNumber)) {
+			throw new ParseException("header line is not valid: " + record, 0);
+		}
+	}
+
+	/**
+	 * Return the information about the column at the position in the rows or null if there is no column configured
+	 * there.
+	 */
+	ColumnInfo<Object> getColumnInfo(int position) {
+		return columnPositionInfoMap.get(position);
+	}
+
+	/**
+	 * Return the position of the column in the rows or -1 if the column is not configured or not in the header.
+	 */
+	int findColumnPosition(String columnName) {
+		for (Map.Entry<Integer, ColumnInfo<Object>> entry : columnPositionInfoMap.entrySet()) {
+			if (entry.getValue().getColumnName().equals(columnName)) {
+				return entry.getKey();
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Extract the string value of the column at the position from a record without converting it. It is trimmed the
+	 * same way as when the column is converted.
+	 * 
+	 * @return The column value or null if the record does not have the column or could not be parsed.
+	 */
+	String extractKeyColumn(String record, int position) {
+		StringBuilder sb = new StringBuilder(32);
+		ParseError parseError = new ParseError();
+		LineInfo lineInfo = new LineInfo(record);
+		for (int columnCount = 0;; columnCount++) {
+			boolean atEnd = lineInfo.isAtEnd();
+			sb.setLength(0);
+			if (lineInfo.isAtQuote()) {
+				try {
+					processQuotedColumn(lineInfo, null, 0, null, null, sb, parseError);
+				} catch (IOException e) {
+					// this won't happen because there is no reader to do IO with
+					return null;
+				}
+			} else {
+				processUnquotedColumn(lineInfo, 0, null, null, sb, parseError);
+			}
+			if (parseError.isError()) {
+				return null;
+			}
+			if (columnCount == position) {
+				ColumnInfo<Object> columnInfo = columnPositionInfoMap.get(position);
+				if (alwaysTrimInput || columnInfo.isTrimInput() || columnInfo.getConverter().isAlwaysTrimInput()) {
+					return sb.toString().trim();
+				} else {
+					return sb.toString();
+				}
+			}
+			if (atEnd) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Create a scanner over the records of a file using our separator, quote, and line-termination settings.
+	 */
+	RecordScanner newRecordScanner(FileChannel channel, long offset, int lineCount, boolean keepRecord,
+			int bufferSize) {
+		return new RecordScanner(channel, offset, lineCount, columnSeparator, columnQuote,
+				allowLineTerminationInColumns, lineTermination, keepRecord, bufferSize);
+	}
+
+	/**
+	 * Create a line counting reader which reads from the current position of the channel.
+	 */
+	BufferedReaderLineCounter newChannelReader(FileChannel channel, Charset charset) {
+		return new BufferedReaderLineCounter(Channels.newReader(channel, newDecoder(charset), readBufferSize),
+				readBufferSize);
+	}
+
+	/**
+	 * Returns the options to open a file for writing the same way as {@link Files#newOutputStream(Path, OpenOption...)}
+	 * so the channel is always writable.
+	 */
+	private static Set<OpenOption> writeOptions(OpenOption... options) {
+		Set<OpenOption> optionSet = new HashSet<OpenOption>();
+		if (options.length == 0) {
+			optionSet.add(StandardOpenOption.CREATE);
+			optionSet.add(StandardOpenOption.TRUNCATE_EXISTING);
+		} else {
+			for (OpenOption option : options) {
+				if (option == StandardOpenOption.READ) {
+					throw new IllegalArgumentException("READ not allowed when opening a file to write");
+				}
+				optionSet.add(option);
+			}
+		}
+		optionSet.add(StandardOpenOption.WRITE);
+		return optionSet;
+	}
+
+	/**
+	 * Open the file for reading, decompressing it if it is gzipped.
+	 */
+	private Reader openPathReader(Path path, Charset charset, OpenOption... options) throws IOException {
+		FileChannel channel = FileChannel.open(path, options);
+		try {
+			// peek at the start of the file without moving the channel's position
+			ByteBuffer magic = ByteBuffer.allocate(2);
+			while (magic.hasRemaining() && channel.read(magic, magic.position()) > 0) {
+				// keep reading
+			}
+			magic.flip();
+			if (magic.remaining() == 2 && (magic.get(0) & 0xFF) == GZIP_MAGIC1 && (magic.get(1) & 0xFF) == GZIP_MAGIC2) {
+				InputStream inputStream = new GZIPInputStream(Channels.newInputStream(channel), readBufferSize);
+				return new InputStreamReader(inputStream, newDecoder(charset));
+			} else {
+				return Channels.newReader(channel, newDecoder(charset), readBufferSize);
+			}
+		} catch (IOException ioe) {
+			channel.close();
+			throw ioe;
+		}
+	}
+
+	private static CharsetDecoder newDecoder(Charset charset) {
+		return charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	private static CharsetEncoder newEncoder(Charset charset) {
+		return charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	private long writeRows(Writer writer, Iterator<T> entities, boolean parallel, boolean flushBatches)
+			throws IOException {
+		if (parallel) {
+			return writeRowsParallel(writer, entities, flushBatches);
+		}
+		StringBuilder sb = new StringBuilder(256);
+		char[] chars = new char[256];
+		long rowCount = 0;
+		while (entities.hasNext()) {
+			sb.setLength(0);
+			appendLine(sb, entities.next(), true);
+			chars = writeBuilder(writer, sb, chars);
+			rowCount++;
+			if (flushBatches && rowCount % writeBatchSize == 0) {
+				writer.flush();
+			}
+		}
+		return rowCount;
+	}
+
+	/**
+	 * Format batches of the entities on a pool of threads and write them out in order. At most 2 batches per thread
+	 * are in flight at once to bound the memory.
+	 */
+	private long writeRowsParallel(Writer writer, Iterator<T> entities, boolean flushBatches) throws IOException {
+		List<T> batch = nextBatch(entities);
+		if (!entities.hasNext()) {
+			// not worth starting the threads for less than a batch
+			return writeRows(writer, batch.iterator(), false, flushBatches);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(writeThreadCount, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "simplecsv-write");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		ArrayDeque<Future<StringBuilder>> pending = new ArrayDeque<Future<StringBuilder>>();
+		char[] chars = new char[256];
+		long rowCount = 0;
+		try {
+			while (!batch.isEmpty()) {
+				if (pending.size() >= writeThreadCount * 2) {
+					chars = writeBatch(writer, pending.remove(), chars, flushBatches);
+				}
+				pending.add(executor.submit(newFormatBatchCallable(batch)));
+				rowCount += batch.size();
+				batch = nextBatch(entities);
+			}
+			while (!pending.isEmpty()) {
+				chars = writeBatch(writer, pending.remove(), chars, flushBatches);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return rowCount;
+	}
+
+	private List<T> nextBatch(Iterator<T> entities) {
+		List<T> batch = new ArrayList<T>(writeBatchSize);
+		while (batch.size() < writeBatchSize && entities.hasNext()) {
+			batch.add(entities.next());
+		}
+		return batch;
+	}
+
+	private Callable<StringBuilder> newFormatBatchCallable(final List<T> batch) {
+		return new Callable<StringBuilder>() {
+			@Override
+			public StringBuilder call() {
+				StringBuilder sb = new StringBuilder(batch.size() * 64);
+				for (T entity : batch) {
+					appendLine(sb, entity, true);
+				}
+				return sb;
+			}
+		};
+	}
+
+	private char[] writeBatch(Writer writer, Future<StringBuilder> future, char[] chars, boolean flush)
+			throws IOException {
+		StringBuilder sb;
+		try {
+			sb = future.get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while formatting entities");
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new IllegalStateException("Formatting entities failed", cause);
+			}
+		}
+		chars = writeBuilder(writer, sb, chars);
+		if (flush) {
+			writer.flush();
+		}
+		return chars;
+	}
+
+	private String buildRowIndexSettings(Charset charset) {
+		return CsvRowIndex.buildSettings(charset, columnSeparator, columnQuote, allowLineTerminationInColumns,
+				firstLineHeader, rowIndexInterval);
 	}
 
-	/**
-	 * Set to true to mean that the fields discovered in the superclass come _before_ the sub-classes. Default is false.
-	 */
-	public CsvProcessor<T> withSuperClassColumnsFirst(boolean superClassColumnsFirst) {
-		this.superClassColumnsFirst = superClassColumnsFirst;
-		return this;
+	private CsvKeyIndex<T> openKeyIndex(Path path, Charset charset, String keyColumnName, boolean rebuild)
+			throws ParseException, IOException {
+		checkEntityConfig();
+		String settings = buildRowIndexSettings(charset) + "|" + alwaysTrimInput + "|" + keyColumnName;
+		long rowCount = loadRowIndex(path, charset).getRowCount();
+		// the index has its own processor since the header sets the column positions
+		return CsvKeyIndex.open(copyWithSharedColumns(), path, charset, keyColumnName, settings, rowCount, rebuild);
+	}
+
+	private BulkReadResult.FileResult<T> readPath(Path path, Charset charset) {
+		// each file needs its own column positions which are set from its header
+		CsvProcessor<T> processor = copyWithSharedColumns();
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<T> entities = null;
+		Exception exception = null;
+		long byteCount = 0;
+		long startNanos = System.nanoTime();
+		try {
+			byteCount = Files.size(path);
+			Reader reader;
+			InputStream inputStream;
+			if (byteCount <= BULK_IN_MEMORY_FILE_SIZE) {
+				inputStream = new ByteArrayInputStream(Files.readAllBytes(path));
+			} else {
+				inputStream = Files.newInputStream(path);
+			}
+			reader = new InputStreamReader(
+					GzipBlocks.decompressIfGzip(new BufferedInputStream(inputStream, GZIP_BUFFER_SIZE)), charset);
+			try {
+				entities = processor.readAll(reader, parseErrors);
+			} finally {
+				reader.close();
+			}
+		} catch (IOException ioe) {
+			exception = ioe;
+		} catch (ParseException pe) {
+			// shouldn't happen since we are passing in a collection of errors
+			exception = pe;
+		}
+		if (entities == null) {
+			entities = Collections.emptyList();
+		}
+		return new BulkReadResult.FileResult<T>(path, entities, parseErrors, exception, byteCount,
+				System.nanoTime() - startNanos);
 	}
 
 	/**
-	 * Set to true to mean that the fields discovered in the superclass come _before_ the sub-classes. Default is false.
+	 * Make a copy of this processor which shares the configured columns and entity creation but has its own column
+	 * positions.
 	 */
-	public void setSuperClassColumnsFirst(boolean superClassColumnsFirst) {
-		this.superClassColumnsFirst = superClassColumnsFirst;
+	CsvProcessor<T> copyWithSharedColumns() {
+		CsvProcessor<T> copy = new CsvProcessor<T>(entityClass);
+		copy.columnSeparator = columnSeparator;
+		copy.columnQuote = columnQuote;
+		copy.lineTermination = lineTermination;
+		copy.allowPartialLines = allowPartialLines;
+		copy.alwaysTrimInput = alwaysTrimInput;
+		copy.headerValidation = headerValidation;
+		copy.firstLineHeader = firstLineHeader;
+		copy.flexibleOrder = flexibleOrder;
+		copy.ignoreUnknownColumns = ignoreUnknownColumns;
+		copy.allowLineTerminationInColumns = allowLineTerminationInColumns;
+		copy.superClassColumnsFirst = superClassColumnsFirst;
+		copy.rowValidator = rowValidator;
+		copy.batchRowValidator = batchRowValidator;
+		copy.partitionedRowValidator = partitionedRowValidator;
+		copy.duplicateKeyColumn = duplicateKeyColumn;
+		copy.duplicateKeyExpectedCount = duplicateKeyExpectedCount;
+		copy.duplicateKeySpillDirectory = duplicateKeySpillDirectory;
+		if (columnFilters != null) {
+			copy.columnFilters = new LinkedHashMap<String, FilterInfo>(columnFilters);
+		}
+		copy.batchValidationSize = batchValidationSize;
+		copy.columnNameMatcher = columnNameMatcher;
+		copy.pipelineWorkerCount = pipelineWorkerCount;
+		copy.pipelineBatchSize = pipelineBatchSize;
+		copy.pipelineBufferSize = pipelineBufferSize;
+		copy.publisherReadAhead = publisherReadAhead;
+		copy.bulkThreadCount = bulkThreadCount;
+		copy.gzipBlockRowCount = gzipBlockRowCount;
+		copy.readBufferSize = readBufferSize;
+		copy.writeBufferSize = writeBufferSize;
+		copy.rowIndexInterval = rowIndexInterval;
+		copy.writeThreadCount = writeThreadCount;
+		copy.writeBatchSize = writeBatchSize;
+		copy.maxParseErrors = maxParseErrors;
+		copy.readOffset = readOffset;
+		copy.readLimit = readLimit;
+		copy.readCanceller = readCanceller;
+		copy.rejectWriter = rejectWriter;
+		copy.entityCreator = entityCreator;
+		copy.constructorCallable = constructorCallable;
+		copy.converterMap.putAll(converterMap);
+		copy.allColumnInfos = allColumnInfos;
+		copy.writeCache = writeCache;
+		copy.resetColumnPositionInfoMap();
+		return copy;
 	}
 
 	/**
-	 * Set the validator which will validate each entity after it has been parsed.
+	 * Use virtual threads if we are running on JDK 21 or above otherwise a fixed pool of threads.
 	 */
-	public CsvProcessor<T> withRowValidator(RowValidator<T> rowValidator) {
-		this.rowValidator = rowValidator;
-		return this;
+	private ExecutorService newBulkExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (Exception e) {
+			// virtual threads aren't available
+		}
+		return Executors.newFixedThreadPool(bulkThreadCount, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "simplecsv-bulk");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
 	}
 
 	private boolean validateHeaderColumns(String[] columns, ParseError parseError, int lineNumber) {
@@ -896,7 +2917,7 @@ public class CsvProcessor<T> {
 				if (!ignoreUnknownColumns) {
 					if (parseError != null) {
 						parseError.setErrorType(ErrorType.INVALID_HEADER);
-						parseError.setMessage("column name '" + headerColumn + "' is unknown");
+						parseError.setMessage("column name '%s' is unknown", headerColumn);
 						parseError.setLineNumber(lineNumber);
 					}
 					result = false;
@@ -905,7 +2926,7 @@ public class CsvProcessor<T> {
 				if (!flexibleOrder && matchedColumnInfo.getPosition() <= lastColumnInfoPosition) {
 					if (parseError != null) {
 						parseError.setErrorType(ErrorType.INVALID_HEADER);
-						parseError.setMessage("column name '" + headerColumn + "' is not in the proper order");
+						parseError.setMessage("column name '%s' is not in the proper order", headerColumn);
 						assignParseErrorFields(parseError, matchedColumnInfo, null);
 						parseError.setLineNumber(lineNumber);
 					}
@@ -928,8 +2949,8 @@ public class CsvProcessor<T> {
 			if (columnInfo.isMustBeSupplied()) {
 				if (parseError != null) {
 					parseError.setErrorType(ErrorType.INVALID_HEADER);
-					parseError.setMessage(
-							"column '" + columnInfo.getColumnName() + "' must be supplied and was not specified");
+					parseError.setMessage("column '%s' must be supplied and was not specified",
+							columnInfo.getColumnName());
 					assignParseErrorFields(parseError, columnInfo, null);
 					parseError.setLineNumber(lineNumber);
 				}
@@ -983,32 +3004,26 @@ public class CsvProcessor<T> {
 		return headerColumns.toArray(new String[headerColumns.size()]);
 	}
 
-	private T processRow(String line, BufferedReader bufferedReader, ParseError parseError, int lineNumber)
-			throws ParseException, IOException {
-		T entity = processRowInner(line, bufferedReader, parseError, lineNumber);
-		if (entity != null && rowValidator != null) {
-			ParseError localParseError = parseError;
-			if (localParseError == null) {
-				localParseError = new ParseError();
-			}
-			try {
-				rowValidator.validateRow(line, lineNumber, entity, localParseError);
-			} catch (ParseException pe) {
-				if (parseError == null) {
-					throw pe;
-				}
-				parseError.setErrorType(ErrorType.INVALID_ENTITY);
-				parseError.setMessage(pe.getMessage());
-			}
+	private T processRow(LineInfo lineInfo, BufferedReader bufferedReader, ParseError parseError, int lineNumber,
+			RowValidator<T> partition, DuplicateKeyFilter duplicateKeyFilter) throws ParseException, IOException {
+		if (columnFilters != null && !acceptRow(lineInfo, bufferedReader, lineNumber)) {
+			return null;
+		}
+		// the line-info moves to the last line of a record that spans lines
+		String line = lineInfo.line;
+		T entity = processRowInner(lineInfo, bufferedReader, parseError, lineNumber);
+		if (entity != null && validateRow(rowValidator, line, lineNumber, entity, parseError)
+				&& validateRow(partition, line, lineNumber, entity, parseError) && duplicateKeyFilter != null) {
+			checkDuplicateKey(duplicateKeyFilter, entity, lineInfo.getRecord(), lineNumber, parseError);
 		}
 		if (parseError != null && parseError.isError()) {
 			if (parseError.getLine() == null) {
-				parseError.setLine(line);
+				parseError.setLine(lineInfo.getRecord());
 			}
 			if (parseError.getLineNumber() == 0) {
 				parseError.setLineNumber(lineNumber);
 			}
-			if (parseError.getMessage() == null) {
+			if (!parseError.hasMessage()) {
 				parseError.setMessage(parseError.getErrorType().getTypeMessage());
 			}
 			// force the entity to be null
@@ -1017,15 +3032,49 @@ public class CsvProcessor<T> {
 		return entity;
 	}
 
-	private T processRowInner(String line, BufferedReader bufferedReader, ParseError parseError, int lineNumber)
+	/**
+	 * Validate the entity with the validator if not null.
+	 * 
+	 * @return False if the parse-error was set by the validator.
+	 */
+	private boolean validateRow(RowValidator<T> validator, String line, int lineNumber, T entity,
+			ParseError parseError) throws ParseException {
+		if (validator == null) {
+			return true;
+		}
+		ParseError localParseError = parseError;
+		if (localParseError == null) {
+			localParseError = new ParseError();
+		}
+		try {
+			validator.validateRow(line, lineNumber, entity, localParseError);
+		} catch (ParseException pe) {
+			if (parseError == null) {
+				throw pe;
+			}
+			parseError.setErrorType(ErrorType.INVALID_ENTITY);
+			parseError.setMessage("%s", pe);
+			parseError.setCause(pe);
+		}
+		return (parseError == null || !parseError.isError());
+	}
+
+	private T processRowInner(LineInfo lineInfo, BufferedReader bufferedReader, ParseError parseError, int lineNumber)
 			throws ParseException, IOException {
-		T target = constructEntity();
+		T entity = null;
+		Object[] arguments = null;
+		if (constructorCallable == null && entityCreator.isArgumentBased()) {
+			// the column values are collected in the arguments and the entity is constructed at the end
+			arguments = entityCreator.getArguments();
+		} else {
+			entity = constructEntity();
+		}
+		Object target = (arguments == null ? entity : arguments);
 		ParseError localParseError = parseError;
 		if (localParseError == null) {
 			localParseError = new ParseError();
 		}
 		int columnCount = 0;
-		LineInfo lineInfo = new LineInfo(line);
 		while (true) {
 			ColumnInfo<Object> columnInfo = columnPositionInfoMap.get(columnCount);
 			if (columnInfo == null && !ignoreUnknownColumns) {
@@ -1043,6 +3092,7 @@ public class CsvProcessor<T> {
 			if (localParseError.isError()) {
 				if (localParseError == parseError) {
 					// parseError has the error information
+					parseError.setColumnIndex(columnCount);
 					return null;
 				} else {
 					throw new ParseException("Problems parsing line at position " + lineInfo.linePos + " for type "
@@ -1056,6 +3106,110 @@ public class CsvProcessor<T> {
 			}
 			// NOTE: we can't break here if we are at the end of line because might be blank column
 		}
+		if (!checkColumnCount(lineInfo, columnCount, parseError)) {
+			return null;
+		}
+		if (arguments != null) {
+			entity = constructEntity(arguments, parseError);
+		}
+		return entity;
+	}
+
+	/**
+	 * Convert only the wanted columns of the record into the values array without constructing an entity. The other
+	 * columns are skipped over without being converted.
+	 * 
+	 * @param wanted
+	 *            True for each of the column positions that should be converted.
+	 * @param values
+	 *            Set to the converted values of the wanted columns by position. Wanted columns that are not in the
+	 *            record are set to null.
+	 * @param sb
+	 *            Reusable buffer for the column strings.
+	 * @param parseError
+	 *            If not null, this will be set with the error and false returned. If this is null then a ParseException
+	 *            will be thrown instead.
+	 * @return True if the columns were converted otherwise false if there was an error.
+	 */
+	boolean processColumns(String record, int lineNumber, boolean[] wanted, Object[] values, StringBuilder sb,
+			ParseError parseError) throws ParseException {
+		for (int i = 0; i < wanted.length; i++) {
+			if (wanted[i]) {
+				values[i] = null;
+			}
+		}
+		LineInfo lineInfo = new LineInfo(record);
+		ParseError localParseError = parseError;
+		if (localParseError == null) {
+			localParseError = new ParseError();
+		}
+		int columnCount = 0;
+		while (true) {
+			ColumnInfo<Object> columnInfo = columnPositionInfoMap.get(columnCount);
+			if (columnInfo == null && !ignoreUnknownColumns) {
+				break;
+			}
+			boolean atEnd = lineInfo.isAtEnd();
+			localParseError.reset();
+			if (columnInfo == null || columnCount >= wanted.length || !wanted[columnCount]) {
+				// skip over the column without converting it
+				if (lineInfo.isAtQuote()) {
+					try {
+						processQuotedColumn(lineInfo, null, lineNumber, null, null, null, localParseError);
+					} catch (IOException e) {
+						// this won't happen because there is no reader to do IO with
+					}
+				} else {
+					processUnquotedColumn(lineInfo, lineNumber, null, null, null, localParseError);
+				}
+			} else {
+				int columnStart = lineInfo.linePos;
+				sb.setLength(0);
+				if (lineInfo.isAtQuote()) {
+					try {
+						processQuotedColumn(lineInfo, null, lineNumber, columnInfo, null, sb, localParseError);
+					} catch (IOException e) {
+						// this won't happen because there is no reader to do IO with
+					}
+				} else {
+					processUnquotedColumn(lineInfo, lineNumber, columnInfo, null, sb, localParseError);
+				}
+				if (!localParseError.isError()) {
+					String columnStr = sb.toString();
+					values[columnCount] =
+							extractValue(record, lineNumber, columnInfo, columnStr, columnStart, null, localParseError);
+					assignParseErrorFields(localParseError, columnInfo, columnStr);
+				}
+			}
+			if (localParseError.isError()) {
+				if (localParseError == parseError) {
+					parseError.setColumnIndex(columnCount);
+					assignParseErrorLine(parseError, record, lineNumber);
+					return false;
+				} else {
+					throw new ParseException("Problems parsing line " + lineNumber + " at position " + lineInfo.linePos
+							+ " (" + localParseError + "): " + record, lineInfo.linePos);
+				}
+			}
+			columnCount++;
+			if (atEnd) {
+				break;
+			}
+		}
+		if (checkColumnCount(lineInfo, columnCount, parseError)) {
+			return true;
+		}
+		assignParseErrorLine(parseError, record, lineNumber);
+		return false;
+	}
+
+	/**
+	 * Check that the line has the right number of columns after they have been processed.
+	 * 
+	 * @return True if it does otherwise false if the error has been set.
+	 */
+	private boolean checkColumnCount(LineInfo lineInfo, int columnCount, ParseError parseError)
+			throws ParseException {
 		if (columnCount < columnPositionInfoMap.size() && !allowPartialLines) {
 			if (parseError == null) {
 				throw new ParseException(
@@ -1063,9 +3217,10 @@ public class CsvProcessor<T> {
 						lineInfo.linePos);
 			} else {
 				parseError.setErrorType(ErrorType.TRUNCATED_LINE);
-				parseError.setMessage("Line does not have " + columnPositionInfoMap.size() + " columns");
+				parseError.setMessage("Line does not have %s columns", columnPositionInfoMap.size());
+				parseError.setColumnIndex(columnCount);
 				parseError.setLinePos(lineInfo.linePos);
-				return null;
+				return false;
 			}
 		}
 		if (!lineInfo.isAtEnd() && !ignoreUnknownColumns) {
@@ -1074,18 +3229,154 @@ public class CsvProcessor<T> {
 						+ ": " + lineInfo.line, lineInfo.linePos);
 			} else {
 				parseError.setErrorType(ErrorType.TOO_MANY_COLUMNS);
-				parseError.setMessage("Line has extra information past last column at position " + lineInfo.linePos);
+				parseError.setMessage("Line has extra information past last column at position %s", lineInfo.linePos);
+				parseError.setColumnIndex(columnCount);
 				parseError.setLinePos(lineInfo.linePos);
-				return null;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Run the column filters on the row before it is converted. If the row is a record that spans multiple lines then
+	 * the other lines are read and joined into the line-info first so the filters can see all of its columns.
+	 * 
+	 * @return True if the row should be converted or false if it was skipped by a filter.
+	 */
+	private boolean acceptRow(LineInfo lineInfo, BufferedReader bufferedReader, int lineNumber) throws IOException {
+		FilterInfo[] filters = getPositionFilters();
+		if (allowLineTerminationInColumns && bufferedReader != null
+				&& RecordReader.isInsideQuotes(lineInfo.line, false, columnSeparator, columnQuote)) {
+			StringBuilder sb = new StringBuilder(lineInfo.line.length() * 2);
+			sb.append(lineInfo.line);
+			while (true) {
+				String nextLine = bufferedReader.readLine();
+				if (nextLine == null) {
+					break;
+				}
+				sb.append(lineTermination).append(nextLine);
+				if (!RecordReader.isInsideQuotes(nextLine, true, columnSeparator, columnQuote)) {
+					break;
+				}
+			}
+			lineInfo.line = sb.toString();
+		}
+		return acceptRecord(lineInfo.line, lineNumber, filters);
+	}
+
+	/**
+	 * Find the columns with filters in the record and run them. The other columns are skipped over and nothing after
+	 * the last filtered column is looked at.
+	 */
+	private boolean acceptRecord(String record, int lineNumber, FilterInfo[] filters) {
+		LineInfo lineInfo = new LineInfo(record);
+		StringBuilder sb = new StringBuilder(32);
+		ParseError parseError = new ParseError();
+		boolean atEnd = false;
+		for (int position = 0; position < filters.length; position++) {
+			FilterInfo filterInfo = filters[position];
+			int columnStart = lineInfo.linePos;
+			sb.setLength(0);
+			// columns past the end of a partial line are blank
+			if (!atEnd) {
+				atEnd = lineInfo.isAtEnd();
+				StringBuilder columnSb = (filterInfo == null ? null : sb);
+				if (lineInfo.isAtQuote()) {
+					try {
+						processQuotedColumn(lineInfo, null, lineNumber, null, null, columnSb, parseError);
+					} catch (IOException e) {
+						// this won't happen because there is no reader to do IO with
+					}
+				} else {
+					processUnquotedColumn(lineInfo, lineNumber, null, null, columnSb, parseError);
+				}
+				if (parseError.isError()) {
+					// the conversion will report the error
+					return true;
+				}
+			}
+			if (filterInfo == null) {
+				continue;
+			}
+			if (filterInfo.rawFilter != null && !filterInfo.rawFilter.acceptColumn(sb)) {
+				return false;
+			}
+			if (filterInfo.valueFilter != null) {
+				Object value = extractValue(record, lineNumber, columnPositionInfoMap.get(position), sb.toString(),
+						columnStart, null, parseError);
+				if (parseError.isError()) {
+					return true;
+				}
+				if (!filterInfo.valueFilter.acceptColumn(value)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the filters by the column positions which are cached until the header changes the positions.
+	 */
+	private FilterInfo[] getPositionFilters() {
+		Map<Integer, ColumnInfo<Object>> positionInfoMap = columnPositionInfoMap;
+		PositionFilters cached = positionFilters;
+		if (cached != null && cached.columnPositionInfoMap == positionInfoMap) {
+			return cached.filters;
+		}
+		int maxPosition = -1;
+		Map<Integer, FilterInfo> positionMap = new HashMap<Integer, FilterInfo>();
+		for (Map.Entry<String, FilterInfo> entry : columnFilters.entrySet()) {
+			int position = -1;
+			for (Map.Entry<Integer, ColumnInfo<Object>> infoEntry : positionInfoMap.entrySet()) {
+				if (infoEntry.getValue().getColumnName().equals(entry.getKey())) {
+					position = infoEntry.getKey();
+					break;
+				}
 			}
+			if (position < 0) {
+				throw new IllegalArgumentException(
+						"Filter column '" + entry.getKey() + "' is not a column of " + entityClass);
+			}
+			positionMap.put(position, entry.getValue());
+			maxPosition = Math.max(maxPosition, position);
+		}
+		FilterInfo[] filters = new FilterInfo[maxPosition + 1];
+		for (Map.Entry<Integer, FilterInfo> entry : positionMap.entrySet()) {
+			filters[entry.getKey()] = entry.getValue();
+		}
+		positionFilters = new PositionFilters(positionInfoMap, filters);
+		return filters;
+	}
+
+	private void putColumnFilter(String columnName, ColumnFilter<CharSequence> rawFilter,
+			ColumnFilter<Object> valueFilter) {
+		Map<String, FilterInfo> filters = new LinkedHashMap<String, FilterInfo>();
+		if (columnFilters != null) {
+			filters.putAll(columnFilters);
+		}
+		if (rawFilter == null && valueFilter == null) {
+			filters.remove(columnName);
+		} else {
+			filters.put(columnName, new FilterInfo(rawFilter, valueFilter));
+		}
+		columnFilters = (filters.isEmpty() ? null : filters);
+		positionFilters = null;
+	}
+
+	private void assignParseErrorLine(ParseError parseError, String record, int lineNumber) {
+		parseError.setLine(record);
+		parseError.setLineNumber(lineNumber);
+		if (!parseError.hasMessage()) {
+			parseError.setMessage(parseError.getErrorType().getTypeMessage());
 		}
-		return target;
 	}
 
 	private T constructEntity() throws ParseException {
 		try {
 			if (constructorCallable == null) {
-				return constructor.newInstance();
+				return entityCreator.create();
 			} else {
 				return constructorCallable.call();
 			}
@@ -1096,6 +3387,24 @@ public class CsvProcessor<T> {
 		}
 	}
 
+	private T constructEntity(Object[] arguments, ParseError parseError) throws ParseException {
+		try {
+			return entityCreator.create(arguments);
+		} catch (Throwable th) {
+			// the constructor may be validating the column values so this is an entity error
+			if (parseError == null) {
+				ParseException parseException =
+						new ParseException("Could not construct instance of " + entityClass, 0);
+				parseException.initCause(th);
+				throw parseException;
+			}
+			parseError.setErrorType(ErrorType.INVALID_ENTITY);
+			parseError.setMessage("constructing %s error: %s", entityClass.getSimpleName(), th);
+			parseError.setCause(th);
+			return null;
+		}
+	}
+
 	private void checkEntityConfig() {
 		if (allColumnInfos == null) {
 			configureEntityClass();
@@ -1125,7 +3434,7 @@ public class CsvProcessor<T> {
 		}
 
 		// now process the get/set methods
-		Map<String, Method> otherMethodMap = new HashMap<String, Method>();
+		Map<String, Method> otherMethodMap = new LinkedHashMap<String, Method>();
 		for (Class<?> clazz : classes) {
 			for (Method method : clazz.getMethods()) {
 				CsvColumn csvColumn = method.getAnnotation(CsvColumn.class);
@@ -1183,25 +3492,166 @@ public class CsvProcessor<T> {
 						setMethod);
 			}
 		}
-		if (!otherMethodMap.isEmpty()) {
-			Method firstMethod = otherMethodMap.values().iterator().next();
-			throw new IllegalStateException(
-					"Must mark both the get/is and set methods with CsvColumn annotation, not just: " + firstMethod);
+		Executable csvConstructor = null;
+		if (constructorCallable == null) {
+			csvConstructor = findCsvConstructor();
+		}
+		for (Method method : otherMethodMap.values()) {
+			// immutable entities that are built with a constructor only need the get/is methods
+			if (csvConstructor == null || method.getParameterTypes().length != 0
+					|| method.getReturnType() == void.class
+					|| !(method.getName().startsWith("get") || method.getName().startsWith("is"))) {
+				throw new IllegalStateException(
+						"Must mark both the get/is and set methods with CsvColumn annotation, not just: " + method);
+			}
+		}
+		for (Map.Entry<String, Method> entry : otherMethodMap.entrySet()) {
+			Method getMethod = entry.getValue();
+			addColumnInfo(fieldNameMap, getMethod.getAnnotation(CsvColumn.class), null, entry.getKey(),
+					getMethod.getReturnType(), null, getMethod, null);
 		}
 		if (fieldNameMap.isEmpty()) {
 			throw new IllegalArgumentException("Could not find any exposed CSV fields in: " + entityClass);
 		}
 
+		// NOTE: the argument order is the order in which the fields are defined, not the column order
+		Collection<ColumnInfo<Object>> definedColumnInfos = fieldNameMap.values();
 		this.allColumnInfos = assignColumnPositions(fieldNameMap);
 		resetColumnPositionInfoMap();
-		if (constructorCallable == null) {
-			try {
-				this.constructor = entityClass.getConstructor();
-			} catch (Exception e) {
-				throw new IllegalStateException(
-						"No callable configured or could not find public no-arg constructor for: " + entityClass);
+		if (csvConstructor != null) {
+			this.entityCreator = buildCsvConstructorCreator(csvConstructor, fieldNameMap);
+		} else if (constructorCallable == null) {
+			this.entityCreator = findEntityCreator(definedColumnInfos);
+		}
+	}
+
+	/**
+	 * Look for a constructor or static factory method marked with the {@link CsvConstructor} annotation.
+	 */
+	private Executable findCsvConstructor() {
+		List<Executable> executables = new ArrayList<Executable>();
+		executables.addAll(Arrays.asList(entityClass.getDeclaredConstructors()));
+		executables.addAll(Arrays.asList(entityClass.getDeclaredMethods()));
+		Executable csvConstructor = null;
+		for (Executable executable : executables) {
+			if (!executable.isAnnotationPresent(CsvConstructor.class)) {
+				continue;
+			}
+			if (csvConstructor != null) {
+				throw new IllegalStateException("Only one constructor or method can be marked with @"
+						+ CsvConstructor.class.getSimpleName() + " in: " + entityClass);
+			}
+			if (executable instanceof Method && (!Modifier.isStatic(executable.getModifiers())
+					|| !entityClass.isAssignableFrom(((Method) executable).getReturnType()))) {
+				throw new IllegalStateException("@" + CsvConstructor.class.getSimpleName()
+						+ " method must be static and return " + entityClass + ": " + executable);
+			}
+			csvConstructor = executable;
+		}
+		return csvConstructor;
+	}
+
+	private EntityCreator<T> buildCsvConstructorCreator(Executable csvConstructor,
+			Map<String, ColumnInfo<Object>> fieldNameMap) {
+		String[] columnNames = csvConstructor.getAnnotation(CsvConstructor.class).columnNames();
+		List<ColumnInfo<Object>> argumentColumnInfos;
+		if (columnNames.length == 0) {
+			argumentColumnInfos = new ArrayList<ColumnInfo<Object>>(fieldNameMap.values());
+		} else {
+			argumentColumnInfos = new ArrayList<ColumnInfo<Object>>(columnNames.length);
+			for (String columnName : columnNames) {
+				ColumnInfo<Object> columnInfo = fieldNameMap.get(columnName);
+				if (columnInfo == null) {
+					throw new IllegalStateException("Unknown column '" + columnName + "' in @"
+							+ CsvConstructor.class.getSimpleName() + " of: " + csvConstructor);
+				}
+				argumentColumnInfos.add(columnInfo);
+			}
+		}
+
+		Class<?>[] argumentTypes = csvConstructor.getParameterTypes();
+		if (argumentTypes.length != fieldNameMap.size() || argumentColumnInfos.size() != fieldNameMap.size()) {
+			throw new IllegalStateException("@" + CsvConstructor.class.getSimpleName()
+					+ " must have one argument for each of the " + fieldNameMap.size() + " columns: " + csvConstructor);
+		}
+		for (int i = 0; i < argumentTypes.length; i++) {
+			ColumnInfo<Object> columnInfo = argumentColumnInfos.get(i);
+			if (argumentTypes[i] != columnInfo.getType()) {
+				throw new IllegalStateException("Argument #" + (i + 1) + " type " + argumentTypes[i]
+						+ " should match the type " + columnInfo.getType() + " of column '"
+						+ columnInfo.getColumnName() + "': " + csvConstructor);
+			}
+		}
+
+		assignArgumentIndexes(argumentColumnInfos);
+		if (csvConstructor instanceof Constructor) {
+			@SuppressWarnings("unchecked")
+			Constructor<T> constructor = (Constructor<T>) csvConstructor;
+			return EntityCreator.fromArgumentConstructor(constructor);
+		} else {
+			return EntityCreator.fromArgumentFactory((Method) csvConstructor);
+		}
+	}
+
+	private EntityCreator<T> findEntityCreator(Collection<ColumnInfo<Object>> columnInfos) {
+		Constructor<T> noArgConstructor = null;
+		try {
+			noArgConstructor = entityClass.getConstructor();
+		} catch (Exception e) {
+			// we'll look for a constructor with arguments below
+		}
+		if (noArgConstructor != null) {
+			return EntityCreator.fromNoArgConstructor(noArgConstructor);
+		}
+		EntityCreator<T> entityCreator = findArgumentEntityCreator(columnInfos);
+		if (entityCreator == null) {
+			throw new IllegalStateException(
+					"No callable configured or could not find public no-arg constructor or a constructor or static "
+							+ "factory method with arguments matching the column fields for: " + entityClass);
+		}
+		return entityCreator;
+	}
+
+	/**
+	 * Look for a public constructor or static factory method whose arguments match the column fields in order.
+	 */
+	private EntityCreator<T> findArgumentEntityCreator(Collection<ColumnInfo<Object>> columnInfos) {
+		Class<?>[] argumentTypes = new Class<?>[columnInfos.size()];
+		int argumentCount = 0;
+		for (ColumnInfo<Object> columnInfo : columnInfos) {
+			if (columnInfo.getField() == null) {
+				// get/set method columns can't be passed to a constructor
+				return null;
+			}
+			argumentTypes[argumentCount++] = columnInfo.getType();
+		}
+
+		EntityCreator<T> entityCreator = null;
+		try {
+			entityCreator = EntityCreator.fromArgumentConstructor(entityClass.getConstructor(argumentTypes));
+		} catch (NoSuchMethodException nsme) {
+			for (Method method : entityClass.getMethods()) {
+				if (Modifier.isStatic(method.getModifiers()) && method.getReturnType() == entityClass
+						&& Arrays.equals(method.getParameterTypes(), argumentTypes)) {
+					if (entityCreator != null) {
+						throw new IllegalStateException(
+								"Multiple static factory methods match the column fields for: " + entityClass);
+					}
+					entityCreator = EntityCreator.fromArgumentFactory(method);
+				}
 			}
 		}
+		if (entityCreator != null) {
+			assignArgumentIndexes(columnInfos);
+		}
+		return entityCreator;
+	}
+
+	private void assignArgumentIndexes(Collection<ColumnInfo<Object>> columnInfos) {
+		int argumentCount = 0;
+		for (ColumnInfo<Object> columnInfo : columnInfos) {
+			columnInfo.setArgumentIndex(argumentCount++);
+		}
 	}
 
 	private List<Class<?>> discoverClasses() {
@@ -1347,6 +3797,7 @@ public class CsvProcessor<T> {
 						sb.append(line, sectionStart, line.length());
 						// add the line-termination in the middle of this column which will _hopefully_ match the file
 						sb.append(lineTermination);
+						lineInfo.addPreviousLine(line);
 						// restart from the next line read
 						line = nextLine;
 						linePos = 0;
@@ -1355,7 +3806,7 @@ public class CsvProcessor<T> {
 					}
 				}
 				parseError.setErrorType(ErrorType.TRUNCATED_COLUMN);
-				parseError.setMessage("Column not terminated with quote '" + columnQuote + "'");
+				parseError.setMessage("Column not terminated with quote '%s'", columnQuote);
 				assignParseErrorFields(parseError, columnInfo, null);
 				parseError.setLinePos(linePos);
 				lineInfo.line = line;
@@ -1375,8 +3826,7 @@ public class CsvProcessor<T> {
 			// if there wasn't a columnSeparator must have a quote following a quote
 			if (line.charAt(linePos) != columnQuote) {
 				parseError.setErrorType(ErrorType.INVALID_FORMAT);
-				parseError.setMessage(
-						"quote '" + columnQuote + "' is not followed by separator '" + columnSeparator + "'");
+				parseError.setMessage("quote '%s' is not followed by separator '%s'", columnQuote, columnSeparator);
 				assignParseErrorFields(parseError, columnInfo, null);
 				parseError.setLinePos(linePos);
 				lineInfo.line = line;
@@ -1397,8 +3847,8 @@ public class CsvProcessor<T> {
 
 		if (sb == null) {
 			if (headerSb == null) {
-				String columnStr = line.substring(sectionStart, sectionEnd);
 				if (columnInfo != null) {
+					String columnStr = line.substring(sectionStart, sectionEnd);
 					extractAndAssignValue(line, lineNumber, columnInfo, columnStr, columnStart, target, parseError);
 				}
 			} else {
@@ -1430,8 +3880,8 @@ public class CsvProcessor<T> {
 		}
 
 		if (headerSb == null) {
-			String columnStr = line.substring(columnStart, linePos);
 			if (columnInfo != null) {
+				String columnStr = line.substring(columnStart, linePos);
 				extractAndAssignValue(line, lineNumber, columnInfo, columnStr, columnStart, target, parseError);
 			}
 		} else {
@@ -1445,23 +3895,38 @@ public class CsvProcessor<T> {
 		lineInfo.linePos = linePos;
 	}
 
-	private void writeQuoted(StringBuilder sb, String str) {
-		sb.append(columnQuote);
+	/**
+	 * Append the string to the builder in one pass, doubling any quotes and surrounding it with quotes if it needs them
+	 * or if it contains a quote, separator, or special character.
+	 */
+	private void appendEscaped(StringBuilder sb, String str, boolean needsQuotes) {
+		int columnStart = sb.length();
+		boolean quoted = needsQuotes;
+		if (quoted) {
+			sb.append(columnQuote);
+		}
 		int start = 0;
-		while (true) {
-			int linePos = str.indexOf(columnQuote, start);
-			if (linePos < 0) {
-				sb.append(str, start, str.length());
-				break;
+		int length = str.length();
+		for (int i = 0; i < length; i++) {
+			char ch = str.charAt(i);
+			if (ch == columnQuote) {
+				// output up to and including the quote and then another quote
+				sb.append(str, start, i + 1);
+				sb.append(columnQuote);
+				start = i + 1;
+				needsQuotes = true;
+			} else if (ch == columnSeparator || ch == '\r' || ch == '\n' || ch == '\t' || ch == '\b') {
+				needsQuotes = true;
+			}
+		}
+		sb.append(str, start, length);
+		if (needsQuotes) {
+			if (!quoted) {
+				// only shifts this column's characters
+				sb.insert(columnStart, columnQuote);
 			}
-			// move past the quote so we can output it
-			linePos++;
-			sb.append(str, start, linePos);
-			// output another quote
 			sb.append(columnQuote);
-			start = linePos;
 		}
-		sb.append(columnQuote);
 	}
 
 	/**
@@ -1479,8 +3944,8 @@ public class CsvProcessor<T> {
 			columnInfo.setValue(target, value);
 		} catch (Exception e) {
 			parseError.setErrorType(ErrorType.INTERNAL_ERROR);
-			parseError
-					.setMessage("setting value for field '" + columnInfo.getFieldName() + "' error: " + e.getMessage());
+			parseError.setMessage("setting value for field '%s' error: %s", columnInfo.getFieldName(), e);
+			parseError.setCause(e);
 			assignParseErrorFields(parseError, columnInfo, columnStr);
 			parseError.setLinePos(linePos);
 		}
@@ -1501,7 +3966,7 @@ public class CsvProcessor<T> {
 		}
 		if (columnStr.isEmpty() && columnInfo.isMustNotBeBlank()) {
 			parseError.setErrorType(ErrorType.MUST_NOT_BE_BLANK);
-			parseError.setMessage("field '" + columnInfo.getFieldName() + "' must not be blank");
+			parseError.setMessage("field '%s' must not be blank", columnInfo.getFieldName());
 			assignParseErrorFields(parseError, columnInfo, columnStr);
 			parseError.setLinePos(linePos);
 			return null;
@@ -1511,12 +3976,14 @@ public class CsvProcessor<T> {
 			return converter.stringToJava(line, lineNumber, linePos, columnInfo, columnStr, parseError);
 		} catch (ParseException e) {
 			parseError.setErrorType(ErrorType.INVALID_FORMAT);
-			parseError.setMessage("field '" + columnInfo.getFieldName() + "' parse-error: " + e.getMessage());
+			parseError.setMessage("field '%s' parse-error: %s", columnInfo.getFieldName(), e);
+			parseError.setCause(e);
 			parseError.setLinePos(linePos);
 			return null;
 		} catch (Exception e) {
 			parseError.setErrorType(ErrorType.INTERNAL_ERROR);
-			parseError.setMessage("field '" + columnInfo.getFieldName() + "' error: " + e.getMessage());
+			parseError.setMessage("field '%s' error: %s", columnInfo.getFieldName(), e);
+			parseError.setCause(e);
 			parseError.setLinePos(linePos);
 			return null;
 		}
@@ -1540,17 +4007,63 @@ public class CsvProcessor<T> {
 		}
 	}
 
+	/**
+	 * Filters of a column.
+	 */
+	private static class FilterInfo {
+		final ColumnFilter<CharSequence> rawFilter;
+		final ColumnFilter<Object> valueFilter;
+
+		public FilterInfo(ColumnFilter<CharSequence> rawFilter, ColumnFilter<Object> valueFilter) {
+			this.rawFilter = rawFilter;
+			this.valueFilter = valueFilter;
+		}
+	}
+
+	/**
+	 * Filters by column position along with the column positions they were found with.
+	 */
+	private static class PositionFilters {
+		final Map<Integer, ColumnInfo<Object>> columnPositionInfoMap;
+		final FilterInfo[] filters;
+
+		public PositionFilters(Map<Integer, ColumnInfo<Object>> columnPositionInfoMap, FilterInfo[] filters) {
+			this.columnPositionInfoMap = columnPositionInfoMap;
+			this.filters = filters;
+		}
+	}
+
 	/**
 	 * Holder for a corresponding line and line-pos.
 	 */
 	private class LineInfo {
 		String line;
 		int linePos;
+		// lines before the current one if a quoted column spans multiple lines
+		StringBuilder previousLines;
 
 		public LineInfo(String line) {
 			this.line = line;
 		}
 
+		public void addPreviousLine(String previousLine) {
+			if (previousLines == null) {
+				previousLines = new StringBuilder(previousLine.length() * 2);
+			}
+			previousLines.append(previousLine).append(lineTermination);
+		}
+
+		/**
+		 * Return the full record which may span multiple lines.
+		 */
+		public String getRecord() {
+			if (previousLines == null) {
+				return line;
+			} else {
+				return previousLines.toString() + line;
+			}
+		}
+
 		public boolean isAtEnd() {
 			return (linePos >= line.length());
 		}
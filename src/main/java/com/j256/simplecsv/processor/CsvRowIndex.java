@@ -0,0 +1,238 @@
+package com.j256.simplecsv.processor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sparse index of the byte offsets of the rows in a CSV file which is used by
+ * {@link CsvProcessor#readRows(Path, Charset, long, int, java.util.Collection)} to seek close to a row without reading
+ * the file from the start. The offset and line-number of every {@link #getInterval()} rows are recorded. Quoted
+ * columns that span multiple lines are accounted for if line-termination is allowed in columns.
+ *
+ * <p>
+ * The index is saved next to the file with a ".idx" suffix along with the file's size and last-modified time so it can
+ * be reused until the file changes. If it can't be saved when it is loaded by a read then it is only kept in memory.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class CsvRowIndex {
+
+	private static final String INDEX_SUFFIX = ".idx";
+	private static final int INDEX_MAGIC = 0x43535649;
+	private static final int INDEX_VERSION = 1;
+	private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+	private final long fileSize;
+	private final long lastModifiedMillis;
+	private final String settings;
+	private final int interval;
+	private final long rowCount;
+	private final long[] offsets;
+	private final int[] lineNumbers;
+
+	private CsvRowIndex(long fileSize, long lastModifiedMillis, String settings, int interval, long rowCount,
+			long[] offsets, int[] lineNumbers) {
+		this.fileSize = fileSize;
+		this.lastModifiedMillis = lastModifiedMillis;
+		this.settings = settings;
+		this.interval = interval;
+		this.rowCount = rowCount;
+		this.offsets = offsets;
+		this.lineNumbers = lineNumbers;
+	}
+
+	/**
+	 * Number of rows in the file not including the header.
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Number of rows between each of the entries in the index.
+	 */
+	public int getInterval() {
+		return interval;
+	}
+
+	/**
+	 * Byte offset of the row at entry-index * interval.
+	 */
+	long getOffset(int entryIndex) {
+		return offsets[entryIndex];
+	}
+
+	/**
+	 * Line number of the row at entry-index * interval. First line is #1.
+	 */
+	int getLineNumber(int entryIndex) {
+		return lineNumbers[entryIndex];
+	}
+
+	/**
+	 * Returns the path of the index file for a CSV file.
+	 */
+	static Path indexPath(Path path) {
+		return path.resolveSibling(path.getFileName() + INDEX_SUFFIX);
+	}
+
+	/**
+	 * Build the settings string that must match for an index to be reused.
+	 */
+	static String buildSettings(Charset charset, char columnSeparator, char columnQuote,
+			boolean allowLineTerminationInColumns, boolean firstLineHeader, int interval) {
+		checkAsciiCompatible(charset, columnSeparator, columnQuote);
+		return charset.name() + "|" + (int) columnSeparator + "|" + (int) columnQuote + "|"
+				+ allowLineTerminationInColumns + "|" + firstLineHeader + "|" + interval;
+	}
+
+	/**
+	 * Scan the file and build the index.
+	 */
+	static CsvRowIndex build(Path path, String settings, char columnSeparator, char columnQuote,
+			boolean allowLineTerminationInColumns, boolean firstLineHeader, int interval) throws IOException {
+		long fileSize;
+		long lastModifiedMillis;
+		long rowCount = 0;
+		int entryCount = 0;
+		long[] offsets = new long[16];
+		int[] lineNumbers = new int[16];
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// get these before we read so we'll rebuild if the file is changed while we are scanning
+			fileSize = channel.size();
+			lastModifiedMillis = Files.getLastModifiedTime(path).toMillis();
+			if (isGzip(channel)) {
+				throw new IllegalArgumentException("Cannot index a compressed file: " + path);
+			}
+			// the line-termination doesn't matter since we don't keep the records
+			RecordScanner scanner = new RecordScanner(channel, 0, 0, columnSeparator, columnQuote,
+					allowLineTerminationInColumns, "\n", false, SCAN_BUFFER_SIZE);
+			if (firstLineHeader && !scanner.nextRecord()) {
+				return new CsvRowIndex(fileSize, lastModifiedMillis, settings, interval, 0, new long[0], new int[0]);
+			}
+			while (scanner.nextRecord()) {
+				if (rowCount % interval == 0) {
+					if (entryCount == offsets.length) {
+						offsets = Arrays.copyOf(offsets, entryCount * 2);
+						lineNumbers = Arrays.copyOf(lineNumbers, entryCount * 2);
+					}
+					offsets[entryCount] = scanner.getRecordStart();
+					lineNumbers[entryCount] = scanner.getRecordLineNumber();
+					entryCount++;
+				}
+				rowCount++;
+			}
+		}
+		return new CsvRowIndex(fileSize, lastModifiedMillis, settings, interval, rowCount,
+				Arrays.copyOf(offsets, entryCount), Arrays.copyOf(lineNumbers, entryCount));
+	}
+
+	/**
+	 * Read in the index for the file if it exists and still matches the file and settings.
+	 *
+	 * @return The index or null if there isn't a valid one.
+	 */
+	static CsvRowIndex read(Path path, String settings) throws IOException {
+		Path indexPath = indexPath(path);
+		long fileSize;
+		long lastModifiedMillis;
+		try {
+			fileSize = Files.size(path);
+			lastModifiedMillis = Files.getLastModifiedTime(path).toMillis();
+		} catch (NoSuchFileException nsfe) {
+			return null;
+		}
+		if (!Files.exists(indexPath)) {
+			return null;
+		}
+		try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+			if (dis.readInt() != INDEX_MAGIC || dis.readInt() != INDEX_VERSION || dis.readLong() != fileSize
+					|| dis.readLong() != lastModifiedMillis || !dis.readUTF().equals(settings)) {
+				return null;
+			}
+			int interval = dis.readInt();
+			long rowCount = dis.readLong();
+			int entryCount = dis.readInt();
+			long[] offsets = new long[entryCount];
+			int[] lineNumbers = new int[entryCount];
+			for (int i = 0; i < entryCount; i++) {
+				offsets[i] = dis.readLong();
+				lineNumbers[i] = dis.readInt();
+			}
+			return new CsvRowIndex(fileSize, lastModifiedMillis, settings, interval, rowCount, offsets, lineNumbers);
+		} catch (IOException ioe) {
+			// corrupt or truncated index so it will be rebuilt
+			return null;
+		}
+	}
+
+	/**
+	 * Write the index next to the file. It is written to a temporary file which is then moved into place so another
+	 * reader or a crash never sees a partial index.
+	 */
+	void write(Path path) throws IOException {
+		Path indexPath = indexPath(path).toAbsolutePath();
+		Path tempPath = Files.createTempFile(indexPath.getParent(), indexPath.getFileName().toString(), ".tmp");
+		try {
+			writeTo(tempPath);
+			try {
+				Files.move(tempPath, indexPath, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException amnse) {
+				Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempPath);
+		}
+	}
+
+	private void writeTo(Path indexPath) throws IOException {
+		try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath)))) {
+			dos.writeInt(INDEX_MAGIC);
+			dos.writeInt(INDEX_VERSION);
+			dos.writeLong(fileSize);
+			dos.writeLong(lastModifiedMillis);
+			dos.writeUTF(settings);
+			dos.writeInt(interval);
+			dos.writeLong(rowCount);
+			dos.writeInt(offsets.length);
+			for (int i = 0; i < offsets.length; i++) {
+				dos.writeLong(offsets[i]);
+				dos.writeInt(lineNumbers[i]);
+			}
+		}
+	}
+
+	static boolean isGzip(FileChannel channel) throws IOException {
+		ByteBuffer magic = ByteBuffer.allocate(2);
+		channel.read(magic, 0);
+		return (magic.position() == 2 && (magic.get(0) & 0xFF) == 0x1f && (magic.get(1) & 0xFF) == 0x8b);
+	}
+
+	/**
+	 * We scan the bytes directly so the charset must encode the line-termination, separator, and quote characters as
+	 * single ASCII bytes which is true for UTF-8, ISO-8859-1, and the like.
+	 */
+	static void checkAsciiCompatible(Charset charset, char columnSeparator, char columnQuote) {
+		String special = "\r\n" + columnSeparator + columnQuote;
+		if (columnSeparator >= 128 || columnQuote >= 128
+				|| !Arrays.equals(special.getBytes(charset), special.getBytes(StandardCharsets.ISO_8859_1))) {
+			throw new IllegalArgumentException(
+					"Row index needs an ASCII compatible charset, separator, and quote but got " + charset);
+		}
+	}
+}
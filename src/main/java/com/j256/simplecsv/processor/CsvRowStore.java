@@ -0,0 +1,628 @@
+package com.j256.simplecsv.processor;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.UUID;
+
+import com.j256.simplecsv.converter.Converter;
+
+/**
+ * List of entities which stores the column values of each row packed into direct (off-heap) byte buffers instead of as
+ * entity objects. This takes a fraction of the heap of a list of entities with their boxed fields and strings. Entities
+ * are constructed when they are accessed with {@link #get(int)} and single columns can be read without constructing the
+ * entity with {@link #getValue(int, int)} or a {@link Cursor}.
+ *
+ * <p>
+ * Primitive, boxed, {@link Date}, enum, and {@link UUID} columns are stored in fixed-width binary. Strings,
+ * {@link BigDecimal}, and {@link BigInteger} columns are stored as UTF-8 and other column types are stored as the
+ * string from their converter and converted back when they are accessed. The off-heap memory is released when the store
+ * is garbage collected.
+ * </p>
+ *
+ * <p>
+ * Rows can only be added to the end of the store. Reads can be made from multiple threads once the store is loaded.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class CsvRowStore<T> extends AbstractList<T> implements RandomAccess {
+
+	private static final int CHUNK_SIZE = 1024 * 1024;
+
+	private final CsvProcessor<T> processor;
+	private final ColumnInfo<Object>[] columnInfos;
+	// codec of each fixed-width column or null if it is variable-width
+	private final FixedCodec[] fixedCodecs;
+	// codec of each variable-width column or null if it is fixed-width
+	private final VariableCodec[] variableCodecs;
+	// offset of each fixed-width column in the row or -1 if it is variable-width
+	private final int[] fixedOffsets;
+	private final int variableStart;
+	private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+	private ByteBuffer currentChunk;
+	private ByteBuffer rowBuffer;
+	// chunk-index in the high int and offset into the chunk in the low int
+	private long[] rowPointers = new long[16];
+	private int rowCount;
+	private long byteCount;
+
+	CsvRowStore(CsvProcessor<T> processor, List<ColumnInfo<Object>> columnInfos) {
+		this.processor = processor;
+		@SuppressWarnings("unchecked")
+		ColumnInfo<Object>[] infoArray = (ColumnInfo<Object>[]) new ColumnInfo<?>[columnInfos.size()];
+		this.columnInfos = columnInfos.toArray(infoArray);
+		this.fixedCodecs = new FixedCodec[infoArray.length];
+		this.variableCodecs = new VariableCodec[infoArray.length];
+		this.fixedOffsets = new int[infoArray.length];
+		// null bitmap is at the start of the row
+		int offset = (infoArray.length + 7) / 8;
+		for (int i = 0; i < infoArray.length; i++) {
+			Class<?> type = infoArray[i].getType();
+			fixedCodecs[i] = FixedCodec.forType(type);
+			if (fixedCodecs[i] == null) {
+				variableCodecs[i] = VariableCodec.forType(type);
+				fixedOffsets[i] = -1;
+			} else {
+				fixedOffsets[i] = offset;
+				offset += fixedCodecs[i].size;
+			}
+		}
+		this.variableStart = offset;
+		this.rowBuffer = ByteBuffer.allocate(Math.max(offset * 2, 256));
+	}
+
+	/**
+	 * Add an entity to the end of the store. Its column values are copied so the entity is not referenced.
+	 */
+	@Override
+	public boolean add(T entity) {
+		rowBuffer.clear();
+		// the null bitmap and the fixed-width columns are written in place before the variable-width columns
+		Arrays.fill(rowBuffer.array(), 0, variableStart, (byte) 0);
+		rowBuffer.position(variableStart);
+		for (int i = 0; i < columnInfos.length; i++) {
+			ColumnInfo<Object> columnInfo = columnInfos[i];
+			Object value;
+			try {
+				value = columnInfo.getValue(entity);
+			} catch (Exception e) {
+				throw new IllegalStateException("Could not get value from entity field: " + columnInfo);
+			}
+			if (value == null) {
+				rowBuffer.put(i / 8, (byte) (rowBuffer.get(i / 8) | (1 << (i % 8))));
+			} else if (fixedCodecs[i] != null) {
+				fixedCodecs[i].writeFixed(rowBuffer, fixedOffsets[i], value);
+			} else {
+				byte[] bytes = variableCodecs[i].toBytes(columnInfo, value);
+				ensureRowCapacity(rowBuffer.position() + 4 + bytes.length);
+				rowBuffer.putInt(bytes.length);
+				rowBuffer.put(bytes);
+			}
+		}
+		rowBuffer.flip();
+		appendRow(rowBuffer);
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Construct the entity for the row from its stored column values.
+	 */
+	@Override
+	public T get(int row) {
+		checkRow(row);
+		return buildEntity(chunks.get((int) (rowPointers[row] >>> 32)), (int) rowPointers[row]);
+	}
+
+	@Override
+	public int size() {
+		return rowCount;
+	}
+
+	/**
+	 * Return the value of a column in a row without constructing the entity.
+	 *
+	 * @param row
+	 *            Index of the row.
+	 * @param columnIndex
+	 *            Index of the column from {@link #getColumnIndex(String)}.
+	 */
+	public Object getValue(int row, int columnIndex) {
+		checkRow(row);
+		return readValue(chunks.get((int) (rowPointers[row] >>> 32)), (int) rowPointers[row], columnIndex);
+	}
+
+	/**
+	 * Return the index of the column with the name or -1 if none.
+	 */
+	public int getColumnIndex(String columnName) {
+		for (int i = 0; i < columnInfos.length; i++) {
+			if (columnInfos[i].getColumnName().equals(columnName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Number of off-heap bytes used to store the rows.
+	 */
+	public long getByteCount() {
+		return byteCount;
+	}
+
+	/**
+	 * Return a new cursor positioned before the first row.
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= rowCount) {
+			throw new IndexOutOfBoundsException("Row " + row + " is out of bounds, size " + rowCount);
+		}
+	}
+
+	private void ensureRowCapacity(int size) {
+		if (size > rowBuffer.capacity()) {
+			ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(size, rowBuffer.capacity() * 2));
+			newBuffer.put(rowBuffer.array(), 0, rowBuffer.position());
+			rowBuffer = newBuffer;
+		}
+	}
+
+	private void appendRow(ByteBuffer row) {
+		int size = row.remaining();
+		if (currentChunk == null || currentChunk.remaining() < size) {
+			currentChunk = ByteBuffer.allocateDirect(Math.max(size, CHUNK_SIZE));
+			chunks.add(currentChunk);
+		}
+		if (rowCount == rowPointers.length) {
+			rowPointers = Arrays.copyOf(rowPointers, rowCount * 2);
+		}
+		rowPointers[rowCount++] = ((long) (chunks.size() - 1) << 32) | currentChunk.position();
+		currentChunk.put(row);
+		byteCount += size;
+	}
+
+	private boolean isNull(ByteBuffer chunk, int rowOffset, int columnIndex) {
+		return ((chunk.get(rowOffset + columnIndex / 8) & (1 << (columnIndex % 8))) != 0);
+	}
+
+	private Object readValue(ByteBuffer chunk, int rowOffset, int columnIndex) {
+		if (isNull(chunk, rowOffset, columnIndex)) {
+			return null;
+		} else if (fixedCodecs[columnIndex] != null) {
+			return fixedCodecs[columnIndex].readFixed(chunk, rowOffset + fixedOffsets[columnIndex]);
+		}
+		// skip over the variable-width columns before this one
+		int offset = rowOffset + variableStart;
+		for (int i = 0; i < columnIndex; i++) {
+			if (fixedOffsets[i] < 0 && !isNull(chunk, rowOffset, i)) {
+				offset += 4 + chunk.getInt(offset);
+			}
+		}
+		int length = chunk.getInt(offset);
+		byte[] bytes = new byte[length];
+		// duplicate so multiple threads can read at the same time
+		ByteBuffer dup = chunk.duplicate();
+		dup.position(offset + 4);
+		dup.get(bytes);
+		return variableCodecs[columnIndex].fromBytes(columnInfos[columnIndex], bytes);
+	}
+
+	private T buildEntity(ByteBuffer chunk, int rowOffset) {
+		Object[] values = new Object[columnInfos.length];
+		for (int i = 0; i < columnInfos.length; i++) {
+			values[i] = readValue(chunk, rowOffset, i);
+		}
+		try {
+			return processor.buildEntity(values);
+		} catch (ParseException pe) {
+			throw new IllegalStateException("Could not build entity from stored row", pe);
+		}
+	}
+
+	/**
+	 * Flyweight that is moved over the rows of the store to read their columns without constructing entities.
+	 */
+	public class Cursor {
+
+		private int row = -1;
+		private ByteBuffer chunk;
+		private int rowOffset;
+
+		/**
+		 * Move to the next row.
+		 *
+		 * @return False if there are no more rows.
+		 */
+		public boolean next() {
+			if (row + 1 >= rowCount) {
+				return false;
+			}
+			moveTo(row + 1);
+			return true;
+		}
+
+		/**
+		 * Move to a row.
+		 */
+		public void moveTo(int row) {
+			checkRow(row);
+			this.row = row;
+			this.chunk = chunks.get((int) (rowPointers[row] >>> 32));
+			this.rowOffset = (int) rowPointers[row];
+		}
+
+		/**
+		 * Index of the current row.
+		 */
+		public int getRow() {
+			return row;
+		}
+
+		public boolean isNull(int columnIndex) {
+			return CsvRowStore.this.isNull(chunk, rowOffset, columnIndex);
+		}
+
+		/**
+		 * Return an int, short, byte, or char column without boxing. Null values are returned as 0.
+		 */
+		public int getInt(int columnIndex) {
+			FixedCodec codec = fixedCodecs[columnIndex];
+			if (codec != FixedCodec.INT && codec != FixedCodec.SHORT && codec != FixedCodec.BYTE
+					&& codec != FixedCodec.CHAR) {
+				throw new IllegalArgumentException("Column " + columnInfos[columnIndex] + " is not an int type");
+			}
+			if (isNull(columnIndex)) {
+				return 0;
+			}
+			int offset = rowOffset + fixedOffsets[columnIndex];
+			if (codec == FixedCodec.INT) {
+				return chunk.getInt(offset);
+			} else if (codec == FixedCodec.SHORT) {
+				return chunk.getShort(offset);
+			} else if (codec == FixedCodec.BYTE) {
+				return chunk.get(offset);
+			} else {
+				return chunk.getChar(offset);
+			}
+		}
+
+		/**
+		 * Return a long, int, short, or byte column. Null values are returned as 0.
+		 */
+		public long getLong(int columnIndex) {
+			if (fixedCodecs[columnIndex] == FixedCodec.LONG) {
+				return (isNull(columnIndex) ? 0 : chunk.getLong(rowOffset + fixedOffsets[columnIndex]));
+			} else {
+				return getInt(columnIndex);
+			}
+		}
+
+		/**
+		 * Return a double or float column. Null values are returned as 0.
+		 */
+		public double getDouble(int columnIndex) {
+			if (isNull(columnIndex)) {
+				return 0;
+			} else if (fixedCodecs[columnIndex] == FixedCodec.DOUBLE) {
+				return chunk.getDouble(rowOffset + fixedOffsets[columnIndex]);
+			} else if (fixedCodecs[columnIndex] == FixedCodec.FLOAT) {
+				return chunk.getFloat(rowOffset + fixedOffsets[columnIndex]);
+			} else {
+				throw new IllegalArgumentException("Column " + columnInfos[columnIndex] + " is not a double type");
+			}
+		}
+
+		/**
+		 * Return a boolean column. Null values are returned as false.
+		 */
+		public boolean getBoolean(int columnIndex) {
+			if (fixedCodecs[columnIndex] != FixedCodec.BOOLEAN) {
+				throw new IllegalArgumentException("Column " + columnInfos[columnIndex] + " is not a boolean type");
+			}
+			return (!isNull(columnIndex) && chunk.get(rowOffset + fixedOffsets[columnIndex]) != 0);
+		}
+
+		/**
+		 * Return the value of the column which is converted to a string if it is not a string column.
+		 */
+		public String getString(int columnIndex) {
+			Object value = getValue(columnIndex);
+			if (value == null || value instanceof String) {
+				return (String) value;
+			}
+			@SuppressWarnings("unchecked")
+			Converter<Object, Object> castConverter = (Converter<Object, Object>) columnInfos[columnIndex].getConverter();
+			return castConverter.javaToString(columnInfos[columnIndex], value);
+		}
+
+		public Object getValue(int columnIndex) {
+			return readValue(chunk, rowOffset, columnIndex);
+		}
+
+		/**
+		 * Construct the entity for the current row.
+		 */
+		public T getEntity() {
+			return buildEntity(chunk, rowOffset);
+		}
+	}
+
+	/**
+	 * How the values of a fixed-width column type are stored in place in the row.
+	 */
+	private static abstract class FixedCodec {
+
+		static final FixedCodec INT = new FixedCodec(4) {
+			@Override
+			void writeFixed(ByteBuffer buffer, int offset, Object value) {
+				buffer.putInt(offset, (Integer) value);
+			}
+
+			@Override
+			Object readFixed(ByteBuffer buffer, int offset) {
+				return buffer.getInt(offset);
+			}
+		};
+		static final FixedCodec LONG = new FixedCodec(8) {
+			@Override
+			void writeFixed(ByteBuffer buffer, int offset, Object value) {
+				buffer.putLong(offset, (Long) value);
+			}
+
+			@Override
+			Object readFixed(ByteBuffer buffer, int offset) {
+				return buffer.getLong(offset);
+			}
+		};
+		static final FixedCodec SHORT = new FixedCodec(2) {
+			@Override
+			void writeFixed(ByteBuffer buffer, int offset, Object value) {
+				buffer.putShort(offset, (Short) value);
+			}
+
+			@Override
+			Object readFixed(ByteBuffer buffer, int offset) {
+				return buffer.getShort(offset);
+			}
+		};
+		static final FixedCodec BYTE = new FixedCodec(1) {
+			@Override
+			void writeFixed(ByteBuffer buffer, int offset, Object value) {
+				buffer.put(offset, (Byte) value);
+			}
+
+			@Override
+			Object readFixed(ByteBuffer buffer, int offset) {
+				return buffer.get(offset);
+			}
+		};
+		static final FixedCodec CHAR = new FixedCodec(2) {
+			@Override
+			void writeFixed(ByteBuffer buffer, int offset, Object value) {
+				buffer.putChar(offset, (Character) value);
+			}
+
+			@Override
+			Object readFixed(ByteBuffer buffer, int offset) {
+				return buffer.getChar(offset);
+			}
+		};
+		static final FixedCodec BOOLEAN = new FixedCodec(1) {
+			@Override
+			void writeFixed(ByteBuffer buffer, int offset, Object value) {
+				buffer.put(offset, (byte) ((Boolean) value ? 1 : 0));
+			}
+
+			@Override
+			Object readFixed(ByteBuffer buffer, int offset) {
+				return (buffer.get(offset) != 0);
+			}
+		};
+		static final FixedCodec FLOAT = new FixedCodec(4) {
+			@Override
+			void writeFixed(ByteBuffer buffer, int offset, Object value) {
+				buffer.putFloat(offset, (Float) value);
+			}
+
+			@Override
+			Object readFixed(ByteBuffer buffer, int offset) {
+				return buffer.getFloat(offset);
+			}
+		};
+		static final FixedCodec DOUBLE = new FixedCodec(8) {
+			@Override
+			void writeFixed(ByteBuffer buffer, int offset, Object value) {
+				buffer.putDouble(offset, (Double) value);
+			}
+
+			@Override
+			Object readFixed(ByteBuffer buffer, int offset) {
+				return buffer.getDouble(offset);
+			}
+		};
+		static final FixedCodec DATE = new FixedCodec(8) {
+			@Override
+			void writeFixed(ByteBuffer buffer, int offset, Object value) {
+				buffer.putLong(offset, ((Date) value).getTime());
+			}
+
+			@Override
+			Object readFixed(ByteBuffer buffer, int offset) {
+				return new Date(buffer.getLong(offset));
+			}
+		};
+		static final FixedCodec UUID_CODEC = new FixedCodec(16) {
+			@Override
+			void writeFixed(ByteBuffer buffer, int offset, Object value) {
+				buffer.putLong(offset, ((UUID) value).getMostSignificantBits());
+				buffer.putLong(offset + 8, ((UUID) value).getLeastSignificantBits());
+			}
+
+			@Override
+			Object readFixed(ByteBuffer buffer, int offset) {
+				return new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+			}
+		};
+
+		/**
+		 * Number of bytes of the value.
+		 */
+		final int size;
+
+		protected FixedCodec(int size) {
+			this.size = size;
+		}
+
+		/**
+		 * Return the codec for the type or null if it is stored as variable-width.
+		 */
+		static FixedCodec forType(Class<?> type) {
+			if (type == int.class || type == Integer.class) {
+				return INT;
+			} else if (type == long.class || type == Long.class) {
+				return LONG;
+			} else if (type == short.class || type == Short.class) {
+				return SHORT;
+			} else if (type == byte.class || type == Byte.class) {
+				return BYTE;
+			} else if (type == char.class || type == Character.class) {
+				return CHAR;
+			} else if (type == boolean.class || type == Boolean.class) {
+				return BOOLEAN;
+			} else if (type == float.class || type == Float.class) {
+				return FLOAT;
+			} else if (type == double.class || type == Double.class) {
+				return DOUBLE;
+			} else if (type == Date.class) {
+				return DATE;
+			} else if (type == UUID.class) {
+				return UUID_CODEC;
+			} else if (type.isEnum()) {
+				return new EnumCodec(type.getEnumConstants());
+			} else {
+				return null;
+			}
+		}
+
+		abstract void writeFixed(ByteBuffer buffer, int offset, Object value);
+
+		abstract Object readFixed(ByteBuffer buffer, int offset);
+	}
+
+	/**
+	 * How the values of a variable-width column type are stored as bytes after the fixed-width columns of the row.
+	 */
+	private static abstract class VariableCodec {
+
+		static final VariableCodec STRING = new VariableCodec() {
+			@Override
+			byte[] toBytes(ColumnInfo<Object> columnInfo, Object value) {
+				return ((String) value).getBytes(StandardCharsets.UTF_8);
+			}
+
+			@Override
+			Object fromBytes(ColumnInfo<Object> columnInfo, byte[] bytes) {
+				return new String(bytes, StandardCharsets.UTF_8);
+			}
+		};
+		static final VariableCodec BIG_DECIMAL = new VariableCodec() {
+			@Override
+			byte[] toBytes(ColumnInfo<Object> columnInfo, Object value) {
+				return value.toString().getBytes(StandardCharsets.UTF_8);
+			}
+
+			@Override
+			Object fromBytes(ColumnInfo<Object> columnInfo, byte[] bytes) {
+				return new BigDecimal(new String(bytes, StandardCharsets.UTF_8));
+			}
+		};
+		static final VariableCodec BIG_INTEGER = new VariableCodec() {
+			@Override
+			byte[] toBytes(ColumnInfo<Object> columnInfo, Object value) {
+				return ((BigInteger) value).toByteArray();
+			}
+
+			@Override
+			Object fromBytes(ColumnInfo<Object> columnInfo, byte[] bytes) {
+				return new BigInteger(bytes);
+			}
+		};
+		static final VariableCodec CONVERTER = new VariableCodec() {
+			@Override
+			byte[] toBytes(ColumnInfo<Object> columnInfo, Object value) {
+				@SuppressWarnings("unchecked")
+				Converter<Object, Object> castConverter = (Converter<Object, Object>) columnInfo.getConverter();
+				return castConverter.javaToString(columnInfo, value).getBytes(StandardCharsets.UTF_8);
+			}
+
+			@Override
+			Object fromBytes(ColumnInfo<Object> columnInfo, byte[] bytes) {
+				String str = new String(bytes, StandardCharsets.UTF_8);
+				ParseError parseError = new ParseError();
+				Object value;
+				try {
+					value = columnInfo.getConverter().stringToJava(str, 0, 0, columnInfo, str, parseError);
+				} catch (ParseException pe) {
+					throw new IllegalStateException("Could not convert stored value: " + str, pe);
+				}
+				if (parseError.isError()) {
+					throw new IllegalStateException("Could not convert stored value '" + str + "': " + parseError);
+				}
+				return value;
+			}
+		};
+
+		static VariableCodec forType(Class<?> type) {
+			if (type == String.class) {
+				return STRING;
+			} else if (type == BigDecimal.class) {
+				return BIG_DECIMAL;
+			} else if (type == BigInteger.class) {
+				return BIG_INTEGER;
+			} else {
+				return CONVERTER;
+			}
+		}
+
+		abstract byte[] toBytes(ColumnInfo<Object> columnInfo, Object value);
+
+		abstract Object fromBytes(ColumnInfo<Object> columnInfo, byte[] bytes);
+	}
+
+	/**
+	 * Enums are stored as their ordinal.
+	 */
+	private static class EnumCodec extends FixedCodec {
+
+		private final Object[] constants;
+
+		public EnumCodec(Object[] constants) {
+			super(4);
+			this.constants = constants;
+		}
+
+		@Override
+		void writeFixed(ByteBuffer buffer, int offset, Object value) {
+			buffer.putInt(offset, ((Enum<?>) value).ordinal());
+		}
+
+		@Override
+		Object readFixed(ByteBuffer buffer, int offset) {
+			return constants[buffer.getInt(offset)];
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.j256.simplecsv.processor;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Long-lived handle for writing entities to a writer or file one at a time. It is returned by
+ * {@link CsvProcessor#openWriter(Writer, boolean)} and {@link CsvProcessor#openWriter(java.nio.file.Path,
+ * java.nio.charset.Charset, boolean, java.nio.file.OpenOption...)}. The header is written once when it is opened and
+ * the line buffers are reused for each row. It takes a copy of the processor's configuration when it is opened so later
+ * changes to the processor do not affect it.
+ *
+ * <p>
+ * This is not thread safe. It must be closed to flush the last of the rows.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class CsvWriter<T> implements Closeable, Flushable {
+
+	private final CsvProcessor<T> processor;
+	private final Writer writer;
+	private final boolean closeWriter;
+	private final GzipBlocks.BlockOutputStream blockStream;
+	private final int blockRowCount;
+	private final StringBuilder sb = new StringBuilder(256);
+	private char[] chars = new char[256];
+	private long rowCount;
+	// chars of the rows in the current gzip block
+	private long blockChars;
+	private boolean closed;
+
+	CsvWriter(CsvProcessor<T> processor, Writer writer, boolean closeWriter, GzipBlocks.BlockOutputStream blockStream,
+			int blockRowCount) {
+		this.processor = processor;
+		this.writer = writer;
+		this.closeWriter = closeWriter;
+		this.blockStream = blockStream;
+		this.blockRowCount = blockRowCount;
+	}
+
+	/**
+	 * Write an entity as a row.
+	 */
+	public void write(T entity) throws IOException {
+		checkOpen();
+		sb.setLength(0);
+		processor.appendLine(sb, entity, true);
+		// the block is ended early if the rows are large so the reader can limit the size of the blocks
+		if (blockStream != null && blockChars > 0 && blockChars + sb.length() > GzipBlocks.MAX_BLOCK_CHARS) {
+			finishBlock();
+		}
+		chars = CsvProcessor.writeBuilder(writer, sb, chars);
+		rowCount++;
+		if (blockStream != null) {
+			blockChars += sb.length();
+			if (rowCount % blockRowCount == 0) {
+				finishBlock();
+			}
+		}
+	}
+
+	/**
+	 * Write the entities from the iterator as rows. If the processor's write-thread-count is more than 1 then they are
+	 * formatted in parallel. The writer is flushed after each batch of rows.
+	 */
+	public void writeAll(Iterator<T> entities) throws IOException {
+		checkOpen();
+		if (blockStream == null) {
+			rowCount += processor.writeRows(writer, entities, true);
+		} else {
+			// rows have to be written one at a time so the blocks end on the right row
+			while (entities.hasNext()) {
+				write(entities.next());
+			}
+		}
+	}
+
+	/**
+	 * Write the entities as rows. See {@link #writeAll(Iterator)}.
+	 */
+	public void writeAll(Iterable<T> entities) throws IOException {
+		writeAll(entities.iterator());
+	}
+
+	/**
+	 * Write the entities from the stream as rows. See {@link #writeAll(Iterator)}.
+	 */
+	public void writeAll(Stream<T> entities) throws IOException {
+		writeAll(entities.iterator());
+	}
+
+	/**
+	 * Number of rows written so far not including the header.
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		checkOpen();
+		writer.flush();
+	}
+
+	/**
+	 * Flush the rows and close the writer or file if it was opened by the processor.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (closeWriter) {
+			// this finishes the last gzip block if any
+			writer.close();
+		} else {
+			writer.flush();
+		}
+	}
+
+	void writeHeader() throws IOException {
+		writer.write(processor.buildHeaderLine(true));
+		if (blockStream != null) {
+			// the header gets its own block so the reader can process it before farming out the rest
+			finishBlock();
+		}
+	}
+
+	private void finishBlock() throws IOException {
+		writer.flush();
+		blockStream.finishBlock();
+		blockChars = 0;
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("CsvWriter has been closed");
+		}
+	}
+}
@@ -0,0 +1,636 @@
+package com.j256.simplecsv.processor;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.j256.simplecsv.converter.Converter;
+
+/**
+ * Filter which remembers the keys that have been read so rows whose key duplicates an earlier row can be rejected
+ * without holding all of the keys on the heap. Each key is hashed into 64 bits without allocating and checked against a
+ * bloom filter. Only if the filter says that the key may have been seen is it confirmed exactly by comparing it to the
+ * earlier keys in the same hash bucket. The number of buckets grows with the expected number of keys.
+ *
+ * <p>
+ * The keys are kept in per-bucket buffers. When a buffer fills, its keys are sorted by hash and appended to a temporary
+ * spill file as a run along with a sparse in-memory index of the run's hashes. A confirmation searches the index of
+ * each of the bucket's runs and only reads the block of the run where the hash would be. Once a bucket has a number of
+ * runs of the same size they are merged into one larger run so the number of runs to search only grows logarithmically
+ * with the number of keys. The runs that have been merged are left in the spill file until it is closed.
+ * </p>
+ *
+ * <p>
+ * Integral numbers and characters are stored as their long values and all other keys as the string from the column's
+ * converter. This is not thread safe.
+ * </p>
+ *
+ * @author graywatson
+ */
+class DuplicateKeyFilter implements Closeable {
+
+	private static final double FALSE_POSITIVE_RATE = 0.01;
+	private static final int KEYS_PER_BUCKET = 4096;
+	private static final int MIN_BUCKET_COUNT = 16;
+	private static final int MAX_BUCKET_COUNT = 4096;
+	// most memory that the bucket buffers use together
+	private static final int MAX_BUFFER_MEMORY = 4 * 1024 * 1024;
+	private static final int MIN_BUCKET_BUFFER_SIZE = 1024;
+	private static final int MAX_BUCKET_BUFFER_SIZE = 16 * 1024;
+	// bytes of a run between its index entries which is about how much a confirmation has to read
+	private static final int INDEX_BLOCK_SIZE = 4 * 1024;
+	private static final int READ_BUFFER_SIZE = 8 * 1024;
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+	// number of runs of the same level that are merged into one run of the next level
+	private static final int MERGE_RUN_COUNT = 8;
+	// length of the key record payload that marks a long key
+	private static final int LONG_KEY = -1;
+
+	private final ColumnInfo<Object> columnInfo;
+	private final long[] bits;
+	private final long bitCount;
+	private final int hashCount;
+	private final Path spillParent;
+	private final int bucketShift;
+	private final int bucketBufferSize;
+	private final byte[][] bucketBuffers;
+	private final int[] bucketLengths;
+	// runs of each bucket from the oldest to the newest which is also from the highest level to the lowest
+	private final List<List<SpillRun>> bucketRuns;
+	private Path spillPath;
+	private FileChannel spillChannel;
+	private long spillLength;
+	private RunReader searchReader;
+	private byte[] writeBuffer;
+	private long keyCount;
+	private long confirmCount;
+
+	/**
+	 * @param expectedCount
+	 *            Number of keys that are expected to be read which is used to size the bloom filter and the number of
+	 *            buckets.
+	 * @param spillParent
+	 *            Directory where the spill file is created or null for the default temporary directory.
+	 */
+	public DuplicateKeyFilter(ColumnInfo<Object> columnInfo, long expectedCount, Path spillParent) {
+		this.columnInfo = columnInfo;
+		long count = Math.max(expectedCount, 1000);
+		// optimal number of bits and hashes for the false-positive rate
+		long bitCount = (long) Math.ceil(-count * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+		// round up to a whole long
+		int longCount = (int) Math.min((bitCount + 63) / 64, Integer.MAX_VALUE - 8);
+		this.bits = new long[longCount];
+		this.bitCount = (long) longCount * 64;
+		this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / count * Math.log(2)));
+		this.spillParent = spillParent;
+
+		// more buckets for more keys so each bucket has fewer of them to confirm against
+		int bucketCount = MIN_BUCKET_COUNT;
+		while (bucketCount < MAX_BUCKET_COUNT && (long) bucketCount * KEYS_PER_BUCKET < count) {
+			bucketCount *= 2;
+		}
+		this.bucketShift = 64 - Integer.numberOfTrailingZeros(bucketCount);
+		this.bucketBufferSize =
+				Math.max(MIN_BUCKET_BUFFER_SIZE, Math.min(MAX_BUCKET_BUFFER_SIZE, MAX_BUFFER_MEMORY / bucketCount));
+		this.bucketBuffers = new byte[bucketCount][];
+		this.bucketLengths = new int[bucketCount];
+		this.bucketRuns = new ArrayList<List<SpillRun>>(bucketCount);
+		for (int i = 0; i < bucketCount; i++) {
+			bucketRuns.add(null);
+		}
+	}
+
+	public ColumnInfo<Object> getColumnInfo() {
+		return columnInfo;
+	}
+
+	/**
+	 * Add the key to the filter.
+	 *
+	 * @return True if the key was added or false if it has been added before. Null keys are never duplicates.
+	 */
+	public boolean add(Object key) throws IOException {
+		if (key == null) {
+			return true;
+		}
+		long longKey = 0;
+		String stringKey = null;
+		long hash;
+		if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+			longKey = ((Number) key).longValue();
+			hash = mix(longKey);
+		} else if (key instanceof Character) {
+			longKey = (Character) key;
+			hash = mix(longKey);
+		} else {
+			@SuppressWarnings("unchecked")
+			Converter<Object, Object> converter = (Converter<Object, Object>) columnInfo.getConverter();
+			stringKey = converter.javaToString(columnInfo, key);
+			if (stringKey == null) {
+				return true;
+			}
+			hash = hash(stringKey);
+		}
+
+		if (mightContain(hash)) {
+			confirmCount++;
+			if (isStored(hash, stringKey, longKey)) {
+				return false;
+			}
+		}
+		setBits(hash);
+		store(hash, stringKey, longKey);
+		keyCount++;
+		return true;
+	}
+
+	/**
+	 * Number of unique keys that have been added.
+	 */
+	public long getKeyCount() {
+		return keyCount;
+	}
+
+	/**
+	 * Number of times the bloom filter matched and the key had to be compared with the stored keys.
+	 */
+	public long getConfirmCount() {
+		return confirmCount;
+	}
+
+	/**
+	 * Number of buckets that the keys are split into.
+	 */
+	public int getBucketCount() {
+		return bucketBuffers.length;
+	}
+
+	/**
+	 * Number of spilled runs of the bucket that a confirmation has to search.
+	 */
+	public int getRunCount(int bucket) {
+		List<SpillRun> runs = bucketRuns.get(bucket);
+		return (runs == null ? 0 : runs.size());
+	}
+
+	/**
+	 * Remove the spill file.
+	 */
+	@Override
+	public void close() throws IOException {
+		Arrays.fill(bucketBuffers, null);
+		for (int i = 0; i < bucketRuns.size(); i++) {
+			bucketRuns.set(i, null);
+		}
+		searchReader = null;
+		writeBuffer = null;
+		if (spillChannel == null) {
+			return;
+		}
+		try {
+			spillChannel.close();
+		} finally {
+			spillChannel = null;
+			spillLength = 0;
+			Files.deleteIfExists(spillPath);
+			spillPath = null;
+		}
+	}
+
+	private boolean mightContain(long hash) {
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+		for (int i = 0; i < hashCount; i++) {
+			long bit = ((hash1 + (long) i * hash2) & Long.MAX_VALUE) % bitCount;
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void setBits(long hash) {
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+		for (int i = 0; i < hashCount; i++) {
+			long bit = ((hash1 + (long) i * hash2) & Long.MAX_VALUE) % bitCount;
+			bits[(int) (bit >>> 6)] |= (1L << bit);
+		}
+	}
+
+	/**
+	 * Compare the key with the ones stored in its bucket's buffer and runs.
+	 */
+	private boolean isStored(long hash, String stringKey, long longKey) throws IOException {
+		int bucket = bucket(hash);
+		byte[] buffer = bucketBuffers[bucket];
+		if (buffer != null) {
+			int pos = 0;
+			int length = bucketLengths[bucket];
+			while (pos < length) {
+				int keyLength = getInt(buffer, pos + 8);
+				if (getLong(buffer, pos) == hash && matches(buffer, pos + 12, keyLength, stringKey, longKey)) {
+					return true;
+				}
+				pos += recordLength(keyLength);
+			}
+		}
+		List<SpillRun> runs = bucketRuns.get(bucket);
+		if (runs != null) {
+			for (SpillRun run : runs) {
+				if (isStored(run, hash, stringKey, longKey)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Look for the key in the run which is sorted by hash so we only read from the index entry before the hash.
+	 */
+	private boolean isStored(SpillRun run, long hash, String stringKey, long longKey) throws IOException {
+		if (hash < run.indexHashes[0] || hash > run.lastHash) {
+			return false;
+		}
+		if (searchReader == null) {
+			searchReader = new RunReader();
+		}
+		long pos = run.findStart(hash);
+		while (pos < run.end) {
+			int offset = searchReader.fill(pos, 12);
+			long storedHash = getLong(searchReader.buffer, offset);
+			if (storedHash > hash) {
+				return false;
+			}
+			int keyLength = getInt(searchReader.buffer, offset + 8);
+			int recordLength = recordLength(keyLength);
+			if (storedHash == hash) {
+				offset = searchReader.fill(pos, recordLength);
+				if (matches(searchReader.buffer, offset + 12, keyLength, stringKey, longKey)) {
+					return true;
+				}
+			}
+			pos += recordLength;
+		}
+		return false;
+	}
+
+	private void store(long hash, String stringKey, long longKey) throws IOException {
+		int bucket = bucket(hash);
+		int recordLength = 12 + (stringKey == null ? 8 : stringKey.length() * 2);
+		byte[] buffer = bucketBuffers[bucket];
+		int length = bucketLengths[bucket];
+		if (buffer == null) {
+			buffer = new byte[Math.max(256, recordLength)];
+			bucketBuffers[bucket] = buffer;
+		} else if (length + recordLength > buffer.length) {
+			if (length + recordLength <= bucketBufferSize) {
+				buffer = Arrays.copyOf(buffer, Math.min(bucketBufferSize, Math.max(buffer.length * 2,
+						length + recordLength)));
+			} else {
+				spill(bucket);
+				length = 0;
+				if (recordLength > buffer.length) {
+					buffer = new byte[recordLength];
+				}
+			}
+			bucketBuffers[bucket] = buffer;
+		}
+		putLong(buffer, length, hash);
+		if (stringKey == null) {
+			putInt(buffer, length + 8, LONG_KEY);
+			putLong(buffer, length + 12, longKey);
+		} else {
+			putInt(buffer, length + 8, stringKey.length());
+			int pos = length + 12;
+			for (int i = 0; i < stringKey.length(); i++) {
+				char ch = stringKey.charAt(i);
+				buffer[pos++] = (byte) (ch >>> 8);
+				buffer[pos++] = (byte) ch;
+			}
+		}
+		bucketLengths[bucket] = length + recordLength;
+	}
+
+	/**
+	 * Sort the records in the buffer of the bucket by hash and write them to the spill file as a new run. Then merge
+	 * the newest runs of the bucket if there are enough of them at the same level.
+	 */
+	private void spill(int bucket) throws IOException {
+		if (spillChannel == null) {
+			if (spillParent == null) {
+				spillPath = Files.createTempFile("simplecsv-keys", ".tmp");
+			} else {
+				spillPath = Files.createTempFile(spillParent, "simplecsv-keys", ".tmp");
+			}
+			spillChannel = FileChannel.open(spillPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		}
+		final byte[] buffer = bucketBuffers[bucket];
+		int length = bucketLengths[bucket];
+		List<Integer> offsets = new ArrayList<Integer>();
+		for (int pos = 0; pos < length; pos += recordLength(getInt(buffer, pos + 8))) {
+			offsets.add(pos);
+		}
+		Collections.sort(offsets, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer offset1, Integer offset2) {
+				return Long.compare(getLong(buffer, offset1), getLong(buffer, offset2));
+			}
+		});
+		RunWriter writer = new RunWriter(0);
+		for (int offset : offsets) {
+			writer.add(buffer, offset, recordLength(getInt(buffer, offset + 8)), getLong(buffer, offset));
+		}
+		List<SpillRun> runs = bucketRuns.get(bucket);
+		if (runs == null) {
+			runs = new ArrayList<SpillRun>();
+			bucketRuns.set(bucket, runs);
+		}
+		runs.add(writer.finish());
+		bucketLengths[bucket] = 0;
+
+		// the levels never go up along the list so if the ends of the window match then they all do
+		while (runs.size() >= MERGE_RUN_COUNT) {
+			List<SpillRun> newest = runs.subList(runs.size() - MERGE_RUN_COUNT, runs.size());
+			int level = newest.get(0).level;
+			if (newest.get(MERGE_RUN_COUNT - 1).level != level) {
+				break;
+			}
+			SpillRun merged = merge(newest, level + 1);
+			newest.clear();
+			runs.add(merged);
+		}
+	}
+
+	/**
+	 * Merge the sorted runs into a new sorted run at the end of the spill file. The keys in the runs are unique so
+	 * there is nothing to remove.
+	 */
+	private SpillRun merge(List<SpillRun> runs, int level) throws IOException {
+		int count = runs.size();
+		RunReader[] readers = new RunReader[count];
+		long[] positions = new long[count];
+		for (int i = 0; i < count; i++) {
+			readers[i] = new RunReader();
+			positions[i] = runs.get(i).start;
+		}
+		RunWriter writer = new RunWriter(level);
+		while (true) {
+			int next = -1;
+			long nextHash = 0;
+			for (int i = 0; i < count; i++) {
+				if (positions[i] < runs.get(i).end) {
+					long hash = getLong(readers[i].buffer, readers[i].fill(positions[i], 12));
+					if (next < 0 || hash < nextHash) {
+						next = i;
+						nextHash = hash;
+					}
+				}
+			}
+			if (next < 0) {
+				return writer.finish();
+			}
+			RunReader reader = readers[next];
+			int recordLength = recordLength(getInt(reader.buffer, reader.fill(positions[next], 12) + 8));
+			int offset = reader.fill(positions[next], recordLength);
+			writer.add(reader.buffer, offset, recordLength, nextHash);
+			positions[next] += recordLength;
+		}
+	}
+
+	private int bucket(long hash) {
+		// use the top bits which are least related to the bloom filter bits
+		return (int) (hash >>> bucketShift);
+	}
+
+	private static int recordLength(int keyLength) {
+		return 12 + (keyLength == LONG_KEY ? 8 : keyLength * 2);
+	}
+
+	/**
+	 * Compare the key of a record whose payload starts at the position with our key.
+	 */
+	private static boolean matches(byte[] buffer, int pos, int keyLength, String stringKey, long longKey) {
+		if (keyLength == LONG_KEY) {
+			return (stringKey == null && getLong(buffer, pos) == longKey);
+		}
+		if (stringKey == null || keyLength != stringKey.length()) {
+			return false;
+		}
+		for (int i = 0; i < keyLength; i++) {
+			char ch = (char) (((buffer[pos] & 0xFF) << 8) | (buffer[pos + 1] & 0xFF));
+			if (ch != stringKey.charAt(i)) {
+				return false;
+			}
+			pos += 2;
+		}
+		return true;
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of the characters which is then mixed.
+	 */
+	private static long hash(String str) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < str.length(); i++) {
+			hash ^= str.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * Final mix of murmur3 so all of the bits depend on all of the input bits.
+	 */
+	private static long mix(long value) {
+		value ^= (value >>> 33);
+		value *= 0xff51afd7ed558ccdL;
+		value ^= (value >>> 33);
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= (value >>> 33);
+		return value;
+	}
+
+	private static long getLong(byte[] buffer, int pos) {
+		return ((long) getInt(buffer, pos) << 32) | (getInt(buffer, pos + 4) & 0xFFFFFFFFL);
+	}
+
+	private static int getInt(byte[] buffer, int pos) {
+		return ((buffer[pos] & 0xFF) << 24) | ((buffer[pos + 1] & 0xFF) << 16) | ((buffer[pos + 2] & 0xFF) << 8)
+				| (buffer[pos + 3] & 0xFF);
+	}
+
+	private static void putLong(byte[] buffer, int pos, long value) {
+		putInt(buffer, pos, (int) (value >>> 32));
+		putInt(buffer, pos + 4, (int) value);
+	}
+
+	private static void putInt(byte[] buffer, int pos, int value) {
+		buffer[pos] = (byte) (value >>> 24);
+		buffer[pos + 1] = (byte) (value >>> 16);
+		buffer[pos + 2] = (byte) (value >>> 8);
+		buffer[pos + 3] = (byte) value;
+	}
+
+	/**
+	 * Records of a bucket in the spill file sorted by hash with the hash and position of a record about every
+	 * {@link #INDEX_BLOCK_SIZE} bytes.
+	 */
+	private static class SpillRun {
+
+		final long start;
+		final long end;
+		final int level;
+		final long[] indexHashes;
+		final long[] indexPositions;
+		final int indexCount;
+		final long lastHash;
+
+		public SpillRun(long start, long end, int level, long[] indexHashes, long[] indexPositions, int indexCount,
+				long lastHash) {
+			this.start = start;
+			this.end = end;
+			this.level = level;
+			this.indexHashes = indexHashes;
+			this.indexPositions = indexPositions;
+			this.indexCount = indexCount;
+			this.lastHash = lastHash;
+		}
+
+		/**
+		 * Return the position of the last index entry whose hash is less than the hash. A record with the hash can't be
+		 * before it but, since there can be more than one record with the same hash, it could be before the entry
+		 * that matches the hash.
+		 */
+		public long findStart(long hash) {
+			int low = 0;
+			int high = indexCount;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (indexHashes[middle] < hash) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			if (low == 0) {
+				return start;
+			} else {
+				return indexPositions[low - 1];
+			}
+		}
+	}
+
+	/**
+	 * Appends the records of a new run to the end of the spill file.
+	 */
+	private class RunWriter {
+
+		private final long start;
+		private final int level;
+		private long[] indexHashes = new long[16];
+		private long[] indexPositions = new long[16];
+		private int indexCount;
+		// position in the file of the next record
+		private long position;
+		private long nextIndexPosition;
+		private int bufferLength;
+		private long lastHash;
+
+		public RunWriter(int level) {
+			this.start = spillLength;
+			this.level = level;
+			this.position = start;
+			this.nextIndexPosition = start;
+			if (writeBuffer == null) {
+				writeBuffer = new byte[WRITE_BUFFER_SIZE];
+			}
+		}
+
+		public void add(byte[] buffer, int offset, int recordLength, long hash) throws IOException {
+			if (position >= nextIndexPosition) {
+				if (indexCount == indexHashes.length) {
+					indexHashes = Arrays.copyOf(indexHashes, indexCount * 2);
+					indexPositions = Arrays.copyOf(indexPositions, indexCount * 2);
+				}
+				indexHashes[indexCount] = hash;
+				indexPositions[indexCount] = position;
+				indexCount++;
+				nextIndexPosition = position + INDEX_BLOCK_SIZE;
+			}
+			if (bufferLength + recordLength > writeBuffer.length) {
+				flush();
+				if (recordLength > writeBuffer.length) {
+					writeBuffer = new byte[recordLength];
+				}
+			}
+			System.arraycopy(buffer, offset, writeBuffer, bufferLength, recordLength);
+			bufferLength += recordLength;
+			position += recordLength;
+			lastHash = hash;
+		}
+
+		public SpillRun finish() throws IOException {
+			flush();
+			spillLength = position;
+			return new SpillRun(start, position, level, indexHashes, indexPositions, indexCount, lastHash);
+		}
+
+		private void flush() throws IOException {
+			ByteBuffer byteBuffer = ByteBuffer.wrap(writeBuffer, 0, bufferLength);
+			long writePosition = position - bufferLength;
+			while (byteBuffer.hasRemaining()) {
+				writePosition += spillChannel.write(byteBuffer, writePosition);
+			}
+			bufferLength = 0;
+		}
+	}
+
+	/**
+	 * Reads blocks of the spill file at a position so the records in the block can be looked at without more reads.
+	 */
+	private class RunReader {
+
+		byte[] buffer = new byte[READ_BUFFER_SIZE];
+		private long bufferPosition;
+		private int bufferLength;
+
+		/**
+		 * Make sure that the bytes of the file from the position for the length are in the buffer.
+		 *
+		 * @return The offset in the buffer of the position.
+		 */
+		public int fill(long position, int length) throws IOException {
+			if (position >= bufferPosition && position + length <= bufferPosition + bufferLength) {
+				return (int) (position - bufferPosition);
+			}
+			if (length > buffer.length) {
+				buffer = new byte[length];
+			}
+			int readLength = (int) Math.min(buffer.length, spillLength - position);
+			if (readLength < length) {
+				throw new EOFException("Spill file is truncated");
+			}
+			ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, readLength);
+			while (byteBuffer.hasRemaining()) {
+				if (spillChannel.read(byteBuffer, position + byteBuffer.position()) < 0) {
+					throw new EOFException("Spill file is truncated");
+				}
+			}
+			bufferPosition = position;
+			bufferLength = readLength;
+			return 0;
+		}
+	}
+}
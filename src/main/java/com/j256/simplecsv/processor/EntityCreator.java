@@ -0,0 +1,197 @@
+package com.j256.simplecsv.processor;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.Supplier;
+
+/**
+ * Creates instances of the entity class that is being processed. This resolves the constructor (or static factory
+ * method) once when the processor is configured so we don't pay for reflective calls on every row.
+ *
+ * <p>
+ * Entities are either created with a no-arg constructor, in which case the columns are set on the entity after it is
+ * created, or with an argument array that is filled in with the column values and passed to a constructor or static
+ * factory method once all of the columns in a row have been converted. The argument arrays are reused per thread so
+ * we don't allocate one for each row.
+ * </p>
+ *
+ * @author graywatson
+ */
+class EntityCreator<T> {
+
+	private final Supplier<T> supplier;
+	private final MethodHandle argumentsHandle;
+	private final Object[] defaultArguments;
+	private final ThreadLocal<Object[]> threadLocal = new ThreadLocal<Object[]>() {
+		@Override
+		protected Object[] initialValue() {
+			return new Object[defaultArguments.length];
+		}
+	};
+
+	private EntityCreator(Supplier<T> supplier, MethodHandle argumentsHandle, Object[] defaultArguments) {
+		this.supplier = supplier;
+		this.argumentsHandle = argumentsHandle;
+		this.defaultArguments = defaultArguments;
+	}
+
+	/**
+	 * Create an entity creator from a public no-arg constructor.
+	 */
+	public static <T> EntityCreator<T> fromNoArgConstructor(Constructor<T> constructor) {
+		MethodHandle handle;
+		try {
+			constructor.setAccessible(true);
+			handle = MethodHandles.lookup().unreflectConstructor(constructor);
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not access constructor: " + constructor, e);
+		}
+		Supplier<T> supplier = null;
+		if (isLambdaAccessible(constructor.getDeclaringClass()) && Modifier.isPublic(constructor.getModifiers())) {
+			supplier = buildLambdaSupplier(constructor.getDeclaringClass(), handle);
+		}
+		if (supplier == null) {
+			// fall back to invoking the method-handle which is still faster than Constructor.newInstance()
+			supplier = new MethodHandleSupplier<T>(handle.asType(MethodType.methodType(Object.class)));
+		}
+		return new EntityCreator<T>(supplier, null, null);
+	}
+
+	/**
+	 * Create an entity creator from a constructor which takes the column values as arguments.
+	 */
+	public static <T> EntityCreator<T> fromArgumentConstructor(Constructor<T> constructor) {
+		try {
+			constructor.setAccessible(true);
+			MethodHandle handle = MethodHandles.lookup().unreflectConstructor(constructor);
+			return fromArgumentHandle(handle, constructor.getParameterTypes());
+		} catch (IllegalAccessException iae) {
+			throw new IllegalStateException("Could not access constructor: " + constructor, iae);
+		}
+	}
+
+	/**
+	 * Create an entity creator from a static factory method which takes the column values as arguments.
+	 */
+	public static <T> EntityCreator<T> fromArgumentFactory(Method method) {
+		try {
+			method.setAccessible(true);
+			MethodHandle handle = MethodHandles.lookup().unreflect(method);
+			return fromArgumentHandle(handle, method.getParameterTypes());
+		} catch (IllegalAccessException iae) {
+			throw new IllegalStateException("Could not access factory method: " + method, iae);
+		}
+	}
+
+	/**
+	 * Returns true if the entities are created from an array of arguments instead of a no-arg constructor.
+	 */
+	public boolean isArgumentBased() {
+		return (argumentsHandle != null);
+	}
+
+	/**
+	 * Create an instance of the entity using a no-arg constructor.
+	 */
+	public T create() {
+		return supplier.get();
+	}
+
+	/**
+	 * Return the argument array for the current thread filled with the default values for each of the arguments.
+	 * Primitive arguments default to 0 or false since they cannot be null. The array must not be held onto after
+	 * {@link #create(Object[])} is called since it will be reused for the next row.
+	 */
+	public Object[] getArguments() {
+		Object[] arguments = threadLocal.get();
+		System.arraycopy(defaultArguments, 0, arguments, 0, arguments.length);
+		return arguments;
+	}
+
+	/**
+	 * Create an instance of the entity using the argument array.
+	 */
+	public T create(Object[] arguments) throws Throwable {
+		@SuppressWarnings("unchecked")
+		T entity = (T) argumentsHandle.invokeExact(arguments);
+		return entity;
+	}
+
+	private static <T> EntityCreator<T> fromArgumentHandle(MethodHandle handle, Class<?>[] parameterTypes) {
+		MethodHandle spreader = handle.asSpreader(Object[].class, parameterTypes.length)
+				.asType(MethodType.methodType(Object.class, Object[].class));
+		Object[] defaultArguments = new Object[parameterTypes.length];
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (parameterTypes[i].isPrimitive()) {
+				// easy way to get the boxed default value of a primitive type
+				defaultArguments[i] = Array.get(Array.newInstance(parameterTypes[i], 1), 0);
+			}
+		}
+		return new EntityCreator<T>(null, spreader, defaultArguments);
+	}
+
+	private static <T> Supplier<T> buildLambdaSupplier(Class<?> clazz, MethodHandle handle) {
+		try {
+			CallSite callSite = LambdaMetafactory.metafactory(MethodHandles.lookup(), "get",
+					MethodType.methodType(Supplier.class), MethodType.methodType(Object.class), handle,
+					MethodType.methodType(clazz));
+			@SuppressWarnings("unchecked")
+			Supplier<T> supplier = (Supplier<T>) callSite.getTarget().invoke();
+			return supplier;
+		} catch (Throwable th) {
+			// we'll use the method-handle instead
+			return null;
+		}
+	}
+
+	/**
+	 * The generated lambda class is defined in our package and class-loader so it can only call the constructor if the
+	 * entity class is public and visible to us.
+	 */
+	private static boolean isLambdaAccessible(Class<?> clazz) {
+		for (Class<?> current = clazz; current != null; current = current.getEnclosingClass()) {
+			if (!Modifier.isPublic(current.getModifiers())) {
+				return false;
+			}
+		}
+		try {
+			return (Class.forName(clazz.getName(), false, EntityCreator.class.getClassLoader()) == clazz);
+		} catch (ClassNotFoundException cnfe) {
+			return false;
+		}
+	}
+
+	/**
+	 * Supplier which calls a method-handle if we can't generate a lambda.
+	 */
+	private static class MethodHandleSupplier<T> implements Supplier<T> {
+
+		private final MethodHandle handle;
+
+		public MethodHandleSupplier(MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public T get() {
+			try {
+				@SuppressWarnings("unchecked")
+				T entity = (T) handle.invokeExact();
+				return entity;
+			} catch (RuntimeException re) {
+				throw re;
+			} catch (Error error) {
+				throw error;
+			} catch (Throwable th) {
+				throw new IllegalStateException("Could not construct entity", th);
+			}
+		}
+	}
+}
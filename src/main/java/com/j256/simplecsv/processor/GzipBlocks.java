@@ -0,0 +1,323 @@
+package com.j256.simplecsv.processor;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Gzip support for the file entry points. Input is detected by the gzip magic bytes. In block mode, the output is
+ * written as a series of independent gzip members (like BGZF) that each hold whole rows. Each member has an "SC"
+ * extra field with the size of the member and the line-number of its first line so the members can be found without
+ * inflating them and decompressed and parsed on different threads. Block files are still valid gzip files that can be
+ * read by any gzip tool.
+ *
+ * @author graywatson
+ */
+class GzipBlocks {
+
+	private static final int GZIP_MAGIC1 = 0x1f;
+	private static final int GZIP_MAGIC2 = 0x8b;
+	private static final int FLAG_EXTRA = 0x04;
+	private static final int HEADER_SIZE = 10;
+	private static final int EXTRA_SUBFIELD_ID1 = 'S';
+	private static final int EXTRA_SUBFIELD_ID2 = 'C';
+	private static final int EXTRA_SUBFIELD_DATA_SIZE = 8;
+	private static final int EXTRA_SIZE = 4 + EXTRA_SUBFIELD_DATA_SIZE;
+	private static final int BLOCK_HEADER_SIZE = HEADER_SIZE + 2 + EXTRA_SIZE;
+	private static final int TRAILER_SIZE = 8;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/**
+	 * Most uncompressed bytes that are written in a block. The writer starts a new block early if the rows get near it.
+	 */
+	static final int MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+	/**
+	 * Chars of rows that the writer puts in a block so, at up to 4 bytes a char, it stays under the max.
+	 */
+	static final int MAX_BLOCK_CHARS = MAX_BLOCK_SIZE / 4;
+	// deflate adds at most 5 bytes for every 16k of stored input
+	private static final int MAX_MEMBER_SIZE =
+			BLOCK_HEADER_SIZE + MAX_BLOCK_SIZE + MAX_BLOCK_SIZE / 1024 + 1024 + TRAILER_SIZE;
+	// most that deflate can compress its input
+	private static final int MAX_DEFLATE_RATIO = 1032;
+
+	/**
+	 * Return a stream that decompresses the input if it starts with the gzip magic bytes otherwise the stream itself.
+	 */
+	public static InputStream decompressIfGzip(BufferedInputStream inputStream) throws IOException {
+		if (isGzip(inputStream)) {
+			return new GZIPInputStream(inputStream, BUFFER_SIZE);
+		} else {
+			return inputStream;
+		}
+	}
+
+	/**
+	 * Peek at the stream to see if it starts with the gzip magic bytes.
+	 */
+	public static boolean isGzip(BufferedInputStream inputStream) throws IOException {
+		byte[] header = peek(inputStream, 2);
+		return (header != null && (header[0] & 0xFF) == GZIP_MAGIC1 && (header[1] & 0xFF) == GZIP_MAGIC2);
+	}
+
+	/**
+	 * Peek at the stream to see if it starts with a gzip member written in block mode.
+	 */
+	public static boolean isGzipBlocks(BufferedInputStream inputStream) throws IOException {
+		byte[] header = peek(inputStream, BLOCK_HEADER_SIZE);
+		return (header != null && isBlockHeader(header));
+	}
+
+	/**
+	 * Read the next gzip member from a block mode stream.
+	 *
+	 * @return The block or null on EOF.
+	 */
+	public static Block readBlock(InputStream inputStream) throws IOException {
+		byte[] header = new byte[BLOCK_HEADER_SIZE];
+		int count = readFully(inputStream, header, 0, header.length);
+		if (count == 0) {
+			return null;
+		} else if (count < header.length || !isBlockHeader(header)) {
+			throw new IOException("Invalid gzip block header");
+		}
+		int memberSize = readInt(header, HEADER_SIZE + 2 + 4);
+		int firstLineNumber = readInt(header, HEADER_SIZE + 2 + 8);
+		// the size is from the file so we check it before allocating the member
+		if (memberSize < BLOCK_HEADER_SIZE + TRAILER_SIZE || memberSize > MAX_MEMBER_SIZE) {
+			throw new IOException("Invalid gzip block size: " + memberSize);
+		}
+		byte[] member = new byte[memberSize];
+		System.arraycopy(header, 0, member, 0, header.length);
+		if (readFully(inputStream, member, header.length, memberSize - header.length) < memberSize - header.length) {
+			throw new EOFException("Gzip block truncated");
+		}
+		return new Block(member, firstLineNumber);
+	}
+
+	/**
+	 * Decompress a gzip member. It is not allowed to be larger than {@link #MAX_BLOCK_SIZE}.
+	 */
+	public static byte[] inflate(byte[] member) throws IOException {
+		// the uncompressed size is in the last 4 bytes of the trailer but it is only a hint since it is from the file
+		long size = (readInt(member, member.length - 4) & 0xFFFFFFFFL);
+		size = Math.min(size, Math.min((long) member.length * MAX_DEFLATE_RATIO, MAX_BLOCK_SIZE));
+		ByteArrayOutputStream baos = new ByteArrayOutputStream((int) Math.max(size, 32));
+		InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(member));
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			while (true) {
+				int num = inputStream.read(buffer);
+				if (num < 0) {
+					break;
+				}
+				if (baos.size() + num > MAX_BLOCK_SIZE) {
+					throw new IOException("Gzip block is larger than " + MAX_BLOCK_SIZE + " bytes");
+				}
+				baos.write(buffer, 0, num);
+			}
+		} finally {
+			inputStream.close();
+		}
+		return baos.toByteArray();
+	}
+
+	private static boolean isBlockHeader(byte[] header) {
+		return ((header[0] & 0xFF) == GZIP_MAGIC1 && (header[1] & 0xFF) == GZIP_MAGIC2
+				&& (header[3] & FLAG_EXTRA) != 0 && readShort(header, HEADER_SIZE) == EXTRA_SIZE
+				&& header[HEADER_SIZE + 2] == EXTRA_SUBFIELD_ID1 && header[HEADER_SIZE + 3] == EXTRA_SUBFIELD_ID2
+				&& readShort(header, HEADER_SIZE + 4) == EXTRA_SUBFIELD_DATA_SIZE);
+	}
+
+	private static byte[] peek(BufferedInputStream inputStream, int size) throws IOException {
+		inputStream.mark(size);
+		try {
+			byte[] bytes = new byte[size];
+			if (readFully(inputStream, bytes, 0, size) < size) {
+				return null;
+			} else {
+				return bytes;
+			}
+		} finally {
+			inputStream.reset();
+		}
+	}
+
+	private static int readFully(InputStream inputStream, byte[] bytes, int offset, int length) throws IOException {
+		int count = 0;
+		while (count < length) {
+			int num = inputStream.read(bytes, offset + count, length - count);
+			if (num < 0) {
+				break;
+			}
+			count += num;
+		}
+		return count;
+	}
+
+	private static int readShort(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xFF) | ((bytes[offset + 1] & 0xFF) << 8);
+	}
+
+	private static int readInt(byte[] bytes, int offset) {
+		return readShort(bytes, offset) | (readShort(bytes, offset + 2) << 16);
+	}
+
+	private static void writeShort(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) value;
+		bytes[offset + 1] = (byte) (value >>> 8);
+	}
+
+	private static void writeInt(byte[] bytes, int offset, int value) {
+		writeShort(bytes, offset, value);
+		writeShort(bytes, offset + 2, value >>> 16);
+	}
+
+	/**
+	 * A gzip member read from a block mode stream.
+	 */
+	public static class Block {
+
+		private final byte[] member;
+		private final int firstLineNumber;
+
+		public Block(byte[] member, int firstLineNumber) {
+			this.member = member;
+			this.firstLineNumber = firstLineNumber;
+		}
+
+		public byte[] getMember() {
+			return member;
+		}
+
+		/**
+		 * Line number of the first line in the block. First line is #1.
+		 */
+		public int getFirstLineNumber() {
+			return firstLineNumber;
+		}
+	}
+
+	/**
+	 * Output stream which buffers the uncompressed bytes and writes them out as a gzip member each time
+	 * {@link #finishBlock()} is called which should be at the end of a row.
+	 */
+	public static class BlockOutputStream extends OutputStream {
+
+		private final OutputStream outputStream;
+		private final ByteArrayOutputStream uncompressed = new ByteArrayOutputStream(BUFFER_SIZE);
+		private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		private final CRC32 crc = new CRC32();
+		private final byte[] deflateBuffer = new byte[BUFFER_SIZE];
+		private int lineCount;
+		private boolean lastCarriageReturn;
+		private int blockFirstLineNumber = 1;
+
+		public BlockOutputStream(OutputStream outputStream) {
+			this.outputStream = outputStream;
+		}
+
+		@Override
+		public void write(int b) {
+			countLines(b);
+			uncompressed.write(b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			for (int i = offset; i < offset + length; i++) {
+				countLines(bytes[i]);
+			}
+			uncompressed.write(bytes, offset, length);
+		}
+
+		/**
+		 * Write the bytes since the last call as a gzip member.
+		 */
+		public void finishBlock() throws IOException {
+			if (uncompressed.size() == 0) {
+				return;
+			}
+			if (uncompressed.size() > MAX_BLOCK_SIZE) {
+				throw new IOException(
+						"Gzip block of " + uncompressed.size() + " bytes is larger than " + MAX_BLOCK_SIZE + " bytes");
+			}
+			byte[] input = uncompressed.toByteArray();
+			int firstLineNumber = blockFirstLineNumber;
+			blockFirstLineNumber = lineCount + 1;
+			uncompressed.reset();
+
+			crc.reset();
+			crc.update(input, 0, input.length);
+			deflater.reset();
+			deflater.setInput(input);
+			deflater.finish();
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(input.length / 4 + 64);
+			while (!deflater.finished()) {
+				int num = deflater.deflate(deflateBuffer);
+				compressed.write(deflateBuffer, 0, num);
+			}
+
+			byte[] header = new byte[BLOCK_HEADER_SIZE];
+			header[0] = (byte) GZIP_MAGIC1;
+			header[1] = (byte) GZIP_MAGIC2;
+			// deflate
+			header[2] = 8;
+			header[3] = FLAG_EXTRA;
+			// no mtime, no extra flags, unknown os
+			header[9] = (byte) 0xFF;
+			writeShort(header, HEADER_SIZE, EXTRA_SIZE);
+			header[HEADER_SIZE + 2] = EXTRA_SUBFIELD_ID1;
+			header[HEADER_SIZE + 3] = EXTRA_SUBFIELD_ID2;
+			writeShort(header, HEADER_SIZE + 4, EXTRA_SUBFIELD_DATA_SIZE);
+			writeInt(header, HEADER_SIZE + 6, BLOCK_HEADER_SIZE + compressed.size() + TRAILER_SIZE);
+			writeInt(header, HEADER_SIZE + 10, firstLineNumber);
+			byte[] trailer = new byte[TRAILER_SIZE];
+			writeInt(trailer, 0, (int) crc.getValue());
+			writeInt(trailer, 4, input.length);
+
+			outputStream.write(header);
+			compressed.writeTo(outputStream);
+			outputStream.write(trailer);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// we don't finish a block on flush since it may be in the middle of a row
+			outputStream.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				finishBlock();
+			} finally {
+				deflater.end();
+				outputStream.close();
+			}
+		}
+
+		/**
+		 * Count lines the same way as {@link java.io.BufferedReader#readLine()}.
+		 */
+		private void countLines(int b) {
+			if (b == '\n') {
+				if (!lastCarriageReturn) {
+					lineCount++;
+				}
+				lastCarriageReturn = false;
+			} else if (b == '\r') {
+				lineCount++;
+				lastCarriageReturn = true;
+			} else {
+				lastCarriageReturn = false;
+			}
+		}
+	}
+}
@@ -1,6 +1,9 @@
 package com.j256.simplecsv.processor;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 
 import com.j256.simplecsv.converter.Converter;
 
@@ -13,6 +16,12 @@ import com.j256.simplecsv.converter.Converter;
  * other than {@link ErrorType#NONE}. The message can be null if there is no additional information about the error.
  * </p>
  * 
+ * <p>
+ * The message can be set as a format and arguments with {@link #setMessage(String, Object, Object)} so the string is
+ * only built if {@link #getMessage()} or {@link #toString()} is called. This matters when reading a file with a lot of
+ * errors that are just counted.
+ * </p>
+ * 
  * @author graywatson
  */
 public class ParseError implements Serializable {
@@ -21,6 +30,11 @@ public class ParseError implements Serializable {
 
 	private ErrorType errorType = ErrorType.NONE;
 	private String message;
+	private String messageFormat;
+	private transient Object messageArg1;
+	private transient Object messageArg2;
+	private Throwable cause;
+	private int columnIndex = -1;
 	private String columnName;
 	private String columnValue;
 	private Class<?> columnType;
@@ -40,14 +54,67 @@ public class ParseError implements Serializable {
 	}
 
 	/**
-	 * Return a string message providing details about the error.
+	 * Return a string message providing details about the error. If the message was set with a format then it is built
+	 * the first time this is called.
 	 */
 	public String getMessage() {
+		if (message == null && messageFormat != null) {
+			message = formatMessage(messageFormat, messageArg1, messageArg2);
+			messageFormat = null;
+			messageArg1 = null;
+			messageArg2 = null;
+		}
 		return message;
 	}
 
 	public void setMessage(String message) {
 		this.message = message;
+		this.messageFormat = null;
+		this.messageArg1 = null;
+		this.messageArg2 = null;
+	}
+
+	/**
+	 * Set the message as a format whose "%s" markers are replaced by the arguments in order, but only when
+	 * {@link #getMessage()} is called. A {@link Throwable} argument is replaced by its message and an array by its
+	 * elements.
+	 */
+	public void setMessage(String messageFormat, Object arg) {
+		setMessage(messageFormat, arg, null);
+	}
+
+	/**
+	 * Set the message as a format whose "%s" markers are replaced by the arguments in order, but only when
+	 * {@link #getMessage()} is called. A {@link Throwable} argument is replaced by its message and an array by its
+	 * elements.
+	 */
+	public void setMessage(String messageFormat, Object arg1, Object arg2) {
+		this.message = null;
+		this.messageFormat = messageFormat;
+		this.messageArg1 = arg1;
+		this.messageArg2 = arg2;
+	}
+
+	/**
+	 * Return the exception that caused the error, if any.
+	 */
+	public Throwable getCause() {
+		return cause;
+	}
+
+	public void setCause(Throwable cause) {
+		this.cause = cause;
+	}
+
+	/**
+	 * Return the position of the column that was affected in the line, starting at 0, or -1 if none.
+	 */
+	public int getColumnIndex() {
+		return columnIndex;
+	}
+
+	public void setColumnIndex(int columnIndex) {
+		this.columnIndex = columnIndex;
 	}
 
 	/**
@@ -122,6 +189,11 @@ public class ParseError implements Serializable {
 	public void reset() {
 		this.errorType = ErrorType.NONE;
 		this.message = null;
+		this.messageFormat = null;
+		this.messageArg1 = null;
+		this.messageArg2 = null;
+		this.cause = null;
+		this.columnIndex = -1;
 		this.columnName = null;
 		this.columnValue = null;
 		this.columnType = null;
@@ -137,9 +209,17 @@ public class ParseError implements Serializable {
 		return (errorType != ErrorType.NONE);
 	}
 
+	/**
+	 * Returns true if a message or message format has been set.
+	 */
+	boolean hasMessage() {
+		return (message != null || messageFormat != null);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder(64);
+		String message = getMessage();
 		if (message != null) {
 			sb.append(message);
 		}
@@ -170,6 +250,39 @@ public class ParseError implements Serializable {
 		return sb.toString();
 	}
 
+	private void writeObject(ObjectOutputStream outputStream) throws IOException {
+		// the arguments may not be serializable so build the message first
+		getMessage();
+		outputStream.defaultWriteObject();
+	}
+
+	private static String formatMessage(String format, Object arg1, Object arg2) {
+		StringBuilder sb = new StringBuilder(format.length() + 32);
+		int argCount = 0;
+		int start = 0;
+		while (true) {
+			int index = format.indexOf("%s", start);
+			if (index < 0) {
+				break;
+			}
+			sb.append(format, start, index);
+			appendArg(sb, (argCount++ == 0 ? arg1 : arg2));
+			start = index + 2;
+		}
+		sb.append(format, start, format.length());
+		return sb.toString();
+	}
+
+	private static void appendArg(StringBuilder sb, Object arg) {
+		if (arg instanceof Throwable) {
+			sb.append(((Throwable) arg).getMessage());
+		} else if (arg instanceof Object[]) {
+			sb.append(Arrays.toString((Object[]) arg));
+		} else {
+			sb.append(arg);
+		}
+	}
+
 	/**
 	 * The type of the error.
 	 */
@@ -198,6 +311,8 @@ public class ParseError implements Serializable {
 		INVALID_ENTITY("entity validation failed"),
 		/** unknown entity value */
 		UNKNOWN_VALUE("unknown field value"),
+		/** key column duplicates an earlier row */
+		DUPLICATE_KEY("duplicate key"),
 		// end
 		;
 
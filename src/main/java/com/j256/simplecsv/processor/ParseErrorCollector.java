@@ -0,0 +1,172 @@
+package com.j256.simplecsv.processor;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.j256.simplecsv.processor.ParseError.ErrorType;
+
+/**
+ * Collection of parse errors which can be passed to the read methods instead of a list to keep the cost of a badly
+ * broken file bounded. It counts every error by {@link ErrorType} but only holds onto a sample of them: every
+ * sample-interval error up to the max-retained. It can also drop the line from the errors it keeps so only the
+ * line-number and position are retained. Errors that are not retained are not added and the processor reuses their
+ * objects for the next rows.
+ *
+ * <p>
+ * It is also a {@link ParseErrorListener} so it can be used with
+ * {@link CsvProcessor#publishAll(java.io.Reader, java.util.concurrent.Executor, ParseErrorListener)}. Use
+ * {@link CsvProcessor#setMaxParseErrors(int)} to abort the reading after a number of errors.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class ParseErrorCollector extends AbstractCollection<ParseError> implements ParseErrorListener {
+
+	/**
+	 * Default maximum number of parse errors that are held onto.
+	 */
+	public static final int DEFAULT_MAX_RETAINED = 1000;
+
+	private final List<ParseError> retained = new ArrayList<ParseError>();
+	private final long[] typeCounts = new long[ErrorType.values().length];
+	private long errorCount;
+	private int maxRetained = DEFAULT_MAX_RETAINED;
+	private int sampleInterval = 1;
+	private boolean retainLines = true;
+
+	/**
+	 * Count the error and hold onto it if it is in the sample and we haven't reached the max.
+	 *
+	 * @return True if the error was held onto.
+	 */
+	@Override
+	public synchronized boolean add(ParseError parseError) {
+		long errorIndex = errorCount++;
+		typeCounts[parseError.getErrorType().ordinal()]++;
+		if (retained.size() >= maxRetained || errorIndex % sampleInterval != 0) {
+			return false;
+		}
+		if (!retainLines) {
+			parseError.setLine(null);
+		}
+		retained.add(parseError);
+		return true;
+	}
+
+	@Override
+	public void parseError(ParseError parseError) {
+		add(parseError);
+	}
+
+	/**
+	 * Returns an iterator over the errors that were held onto.
+	 */
+	@Override
+	public synchronized Iterator<ParseError> iterator() {
+		return Collections.unmodifiableList(new ArrayList<ParseError>(retained)).iterator();
+	}
+
+	/**
+	 * Returns the number of errors that were held onto. See {@link #getErrorCount()} for the number that were seen.
+	 */
+	@Override
+	public synchronized int size() {
+		return retained.size();
+	}
+
+	@Override
+	public synchronized void clear() {
+		retained.clear();
+		for (int i = 0; i < typeCounts.length; i++) {
+			typeCounts[i] = 0;
+		}
+		errorCount = 0;
+	}
+
+	/**
+	 * Returns the number of errors that were seen including those that were not held onto.
+	 */
+	public synchronized long getErrorCount() {
+		return errorCount;
+	}
+
+	/**
+	 * Returns the number of errors of the type that were seen.
+	 */
+	public synchronized long getErrorCount(ErrorType errorType) {
+		return typeCounts[errorType.ordinal()];
+	}
+
+	/**
+	 * Returns the number of errors that were seen for each of the error types that had any.
+	 */
+	public synchronized Map<ErrorType, Long> getErrorCounts() {
+		Map<ErrorType, Long> counts = new EnumMap<ErrorType, Long>(ErrorType.class);
+		for (ErrorType errorType : ErrorType.values()) {
+			long count = typeCounts[errorType.ordinal()];
+			if (count > 0) {
+				counts.put(errorType, count);
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Set the maximum number of errors to hold onto. The rest are just counted. Default is
+	 * {@link #DEFAULT_MAX_RETAINED}.
+	 */
+	public void setMaxRetained(int maxRetained) {
+		this.maxRetained = maxRetained;
+	}
+
+	/**
+	 * Set the maximum number of errors to hold onto. The rest are just counted. Default is
+	 * {@link #DEFAULT_MAX_RETAINED}.
+	 */
+	public ParseErrorCollector withMaxRetained(int maxRetained) {
+		this.maxRetained = maxRetained;
+		return this;
+	}
+
+	/**
+	 * Set to a number greater than 1 to only hold onto every Nth error starting with the first. Default is 1 which
+	 * holds onto every error until the max-retained is reached.
+	 */
+	public void setSampleInterval(int sampleInterval) {
+		if (sampleInterval < 1) {
+			throw new IllegalArgumentException("Sample interval must be at least 1: " + sampleInterval);
+		}
+		this.sampleInterval = sampleInterval;
+	}
+
+	/**
+	 * Set to a number greater than 1 to only hold onto every Nth error starting with the first. Default is 1 which
+	 * holds onto every error until the max-retained is reached.
+	 */
+	public ParseErrorCollector withSampleInterval(int sampleInterval) {
+		setSampleInterval(sampleInterval);
+		return this;
+	}
+
+	/**
+	 * Set to false to drop the line from the errors that are held onto so only the line-number and position remain.
+	 * Default is true.
+	 */
+	public void setRetainLines(boolean retainLines) {
+		this.retainLines = retainLines;
+	}
+
+	/**
+	 * Set to false to drop the line from the errors that are held onto so only the line-number and position remain.
+	 * Default is true.
+	 */
+	public ParseErrorCollector withRetainLines(boolean retainLines) {
+		this.retainLines = retainLines;
+		return this;
+	}
+}
@@ -0,0 +1,15 @@
+package com.j256.simplecsv.processor;
+
+/**
+ * Callback which is notified about parse errors as the rows are being read instead of collecting them.
+ *
+ * @author graywatson
+ */
+public interface ParseErrorListener {
+
+	/**
+	 * Called with the error information about a row that could not be read. The row is skipped. The parseError object
+	 * is not reused so it can be held onto.
+	 */
+	public void parseError(ParseError parseError);
+}
@@ -0,0 +1,31 @@
+package com.j256.simplecsv.processor;
+
+/**
+ * Row validator with a lifecycle that can be registered with the
+ * {@link CsvProcessor#setPartitionedRowValidator(PartitionedRowValidator)}. The rows are divided into partitions which
+ * may be read concurrently and each partition gets its own {@link RowValidator} from {@link #createPartition()}. That
+ * validator is only called by one thread at a time so it can keep state, such as the keys that it has seen, without
+ * synchronizing. When the partition has been read, the validator is passed to {@link #mergePartition(RowValidator)} so
+ * its results can be combined.
+ * 
+ * <p>
+ * Each readAll or readRows call is a partition as is each subscription to a publisher. Each file of
+ * {@link CsvProcessor#readAll(java.util.Collection)} is its own partition and the pipelined reader makes a partition
+ * for each of its batches.
+ * </p>
+ * 
+ * @author graywatson
+ */
+public interface PartitionedRowValidator<T> {
+
+	/**
+	 * Create a validator for a new partition of the rows. This may be called concurrently.
+	 */
+	public RowValidator<T> createPartition();
+
+	/**
+	 * Merge the results of the validator of a partition that has been read. The calls are synchronized on this
+	 * validator. The pipelined reader merges its batches in the order of the input.
+	 */
+	public void mergePartition(RowValidator<T> partition);
+}
@@ -0,0 +1,691 @@
+package com.j256.simplecsv.processor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads entities using a pipeline of threads which is returned by
+ * {@link CsvProcessor#readAllPipelined(Reader, Collection)}. An I/O thread fills large buffers from the reader, a
+ * tokenizer thread splits the buffers into records, and a pool of worker threads converts batches of records into
+ * entities. The stages are connected by bounded queues so a slow consumer causes the reading to block instead of
+ * buffering the whole file. The entities are returned in the same order as they appear in the input. If the input is
+ * a gzip file written in block mode then the I/O thread reads the compressed blocks and the workers decompress and split
+ * them as well.
+ *
+ * <p>
+ * <b>NOTE:</b> Any {@link RowValidator}, {@link BatchRowValidator}, and custom converters are called concurrently from
+ * the worker threads so they must be thread-safe. The batch-row-validator is passed the entities of each batch. This
+ * reader must be closed if it is not read until the end so the threads are stopped.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class PipelinedRowReader<T> implements Iterator<T>, Closeable {
+
+	private static final char[] END_CHUNK = new char[0];
+	private static final AtomicInteger threadCounter = new AtomicInteger();
+
+	private final CsvProcessor<T> processor;
+	private final Reader reader;
+	private final InputStream blockInput;
+	private final Charset charset;
+	private final Closeable closeable;
+	private final Collection<ParseError> parseErrors;
+	private final int batchSize;
+	private final int bufferSize;
+	private final BlockingQueue<char[]> chunkQueue;
+	private final BlockingQueue<Future<RowBatch<T>>> batchQueue;
+	private final ExecutorService workerExecutor;
+	private final Thread readerThread;
+	private final Thread tokenizerThread;
+	private volatile IOException readerException;
+	private volatile boolean closed;
+	// keys are checked by the consumer so the first of the duplicates in the input is the one that is kept
+	private final DuplicateKeyFilter duplicateKeyFilter;
+	private ParseError duplicateParseError;
+
+	private RowBatch<T> currentBatch;
+	private int currentIndex;
+	private T nextEntity;
+	private boolean done;
+	private long errorCount;
+	private long entityCount;
+
+	/**
+	 * Either the reader is set and the input is split into records by the tokenizer thread or the blockInput is set and
+	 * the gzip blocks are decompressed and split into records by the workers.
+	 */
+	PipelinedRowReader(CsvProcessor<T> processor, Reader reader, InputStream blockInput, Charset charset,
+			Closeable closeable, Collection<ParseError> parseErrors, int workerCount, int batchSize, int bufferSize) {
+		this.processor = processor;
+		this.reader = reader;
+		this.blockInput = blockInput;
+		this.charset = charset;
+		this.closeable = closeable;
+		this.parseErrors = parseErrors;
+		this.batchSize = batchSize;
+		this.bufferSize = bufferSize;
+		this.duplicateKeyFilter = processor.createDuplicateKeyFilter();
+		this.chunkQueue = new ArrayBlockingQueue<char[]>(4);
+		// enough batches in flight to keep all of the workers busy
+		this.batchQueue = new ArrayBlockingQueue<Future<RowBatch<T>>>(workerCount * 2);
+		final int threadNum = threadCounter.incrementAndGet();
+		this.workerExecutor = Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+			private final AtomicInteger workerCounter = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				return daemonThread(runnable, "simplecsv-worker-" + threadNum + "-" + workerCounter.incrementAndGet());
+			}
+		});
+		if (blockInput == null) {
+			this.readerThread = daemonThread(new Runnable() {
+				@Override
+				public void run() {
+					readChunks();
+				}
+			}, "simplecsv-reader-" + threadNum);
+			this.tokenizerThread = daemonThread(new Runnable() {
+				@Override
+				public void run() {
+					tokenizeRecords();
+				}
+			}, "simplecsv-tokenizer-" + threadNum);
+			tokenizerThread.start();
+		} else {
+			this.readerThread = daemonThread(new Runnable() {
+				@Override
+				public void run() {
+					readBlocks();
+				}
+			}, "simplecsv-reader-" + threadNum);
+			this.tokenizerThread = null;
+		}
+		readerThread.start();
+	}
+
+	/**
+	 * Read the next entity from the pipeline.
+	 *
+	 * @return Entity read in or null on EOF or if the read-limit of the processor was reached or its read-canceller
+	 *         cancelled the read. If the parseErrors collection was passed in then any errors will be added to it and
+	 *         the rows skipped.
+	 * @throws ParseException
+	 *             Thrown on any parsing problems if parseErrors was null.
+	 * @throws IOException
+	 *             If there are any IO exceptions thrown when reading.
+	 */
+	public T readRow() throws ParseException, IOException {
+		if (!done && (processor.isReadLimitReached(entityCount) || processor.isReadCancelled())) {
+			// the rest of the input is not needed so we stop the pipeline
+			done = true;
+			if (currentBatch != null) {
+				processor.mergePartition(currentBatch.partition);
+				currentBatch = null;
+			}
+			close();
+		}
+		while (true) {
+			if (currentBatch == null) {
+				if (done) {
+					return null;
+				}
+				currentBatch = takeBatch();
+				currentIndex = 0;
+			}
+			if (currentIndex < currentBatch.size) {
+				int index = currentIndex++;
+				if (index == currentBatch.parseExceptionIndex) {
+					done = true;
+					RowBatch<T> batch = currentBatch;
+					currentBatch = null;
+					processor.mergePartition(batch.partition);
+					close();
+					throw batch.parseException;
+				}
+				ParseError parseError = currentBatch.parseErrors[index];
+				if (parseError == null) {
+					T entity = currentBatch.entities[index];
+					if (entity == null) {
+						// skipped by a column filter
+						continue;
+					}
+					if (duplicateKeyFilter == null) {
+						entityCount++;
+						return entity;
+					}
+					parseError = checkDuplicateKey(entity, index);
+					if (parseError == null) {
+						entityCount++;
+						return entity;
+					}
+				}
+				try {
+					processor.addParseError(parseErrors, parseError, ++errorCount);
+				} catch (ParseException pe) {
+					done = true;
+					close();
+					throw pe;
+				}
+				continue;
+			}
+			RowBatch<T> batch = currentBatch;
+			currentBatch = null;
+			// merged here so it is done in the order of the input
+			processor.mergePartition(batch.partition);
+			if (batch.last) {
+				done = true;
+				close();
+				if (batch.headerError != null) {
+					parseErrors.add(batch.headerError);
+				}
+				if (batch.parseException != null) {
+					throw batch.parseException;
+				}
+				if (batch.ioException != null) {
+					throw batch.ioException;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check the key of the entity at the index of the current batch.
+	 * 
+	 * @return The parse error if the key is a duplicate and we are collecting errors or null if it is not a duplicate.
+	 */
+	private ParseError checkDuplicateKey(T entity, int index) throws ParseException, IOException {
+		String record = currentBatch.records[index];
+		currentBatch.records[index] = null;
+		if (parseErrors != null) {
+			if (duplicateParseError == null) {
+				duplicateParseError = new ParseError();
+			} else {
+				duplicateParseError.reset();
+			}
+		}
+		try {
+			if (!processor.checkDuplicateKey(duplicateKeyFilter, entity, record, currentBatch.lineNumbers[index],
+					duplicateParseError)) {
+				return null;
+			}
+		} catch (ParseException pe) {
+			done = true;
+			close();
+			throw pe;
+		}
+		ParseError parseError = duplicateParseError;
+		// the collection may hold onto it so we need another one
+		duplicateParseError = null;
+		return parseError;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (nextEntity == null && !done) {
+			try {
+				nextEntity = readRow();
+			} catch (IOException ioe) {
+				throw new UncheckedIOException(ioe);
+			} catch (ParseException pe) {
+				throw new IllegalStateException(pe.getMessage(), pe);
+			}
+		}
+		return (nextEntity != null);
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		T entity = nextEntity;
+		nextEntity = null;
+		return entity;
+	}
+
+	/**
+	 * Returns an ordered stream of the entities which will close this reader when the stream is closed.
+	 */
+	public Stream<T> stream() {
+		Spliterator<T> spliterator =
+				Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+			@Override
+			public void run() {
+				close();
+			}
+		});
+	}
+
+	/**
+	 * Stops the pipeline threads. If this reader was created from a file then the file is closed as well.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		readerThread.interrupt();
+		if (tokenizerThread != null) {
+			tokenizerThread.interrupt();
+		}
+		workerExecutor.shutdownNow();
+		chunkQueue.clear();
+		batchQueue.clear();
+		if (duplicateKeyFilter != null) {
+			try {
+				duplicateKeyFilter.close();
+			} catch (IOException ioe) {
+				// ignored
+			}
+		}
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException ioe) {
+				// ignored
+			}
+		}
+	}
+
+	private RowBatch<T> takeBatch() throws IOException {
+		try {
+			return batchQueue.take().get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting for rows");
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new IOException("Problems processing rows", cause);
+			}
+		}
+	}
+
+	/**
+	 * I/O thread which reads large chunks from the reader.
+	 */
+	private void readChunks() {
+		try {
+			boolean eof = false;
+			while (!eof && !closed) {
+				char[] buffer = new char[bufferSize];
+				int count = 0;
+				while (count < buffer.length) {
+					int num = reader.read(buffer, count, buffer.length - count);
+					if (num < 0) {
+						eof = true;
+						break;
+					}
+					count += num;
+				}
+				if (count > 0) {
+					chunkQueue.put(count == buffer.length ? buffer : Arrays.copyOf(buffer, count));
+				}
+			}
+		} catch (IOException ioe) {
+			readerException = ioe;
+		} catch (InterruptedException ie) {
+			// we've been closed
+			return;
+		}
+		try {
+			chunkQueue.put(END_CHUNK);
+		} catch (InterruptedException ie) {
+			// we've been closed
+		}
+	}
+
+	/**
+	 * Tokenizer thread which splits the chunks into records and hands batches of them to the workers.
+	 */
+	private void tokenizeRecords() {
+		RowBatch<T> lastBatch = new RowBatch<T>(0);
+		lastBatch.last = true;
+		try {
+			BufferedReaderLineCounter bufferedReader = new BufferedReaderLineCounter(new ChunkQueueReader());
+			if (processor.isFirstLineHeader() && !readHeader(bufferedReader, lastBatch)) {
+				return;
+			}
+			RecordReader recordReader = processor.buildRecordReader(bufferedReader, bufferedReader.getLineCount());
+			recordReader.skipRecords(processor.getReadOffset());
+			while (!closed) {
+				RowBatch<T> batch = readBatch(recordReader, batchSize);
+				if (batch.size > 0) {
+					submitBatch(batch);
+				}
+				if (batch.size < batchSize) {
+					break;
+				}
+			}
+		} catch (IOException ioe) {
+			lastBatch.ioException = ioe;
+		} catch (ParseException pe) {
+			lastBatch.parseException = pe;
+		} catch (InterruptedException ie) {
+			// we've been closed
+			return;
+		} catch (RejectedExecutionException ree) {
+			// we've been closed and the workers have been shut down
+			return;
+		}
+		putLastBatch(lastBatch);
+	}
+
+	/**
+	 * I/O thread which reads the gzip blocks and hands them to the workers to be decompressed, split into records, and
+	 * converted.
+	 */
+	private void readBlocks() {
+		RowBatch<T> lastBatch = new RowBatch<T>(0);
+		lastBatch.last = true;
+		try {
+			boolean first = true;
+			long skipCount = processor.getReadOffset();
+			while (!closed) {
+				final GzipBlocks.Block block = GzipBlocks.readBlock(blockInput);
+				if (block == null) {
+					break;
+				}
+				boolean header = (first && processor.isFirstLineHeader());
+				if (header || skipCount > 0) {
+					// read the header here so the column positions are set before any rows are converted
+					BufferedReaderLineCounter bufferedReader = blockReader(block);
+					if (header && !readHeader(bufferedReader, lastBatch)) {
+						return;
+					}
+					RecordReader recordReader = processor.buildRecordReader(bufferedReader,
+							block.getFirstLineNumber() - 1 + bufferedReader.getLineCount());
+					// the offset rows are skipped here since the blocks after this one are split by the workers
+					skipCount -= recordReader.skipRecords(skipCount);
+					RowBatch<T> batch = readBatch(recordReader, Integer.MAX_VALUE);
+					if (batch.size > 0) {
+						submitBatch(batch);
+					}
+				} else {
+					batchQueue.put(workerExecutor.submit(new Callable<RowBatch<T>>() {
+						@Override
+						public RowBatch<T> call() throws IOException {
+							RecordReader recordReader =
+									processor.buildRecordReader(blockReader(block), block.getFirstLineNumber() - 1);
+							RowBatch<T> batch = readBatch(recordReader, Integer.MAX_VALUE);
+							batch.process(processor, (parseErrors != null));
+							return batch;
+						}
+					}));
+				}
+				first = false;
+			}
+		} catch (IOException ioe) {
+			lastBatch.ioException = ioe;
+		} catch (ParseException pe) {
+			lastBatch.parseException = pe;
+		} catch (InterruptedException ie) {
+			// we've been closed
+			return;
+		} catch (RejectedExecutionException ree) {
+			// we've been closed and the workers have been shut down
+			return;
+		}
+		putLastBatch(lastBatch);
+	}
+
+	/**
+	 * Read the header line.
+	 * 
+	 * @return True if the header was read or false if there was an error which has been passed along in the last
+	 *         batch.
+	 */
+	private boolean readHeader(BufferedReaderLineCounter bufferedReader, RowBatch<T> lastBatch)
+			throws IOException, ParseException, InterruptedException {
+		ParseError parseError = null;
+		if (parseErrors != null) {
+			parseError = new ParseError();
+		}
+		if (processor.readHeader(bufferedReader, parseError) != null) {
+			return true;
+		}
+		if (parseError != null && parseError.isError()) {
+			lastBatch.headerError = parseError;
+		}
+		batchQueue.put(CompletableFuture.completedFuture(lastBatch));
+		return false;
+	}
+
+	/**
+	 * Read up to maxSize records into a batch. If the batch has fewer records than maxSize then we reached EOF.
+	 */
+	private RowBatch<T> readBatch(RecordReader recordReader, int maxSize) throws IOException {
+		RowBatch<T> batch = new RowBatch<T>(Math.min(maxSize, batchSize));
+		while (batch.size < maxSize) {
+			String record = recordReader.readRecord();
+			if (record == null) {
+				break;
+			}
+			batch.add(record, recordReader.getRecordLineNumber());
+		}
+		return batch;
+	}
+
+	private void submitBatch(final RowBatch<T> batch) throws InterruptedException {
+		batchQueue.put(workerExecutor.submit(new Callable<RowBatch<T>>() {
+			@Override
+			public RowBatch<T> call() {
+				batch.process(processor, (parseErrors != null));
+				return batch;
+			}
+		}));
+	}
+
+	private void putLastBatch(RowBatch<T> lastBatch) {
+		try {
+			batchQueue.put(CompletableFuture.completedFuture(lastBatch));
+		} catch (InterruptedException ie) {
+			// we've been closed
+		}
+	}
+
+	private BufferedReaderLineCounter blockReader(GzipBlocks.Block block) throws IOException {
+		String text = new String(GzipBlocks.inflate(block.getMember()), charset);
+		return new BufferedReaderLineCounter(new StringReader(text));
+	}
+
+	private static Thread daemonThread(Runnable runnable, String name) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * Reader which returns the chunks read by the I/O thread.
+	 */
+	private class ChunkQueueReader extends Reader {
+
+		private char[] chunk;
+		private int chunkPos;
+		private boolean eof;
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			if (chunk == null || chunkPos >= chunk.length) {
+				if (eof) {
+					return -1;
+				}
+				try {
+					chunk = chunkQueue.take();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("interrupted while waiting for input");
+				}
+				chunkPos = 0;
+				if (chunk == END_CHUNK) {
+					eof = true;
+					if (readerException != null) {
+						throw readerException;
+					}
+					return -1;
+				}
+			}
+			int num = Math.min(len, chunk.length - chunkPos);
+			System.arraycopy(chunk, chunkPos, cbuf, off, num);
+			chunkPos += num;
+			return num;
+		}
+
+		@Override
+		public void close() {
+			// no-op
+		}
+	}
+
+	/**
+	 * Batch of records which are converted together by a worker thread.
+	 */
+	private static class RowBatch<T> {
+
+		String[] records;
+		int[] lineNumbers;
+		T[] entities;
+		ParseError[] parseErrors;
+		RowValidator<T> partition;
+		int size;
+		ParseException parseException;
+		int parseExceptionIndex = -1;
+		boolean last;
+		ParseError headerError;
+		IOException ioException;
+
+		public RowBatch(int capacity) {
+			this.records = new String[capacity];
+			this.lineNumbers = new int[capacity];
+		}
+
+		public void add(String record, int lineNumber) {
+			if (size == records.length) {
+				int capacity = Math.max(16, size * 2);
+				records = Arrays.copyOf(records, capacity);
+				lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+			}
+			records[size] = record;
+			lineNumbers[size] = lineNumber;
+			size++;
+		}
+
+		/**
+		 * Convert the records into entities. If we are not collecting errors then a parse exception stops the batch.
+		 */
+		public void process(CsvProcessor<T> processor, boolean collectErrors) {
+			@SuppressWarnings("unchecked")
+			T[] entities = (T[]) new Object[size];
+			this.entities = entities;
+			this.parseErrors = new ParseError[size];
+			ParseError parseError = null;
+			if (collectErrors) {
+				parseError = new ParseError();
+			}
+			BatchRowValidator<T> batchRowValidator = processor.getBatchRowValidator();
+			// the duplicate keys are checked by the consumer which needs the records
+			boolean keepRecords = processor.hasDuplicateKeyColumn();
+			partition = processor.createPartition();
+			int processed = size;
+			for (int i = 0; i < size; i++) {
+				try {
+					entities[i] = processor.processRow(records[i], parseError, lineNumbers[i], partition);
+				} catch (ParseException pe) {
+					parseException = pe;
+					parseExceptionIndex = i;
+					processed = i;
+					break;
+				}
+				if (parseError != null && parseError.isError()) {
+					parseErrors[i] = parseError;
+					parseError = new ParseError();
+				}
+				if (batchRowValidator == null && !keepRecords) {
+					// we are done with the record
+					records[i] = null;
+				}
+			}
+			if (batchRowValidator != null) {
+				validate(batchRowValidator, processed, collectErrors, keepRecords);
+			}
+		}
+
+		/**
+		 * Validate the entities before the index that were converted without errors.
+		 */
+		private void validate(BatchRowValidator<T> batchRowValidator, int processed, boolean collectErrors,
+				boolean keepRecords) {
+			ValidationBatch<T> validationBatch = new ValidationBatch<T>(processed);
+			// index in this batch of each of the entities in the validation batch
+			int[] indexes = new int[processed];
+			for (int i = 0; i < processed; i++) {
+				if (entities[i] != null) {
+					indexes[validationBatch.size()] = i;
+					validationBatch.add(entities[i], lineNumbers[i], records[i]);
+				}
+				if (!keepRecords) {
+					records[i] = null;
+				}
+			}
+			try {
+				validationBatch.validate(batchRowValidator, collectErrors);
+			} catch (ParseException pe) {
+				// we've not returned any of the batch yet so the exception is thrown before all of its entities
+				parseException = pe;
+				parseExceptionIndex = 0;
+				return;
+			}
+			for (int i = 0; i < validationBatch.size(); i++) {
+				ParseError parseError = validationBatch.getParseError(i);
+				if (parseError == null) {
+					continue;
+				}
+				int index = indexes[i];
+				if (!collectErrors) {
+					try {
+						validationBatch.throwFirstError();
+					} catch (ParseException pe) {
+						parseException = pe;
+						parseExceptionIndex = index;
+					}
+					return;
+				}
+				entities[index] = null;
+				parseErrors[index] = parseError;
+			}
+		}
+	}
+}
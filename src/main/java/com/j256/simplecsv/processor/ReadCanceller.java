@@ -0,0 +1,17 @@
+package com.j256.simplecsv.processor;
+
+/**
+ * Hook which is registered with {@link CsvProcessor#setReadCanceller(ReadCanceller)} to stop a read early. It is
+ * checked before each row is read and, once it returns true, the read stops and returns the entities that have been
+ * read so far without an error.
+ *
+ * @author graywatson
+ */
+public interface ReadCanceller {
+
+	/**
+	 * Returns true if the read should stop before the next row. It may be called from the reading threads so it must
+	 * be thread-safe.
+	 */
+	public boolean isCancelled();
+}
@@ -0,0 +1,150 @@
+package com.j256.simplecsv.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads complete CSV records from a buffered reader without converting any of the columns. If line-termination
+ * characters are allowed inside of columns then a record whose quoted column spans multiple lines is joined together
+ * with the line-termination string the same way that the processor does it when reading a row.
+ *
+ * @author graywatson
+ */
+class RecordReader {
+
+	private final BufferedReader bufferedReader;
+	private final char columnSeparator;
+	private final char columnQuote;
+	private final boolean allowLineTerminationInColumns;
+	private final String lineTermination;
+	private int lineCount;
+	private int recordLineNumber;
+
+	public RecordReader(BufferedReader bufferedReader, char columnSeparator, char columnQuote,
+			boolean allowLineTerminationInColumns, String lineTermination, int lineCount) {
+		this.bufferedReader = bufferedReader;
+		this.columnSeparator = columnSeparator;
+		this.columnQuote = columnQuote;
+		this.allowLineTerminationInColumns = allowLineTerminationInColumns;
+		this.lineTermination = lineTermination;
+		this.lineCount = lineCount;
+	}
+
+	/**
+	 * Read the next record from the reader or null on EOF.
+	 */
+	public String readRecord() throws IOException {
+		String line = bufferedReader.readLine();
+		if (line == null) {
+			return null;
+		}
+		lineCount++;
+		recordLineNumber = lineCount;
+		if (!allowLineTerminationInColumns || !isInsideQuotes(line, false, columnSeparator, columnQuote)) {
+			return line;
+		}
+		StringBuilder sb = new StringBuilder(line.length() * 2);
+		sb.append(line);
+		while (true) {
+			line = bufferedReader.readLine();
+			if (line == null) {
+				// the truncated column will be reported when the record is processed
+				break;
+			}
+			lineCount++;
+			sb.append(lineTermination).append(line);
+			if (!isInsideQuotes(line, true, columnSeparator, columnQuote)) {
+				break;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Skip over a number of records without building them. Only the quotes are scanned to find where the records that
+	 * span multiple lines end.
+	 * 
+	 * @return The number of records that were skipped which is less than count on EOF.
+	 */
+	public long skipRecords(long count) throws IOException {
+		long skipped = 0;
+		while (skipped < count) {
+			String line = bufferedReader.readLine();
+			if (line == null) {
+				break;
+			}
+			lineCount++;
+			recordLineNumber = lineCount;
+			skipped++;
+			if (!allowLineTerminationInColumns || !isInsideQuotes(line, false, columnSeparator, columnQuote)) {
+				continue;
+			}
+			while ((line = bufferedReader.readLine()) != null) {
+				lineCount++;
+				if (!isInsideQuotes(line, true, columnSeparator, columnQuote)) {
+					break;
+				}
+			}
+		}
+		return skipped;
+	}
+
+	/**
+	 * Line number of the first line of the last record read. First line is #1.
+	 */
+	public int getRecordLineNumber() {
+		return recordLineNumber;
+	}
+
+	/**
+	 * Number of lines that have been read.
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Scan the line the same way that the columns are processed to see if it ends inside of a quoted column and so the
+	 * record is continued on the next line.
+	 *
+	 * @param insideQuotes
+	 *            Set to true if the line starts inside of a quoted column that was started on a previous line.
+	 */
+	static boolean isInsideQuotes(String line, boolean insideQuotes, char columnSeparator, char columnQuote) {
+		int length = line.length();
+		int linePos = 0;
+		while (true) {
+			if (!insideQuotes) {
+				// we are at the start of a column
+				if (linePos < length && line.charAt(linePos) == columnQuote) {
+					insideQuotes = true;
+					linePos++;
+				} else {
+					linePos = line.indexOf(columnSeparator, linePos);
+					if (linePos < 0) {
+						return false;
+					}
+					linePos++;
+					continue;
+				}
+			}
+			linePos = line.indexOf(columnQuote, linePos);
+			if (linePos < 0) {
+				return true;
+			}
+			linePos++;
+			if (linePos < length && line.charAt(linePos) == columnQuote) {
+				// escaped quote
+				linePos++;
+				continue;
+			}
+			insideQuotes = false;
+			// skip to the start of the next column, anything between the quote and separator is a format error
+			linePos = line.indexOf(columnSeparator, linePos);
+			if (linePos < 0) {
+				return false;
+			}
+			linePos++;
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package com.j256.simplecsv.processor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Scans the records of a file as bytes keeping track of the byte offset of the start of each record. Lines are split
+ * the same way as {@link java.io.BufferedReader#readLine()} and, if line-termination is allowed in columns, records
+ * with quoted columns that span multiple lines are joined the same way as {@link RecordReader}. The channel is read
+ * with positional reads so a number of scanners can share the same channel.
+ *
+ * <p>
+ * This only works with charsets that encode the line-termination, separator, and quote characters as single ASCII
+ * bytes. The record is returned decoded as ISO-8859-1 so each character is one byte and it can be re-decoded with the
+ * file's real charset if necessary.
+ * </p>
+ *
+ * @author graywatson
+ */
+class RecordScanner {
+
+	private final FileChannel channel;
+	private final char columnSeparator;
+	private final char columnQuote;
+	private final boolean allowLineTerminationInColumns;
+	private final String lineTermination;
+	private final boolean keepLine;
+	private final ByteBuffer buffer;
+	private long bufferOffset;
+	private byte[] lineBytes = new byte[128];
+	private int lineLength;
+	private long lineStart;
+	private int lineCount;
+	private long recordStart;
+	private int recordLineNumber;
+	private String record;
+
+	/**
+	 * @param keepRecord
+	 *            Set to true if {@link #getRecord()} is going to be called.
+	 */
+	public RecordScanner(FileChannel channel, long offset, int lineCount, char columnSeparator, char columnQuote,
+			boolean allowLineTerminationInColumns, String lineTermination, boolean keepRecord, int bufferSize) {
+		this.channel = channel;
+		this.bufferOffset = offset;
+		this.lineCount = lineCount;
+		this.columnSeparator = columnSeparator;
+		this.columnQuote = columnQuote;
+		this.allowLineTerminationInColumns = allowLineTerminationInColumns;
+		this.lineTermination = lineTermination;
+		this.keepLine = (keepRecord || allowLineTerminationInColumns);
+		this.buffer = ByteBuffer.allocate(bufferSize);
+		buffer.flip();
+	}
+
+	/**
+	 * Move to the next record.
+	 *
+	 * @return False on EOF.
+	 */
+	public boolean nextRecord() throws IOException {
+		if (!nextLine()) {
+			return false;
+		}
+		recordStart = lineStart;
+		recordLineNumber = lineCount;
+		if (!keepLine) {
+			return true;
+		}
+		String line = getLine();
+		if (!allowLineTerminationInColumns
+				|| !RecordReader.isInsideQuotes(line, false, columnSeparator, columnQuote)) {
+			record = line;
+			return true;
+		}
+		StringBuilder sb = new StringBuilder(line.length() * 2);
+		sb.append(line);
+		while (nextLine()) {
+			line = getLine();
+			sb.append(lineTermination).append(line);
+			if (!RecordReader.isInsideQuotes(line, true, columnSeparator, columnQuote)) {
+				break;
+			}
+		}
+		record = sb.toString();
+		return true;
+	}
+
+	/**
+	 * The current record decoded as ISO-8859-1. This is only available if keepRecord was set.
+	 */
+	public String getRecord() {
+		return record;
+	}
+
+	/**
+	 * Byte offset of the start of the current record.
+	 */
+	public long getRecordStart() {
+		return recordStart;
+	}
+
+	/**
+	 * Line number of the first line of the current record. First line is #1.
+	 */
+	public int getRecordLineNumber() {
+		return recordLineNumber;
+	}
+
+	private boolean nextLine() throws IOException {
+		lineStart = bufferOffset + buffer.position();
+		lineLength = 0;
+		while (true) {
+			if (!buffer.hasRemaining() && !fill()) {
+				if (bufferOffset + buffer.position() == lineStart) {
+					return false;
+				}
+				break;
+			}
+			byte b = buffer.get();
+			if (b == '\n') {
+				break;
+			} else if (b == '\r') {
+				if ((buffer.hasRemaining() || fill()) && buffer.get(buffer.position()) == '\n') {
+					buffer.get();
+				}
+				break;
+			} else if (keepLine) {
+				if (lineLength == lineBytes.length) {
+					lineBytes = Arrays.copyOf(lineBytes, lineLength * 2);
+				}
+				lineBytes[lineLength++] = b;
+			}
+		}
+		lineCount++;
+		return true;
+	}
+
+	private String getLine() {
+		return new String(lineBytes, 0, lineLength, StandardCharsets.ISO_8859_1);
+	}
+
+	private boolean fill() throws IOException {
+		bufferOffset += buffer.limit();
+		buffer.clear();
+		int num;
+		do {
+			num = channel.read(buffer, bufferOffset);
+		} while (num == 0);
+		buffer.flip();
+		return (num > 0);
+	}
+}
@@ -0,0 +1,316 @@
+package com.j256.simplecsv.processor;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publisher of entities which is returned by {@link CsvProcessor#publishAll(Reader, Executor, ParseErrorListener)}.
+ * Rows are only read when the subscriber has requested them, plus a bounded number of rows that are read ahead, so a
+ * slow subscriber is never over-buffered. The interfaces follow the Reactive Streams (and java.util.concurrent.Flow)
+ * signatures without depending on them so they can be adapted with a couple of lines of code.
+ *
+ * <p>
+ * Rows are read and the subscriber is called from tasks run on the executor. Only one subscriber is supported since
+ * the rows can only be read once.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class RowPublisher<T> {
+
+	private final CsvProcessor<T> processor;
+	private final Reader reader;
+	private final Closeable closeable;
+	private final Executor executor;
+	private final ParseErrorListener parseErrorListener;
+	private final int readAhead;
+	private final AtomicBoolean subscribed = new AtomicBoolean();
+
+	RowPublisher(CsvProcessor<T> processor, Reader reader, Closeable closeable, Executor executor,
+			ParseErrorListener parseErrorListener, int readAhead) {
+		this.processor = processor;
+		this.reader = reader;
+		this.closeable = closeable;
+		this.executor = executor;
+		this.parseErrorListener = parseErrorListener;
+		this.readAhead = readAhead;
+	}
+
+	/**
+	 * Subscribe to the entities. Nothing is read until {@link Subscription#request(long)} is called.
+	 */
+	public void subscribe(Subscriber<? super T> subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("subscriber cannot be null");
+		}
+		if (!subscribed.compareAndSet(false, true)) {
+			subscriber.onSubscribe(new Subscription() {
+				@Override
+				public void request(long num) {
+					// no-op
+				}
+
+				@Override
+				public void cancel() {
+					// no-op
+				}
+			});
+			subscriber.onError(new IllegalStateException("RowPublisher only supports a single subscriber"));
+			return;
+		}
+		RowSubscription<T> subscription = new RowSubscription<T>(this, subscriber);
+		subscriber.onSubscribe(subscription);
+	}
+
+	/**
+	 * Subscriber to the entities. Matches the Reactive Streams Subscriber.
+	 */
+	public interface Subscriber<T> {
+
+		/**
+		 * Called once before any other methods with the subscription which is used to request rows.
+		 */
+		public void onSubscribe(Subscription subscription);
+
+		/**
+		 * Called with the next entity that was read.
+		 */
+		public void onNext(T entity);
+
+		/**
+		 * Called if there was an IO problem or a parse problem when no {@link ParseErrorListener} was specified. No
+		 * other methods will be called after this.
+		 */
+		public void onError(Throwable throwable);
+
+		/**
+		 * Called when all of the entities have been read. No other methods will be called after this.
+		 */
+		public void onComplete();
+	}
+
+	/**
+	 * Subscription to the entities. Matches the Reactive Streams Subscription.
+	 */
+	public interface Subscription {
+
+		/**
+		 * Request that the next num entities be read and passed to the subscriber.
+		 */
+		public void request(long num);
+
+		/**
+		 * Stop reading entities.
+		 */
+		public void cancel();
+	}
+
+	/**
+	 * Subscription which reads the rows in a drain loop. The loop is only run by one thread at a time and is
+	 * re-entered if there are more requests or a cancel while it is running.
+	 */
+	private static class RowSubscription<T> implements Subscription, Runnable {
+
+		private final RowPublisher<T> publisher;
+		private final Subscriber<? super T> subscriber;
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger workInProgress = new AtomicInteger();
+		private final ArrayDeque<T> buffer = new ArrayDeque<T>();
+		private volatile boolean cancelled;
+		private volatile Throwable requestError;
+		private BufferedReader bufferedReader;
+		private ParseError parseError;
+		private RowValidator<T> partition;
+		private DuplicateKeyFilter duplicateKeyFilter;
+		private long errorCount;
+		private long entityCount;
+		private boolean eof;
+		private boolean done;
+
+		public RowSubscription(RowPublisher<T> publisher, Subscriber<? super T> subscriber) {
+			this.publisher = publisher;
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long num) {
+			if (num <= 0) {
+				requestError = new IllegalArgumentException("request must be positive, was " + num);
+			} else {
+				long current;
+				long next;
+				do {
+					current = demand.get();
+					if (current == Long.MAX_VALUE) {
+						break;
+					}
+					next = current + num;
+					if (next < 0) {
+						// overflow means unbounded
+						next = Long.MAX_VALUE;
+					}
+				} while (!demand.compareAndSet(current, next));
+			}
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			schedule();
+		}
+
+		@Override
+		public void run() {
+			int missed = 1;
+			while (true) {
+				drain();
+				missed = workInProgress.addAndGet(-missed);
+				if (missed == 0) {
+					return;
+				}
+			}
+		}
+
+		private void schedule() {
+			if (workInProgress.getAndIncrement() == 0) {
+				publisher.executor.execute(this);
+			}
+		}
+
+		private void drain() {
+			if (done) {
+				return;
+			}
+			boolean complete = false;
+			try {
+				while (true) {
+					if (cancelled) {
+						finish();
+						return;
+					}
+					if (requestError != null) {
+						finish();
+						subscriber.onError(requestError);
+						return;
+					}
+					long requested = demand.get();
+					if (requested > 0 && !buffer.isEmpty()) {
+						T entity = buffer.poll();
+						if (requested != Long.MAX_VALUE) {
+							demand.decrementAndGet();
+						}
+						try {
+							subscriber.onNext(entity);
+						} catch (RuntimeException re) {
+							// the subscriber broke the rules so we consider the subscription cancelled
+							finish();
+							return;
+						}
+					} else if (eof) {
+						if (buffer.isEmpty()) {
+							finish();
+							complete = true;
+						}
+						break;
+					} else if (requested > 0 || buffer.size() < publisher.readAhead) {
+						readRow();
+					} else {
+						// we have read ahead as much as we can
+						return;
+					}
+				}
+			} catch (IOException ioe) {
+				finish();
+				subscriber.onError(ioe);
+			} catch (ParseException pe) {
+				finish();
+				subscriber.onError(pe);
+			} catch (RuntimeException re) {
+				finish();
+				subscriber.onError(re);
+			}
+			if (complete) {
+				subscriber.onComplete();
+			}
+		}
+
+		/**
+		 * Read the next row, or the header if it is the first line, and add it to the buffer.
+		 */
+		private void readRow() throws IOException, ParseException {
+			CsvProcessor<T> processor = publisher.processor;
+			ParseErrorListener parseErrorListener = publisher.parseErrorListener;
+			if (parseErrorListener != null) {
+				if (parseError == null) {
+					parseError = new ParseError();
+				} else {
+					parseError.reset();
+				}
+			}
+			if (bufferedReader == null) {
+				bufferedReader = new BufferedReaderLineCounter(publisher.reader);
+				partition = processor.createPartition();
+				duplicateKeyFilter = processor.createDuplicateKeyFilter();
+				if (processor.isFirstLineHeader() && processor.readHeader(bufferedReader, parseError) == null) {
+					if (parseError != null && parseError.isError()) {
+						parseErrorListener.parseError(parseError);
+					}
+					eof = true;
+				} else {
+					processor.skipOffsetRecords(bufferedReader);
+				}
+				return;
+			}
+			if (processor.isReadLimitReached(entityCount) || processor.isReadCancelled()) {
+				// complete without reading the rest of the input
+				eof = true;
+				return;
+			}
+			T entity = processor.readRow(bufferedReader, parseError, partition, duplicateKeyFilter);
+			if (entity != null) {
+				buffer.add(entity);
+				entityCount++;
+			} else if (parseError != null && parseError.isError()) {
+				processor.writeReject(parseError);
+				parseErrorListener.parseError(parseError);
+				// once we use it, we need to create another one
+				ParseError lastParseError = parseError;
+				parseError = null;
+				processor.checkMaxParseErrors(lastParseError, ++errorCount);
+			} else {
+				eof = true;
+			}
+		}
+
+		private void finish() {
+			done = true;
+			buffer.clear();
+			publisher.processor.mergePartition(partition);
+			partition = null;
+			if (duplicateKeyFilter != null) {
+				try {
+					duplicateKeyFilter.close();
+				} catch (IOException ioe) {
+					// ignored
+				}
+				duplicateKeyFilter = null;
+			}
+			if (publisher.closeable != null) {
+				try {
+					publisher.closeable.close();
+				} catch (IOException ioe) {
+					// ignored
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package com.j256.simplecsv.processor;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.j256.simplecsv.processor.ParseError.ErrorType;
+
+/**
+ * Entities that have been parsed and are waiting to be validated together by a {@link BatchRowValidator}. The records
+ * are held onto so rejected rows can be reported with their lines.
+ * 
+ * <p>
+ * This is not thread safe.
+ * </p>
+ * 
+ * @author graywatson
+ */
+class ValidationBatch<T> {
+
+	private final List<T> entities;
+	private int[] lineNumbers;
+	private String[] records;
+	private ParseError[] parseErrors;
+
+	public ValidationBatch(int capacity) {
+		this.entities = new ArrayList<T>(capacity);
+		this.lineNumbers = new int[capacity];
+		this.records = new String[capacity];
+		this.parseErrors = new ParseError[capacity];
+	}
+
+	/**
+	 * Add a parsed entity to the batch.
+	 * 
+	 * @return True if the batch is now at its capacity.
+	 */
+	public boolean add(T entity, int lineNumber, String record) {
+		int index = entities.size();
+		if (index == records.length) {
+			int capacity = Math.max(16, index * 2);
+			lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+			records = Arrays.copyOf(records, capacity);
+			parseErrors = Arrays.copyOf(parseErrors, capacity);
+		}
+		entities.add(entity);
+		lineNumbers[index] = lineNumber;
+		records[index] = record;
+		return (index + 1 >= records.length);
+	}
+
+	public int size() {
+		return entities.size();
+	}
+
+	/**
+	 * Run the validator over the entities in the batch.
+	 * 
+	 * @param collectErrors
+	 *            If false then a ParseException thrown by the validator is passed along instead of being assigned to
+	 *            the parse-errors.
+	 */
+	public void validate(BatchRowValidator<T> validator, boolean collectErrors) throws ParseException {
+		int size = entities.size();
+		for (int i = 0; i < size; i++) {
+			if (parseErrors[i] == null) {
+				parseErrors[i] = new ParseError();
+			} else {
+				parseErrors[i].reset();
+			}
+		}
+		try {
+			validator.validateRows(entities, lineNumbers, parseErrors);
+		} catch (ParseException pe) {
+			if (!collectErrors) {
+				throw pe;
+			}
+			for (int i = 0; i < size; i++) {
+				if (!parseErrors[i].isError()) {
+					parseErrors[i].setErrorType(ErrorType.INVALID_ENTITY);
+					parseErrors[i].setMessage("%s", pe);
+					parseErrors[i].setCause(pe);
+				}
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			ParseError parseError = parseErrors[i];
+			if (parseError.isError()) {
+				if (parseError.getLine() == null) {
+					parseError.setLine(records[i]);
+				}
+				if (parseError.getLineNumber() == 0) {
+					parseError.setLineNumber(lineNumbers[i]);
+				}
+				if (!parseError.hasMessage()) {
+					parseError.setMessage(parseError.getErrorType().getTypeMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check the keys of the entities that passed validation against the duplicate key filter in order. This has to be
+	 * called after {@link #validate(BatchRowValidator, boolean)}.
+	 * 
+	 * @param collectErrors
+	 *            If false then a ParseException is thrown for a duplicate key unless there is an earlier entity that
+	 *            failed validation which is left for {@link #throwFirstError()}.
+	 */
+	public void checkDuplicateKeys(CsvProcessor<T> processor, DuplicateKeyFilter duplicateKeyFilter,
+			boolean collectErrors) throws ParseException, IOException {
+		int size = entities.size();
+		for (int i = 0; i < size; i++) {
+			if (!parseErrors[i].isError()) {
+				processor.checkDuplicateKey(duplicateKeyFilter, entities.get(i), records[i], lineNumbers[i],
+						(collectErrors ? parseErrors[i] : null));
+			} else if (!collectErrors) {
+				return;
+			}
+		}
+	}
+
+	public T getEntity(int index) {
+		return entities.get(index);
+	}
+
+	/**
+	 * Return the parse-error of the entity after validation or null if it is valid.
+	 */
+	public ParseError getParseError(int index) {
+		ParseError parseError = parseErrors[index];
+		if (parseError != null && parseError.isError()) {
+			return parseError;
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Mark that the parse-error at the index has been held onto so a new one has to be created for the next batch.
+	 */
+	public void releaseParseError(int index) {
+		parseErrors[index] = null;
+	}
+
+	/**
+	 * Throw an exception for the first entity that failed validation, if any.
+	 */
+	public void throwFirstError() throws ParseException {
+		int size = entities.size();
+		for (int i = 0; i < size; i++) {
+			ParseError parseError = getParseError(i);
+			if (parseError != null) {
+				throw new ParseException("Problems validating line " + parseError.getLineNumber() + " ("
+						+ parseError + "): " + records[i], parseError.getLinePos());
+			}
+		}
+	}
+
+	/**
+	 * Remove the entities so the batch can be reused.
+	 */
+	public void clear() {
+		Arrays.fill(records, 0, entities.size(), null);
+		entities.clear();
+	}
+}
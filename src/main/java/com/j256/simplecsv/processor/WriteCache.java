@@ -0,0 +1,72 @@
+package com.j256.simplecsv.processor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Output that the processor builds once for a particular column list, separator, quote, and line-termination and then
+ * reuses for every file and row that it writes: the header line and the pre-escaped tokens of the columns whose
+ * converters have a finite set of values.
+ *
+ * @author graywatson
+ */
+class WriteCache {
+
+	private final List<ColumnInfo<Object>> columnInfos;
+	private final char columnSeparator;
+	private final char columnQuote;
+	private final String lineTermination;
+	private final String headerLine;
+	private final String terminatedHeaderLine;
+	private final boolean safeDelimiters;
+	private final List<Map<Object, char[]>> columnTokens;
+
+	public WriteCache(List<ColumnInfo<Object>> columnInfos, char columnSeparator, char columnQuote,
+			String lineTermination, String headerLine, boolean safeDelimiters,
+			List<Map<Object, char[]>> columnTokens) {
+		this.columnInfos = columnInfos;
+		this.columnSeparator = columnSeparator;
+		this.columnQuote = columnQuote;
+		this.lineTermination = lineTermination;
+		this.headerLine = headerLine;
+		this.terminatedHeaderLine = headerLine + lineTermination;
+		this.safeDelimiters = safeDelimiters;
+		this.columnTokens = columnTokens;
+	}
+
+	/**
+	 * Returns true if the cache was built with this configuration.
+	 */
+	public boolean matches(List<ColumnInfo<Object>> columnInfos, char columnSeparator, char columnQuote,
+			String lineTermination) {
+		return (this.columnInfos == columnInfos && this.columnSeparator == columnSeparator
+				&& this.columnQuote == columnQuote && this.lineTermination.equals(lineTermination));
+	}
+
+	public String getHeaderLine(boolean appendLineTermination) {
+		if (appendLineTermination) {
+			return terminatedHeaderLine;
+		} else {
+			return headerLine;
+		}
+	}
+
+	/**
+	 * Returns true if neither the separator nor the quote can appear in the output of a safe converter.
+	 */
+	public boolean isSafeDelimiters() {
+		return safeDelimiters;
+	}
+
+	/**
+	 * Returns the escaped and quoted token for the value in the column or null if it has not been pre-encoded.
+	 */
+	public char[] getToken(int columnIndex, Object value) {
+		Map<Object, char[]> tokens = columnTokens.get(columnIndex);
+		if (tokens == null) {
+			return null;
+		} else {
+			return tokens.get(value);
+		}
+	}
+}
@@ -69,6 +69,14 @@ public class BooleanConverterTest extends AbstractConverterTest {
 		assertFalse(converter.isNeedsQuotes(configInfo));
 	}
 
+	@Test
+	public void testOutputSafe() {
+		BooleanConverter converter = BooleanConverter.getSingleton();
+		assertTrue(converter.isOutputSafe(converter.configure(null, 0, null)));
+		assertTrue(converter.isOutputSafe(converter.configure("1,0", 0, null)));
+		assertFalse(converter.isOutputSafe(converter.configure("yes sir,no", 0, null)));
+	}
+
 	@Test
 	public void testConverage() {
 		BooleanConverter converter = BooleanConverter.getSingleton();
@@ -1,5 +1,13 @@
 package com.j256.simplecsv.converter;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.UUID;
+
 import org.junit.Test;
 
 public class ConverterUtilsTest {
@@ -14,6 +22,68 @@ public class ConverterUtilsTest {
 		ConverterUtils.constructConverter(ConstructorThrows.class);
 	}
 
+	@Test
+	public void testSafeOutput() {
+		assertTrue(ConverterUtils.isSafeOutput("-1.5E+10"));
+		assertTrue(ConverterUtils.isSafeOutput("RED_$1"));
+		assertTrue(ConverterUtils.isSafeOutput(""));
+		assertFalse(ConverterUtils.isSafeOutput("1,000"));
+		assertFalse(ConverterUtils.isSafeOutput("yes please"));
+		assertFalse(ConverterUtils.isSafeOutput("\"quoted\""));
+		assertFalse(ConverterUtils.isSafeOutputChar('\n'));
+	}
+
+	@Test
+	public void testNumberStrings() {
+		String[] strings = new String[] { "0", "-1", "+12", "1.5", "-.5", "5.", "1e10", "1E-5", "+1.5e+3", "1.5f",
+				"2d", " 7 ", "NaN", "-Infinity", "0x1p3", "", "-", "+", ".", "e5", "1e", "1e+", "1.2.3", "abc", "12a",
+				"1,000", "N/A", "--1", "1 2", "99999999999999999999", "\u0661\u0662" };
+		for (String str : strings) {
+			boolean parsed;
+			try {
+				Double.parseDouble(str);
+				parsed = true;
+			} catch (NumberFormatException nfe) {
+				parsed = false;
+			}
+			// false means it definitely won't parse
+			if (!ConverterUtils.isDecimalString(str, true)) {
+				assertFalse(str, parsed);
+			}
+			try {
+				new BigDecimal(str);
+				parsed = true;
+			} catch (NumberFormatException nfe) {
+				parsed = false;
+			}
+			assertEquals(str, parsed, ConverterUtils.isDecimalString(str, false));
+			try {
+				new BigInteger(str);
+				parsed = true;
+			} catch (NumberFormatException nfe) {
+				parsed = false;
+			}
+			assertEquals(str, parsed, ConverterUtils.isIntegerString(str));
+		}
+		assertTrue(ConverterUtils.isDecimalString("1.5f", true));
+		assertTrue(ConverterUtils.isDecimalString(" 7 ", true));
+		assertFalse(ConverterUtils.isDecimalString("abc", true));
+		assertFalse(ConverterUtils.isDecimalString("1,000", true));
+		// out of range for an int but still an integer string
+		assertTrue(ConverterUtils.isIntegerString("99999999999999999999"));
+	}
+
+	@Test
+	public void testUuidStrings() {
+		assertTrue(ConverterUtils.isUuidString(UUID.randomUUID().toString()));
+		assertTrue(ConverterUtils.isUuidString("1-2-3-4-5"));
+		assertFalse(ConverterUtils.isUuidString("1-2-3-4"));
+		assertFalse(ConverterUtils.isUuidString("1-2--4-5"));
+		assertFalse(ConverterUtils.isUuidString("1-2-3-4-"));
+		assertFalse(ConverterUtils.isUuidString("1-2-3-4-g"));
+		assertFalse(ConverterUtils.isUuidString("not-a-uuid"));
+	}
+
 	@Test
 	public void testCoverage() {
 		new ConverterUtils();
@@ -85,6 +85,9 @@ public class EnumConverterTest extends AbstractConverterTest {
 		EnumConverter converter = EnumConverter.getSingleton();
 		assertTrue(converter.isNeedsQuotes(null));
 		assertTrue(converter.isAlwaysTrimInput());
+		ColumnInfo<Enum<?>> columnInfo = ColumnInfo.forTests(converter, MyEnum.class, null, 0);
+		assertTrue(converter.isOutputSafe((EnumConverter.ConfigInfo) columnInfo.getConfigInfo()));
+		assertTrue(columnInfo.isOutputSafe());
 	}
 
 	private enum MyEnum {
@@ -0,0 +1,168 @@
+package com.j256.simplecsv.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.j256.simplecsv.common.CsvColumn;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
+
+public class BatchRowValidatorTest {
+
+	@Test
+	public void testBatches() throws Exception {
+		OddValidator validator = new OddValidator();
+		CsvProcessor<Basic> processor = new CsvProcessor<Basic>(Basic.class).withFirstLineHeader(false)
+				.withBatchRowValidator(validator)
+				.withBatchValidationSize(10);
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Basic> results = processor.readAll(new StringReader(buildInput(26, 2)), parseErrors);
+		// line 3 doesn't parse so 25 are validated
+		assertEquals(Arrays.asList(10, 10, 5), validator.batchSizes);
+		assertEquals(12, results.size());
+		assertEquals(0, results.get(0).intValue);
+		for (int i = 1; i < results.size(); i++) {
+			assertEquals((i + 1) * 2, results.get(i).intValue);
+		}
+		assertEquals(14, parseErrors.size());
+		int invalidCount = 0;
+		for (ParseError parseError : parseErrors) {
+			if (parseError.getErrorType() == ErrorType.INVALID_ENTITY) {
+				invalidCount++;
+				assertEquals("odd value", parseError.getMessage());
+				assertEquals(parseError.getLineNumber() - 1 + ",wow", parseError.getLine());
+			} else {
+				assertEquals(ErrorType.INVALID_FORMAT, parseError.getErrorType());
+				assertEquals(3, parseError.getLineNumber());
+			}
+		}
+		assertEquals(13, invalidCount);
+	}
+
+	@Test
+	public void testNoParseErrors() throws Exception {
+		CsvProcessor<Basic> processor = new CsvProcessor<Basic>(Basic.class).withFirstLineHeader(false)
+				.withBatchRowValidator(new OddValidator())
+				.withBatchValidationSize(4);
+		try {
+			processor.readAll(new StringReader("0,wow\n2,wow\n5,wow\n"), null);
+			fail("should have thrown");
+		} catch (ParseException pe) {
+			assertTrue(pe.getMessage(), pe.getMessage().startsWith("Problems validating line 3"));
+		}
+	}
+
+	@Test
+	public void testValidatorThrows() throws Exception {
+		CsvProcessor<Basic> processor = new CsvProcessor<Basic>(Basic.class).withFirstLineHeader(false)
+				.withBatchValidationSize(2)
+				.withBatchRowValidator(new BatchRowValidator<Basic>() {
+					@Override
+					public void validateRows(List<Basic> entities, int[] lineNumbers, ParseError[] parseErrors)
+							throws ParseException {
+						if (entities.get(0).intValue == 2) {
+							throw new ParseException("lookup failed", 0);
+						}
+					}
+				});
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Basic> results = processor.readAll(new StringReader(buildInput(6, -1)), parseErrors);
+		assertEquals(4, results.size());
+		assertEquals(2, parseErrors.size());
+		assertEquals(3, parseErrors.get(0).getLineNumber());
+		assertEquals(4, parseErrors.get(1).getLineNumber());
+		assertEquals("lookup failed", parseErrors.get(1).getMessage());
+		assertEquals(ErrorType.INVALID_ENTITY, parseErrors.get(1).getErrorType());
+	}
+
+	@Test
+	public void testPipelined() throws Exception {
+		OddValidator validator = new OddValidator();
+		CsvProcessor<Basic> processor = new CsvProcessor<Basic>(Basic.class).withFirstLineHeader(false)
+				.withBatchRowValidator(validator)
+				.withPipelineBatchSize(7)
+				.withPipelineWorkerCount(3);
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Basic> results = new ArrayList<Basic>();
+		PipelinedRowReader<Basic> reader = processor.readAllPipelined(new StringReader(buildInput(100, -1)), parseErrors);
+		try {
+			for (Basic basic = reader.readRow(); basic != null; basic = reader.readRow()) {
+				results.add(basic);
+			}
+		} finally {
+			reader.close();
+		}
+		assertEquals(50, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals(i * 2, results.get(i).intValue);
+		}
+		assertEquals(50, parseErrors.size());
+		for (int i = 1; i < parseErrors.size(); i++) {
+			assertTrue(parseErrors.get(i - 1).getLineNumber() < parseErrors.get(i).getLineNumber());
+		}
+
+		// without parse errors the first bad entity throws after the good ones before it
+		reader = processor.readAllPipelined(new StringReader("0,wow\n2,wow\n5,wow\n6,wow\n"), null);
+		try {
+			assertEquals(0, reader.readRow().intValue);
+			assertEquals(2, reader.readRow().intValue);
+			reader.readRow();
+			fail("should have thrown");
+		} catch (ParseException pe) {
+			assertTrue(pe.getMessage(), pe.getMessage().startsWith("Problems validating line 3"));
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadBatchSize() {
+		new CsvProcessor<Basic>(Basic.class).setBatchValidationSize(0);
+	}
+
+	/**
+	 * Build lines whose values are the line-number - 1 except for the bad-index line which does not parse.
+	 */
+	private String buildInput(int lineCount, int badIndex) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < lineCount; i++) {
+			if (i == badIndex) {
+				sb.append("bad,wow\n");
+			} else {
+				sb.append(i).append(",wow\n");
+			}
+		}
+		return sb.toString();
+	}
+
+	private static class OddValidator implements BatchRowValidator<Basic> {
+		final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+
+		@Override
+		public void validateRows(List<Basic> entities, int[] lineNumbers, ParseError[] parseErrors) {
+			batchSizes.add(entities.size());
+			for (int i = 0; i < entities.size(); i++) {
+				if (entities.get(i).intValue % 2 != 0) {
+					parseErrors[i].setErrorType(ErrorType.INVALID_ENTITY);
+					parseErrors[i].setMessage("odd value");
+				}
+			}
+		}
+	}
+
+	public static class Basic {
+		@CsvColumn
+		private int intValue;
+		@CsvColumn
+		private String string;
+	}
+}
@@ -0,0 +1,141 @@
+package com.j256.simplecsv.processor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.j256.simplecsv.common.CsvColumn;
+
+public class ByteEncodingWriterTest {
+
+	private static final String MIXED = "plain,\"caf\u00e9\",\u4e2d\u6587,\ud83d\ude00 smile,end\n";
+
+	@Test
+	public void testCharsets() throws Exception {
+		for (Charset charset : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.UTF_16,
+				StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII }) {
+			// small buffer to force a lot of overflows
+			for (int bufferSize : new int[] { 1, 7, 8192 }) {
+				assertEncoded(charset, bufferSize, MIXED);
+			}
+		}
+	}
+
+	@Test
+	public void testSplitSurrogate() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ByteEncodingWriter writer = new ByteEncodingWriter(output, newEncoder(StandardCharsets.UTF_8), 16, false);
+		writer.write("smile \ud83d");
+		writer.write("\ude00!");
+		writer.close();
+		assertEquals("smile \ud83d\ude00!", new String(output.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testLongString() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1023; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		// surrogate pair spanning the scratch buffer boundary
+		sb.append("\ud83d\ude00");
+		while (sb.length() < 5000) {
+			sb.append(MIXED);
+		}
+		String str = sb.toString();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ByteEncodingWriter writer = new ByteEncodingWriter(output, newEncoder(StandardCharsets.UTF_8), 100, false);
+		writer.write(str);
+		writer.write(str, 3, 2000);
+		writer.close();
+		assertEquals(str + str.substring(3, 2003), new String(output.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testChannel() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ByteEncodingWriter writer =
+				new ByteEncodingWriter(Channels.newChannel(output), newEncoder(StandardCharsets.UTF_8), 5, true);
+		writer.write(MIXED);
+		writer.flush();
+		assertArrayEquals(MIXED.getBytes(StandardCharsets.UTF_8), output.toByteArray());
+		writer.close();
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteAfterClose() throws Exception {
+		ByteEncodingWriter writer =
+				new ByteEncodingWriter(new ByteArrayOutputStream(), newEncoder(StandardCharsets.UTF_8), 16, false);
+		writer.close();
+		writer.write("hello");
+	}
+
+	@Test
+	public void testWriteAll() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withWriteBufferSize(100);
+		List<Row> rows = new ArrayList<Row>();
+		for (int i = 0; i < 1000; i++) {
+			Row row = new Row();
+			row.number = i;
+			row.name = (i % 7 == 0 ? "n\u00e9e " + i : "name" + i);
+			rows.add(row);
+		}
+		StringWriter expected = new StringWriter();
+		processor.writeAll(expected, rows, true);
+		byte[] expectedBytes = expected.toString().getBytes(StandardCharsets.UTF_8);
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		processor.writeAll(output, StandardCharsets.UTF_8, rows, true);
+		assertArrayEquals(expectedBytes, output.toByteArray());
+
+		output = new ByteArrayOutputStream();
+		processor.writeAll(output, StandardCharsets.UTF_8, rows.iterator(), true);
+		assertArrayEquals(expectedBytes, output.toByteArray());
+
+		output = new ByteArrayOutputStream();
+		processor.withWriteThreadCount(3).withWriteBatchSize(50).writeAll(Channels.newChannel(output),
+				StandardCharsets.UTF_8, rows, true);
+		assertArrayEquals(expectedBytes, output.toByteArray());
+
+		output = new ByteArrayOutputStream();
+		processor.writeAll(Channels.newChannel(output), StandardCharsets.UTF_8, rows.iterator(), true);
+		assertArrayEquals(expectedBytes, output.toByteArray());
+	}
+
+	private void assertEncoded(Charset charset, int bufferSize, String str) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ByteEncodingWriter writer = new ByteEncodingWriter(output, newEncoder(charset), bufferSize, false);
+		// write it in pieces
+		for (int i = 0; i < str.length(); i += 5) {
+			writer.write(str, i, Math.min(5, str.length() - i));
+		}
+		writer.close();
+		// String.getBytes() replaces unmappable characters the same way
+		assertArrayEquals(charset + " " + bufferSize, str.getBytes(charset), output.toByteArray());
+	}
+
+	private static CharsetEncoder newEncoder(Charset charset) {
+		return charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	public static class Row {
+		@CsvColumn
+		int number;
+		@CsvColumn
+		String name;
+	}
+}
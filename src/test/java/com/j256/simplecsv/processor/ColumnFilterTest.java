@@ -0,0 +1,185 @@
+package com.j256.simplecsv.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.j256.simplecsv.common.CsvColumn;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
+
+public class ColumnFilterTest {
+
+	private static final String INPUT = "region,quantity,note\n" //
+			+ "east,2,first\n" //
+			+ "west,bad,skipped so not converted\n" //
+			+ "\"east\",5,\"quoted, note\"\n" //
+			+ "east,bad,error\n" //
+			+ "west,3,last\n";
+
+	@Test
+	public void testRawFilter() throws Exception {
+		CsvProcessor<Sale> processor =
+				new CsvProcessor<Sale>(Sale.class).withRawColumnFilter("region", new EastFilter());
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Sale> sales = processor.readAll(new StringReader(INPUT), parseErrors);
+		assertEquals(2, sales.size());
+		assertEquals(2, sales.get(0).quantity);
+		assertEquals(5, sales.get(1).quantity);
+		assertEquals("quoted, note", sales.get(1).note);
+		// the bad quantity in the west row is not an error because the row was skipped
+		assertEquals(1, parseErrors.size());
+		assertEquals(ErrorType.INVALID_FORMAT, parseErrors.get(0).getErrorType());
+		assertEquals(5, parseErrors.get(0).getLineNumber());
+
+		// removing the filter
+		processor.setRawColumnFilter("region", null);
+		parseErrors.clear();
+		assertEquals(3, processor.readAll(new StringReader(INPUT), parseErrors).size());
+		assertEquals(2, parseErrors.size());
+	}
+
+	@Test
+	public void testValueFilter() throws Exception {
+		CsvProcessor<Sale> processor =
+				new CsvProcessor<Sale>(Sale.class).withColumnFilter("quantity", new ColumnFilter<Integer>() {
+					@Override
+					public boolean acceptColumn(Integer value) {
+						return (value > 2);
+					}
+				});
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Sale> sales = processor.readAll(new StringReader(INPUT), parseErrors);
+		assertEquals(2, sales.size());
+		assertEquals("quoted, note", sales.get(0).note);
+		assertEquals("last", sales.get(1).note);
+		// the filtered column can't be converted so the rows are read and their errors reported
+		assertEquals(2, parseErrors.size());
+		assertEquals(3, parseErrors.get(0).getLineNumber());
+		assertEquals("quantity", parseErrors.get(0).getColumnName());
+		assertEquals(5, parseErrors.get(1).getLineNumber());
+	}
+
+	@Test
+	public void testBothFilters() throws Exception {
+		CsvProcessor<Sale> processor = new CsvProcessor<Sale>(Sale.class) //
+				.withRawColumnFilter("region", new EastFilter())
+				.withColumnFilter("note", new ColumnFilter<String>() {
+					@Override
+					public boolean acceptColumn(String value) {
+						return value.startsWith("quoted");
+					}
+				});
+		List<Sale> sales = processor.readAll(new StringReader(INPUT), new ArrayList<ParseError>());
+		assertEquals(1, sales.size());
+		assertEquals(5, sales.get(0).quantity);
+	}
+
+	@Test
+	public void testReadRow() throws Exception {
+		CsvProcessor<Sale> processor =
+				new CsvProcessor<Sale>(Sale.class).withRawColumnFilter("region", new EastFilter());
+		BufferedReader reader = new BufferedReader(new StringReader(INPUT));
+		processor.readHeader(reader, null);
+		assertEquals("first", processor.readRow(reader, null).note);
+		// the west row is skipped over
+		assertEquals("quoted, note", processor.readRow(reader, null).note);
+		ParseError parseError = new ParseError();
+		assertNull(processor.readRow(reader, parseError));
+		assertEquals(ErrorType.INVALID_FORMAT, parseError.getErrorType());
+		parseError.reset();
+		assertNull(processor.readRow(reader, parseError));
+		assertEquals(ErrorType.NONE, parseError.getErrorType());
+
+		// a single row that is filtered returns null without an error
+		parseError.reset();
+		assertNull(processor.processRow("west,1,note", parseError));
+		assertEquals(ErrorType.NONE, parseError.getErrorType());
+	}
+
+	@Test
+	public void testMultiLine() throws Exception {
+		CsvProcessor<Sale> processor = new CsvProcessor<Sale>(Sale.class).withAllowLineTerminationInColumns(true)
+				.withColumnFilter("note", new ColumnFilter<String>() {
+					@Override
+					public boolean acceptColumn(String value) {
+						return value.contains("\n");
+					}
+				});
+		String input = "region,quantity,note\n" //
+				+ "east,1,\"one\nline\"\n" //
+				+ "west,2,\"two\"\n" //
+				+ "west,3,\"three\nlines\n\"\n";
+		List<Sale> sales = processor.readAll(new StringReader(input), new ArrayList<ParseError>());
+		assertEquals(2, sales.size());
+		assertEquals(1, sales.get(0).quantity);
+		assertEquals("one\nline", sales.get(0).note);
+		assertEquals(3, sales.get(1).quantity);
+	}
+
+	@Test
+	public void testPipelined() throws Exception {
+		CsvProcessor<Sale> processor = new CsvProcessor<Sale>(Sale.class) //
+				.withRawColumnFilter("region", new EastFilter())
+				.withPipelineBatchSize(3)
+				.withPipelineWorkerCount(2);
+		StringBuilder sb = new StringBuilder();
+		sb.append("region,quantity,note\n");
+		for (int i = 0; i < 100; i++) {
+			sb.append(i % 4 == 0 ? "east" : "west").append(',').append(i).append(",note\n");
+		}
+		PipelinedRowReader<Sale> reader = processor.readAllPipelined(new StringReader(sb.toString()), null);
+		int count = 0;
+		try {
+			Sale sale;
+			while ((sale = reader.readRow()) != null) {
+				assertEquals(count * 4, sale.quantity);
+				count++;
+			}
+		} finally {
+			reader.close();
+		}
+		assertEquals(25, count);
+	}
+
+	@Test
+	public void testAggregator() throws Exception {
+		CsvProcessor<Sale> processor =
+				new CsvProcessor<Sale>(Sale.class).withRawColumnFilter("region", new EastFilter());
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		AggregateResult result = processor.newAggregator()
+				.withAggregate("quantity")
+				.aggregate(new StringReader(INPUT), parseErrors);
+		assertEquals(2, result.getCount(0, "quantity"));
+		assertEquals(7, result.getLongSum(0, "quantity"));
+		assertEquals(1, parseErrors.size());
+		assertEquals(5, parseErrors.get(0).getLineNumber());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownColumn() throws Exception {
+		new CsvProcessor<Sale>(Sale.class).withRawColumnFilter("unknown", new EastFilter())
+				.readAll(new StringReader(INPUT), null);
+	}
+
+	private static class EastFilter implements ColumnFilter<CharSequence> {
+		@Override
+		public boolean acceptColumn(CharSequence value) {
+			return "east".contentEquals(value);
+		}
+	}
+
+	public static class Sale {
+		@CsvColumn
+		String region;
+		@CsvColumn
+		int quantity;
+		@CsvColumn
+		String note;
+	}
+}
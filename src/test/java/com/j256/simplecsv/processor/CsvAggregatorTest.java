@@ -0,0 +1,226 @@
+package com.j256.simplecsv.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.j256.simplecsv.common.CsvColumn;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
+
+public class CsvAggregatorTest {
+
+	private static final String INPUT = "region,store,quantity,price,note\n" //
+			+ "east,1,2,1.5,\"skipped, with separator\"\n" //
+			+ "west,2,5,2.0,plain\n" //
+			+ "east,1,3,,\"quoted \"\"note\"\"\"\n" //
+			+ "west,,1,4.0,\n" //
+			+ "east,3,bad,1.0,bad quantity\n" //
+			+ "east,3,4,0.5,last\n";
+
+	@Test
+	public void testGroupBy() throws Exception {
+		CsvProcessor<Sale> processor = new CsvProcessor<Sale>(Sale.class);
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		AggregateResult result = processor.newAggregator()
+				.withGroupBy("region")
+				.withAggregate("quantity", "price")
+				.aggregate(new StringReader(INPUT), parseErrors);
+		assertEquals(2, result.getGroupCount());
+
+		int east = result.findGroup("east");
+		assertEquals(0, east);
+		assertEquals("east", result.getGroupValue(east, "region"));
+		assertEquals(3, result.getRowCount(east));
+		assertEquals(3, result.getCount(east, "quantity"));
+		assertEquals(9, result.getLongSum(east, "quantity"));
+		assertEquals(2.0, result.getMin(east, "quantity"), 0);
+		assertEquals(4.0, result.getMax(east, "quantity"), 0);
+		assertEquals(3.0, result.getAverage(east, "quantity"), 0);
+		// blank price is not counted
+		assertEquals(2, result.getCount(east, "price"));
+		assertEquals(2.0, result.getSum(east, "price"), 0);
+		assertEquals(0.5, result.getMin(east, "price"), 0);
+		assertEquals(1.5, result.getMax(east, "price"), 0);
+
+		int west = result.findGroup("west");
+		assertEquals(2, result.getRowCount(west));
+		assertEquals(6.0, result.getSum(west, "quantity"), 0);
+		assertEquals(6.0, result.getSum(west, "price"), 0);
+		assertEquals(-1, result.findGroup("north"));
+
+		assertEquals(1, parseErrors.size());
+		ParseError parseError = parseErrors.get(0);
+		assertEquals(ErrorType.INVALID_FORMAT, parseError.getErrorType());
+		assertEquals(6, parseError.getLineNumber());
+		assertEquals("quantity", parseError.getColumnName());
+		assertEquals("east,3,bad,1.0,bad quantity", parseError.getLine());
+
+		try {
+			processor.newAggregator().withAggregate("quantity").aggregate(new StringReader(INPUT), null);
+			fail("should have thrown");
+		} catch (ParseException pe) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testIntegralGroupBy() throws Exception {
+		CsvProcessor<Sale> processor = new CsvProcessor<Sale>(Sale.class);
+		AggregateResult result = processor.newAggregator()
+				.withGroupBy("store", "region")
+				.withAggregate("quantity")
+				.aggregate(new StringReader(INPUT), new ArrayList<ParseError>());
+		assertEquals(4, result.getGroupCount());
+		// looked up with an int even though the column is a Long
+		int group = result.findGroup(1, "east");
+		assertEquals(2, result.getRowCount(group));
+		assertEquals(5, result.getLongSum(group, "quantity"));
+		group = result.findGroup(null, "west");
+		assertNull(result.getGroupValue(group, "store"));
+		assertEquals(1, result.getRowCount(group));
+		assertEquals(-1, result.findGroup(1, "west"));
+	}
+
+	@Test
+	public void testRowCount() throws Exception {
+		CsvProcessor<Sale> processor = new CsvProcessor<Sale>(Sale.class);
+		AggregateResult result =
+				processor.newAggregator().aggregate(new StringReader(INPUT), new ArrayList<ParseError>());
+		assertEquals(1, result.getGroupCount());
+		// only the columns that are aggregated are converted so the bad quantity isn't an error
+		assertEquals(6, result.getRowCount(0));
+		assertEquals(0, result.findGroup());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotNumeric() throws Exception {
+		new CsvProcessor<Sale>(Sale.class).newAggregator()
+				.withAggregate("note")
+				.aggregate(new StringReader(INPUT), null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownColumn() throws Exception {
+		new CsvProcessor<Sale>(Sale.class).newAggregator()
+				.withGroupBy("unknown")
+				.aggregate(new StringReader(INPUT), null);
+	}
+
+	@Test
+	public void testParallel() throws Exception {
+		CsvProcessor<Sale> processor = new CsvProcessor<Sale>(Sale.class).withRowIndexInterval(64);
+		Path path = new File("target/" + getClass().getSimpleName() + ".csv").toPath();
+		StringBuilder sb = new StringBuilder();
+		sb.append("region,store,quantity,price,note\n");
+		for (int i = 0; i < 10000; i++) {
+			sb.append("region").append(i % 13).append(',').append(i % 7).append(',');
+			if (i % 1000 == 999) {
+				sb.append("bad");
+			} else {
+				sb.append(i % 100);
+			}
+			sb.append(',').append(i / 4.0).append(",\"note, ").append(i).append("\"\n");
+		}
+		Files.write(path, sb.toString().getBytes(StandardCharsets.UTF_8));
+		Files.deleteIfExists(CsvRowIndex.indexPath(path));
+
+		CsvAggregator<Sale> aggregator =
+				processor.newAggregator().withGroupBy("region", "store").withAggregate("quantity", "price");
+		List<ParseError> expectedErrors = new ArrayList<ParseError>();
+		AggregateResult expected = aggregator.aggregate(new StringReader(sb.toString()), expectedErrors);
+		assertEquals(10, expectedErrors.size());
+		assertEquals(13 * 7, expected.getGroupCount());
+
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		AggregateResult result =
+				aggregator.withThreadCount(4).aggregate(path, StandardCharsets.UTF_8, parseErrors);
+		assertEquals(expected.getGroupCount(), result.getGroupCount());
+		for (int group = 0; group < expected.getGroupCount(); group++) {
+			Object region = expected.getGroupValue(group, "region");
+			Object store = expected.getGroupValue(group, "store");
+			int resultGroup = result.findGroup(region, store);
+			assertTrue(resultGroup >= 0);
+			assertEquals(expected.getRowCount(group), result.getRowCount(resultGroup));
+			assertEquals(expected.getLongSum(group, "quantity"), result.getLongSum(resultGroup, "quantity"));
+			assertEquals(expected.getMin(group, "quantity"), result.getMin(resultGroup, "quantity"), 0);
+			assertEquals(expected.getMax(group, "quantity"), result.getMax(resultGroup, "quantity"), 0);
+			assertEquals(expected.getSum(group, "price"), result.getSum(resultGroup, "price"), 0.001);
+			assertEquals(expected.getCount(group, "price"), result.getCount(resultGroup, "price"));
+		}
+		// errors are in the order of the file
+		assertEquals(expectedErrors.size(), parseErrors.size());
+		for (int i = 0; i < parseErrors.size(); i++) {
+			assertEquals(expectedErrors.get(i).getLineNumber(), parseErrors.get(i).getLineNumber());
+		}
+
+		try {
+			aggregator.aggregate(path, StandardCharsets.UTF_8, null);
+			fail("should have thrown");
+		} catch (ParseException pe) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testParallelMaxParseErrors() throws Exception {
+		CsvProcessor<Sale> processor = new CsvProcessor<Sale>(Sale.class).withRowIndexInterval(16)
+				.withMaxParseErrors(3);
+		Path path = new File("target/" + getClass().getSimpleName() + "-errors.csv").toPath();
+		StringBuilder sb = new StringBuilder();
+		sb.append("region,store,quantity,price,note\n");
+		for (int i = 0; i < 2000; i++) {
+			// errors all through the file so every range has more than the max
+			sb.append("region,1,").append(i % 50 == 7 ? "bad" : "1").append(",1.0,note\n");
+		}
+		Files.write(path, sb.toString().getBytes(StandardCharsets.UTF_8));
+		Files.deleteIfExists(CsvRowIndex.indexPath(path));
+
+		CsvAggregator<Sale> aggregator = processor.newAggregator().withAggregate("quantity");
+		List<ParseError> expectedErrors = new ArrayList<ParseError>();
+		String expectedMessage = null;
+		try {
+			aggregator.aggregate(new StringReader(sb.toString()), expectedErrors);
+			fail("should have thrown");
+		} catch (ParseException pe) {
+			expectedMessage = pe.getMessage();
+		}
+
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		try {
+			aggregator.withThreadCount(4).aggregate(path, StandardCharsets.UTF_8, parseErrors);
+			fail("should have thrown");
+		} catch (ParseException pe) {
+			// the same error aborts the aggregation
+			assertEquals(expectedMessage, pe.getMessage());
+		}
+		assertEquals(expectedErrors.size(), parseErrors.size());
+		for (int i = 0; i < parseErrors.size(); i++) {
+			assertEquals(expectedErrors.get(i).getLineNumber(), parseErrors.get(i).getLineNumber());
+		}
+	}
+
+	public static class Sale {
+		@CsvColumn
+		String region;
+		@CsvColumn
+		Long store;
+		@CsvColumn
+		int quantity;
+		@CsvColumn
+		double price;
+		@CsvColumn
+		String note;
+	}
+}
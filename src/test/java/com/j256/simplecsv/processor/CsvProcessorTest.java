@@ -1,8 +1,10 @@
 package com.j256.simplecsv.processor;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedReader;
@@ -11,16 +13,30 @@ import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.math.BigDecimal;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 import java.util.Random;
+import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Test;
 
 import com.j256.simplecsv.common.CsvColumn;
+import com.j256.simplecsv.common.CsvConstructor;
 import com.j256.simplecsv.converter.BooleanConverter;
 import com.j256.simplecsv.converter.Converter;
 import com.j256.simplecsv.converter.IntegerConverter;
@@ -949,8 +965,709 @@ public class CsvProcessorTest {
 		assertTrue(field1Index < field2Index);
 	}
 
+	@Test
+	public void testPublicEntity() throws Exception {
+		CsvProcessor<PublicEntity> processor = new CsvProcessor<PublicEntity>(PublicEntity.class);
+		PublicEntity entity = processor.processRow("1,str", null);
+		assertNotNull(entity);
+		assertEquals(1, entity.value);
+		assertEquals("str", entity.str);
+		assertTrue(entity != processor.processRow("1,str", null));
+	}
+
+	@Test
+	public void testImmutableConstructor() throws Exception {
+		CsvProcessor<ImmutableConstructor> processor =
+				new CsvProcessor<ImmutableConstructor>(ImmutableConstructor.class);
+		ImmutableConstructor entity = processor.processRow("1,\"str\",2", null);
+		assertNotNull(entity);
+		assertEquals(1, entity.value);
+		assertEquals("str", entity.str);
+		assertEquals(Long.valueOf(2), entity.longValue);
+		assertEquals("1,\"str\",2", processor.buildLine(entity, false));
+
+		// blank columns get the default values
+		entity = processor.processRow(",,", null);
+		assertNotNull(entity);
+		assertEquals(0, entity.value);
+		assertEquals("", entity.str);
+		assertNull(entity.longValue);
+	}
+
+	@Test
+	public void testImmutableConstructorThrows() throws Exception {
+		CsvProcessor<ImmutableConstructor> processor =
+				new CsvProcessor<ImmutableConstructor>(ImmutableConstructor.class);
+		ParseError parseError = new ParseError();
+		assertNull(processor.processRow("-1,str,2", parseError));
+		assertEquals(ErrorType.INVALID_ENTITY, parseError.getErrorType());
+	}
+
+	@Test(expected = ParseException.class)
+	public void testImmutableConstructorThrowsNoParseError() throws Exception {
+		CsvProcessor<ImmutableConstructor> processor =
+				new CsvProcessor<ImmutableConstructor>(ImmutableConstructor.class);
+		processor.processRow("-1,str,2", null);
+	}
+
+	@Test
+	public void testImmutableFactory() throws Exception {
+		CsvProcessor<ImmutableFactory> processor = new CsvProcessor<ImmutableFactory>(ImmutableFactory.class);
+		ImmutableFactory entity = processor.processRow("1,str", null);
+		assertNotNull(entity);
+		assertEquals(1, entity.value);
+		assertEquals("str", entity.str);
+	}
+
+	@Test
+	public void testImmutableAfterColumn() throws Exception {
+		CsvProcessor<ImmutableAfterColumn> processor =
+				new CsvProcessor<ImmutableAfterColumn>(ImmutableAfterColumn.class);
+		// value2 comes after value3 in the file but it is the second constructor argument
+		ImmutableAfterColumn entity = processor.processRow("1,3,2", null);
+		assertNotNull(entity);
+		assertEquals(1, entity.value1);
+		assertEquals(2, entity.value2);
+		assertEquals(3, entity.value3);
+	}
+
+	@Test
+	public void testCsvConstructorGetMethods() throws Exception {
+		CsvProcessor<CsvConstructorGetMethods> processor =
+				new CsvProcessor<CsvConstructorGetMethods>(CsvConstructorGetMethods.class);
+		StringReader reader = new StringReader("1,\"one\"\n2,\"two\"\n");
+		List<CsvConstructorGetMethods> entities = processor.withFirstLineHeader(false).readAll(reader, null);
+		assertEquals(2, entities.size());
+		assertEquals(1, entities.get(0).getValue());
+		assertEquals("one", entities.get(0).getName());
+		assertEquals(2, entities.get(1).getValue());
+		assertEquals("two", entities.get(1).getName());
+		assertEquals("2,\"two\"", processor.buildLine(entities.get(1), false));
+	}
+
+	@Test
+	public void testCsvConstructorFactory() throws Exception {
+		CsvProcessor<CsvConstructorFactory> processor =
+				new CsvProcessor<CsvConstructorFactory>(CsvConstructorFactory.class);
+		CsvConstructorFactory entity = processor.processRow("1,str", null);
+		assertNotNull(entity);
+		assertEquals(1, entity.value);
+		assertEquals("str", entity.str);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCsvConstructorWrongTypes() {
+		new CsvProcessor<CsvConstructorWrongTypes>(CsvConstructorWrongTypes.class).initialize();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCsvConstructorUnknownColumn() {
+		new CsvProcessor<CsvConstructorUnknownColumn>(CsvConstructorUnknownColumn.class).initialize();
+	}
+
+	@Test
+	public void testWriteReadGzipFile() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class);
+		File file = new File("target/" + getClass().getSimpleName() + ".csv.gz");
+		file.delete();
+		List<BulkRow> written = new ArrayList<BulkRow>();
+		for (int i = 0; i < 10; i++) {
+			BulkRow row = new BulkRow();
+			row.number = i;
+			row.string = "str" + i;
+			written.add(row);
+		}
+		processor.writeAll(file, written, true);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		assertEquals(0x1f, bytes[0] & 0xFF);
+		assertEquals(0x8b, bytes[1] & 0xFF);
+
+		List<BulkRow> entities = processor.readAll(file, null);
+		assertEquals(10, entities.size());
+		assertEquals(9, entities.get(9).number);
+		assertEquals("str9", entities.get(9).string);
+
+		// block mode should be readable the same way
+		file.delete();
+		processor.withGzipBlockRowCount(3).writeAll(file, written, true);
+		entities = processor.readAll(file, null);
+		assertEquals(10, entities.size());
+		assertEquals("str9", entities.get(9).string);
+	}
+
+	@Test
+	public void testWriteReadPathCharset() throws Exception {
+		CsvProcessor<BulkRow> processor =
+				new CsvProcessor<BulkRow>(BulkRow.class).withReadBufferSize(16).withWriteBufferSize(16);
+		Path path = new File("target/" + getClass().getSimpleName() + "-latin1.csv").toPath();
+		BulkRow row = new BulkRow();
+		row.number = 1;
+		row.string = "caf\u00e9";
+		processor.writeAll(path, StandardCharsets.ISO_8859_1, Collections.singletonList(row), true);
+		// one byte per character
+		assertEquals(processor.buildHeaderLine(true).length() + processor.buildLine(row, true).length(),
+				Files.size(path));
+
+		// append another row without a header
+		row.number = 2;
+		processor.writeAll(path, StandardCharsets.ISO_8859_1, Collections.singletonList(row), false,
+				StandardOpenOption.APPEND);
+
+		List<BulkRow> entities = processor.readAll(path, StandardCharsets.ISO_8859_1, null);
+		assertEquals(2, entities.size());
+		assertEquals("caf\u00e9", entities.get(0).string);
+		assertEquals(2, entities.get(1).number);
+		assertEquals("caf\u00e9", entities.get(1).string);
+
+		// gzip through the same path
+		path = new File("target/" + getClass().getSimpleName() + "-utf8.csv.gz").toPath();
+		processor.writeAll(path, StandardCharsets.UTF_8, Collections.singletonList(row), true);
+		entities = processor.readAll(path, StandardCharsets.UTF_8, null);
+		assertEquals(1, entities.size());
+		assertEquals("caf\u00e9", entities.get(0).string);
+	}
+
+	@Test
+	public void testWritePathOptionsWithoutWrite() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class);
+		Path path = new File("target/" + getClass().getSimpleName() + "-create.csv").toPath();
+		Files.deleteIfExists(path);
+		BulkRow row = new BulkRow();
+		row.number = 1;
+		row.string = "str";
+		// the write option is added like Files.newOutputStream does
+		processor.writeAll(path, StandardCharsets.UTF_8, Collections.singletonList(row), true,
+				StandardOpenOption.CREATE_NEW);
+		assertEquals(1, processor.readAll(path, StandardCharsets.UTF_8, null).size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWritePathReadOption() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class);
+		Path path = new File("target/" + getClass().getSimpleName() + "-read.csv").toPath();
+		processor.writeAll(path, StandardCharsets.UTF_8, Collections.<BulkRow> emptyList(), true,
+				StandardOpenOption.READ);
+	}
+
+	@Test
+	public void testReadRowsWithIndex() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class).withRowIndexInterval(100)
+				.withAllowLineTerminationInColumns(true)
+				.withLineTermination("\r\n");
+		Path path = new File("target/" + getClass().getSimpleName() + "-indexed.csv").toPath();
+		Files.deleteIfExists(CsvRowIndex.indexPath(path));
+		List<BulkRow> written = new ArrayList<BulkRow>();
+		for (int i = 0; i < 2500; i++) {
+			BulkRow row = new BulkRow();
+			row.number = i;
+			// some of the rows span multiple lines
+			row.string = (i % 7 == 0 ? "multi\r\nline, \"" + i + "\"" : "str" + i);
+			written.add(row);
+		}
+		processor.writeAll(path, StandardCharsets.UTF_8, written, true);
+
+		List<BulkRow> entities = processor.readRows(path, StandardCharsets.UTF_8, 1234, 10, null);
+		assertTrue(Files.exists(CsvRowIndex.indexPath(path)));
+		assertEquals(10, entities.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(1234 + i, entities.get(i).number);
+			assertEquals(written.get(1234 + i).string, entities.get(i).string);
+		}
+		CsvRowIndex rowIndex = processor.loadRowIndex(path, StandardCharsets.UTF_8);
+		assertEquals(2500, rowIndex.getRowCount());
+
+		// past the end
+		entities = processor.readRows(path, StandardCharsets.UTF_8, 2495, 10, null);
+		assertEquals(5, entities.size());
+		assertEquals(2499, entities.get(4).number);
+		assertEquals(0, processor.readRows(path, StandardCharsets.UTF_8, 2500, 10, null).size());
+
+		// the index is rebuilt if the file changes
+		processor.writeAll(path, StandardCharsets.UTF_8, written.subList(0, 10), true);
+		Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+		entities = processor.readRows(path, StandardCharsets.UTF_8, 9, 10, null);
+		assertEquals(1, entities.size());
+		assertEquals(9, entities.get(0).number);
+		assertEquals(10, processor.loadRowIndex(path, StandardCharsets.UTF_8).getRowCount());
+	}
+
+	@Test
+	public void testReadRowsIndexNotSaved() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class).withRowIndexInterval(2);
+		File dir = new File("target/" + getClass().getSimpleName() + "-unsaved");
+		dir.mkdirs();
+		Path path = new File(dir, "rows.csv").toPath();
+		Files.write(path, "number,string\n0,zero\n1,one\n2,two\n3,three\n".getBytes());
+		// a directory in the way of the index means that it can't be saved
+		Path indexPath = CsvRowIndex.indexPath(path);
+		Files.deleteIfExists(indexPath);
+		Files.createDirectories(indexPath.resolve("blocker"));
+		List<BulkRow> entities = processor.readRows(path, StandardCharsets.UTF_8, 2, 2, null);
+		assertEquals(2, entities.size());
+		assertEquals(2, entities.get(0).number);
+		assertEquals(4, processor.loadRowIndex(path, StandardCharsets.UTF_8).getRowCount());
+		// no temporary files are left behind
+		assertEquals(2, dir.list().length);
+		Files.delete(indexPath.resolve("blocker"));
+		Files.delete(indexPath);
+
+		// now it is saved
+		processor.readRows(path, StandardCharsets.UTF_8, 2, 2, null);
+		assertTrue(Files.isRegularFile(indexPath));
+		assertEquals(2, dir.list().length);
+	}
+
+	@Test
+	public void testReadRowsWithIndexErrors() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class).withRowIndexInterval(2);
+		File file = new File("target/" + getClass().getSimpleName() + "-indexed-errors.csv");
+		Files.write(file.toPath(), "number,string\n0,zero\n1,one\nbad,two\n3,three\n".getBytes());
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<BulkRow> entities = processor.readRows(file, 1, 3, parseErrors);
+		assertEquals(2, entities.size());
+		assertEquals(1, entities.get(0).number);
+		assertEquals(3, entities.get(1).number);
+		assertEquals(1, parseErrors.size());
+		assertEquals(4, parseErrors.get(0).getLineNumber());
+		assertEquals("bad,two", parseErrors.get(0).getLine());
+	}
+
+	@Test
+	public void testKeyIndex() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class).withFlexibleOrder(true)
+				.withAllowLineTerminationInColumns(true)
+				.withLineTermination("\n");
+		Path path = new File("target/" + getClass().getSimpleName() + "-key-indexed.csv").toPath();
+		StringBuilder sb = new StringBuilder();
+		// key column is not first
+		sb.append("string,number\n");
+		for (int i = 0; i < 1000; i++) {
+			if (i % 10 == 0) {
+				sb.append("\"k\u00e9y\n").append(i % 100).append("\",").append(i).append('\n');
+			} else {
+				sb.append("key").append(i % 100).append(',').append(i).append('\n');
+			}
+		}
+		Files.write(path, sb.toString().getBytes(StandardCharsets.UTF_8));
+		Files.deleteIfExists(CsvKeyIndex.indexPath(path, "string"));
+
+		CsvKeyIndex<BulkRow> keyIndex = processor.loadKeyIndex(path, StandardCharsets.UTF_8, "string");
+		try {
+			assertTrue(Files.exists(CsvKeyIndex.indexPath(path, "string")));
+			assertEquals(1000, keyIndex.getRowCount());
+			List<BulkRow> entities = keyIndex.lookup("key42");
+			assertEquals(10, entities.size());
+			for (int i = 0; i < entities.size(); i++) {
+				assertEquals(42 + i * 100, entities.get(i).number);
+				assertEquals("key42", entities.get(i).string);
+			}
+			entities = keyIndex.lookup("k\u00e9y\n30");
+			assertEquals(10, entities.size());
+			assertEquals(30, entities.get(0).number);
+			assertEquals(0, keyIndex.lookup("key30").size());
+			assertEquals(0, keyIndex.lookup("unknown").size());
+		} finally {
+			keyIndex.close();
+		}
+
+		// saved index is reused
+		keyIndex = processor.loadKeyIndex(path, StandardCharsets.UTF_8, "string");
+		try {
+			assertEquals(10, keyIndex.lookup("key1").size());
+			assertEquals(1, keyIndex.lookup("key1").get(0).number);
+		} finally {
+			keyIndex.close();
+		}
+	}
+
+	@Test
+	public void testKeyIndexNotSaved() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class);
+		File dir = new File("target/" + getClass().getSimpleName() + "-key-unsaved");
+		dir.mkdirs();
+		Path path = new File(dir, "rows.csv").toPath();
+		Files.write(path, "number,string\n0,zero\n1,one\n2,two\n3,one\n".getBytes());
+		// a directory in the way of the index means that it can't be saved
+		Path indexPath = CsvKeyIndex.indexPath(path, "string");
+		Files.deleteIfExists(indexPath);
+		Files.createDirectories(indexPath.resolve("blocker"));
+		CsvKeyIndex<BulkRow> keyIndex = processor.loadKeyIndex(path, StandardCharsets.UTF_8, "string");
+		try {
+			List<BulkRow> entities = keyIndex.lookup("one");
+			assertEquals(2, entities.size());
+			assertEquals(3, entities.get(1).number);
+		} finally {
+			keyIndex.close();
+		}
+		// no temporary files are left behind
+		assertEquals(3, dir.list().length);
+		Files.delete(indexPath.resolve("blocker"));
+		Files.delete(indexPath);
+
+		// now it is saved and rebuilding it doesn't change the index that is open
+		keyIndex = processor.loadKeyIndex(path, StandardCharsets.UTF_8, "string");
+		try {
+			assertTrue(Files.isRegularFile(indexPath));
+			processor.buildKeyIndex(path, StandardCharsets.UTF_8, "string").close();
+			assertEquals(2, keyIndex.lookup("one").size());
+			assertEquals(1, keyIndex.lookup("two").size());
+		} finally {
+			keyIndex.close();
+		}
+		assertEquals(3, dir.list().length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testKeyIndexUnknownColumn() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class);
+		Path path = writeBulkFile("key-unknown.csv", "number,string\n1,one\n");
+		processor.loadKeyIndex(path, StandardCharsets.UTF_8, "unknown");
+	}
+
+	@Test
+	public void testWriteAllParallel() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class);
+		List<BulkRow> entities = new ArrayList<BulkRow>();
+		for (int i = 0; i < 10000; i++) {
+			BulkRow row = new BulkRow();
+			row.number = i;
+			row.string = (i % 5 == 0 ? "needs, \"quotes\"" : "str" + i);
+			entities.add(row);
+		}
+		StringWriter expected = new StringWriter();
+		processor.writeAll(expected, entities, true);
+
+		StringWriter writer = new StringWriter();
+		processor.withWriteThreadCount(4).withWriteBatchSize(77).writeAll(writer, entities, true);
+		assertEquals(expected.toString(), writer.toString());
+
+		// fewer entities than a batch are written on the calling thread
+		writer = new StringWriter();
+		processor.withWriteBatchSize(100000).writeAll(writer, entities, true);
+		assertEquals(expected.toString(), writer.toString());
+
+		List<BulkRow> read = processor.readAll(new StringReader(expected.toString()), null);
+		assertEquals(10000, read.size());
+		assertEquals("needs, \"quotes\"", read.get(5).string);
+	}
+
+	@Test
+	public void testWriteEscaping() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class);
+		BulkRow row = new BulkRow();
+		row.number = -12;
+		row.string = "say \"hi\", bye";
+		assertEquals("-12,\"say \"\"hi\"\", bye\"", processor.buildLine(row, false));
+		row.string = "line\nbreak";
+		assertEquals("-12,\"line\nbreak\"", processor.buildLine(row, false));
+		row.string = "plain";
+		// strings are quoted by default
+		assertEquals("-12,\"plain\"", processor.buildLine(row, false));
+
+		// a separator that the number could contain means the safe number is scanned
+		processor.setColumnSeparator('-');
+		assertEquals("\"-12\"-\"plain\"", processor.buildLine(row, false));
+		List<BulkRow> read =
+				processor.withFirstLineHeader(false).readAll(new StringReader("\"-12\"-\"plain\"\n"), null);
+		assertEquals(1, read.size());
+		assertEquals(-12, read.get(0).number);
+	}
+
+	@Test
+	public void testWriteCache() throws Exception {
+		CsvProcessor<TokenRow> processor = new CsvProcessor<TokenRow>(TokenRow.class);
+		String header = processor.buildHeaderLine(true);
+		assertEquals("\"color\",\"flag\",\"name\"\n", header);
+		assertSame(header, processor.buildHeaderLine(true));
+
+		TokenRow row = new TokenRow();
+		row.color = TokenColor.RED;
+		row.flag = true;
+		row.name = "x";
+		assertEquals("\"RED\",on it,\"x\"", processor.buildLine(row, false));
+		row.flag = null;
+		row.color = null;
+		assertEquals("\"\",,\"x\"", processor.buildLine(row, false));
+
+		// the tokens are re-escaped for the new separator
+		processor.setColumnSeparator(' ');
+		assertEquals("\"color\" \"flag\" \"name\"", processor.buildHeaderLine(false));
+		row.color = TokenColor.BLUE;
+		row.flag = false;
+		assertEquals("\"BLUE\" off \"x\"", processor.buildLine(row, false));
+		row.flag = true;
+		assertEquals("\"BLUE\" \"on it\" \"x\"", processor.buildLine(row, false));
+		List<TokenRow> read = processor.readAll(new StringReader(processor.buildHeaderLine(true)
+				+ processor.buildLine(row, true)), null);
+		assertEquals(1, read.size());
+		assertEquals(TokenColor.BLUE, read.get(0).color);
+		assertTrue(read.get(0).flag);
+	}
+
+	@Test
+	public void testConverterErrors() throws Exception {
+		CsvProcessor<DirtyRow> processor = new CsvProcessor<DirtyRow>(DirtyRow.class).withFirstLineHeader(false);
+		String uuid = "01234567-89ab-cdef-0123-456789abcdef";
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<DirtyRow> rows = processor.readAll(new StringReader("1,1.5,01/02/2020," + uuid + ",\"1,000\"\n" //
+				+ "x,1.5,01/02/2020," + uuid + ",1\n" //
+				+ "1,1.5.5,01/02/2020," + uuid + ",1\n" //
+				+ "1,1.5,tomorrow," + uuid + ",1\n" //
+				+ "1,1.5,01/02/2020,not-a-uuid,1\n" //
+				+ "1,1.5,01/02/2020," + uuid + ",lots\n"), parseErrors);
+		assertEquals(1, rows.size());
+		assertEquals(1000, rows.get(0).formatted);
+		assertEquals(5, parseErrors.size());
+		String[] columns = new String[] { "number", "decimal", "date", "uuid", "formatted" };
+		for (int i = 0; i < parseErrors.size(); i++) {
+			ParseError parseError = parseErrors.get(i);
+			assertEquals(ErrorType.INVALID_FORMAT, parseError.getErrorType());
+			assertEquals(columns[i], parseError.getColumnName());
+			assertEquals(i + 2, parseError.getLineNumber());
+			assertNotNull(parseError.getMessage());
+		}
+		assertTrue(parseErrors.get(2).getMessage().contains("MM/dd/yyyy"));
+	}
+
+	@Test
+	public void testRejectWriter() throws Exception {
+		StringWriter rejects = new StringWriter();
+		CsvProcessor<RejectRow> processor = new CsvProcessor<RejectRow>(RejectRow.class).withFirstLineHeader(false)
+				.withAllowLineTerminationInColumns(true)
+				.withRejectWriter(rejects)
+				.withRowValidator(new RowValidator<RejectRow>() {
+					@Override
+					public void validateRow(String line, int lineNumber, RejectRow entity, ParseError parseError) {
+						if (entity.number < 0) {
+							parseError.setErrorType(ErrorType.INVALID_ENTITY);
+							parseError.setMessage("negative number");
+						}
+					}
+				});
+		String input = "1,one\n" //
+				+ "x,\"two\"\n" //
+				+ "-3,three\n" //
+				+ "4,\"multi\nline\"\n" //
+				+ "-6,\"multi\nline\"\n";
+		// the lines are dropped from the errors but not the rejects
+		ParseErrorCollector parseErrors = new ParseErrorCollector().withRetainLines(false);
+		List<RejectRow> rows = processor.readAll(new StringReader(input), parseErrors);
+		assertEquals(2, rows.size());
+		assertEquals(3, parseErrors.size());
+		assertNull(parseErrors.iterator().next().getLine());
+		String expected = "2,INVALID_FORMAT,\"For input string: \"\"x\"\"\",x,\"two\"\n" //
+				+ "3,INVALID_ENTITY,\"negative number\",-3,three\n" //
+				+ "6,INVALID_ENTITY,\"negative number\",-6,\"multi\nline\"\n";
+		assertEquals(expected, rejects.toString());
+
+		// pipelined reader writes the records that the workers rejected
+		rejects.getBuffer().setLength(0);
+		List<ParseError> errorList = new ArrayList<ParseError>();
+		PipelinedRowReader<RejectRow> pipelinedReader =
+				processor.withPipelineBatchSize(2).readAllPipelined(new StringReader(input), errorList);
+		try {
+			while (pipelinedReader.readRow() != null) {
+				// ignored
+			}
+		} finally {
+			pipelinedReader.close();
+		}
+		assertEquals(3, errorList.size());
+		assertEquals(expected, rejects.toString());
+	}
+
+	@Test
+	public void testReadAllPaths() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class).withFlexibleOrder(true);
+		List<Path> paths = new ArrayList<Path>();
+		paths.add(writeBulkFile("bulk1.csv", "number,string\n1,one\n2,two\n"));
+		// different column order in the same run
+		paths.add(writeBulkFile("bulk2.csv", "string,number\nthree,3\nbad,xxx\nfour,4\n"));
+		paths.add(new File("target/" + getClass().getSimpleName() + "-does-not-exist.csv").toPath());
+		paths.add(writeBulkFile("bulk3.csv", "number,string\n5,five\n"));
+
+		BulkReadResult<BulkRow> result = processor.readAll(paths);
+		assertEquals(4, result.getFileResults().size());
+		assertEquals(5, result.getRowCount());
+		assertEquals(1, result.getParseErrorCount());
+		assertEquals(1, result.getFailedFileCount());
+
+		BulkReadResult.FileResult<BulkRow> fileResult = result.getFileResults().get(0);
+		assertEquals(paths.get(0), fileResult.getPath());
+		assertEquals(2, fileResult.getEntities().size());
+		assertEquals(2, fileResult.getEntities().get(1).number);
+		assertEquals("two", fileResult.getEntities().get(1).string);
+
+		fileResult = result.getFileResults().get(1);
+		assertEquals(2, fileResult.getEntities().size());
+		assertEquals(3, fileResult.getEntities().get(0).number);
+		assertEquals("four", fileResult.getEntities().get(1).string);
+		assertEquals(1, fileResult.getParseErrors().size());
+		assertEquals(3, fileResult.getParseErrors().get(0).getLineNumber());
+
+		fileResult = result.getFileResults().get(2);
+		assertTrue(fileResult.getException() instanceof IOException);
+		assertEquals(0, fileResult.getEntities().size());
+
+		fileResult = result.getFileResults().get(3);
+		assertEquals(1, fileResult.getEntities().size());
+		assertEquals(5, fileResult.getEntities().get(0).number);
+	}
+
+	@Test
+	public void testReadAllPathsExecutor() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class);
+		List<Path> paths = new ArrayList<Path>();
+		for (int i = 0; i < 20; i++) {
+			paths.add(writeBulkFile("bulk-many" + i + ".csv", "number,string\n" + i + ",str" + i + "\n"));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			BulkReadResult<BulkRow> result = processor.readAll(paths, executor);
+			assertEquals(20, result.getRowCount());
+			assertTrue(result.getByteCount() > 0);
+			for (int i = 0; i < 20; i++) {
+				assertEquals(i, result.getFileResults().get(i).getEntities().get(0).number);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testReadAllPathsCharset() throws Exception {
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class);
+		List<Path> paths = new ArrayList<Path>();
+		Path path = new File("target/" + getClass().getSimpleName() + "-bulk-utf16.csv").toPath();
+		Files.write(path, "number,string\n1,caf\u00e9\n".getBytes(StandardCharsets.UTF_16));
+		paths.add(path);
+		BulkReadResult<BulkRow> result = processor.readAll(paths, StandardCharsets.UTF_16);
+		assertEquals(1, result.getRowCount());
+		assertEquals("caf\u00e9", result.getFileResults().get(0).getEntities().get(0).string);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			result = processor.readAll(paths, StandardCharsets.UTF_16, executor);
+			assertEquals(1, result.getRowCount());
+			assertEquals(1, result.getFileResults().get(0).getEntities().get(0).number);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testCopyWithSharedColumns() throws Exception {
+		int processors = Runtime.getRuntime().availableProcessors();
+		// every setting is changed from its default so a field that isn't copied will not match
+		CsvProcessor<BulkRow> processor = new CsvProcessor<BulkRow>(BulkRow.class).withColumnSeparator(';')
+				.withColumnQuote('\'')
+				.withLineTermination("\r\n")
+				.withAllowPartialLines(true)
+				.withAlwaysTrimInput(true)
+				.withHeaderValidation(false)
+				.withFirstLineHeader(false)
+				.withFlexibleOrder(true)
+				.withIgnoreUnknownColumns(true)
+				.withAllowLineTerminationInColumns(true)
+				.withSuperClassColumnsFirst(true)
+				.withColumnNameMatcher(new ColumnNameMatcher() {
+					@Override
+					public boolean matchesColumnName(String definitionName, String csvName) {
+						return definitionName.equalsIgnoreCase(csvName);
+					}
+				})
+				.withRowValidator(new RowValidator<BulkRow>() {
+					@Override
+					public void validateRow(String line, int lineNumber, BulkRow entity, ParseError parseError) {
+						// nothing
+					}
+				})
+				.withBatchRowValidator(new BatchRowValidator<BulkRow>() {
+					@Override
+					public void validateRows(List<BulkRow> entities, int[] lineNumbers, ParseError[] parseErrors) {
+						// nothing
+					}
+				})
+				.withPartitionedRowValidator(new PartitionedRowValidator<BulkRow>() {
+					@Override
+					public RowValidator<BulkRow> createPartition() {
+						return null;
+					}
+
+					@Override
+					public void mergePartition(RowValidator<BulkRow> partition) {
+						// nothing
+					}
+				})
+				.withDuplicateKeyColumn("number")
+				.withDuplicateKeyExpectedCount(1234)
+				.withDuplicateKeySpillDirectory(new File("target").toPath())
+				.withRawColumnFilter("string", new ColumnFilter<CharSequence>() {
+					@Override
+					public boolean acceptColumn(CharSequence value) {
+						return true;
+					}
+				})
+				.withBatchValidationSize(17)
+				.withPipelineWorkerCount(processors + 1)
+				.withPipelineBatchSize(18)
+				.withPipelineBufferSize(19)
+				.withPublisherReadAhead(20)
+				.withBulkThreadCount(processors + 2)
+				.withGzipBlockRowCount(21)
+				.withReadBufferSize(22)
+				.withWriteBufferSize(23)
+				.withRowIndexInterval(24)
+				.withWriteThreadCount(25)
+				.withWriteBatchSize(26)
+				.withMaxParseErrors(27)
+				.withReadOffset(28)
+				.withReadLimit(29)
+				.withReadCanceller(new ReadCanceller() {
+					@Override
+					public boolean isCancelled() {
+						return false;
+					}
+				})
+				.withRejectWriter(new StringWriter())
+				.withConstructorCallable(new Callable<BulkRow>() {
+					@Override
+					public BulkRow call() {
+						return new BulkRow();
+					}
+				});
+		processor.registerConverter(int.class, new IntPlusOneConverter());
+		// configures the columns and the write cache
+		processor.buildLine(new BulkRow(), false);
+
+		CsvProcessor<BulkRow> defaults = new CsvProcessor<BulkRow>(BulkRow.class);
+		CsvProcessor<BulkRow> copy = processor.copyWithSharedColumns();
+		for (Field field : CsvProcessor.class.getDeclaredFields()) {
+			String name = field.getName();
+			// the column positions are the only thing that the copy doesn't share
+			if (Modifier.isStatic(field.getModifiers()) || name.equals("columnPositionInfoMap")
+					|| name.equals("positionFilters")) {
+				continue;
+			}
+			field.setAccessible(true);
+			Object value = field.get(processor);
+			// the entity-creator isn't built when there is a constructor callable
+			if (!name.equals("entityClass") && !name.equals("entityCreator")) {
+				// if this fails then a new setting needs to be set above
+				assertFalse(name, Objects.equals(field.get(defaults), value));
+			}
+			assertEquals(name, value, field.get(copy));
+		}
+	}
+
 	/* ================================================================================================= */
 
+	private Path writeBulkFile(String name, String contents) throws IOException {
+		File file = new File("target/" + getClass().getSimpleName() + "-" + name);
+		Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+		return file.toPath();
+	}
+
 	private void testReadLine(CsvProcessor<Basic> processor, int intValue, String str, long longValue, String unquoted)
 			throws ParseException {
 		String line = intValue + ",\"" + str + "\"," + longValue + "," + unquoted;
@@ -987,6 +1704,13 @@ public class CsvProcessorTest {
 
 	/* ================================================================================================= */
 
+	public static class RejectRow {
+		@CsvColumn
+		int number;
+		@CsvColumn
+		String name;
+	}
+
 	private static class Basic {
 
 		public static final String INT_VALUE_FIELD = "intValue";
@@ -1166,6 +1890,160 @@ public class CsvProcessorTest {
 		private int value2;
 	}
 
+	public static class PublicEntity {
+		@CsvColumn
+		int value;
+		@CsvColumn
+		String str;
+	}
+
+	public static class ImmutableConstructor {
+		@CsvColumn
+		private final int value;
+		@CsvColumn
+		private final String str;
+		@CsvColumn
+		private final Long longValue;
+
+		public ImmutableConstructor(int value, String str, Long longValue) {
+			if (value < 0) {
+				throw new IllegalArgumentException("value must not be negative");
+			}
+			this.value = value;
+			this.str = str;
+			this.longValue = longValue;
+		}
+	}
+
+	public static class ImmutableFactory {
+		@CsvColumn
+		private final int value;
+		@CsvColumn
+		private final String str;
+
+		private ImmutableFactory(int value, String str) {
+			this.value = value;
+			this.str = str;
+		}
+
+		public static ImmutableFactory create(int value, String str) {
+			return new ImmutableFactory(value, str);
+		}
+	}
+
+	public static class ImmutableAfterColumn {
+		@CsvColumn
+		private final int value1;
+		@CsvColumn(afterColumn = "value3")
+		private final int value2;
+		@CsvColumn
+		private final int value3;
+
+		public ImmutableAfterColumn(int value1, int value2, int value3) {
+			this.value1 = value1;
+			this.value2 = value2;
+			this.value3 = value3;
+		}
+	}
+
+	public static class CsvConstructorGetMethods {
+		private final int value;
+		private final String name;
+
+		@CsvConstructor(columnNames = { "name", "value" })
+		private CsvConstructorGetMethods(String name, int value) {
+			this.value = value;
+			this.name = name;
+		}
+
+		@CsvColumn
+		public int getValue() {
+			return value;
+		}
+
+		@CsvColumn(afterColumn = "value")
+		public String getName() {
+			return name;
+		}
+	}
+
+	public static class CsvConstructorFactory {
+		@CsvColumn
+		private final int value;
+		@CsvColumn
+		private final String str;
+
+		private CsvConstructorFactory(int value, String str) {
+			this.value = value;
+			this.str = str;
+		}
+
+		@CsvConstructor
+		public static CsvConstructorFactory create(int value, String str) {
+			return new CsvConstructorFactory(value, str);
+		}
+	}
+
+	public static class CsvConstructorWrongTypes {
+		@CsvColumn
+		private final int value;
+
+		@CsvConstructor
+		public CsvConstructorWrongTypes(long value) {
+			this.value = (int) value;
+		}
+	}
+
+	public static class CsvConstructorUnknownColumn {
+		@CsvColumn
+		private final int value;
+
+		@CsvConstructor(columnNames = "unknown")
+		public CsvConstructorUnknownColumn(int value) {
+			this.value = value;
+		}
+	}
+
+	public static class DirtyRow {
+		@CsvColumn
+		int number;
+		@CsvColumn
+		BigDecimal decimal;
+		@CsvColumn
+		Date date;
+		@CsvColumn
+		UUID uuid;
+		@CsvColumn(format = "#,##0")
+		int formatted;
+	}
+
+	public static class TokenRow {
+		@CsvColumn
+		TokenColor color;
+		@CsvColumn(format = "on it,off")
+		Boolean flag;
+		@CsvColumn
+		String name;
+	}
+
+	public enum TokenColor {
+		RED,
+		BLUE,
+		// end
+		;
+	}
+
+	private static class BulkRow {
+		@CsvColumn
+		int number;
+		@CsvColumn
+		String string;
+
+		public BulkRow() {
+			// for simplecsv
+		}
+	}
+
 	/* ================================================================================================= */
 
 	public static class UnquotedStringConverter implements Converter<String, Void> {
@@ -0,0 +1,189 @@
+package com.j256.simplecsv.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.j256.simplecsv.common.CsvColumn;
+import com.j256.simplecsv.common.CsvConstructor;
+
+public class CsvRowStoreTest {
+
+	@Test
+	public void testReadAll() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		StringBuilder sb = new StringBuilder();
+		sb.append(processor.buildHeaderLine(false)).append('\n');
+		for (int i = 0; i < 10000; i++) {
+			sb.append(i).append(',');
+			if (i % 3 != 0) {
+				sb.append("name").append(i);
+			}
+			sb.append(',').append(i * 1000000000L).append(',').append(i % 2 == 0).append(',').append(i / 4.0);
+			sb.append(',').append(Color.values()[i % 3]).append(',').append(i).append(".25\n");
+		}
+		CsvRowStore<Row> rows = processor.readAllOffHeap(new StringReader(sb.toString()), null);
+		List<Row> expected = processor.readAll(new StringReader(sb.toString()), null);
+		assertEquals(10000, rows.size());
+		assertTrue(rows.getByteCount() > 0);
+		for (int i = 0; i < rows.size(); i++) {
+			Row row = rows.get(i);
+			Row expectedRow = expected.get(i);
+			assertEquals(expectedRow.number, row.number);
+			assertEquals(expectedRow.name, row.name);
+			assertEquals(expectedRow.bigNumber, row.bigNumber);
+			assertEquals(expectedRow.flag, row.flag);
+			assertEquals(expectedRow.ratio, row.ratio, 0.0);
+			assertEquals(expectedRow.color, row.color);
+			assertEquals(expectedRow.amount, row.amount);
+		}
+
+		int nameIndex = rows.getColumnIndex("name");
+		assertEquals("", rows.getValue(3, nameIndex));
+		assertEquals("name4", rows.getValue(4, nameIndex));
+		assertEquals(new BigDecimal("4.25"), rows.getValue(4, rows.getColumnIndex("amount")));
+		assertEquals(-1, rows.getColumnIndex("unknown"));
+	}
+
+	@Test
+	public void testCursor() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		List<Row> entities = new ArrayList<Row>();
+		for (int i = 0; i < 100; i++) {
+			Row row = new Row();
+			row.number = i;
+			row.name = "name" + i;
+			row.bigNumber = (i == 5 ? null : i * 3L);
+			row.flag = (i % 2 == 0);
+			row.ratio = i / 2.0;
+			row.color = Color.GREEN;
+			entities.add(row);
+		}
+		CsvRowStore<Row> rows = processor.readAllOffHeap(
+				new StringReader(processor.buildHeaderLine(false) + "\n" + writeAll(processor, entities)), null);
+
+		int numberIndex = rows.getColumnIndex("number");
+		int nameIndex = rows.getColumnIndex("name");
+		int bigNumberIndex = rows.getColumnIndex("bigNumber");
+		int flagIndex = rows.getColumnIndex("flag");
+		int ratioIndex = rows.getColumnIndex("ratio");
+		CsvRowStore<Row>.Cursor cursor = rows.cursor();
+		int count = 0;
+		long sum = 0;
+		while (cursor.next()) {
+			assertEquals(count, cursor.getInt(numberIndex));
+			assertEquals(count == 5 ? 0 : count * 3L, cursor.getLong(bigNumberIndex));
+			assertEquals(count % 2 == 0, cursor.getBoolean(flagIndex));
+			assertEquals(count / 2.0, cursor.getDouble(ratioIndex), 0.0);
+			sum += cursor.getInt(numberIndex);
+			count++;
+		}
+		assertEquals(100, count);
+		assertEquals(4950, sum);
+
+		cursor.moveTo(5);
+		assertTrue(cursor.isNull(bigNumberIndex));
+		assertNull(cursor.getValue(bigNumberIndex));
+		assertNull(cursor.getEntity().bigNumber);
+		assertEquals(5, cursor.getEntity().number);
+		cursor.moveTo(6);
+		assertFalse(cursor.isNull(bigNumberIndex));
+		assertEquals("name6", cursor.getString(nameIndex));
+		assertEquals("18", cursor.getString(bigNumberIndex));
+		assertEquals("GREEN", cursor.getString(rows.getColumnIndex("color")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCursorWrongType() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		CsvRowStore<Row> rows = processor.readAllOffHeap(
+				new StringReader(processor.buildHeaderLine(false) + "\n1,name,2,true,1.5,RED,1.25\n"), null);
+		CsvRowStore<Row>.Cursor cursor = rows.cursor();
+		assertTrue(cursor.next());
+		cursor.getInt(rows.getColumnIndex("name"));
+	}
+
+	@Test
+	public void testParseErrors() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		CsvRowStore<Row> rows = processor.readAllOffHeap(new StringReader(
+				processor.buildHeaderLine(false) + "\n1,one,2,true,1.5,RED,1\nbad,two,2,true,1.5,RED,1\n"),
+				parseErrors);
+		assertEquals(1, rows.size());
+		assertEquals("one", rows.get(0).name);
+		assertEquals(1, parseErrors.size());
+		assertEquals(3, parseErrors.get(0).getLineNumber());
+	}
+
+	@Test
+	public void testConstructorEntity() throws Exception {
+		CsvProcessor<Immutable> processor = new CsvProcessor<Immutable>(Immutable.class).withFirstLineHeader(false);
+		CsvRowStore<Immutable> rows = processor.readAllOffHeap(new StringReader("1,one\n2,two\n"), null);
+		assertEquals(2, rows.size());
+		assertEquals(2, rows.get(1).getValue());
+		assertEquals("two", rows.get(1).getName());
+	}
+
+	private String writeAll(CsvProcessor<Row> processor, List<Row> entities) {
+		StringBuilder sb = new StringBuilder();
+		for (Row row : entities) {
+			sb.append(processor.buildLine(row, false)).append('\n');
+		}
+		return sb.toString();
+	}
+
+	public static class Row {
+		@CsvColumn
+		int number;
+		@CsvColumn
+		String name;
+		@CsvColumn
+		Long bigNumber;
+		@CsvColumn
+		boolean flag;
+		@CsvColumn
+		double ratio;
+		@CsvColumn
+		Color color;
+		@CsvColumn
+		BigDecimal amount;
+	}
+
+	public enum Color {
+		RED,
+		GREEN,
+		BLUE,
+		// end
+		;
+	}
+
+	public static class Immutable {
+		private final int value;
+		private final String name;
+
+		@CsvConstructor(columnNames = { "value", "name" })
+		public Immutable(int value, String name) {
+			this.value = value;
+			this.name = name;
+		}
+
+		@CsvColumn
+		public int getValue() {
+			return value;
+		}
+
+		@CsvColumn(afterColumn = "value")
+		public String getName() {
+			return name;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package com.j256.simplecsv.processor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.j256.simplecsv.common.CsvColumn;
+
+public class CsvWriterTest {
+
+	@Test
+	public void testWriteAllIterator() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withWriteBatchSize(10);
+		List<Row> rows = buildRows(100);
+		StringWriter expected = new StringWriter();
+		processor.writeAll(expected, rows, true);
+
+		CountingIterator iterator = new CountingIterator(100);
+		StringWriter writer = new StringWriter();
+		processor.writeAll(writer, iterator, true);
+		assertEquals(expected.toString(), writer.toString());
+		assertEquals(100, iterator.count);
+
+		writer = new StringWriter();
+		processor.writeAll(writer, (Iterable<Row>) rows, true);
+		assertEquals(expected.toString(), writer.toString());
+
+		writer = new StringWriter();
+		processor.writeAll(writer, IntStream.range(0, 100).mapToObj(i -> buildRow(i)), true);
+		assertEquals(expected.toString(), writer.toString());
+
+		// parallel from an iterator
+		writer = new StringWriter();
+		processor.withWriteThreadCount(3).writeAll(writer, new CountingIterator(100), true);
+		assertEquals(expected.toString(), writer.toString());
+	}
+
+	@Test
+	public void testCsvWriter() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		List<Row> rows = buildRows(10);
+		StringWriter expected = new StringWriter();
+		processor.writeAll(expected, rows, true);
+
+		StringWriter writer = new StringWriter();
+		CsvWriter<Row> csvWriter = processor.openWriter(writer, true);
+		// config changes after opening don't affect the writer
+		processor.setColumnSeparator(';');
+		for (int i = 0; i < 5; i++) {
+			csvWriter.write(rows.get(i));
+		}
+		csvWriter.writeAll(rows.subList(5, 8));
+		csvWriter.writeAll(Stream.of(rows.get(8), rows.get(9)));
+		assertEquals(10, csvWriter.getRowCount());
+		csvWriter.close();
+		assertEquals(expected.toString(), writer.toString());
+	}
+
+	@Test
+	public void testCsvWriterPath() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withGzipBlockRowCount(7);
+		Path path = new File("target/" + getClass().getSimpleName() + "-writer.csv.gz").toPath();
+		CsvWriter<Row> csvWriter = processor.openWriter(path, StandardCharsets.UTF_8, true);
+		try {
+			csvWriter.writeAll(new CountingIterator(50));
+			csvWriter.write(buildRow(50));
+		} finally {
+			csvWriter.close();
+		}
+		List<Row> read = processor.readAll(path, StandardCharsets.UTF_8, null);
+		assertEquals(51, read.size());
+		for (int i = 0; i < read.size(); i++) {
+			assertEquals(i, read.get(i).number);
+		}
+		read = new ArrayList<Row>();
+		PipelinedRowReader<Row> reader = processor.readAllPipelined(path.toFile(), null);
+		try {
+			while (reader.hasNext()) {
+				read.add(reader.next());
+			}
+		} finally {
+			reader.close();
+		}
+		assertEquals(51, read.size());
+		assertEquals(50, read.get(50).number);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWriteAfterClose() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		CsvWriter<Row> csvWriter = processor.openWriter(new StringWriter(), false);
+		csvWriter.close();
+		// closing twice is ok
+		csvWriter.close();
+		csvWriter.write(buildRow(1));
+	}
+
+	private List<Row> buildRows(int count) {
+		List<Row> rows = new ArrayList<Row>();
+		for (int i = 0; i < count; i++) {
+			rows.add(buildRow(i));
+		}
+		return rows;
+	}
+
+	private static Row buildRow(int number) {
+		Row row = new Row();
+		row.number = number;
+		row.name = "name, " + number;
+		return row;
+	}
+
+	public static class Row {
+		@CsvColumn
+		int number;
+		@CsvColumn
+		String name;
+	}
+
+	private static class CountingIterator implements Iterator<Row> {
+
+		private final int max;
+		int count;
+
+		public CountingIterator(int max) {
+			this.max = max;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (count < max);
+		}
+
+		@Override
+		public Row next() {
+			return buildRow(count++);
+		}
+	}
+}
@@ -0,0 +1,295 @@
+package com.j256.simplecsv.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.j256.simplecsv.common.CsvColumn;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
+
+public class DuplicateKeyFilterTest {
+
+	@Test
+	public void testLongKeys() throws Exception {
+		DuplicateKeyFilter filter = createFilter("id", 1000, null);
+		try {
+			// more keys than expected so the filter fills up
+			for (long i = 0; i < 50000; i++) {
+				assertTrue(filter.add(i * 31));
+			}
+			for (long i = 0; i < 50000; i += 97) {
+				assertFalse(filter.add(i * 31));
+			}
+			assertTrue(filter.add(-1L));
+			assertTrue(filter.add(null));
+			assertTrue(filter.add(null));
+			assertEquals(50001, filter.getKeyCount());
+		} finally {
+			filter.close();
+		}
+	}
+
+	@Test
+	public void testSpilledStringKeys() throws Exception {
+		Path parent = Files.createTempDirectory("simplecsv-test");
+		DuplicateKeyFilter filter = createFilter("name", 200000, parent);
+		try {
+			// enough keys to overflow the bucket buffers
+			for (int i = 0; i < 200000; i++) {
+				assertTrue(filter.add("name-" + i));
+			}
+			assertEquals(1, countFiles(parent));
+			// early keys have been spilled and the later ones are still in memory
+			for (int i = 0; i < 200000; i += 1013) {
+				assertFalse(filter.add("name-" + i));
+			}
+			assertTrue(filter.add("name-200000"));
+			// most of the unique keys should not have needed to be confirmed
+			assertTrue(filter.getConfirmCount() < 10000);
+			filter.close();
+			assertEquals(0, countFiles(parent));
+		} finally {
+			filter.close();
+			Files.deleteIfExists(parent);
+		}
+	}
+
+	@Test
+	public void testMergedRuns() throws Exception {
+		DuplicateKeyFilter filter = createFilter("id", 1000, null);
+		try {
+			// a lot more keys than expected so the spilled runs of each bucket have to be merged
+			for (long i = 0; i < 400000; i++) {
+				assertTrue(filter.add(i * 7));
+			}
+			for (int bucket = 0; bucket < filter.getBucketCount(); bucket++) {
+				assertTrue(filter.getRunCount(bucket) > 0);
+				assertTrue(filter.getRunCount(bucket) < 16);
+			}
+			for (long i = 0; i < 400000; i += 331) {
+				assertFalse(filter.add(i * 7));
+				assertTrue(filter.add(i * 7 + 3));
+			}
+			assertFalse(filter.add(399999L * 7));
+		} finally {
+			filter.close();
+		}
+	}
+
+	@Test
+	public void testBucketCount() throws Exception {
+		DuplicateKeyFilter filter = createFilter("id", 1000, null);
+		assertEquals(16, filter.getBucketCount());
+		filter.close();
+		filter = createFilter("id", CsvProcessor.DEFAULT_DUPLICATE_KEY_EXPECTED_COUNT, null);
+		assertEquals(256, filter.getBucketCount());
+		filter.close();
+		filter = createFilter("id", 20000000, null);
+		assertEquals(4096, filter.getBucketCount());
+		filter.close();
+	}
+
+	@Test
+	public void testConvertedKeys() throws Exception {
+		DuplicateKeyFilter filter = createFilter("score", 1000, null);
+		try {
+			assertTrue(filter.add(1.5));
+			assertTrue(filter.add(2.5));
+			assertFalse(filter.add(1.5));
+		} finally {
+			filter.close();
+		}
+	}
+
+	@Test
+	public void testNoColumn() {
+		assertNull(new CsvProcessor<Row>(Row.class).createDuplicateKeyFilter());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownColumn() {
+		createFilter("unknown", 1000, null);
+	}
+
+	@Test
+	public void testReadAll() throws Exception {
+		CsvProcessor<Row> processor =
+				new CsvProcessor<Row>(Row.class).withFirstLineHeader(false).withDuplicateKeyColumn("id");
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Row> rows = processor.readAll(new StringReader("1,one,1.0\n2,two,2.0\n1,three,3.0\n,four,4.0\n,five,5.0\n"),
+				parseErrors);
+		// null keys are not duplicates
+		assertEquals(4, rows.size());
+		assertEquals("one", rows.get(0).name);
+		assertEquals(1, parseErrors.size());
+		ParseError parseError = parseErrors.get(0);
+		assertEquals(ErrorType.DUPLICATE_KEY, parseError.getErrorType());
+		assertEquals(3, parseError.getLineNumber());
+		assertEquals("1,three,3.0", parseError.getLine());
+		assertEquals("id", parseError.getColumnName());
+		assertEquals("1", parseError.getColumnValue());
+		assertTrue(parseError.getMessage(), parseError.getMessage().contains("'id'"));
+
+		// each read has its own keys
+		parseErrors.clear();
+		assertEquals(2, processor.readAll(new StringReader("1,one,1.0\n2,two,2.0\n"), parseErrors).size());
+		assertEquals(0, parseErrors.size());
+
+		try {
+			processor.readAll(new StringReader("1,one,1.0\n1,two,2.0\n"), null);
+			fail("should have thrown");
+		} catch (ParseException pe) {
+			assertTrue(pe.getMessage(), pe.getMessage().contains("line 2"));
+		}
+	}
+
+	@Test
+	public void testPipelined() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withFirstLineHeader(false)
+				.withDuplicateKeyColumn("name")
+				.withPipelineBatchSize(7)
+				.withPipelineWorkerCount(3);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			// every third row repeats the name of the row before it
+			sb.append(i).append(",name").append(i % 3 == 2 ? i - 1 : i).append(",1.0\n");
+		}
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		PipelinedRowReader<Row> reader = processor.readAllPipelined(new StringReader(sb.toString()), parseErrors);
+		List<Row> rows = new ArrayList<Row>();
+		try {
+			Row row;
+			while ((row = reader.readRow()) != null) {
+				rows.add(row);
+			}
+		} finally {
+			reader.close();
+		}
+		assertEquals(67, rows.size());
+		assertEquals(33, parseErrors.size());
+		for (int i = 0; i < parseErrors.size(); i++) {
+			ParseError parseError = parseErrors.get(i);
+			assertEquals(ErrorType.DUPLICATE_KEY, parseError.getErrorType());
+			// the later row is the duplicate
+			assertEquals(i * 3 + 3, parseError.getLineNumber());
+		}
+
+		reader = processor.readAllPipelined(new StringReader(sb.toString()), null);
+		int count = 0;
+		try {
+			while (reader.readRow() != null) {
+				count++;
+			}
+			fail("should have thrown");
+		} catch (ParseException pe) {
+			// expected
+		} finally {
+			reader.close();
+		}
+		assertEquals(2, count);
+	}
+
+	@Test
+	public void testBatchRowValidator() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withFirstLineHeader(false)
+				.withDuplicateKeyColumn("id")
+				.withBatchValidationSize(2)
+				.withBatchRowValidator(new BatchRowValidator<Row>() {
+					@Override
+					public void validateRows(List<Row> entities, int[] lineNumbers, ParseError[] parseErrors) {
+						for (int i = 0; i < entities.size(); i++) {
+							if (entities.get(i).score < 0) {
+								parseErrors[i].setErrorType(ErrorType.INVALID_ENTITY);
+							}
+						}
+					}
+				})
+				.withPipelineBatchSize(2)
+				.withPipelineWorkerCount(2);
+		// the rejected row does not hold onto its key
+		String input = "1,one,-1.0\n2,two,2.0\n1,three,3.0\n2,four,4.0\n1,five,5.0\n";
+
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Row> rows = processor.readAll(new StringReader(input), parseErrors);
+		assertEquals(2, rows.size());
+		assertEquals("two", rows.get(0).name);
+		assertEquals("three", rows.get(1).name);
+		assertEquals(3, parseErrors.size());
+		assertEquals(ErrorType.INVALID_ENTITY, parseErrors.get(0).getErrorType());
+		assertEquals(ErrorType.DUPLICATE_KEY, parseErrors.get(1).getErrorType());
+		assertEquals(4, parseErrors.get(1).getLineNumber());
+		assertEquals(ErrorType.DUPLICATE_KEY, parseErrors.get(2).getErrorType());
+		assertEquals(5, parseErrors.get(2).getLineNumber());
+
+		// the pipelined reader checks the keys in the same order
+		List<ParseError> pipelinedErrors = new ArrayList<ParseError>();
+		List<Row> pipelinedRows = new ArrayList<Row>();
+		try (PipelinedRowReader<Row> reader = processor.readAllPipelined(new StringReader(input), pipelinedErrors)) {
+			while (reader.hasNext()) {
+				pipelinedRows.add(reader.next());
+			}
+		}
+		assertEquals(rows.size(), pipelinedRows.size());
+		for (int i = 0; i < rows.size(); i++) {
+			assertEquals(rows.get(i).name, pipelinedRows.get(i).name);
+		}
+		assertEquals(parseErrors.size(), pipelinedErrors.size());
+		for (int i = 0; i < parseErrors.size(); i++) {
+			assertEquals(parseErrors.get(i).getErrorType(), pipelinedErrors.get(i).getErrorType());
+			assertEquals(parseErrors.get(i).getLineNumber(), pipelinedErrors.get(i).getLineNumber());
+		}
+
+		// the earliest problem is the one that is thrown
+		try {
+			processor.readAll(new StringReader("1,one,1.0\n1,two,2.0\n3,three,-1.0\n"), null);
+			fail("should have thrown");
+		} catch (ParseException pe) {
+			assertTrue(pe.getMessage(), pe.getMessage().contains("line 2"));
+		}
+		try {
+			processor.readAll(new StringReader("1,one,1.0\n2,two,-2.0\n1,three,3.0\n"), null);
+			fail("should have thrown");
+		} catch (ParseException pe) {
+			assertTrue(pe.getMessage(), pe.getMessage().contains("line 2"));
+		}
+	}
+
+	private DuplicateKeyFilter createFilter(String column, long expectedCount, Path spillDirectory) {
+		return new CsvProcessor<Row>(Row.class).withDuplicateKeyColumn(column)
+				.withDuplicateKeyExpectedCount(expectedCount)
+				.withDuplicateKeySpillDirectory(spillDirectory)
+				.createDuplicateKeyFilter();
+	}
+
+	private int countFiles(Path dir) throws Exception {
+		int count = 0;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			for (@SuppressWarnings("unused")
+			Path path : stream) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public static class Row {
+		@CsvColumn
+		Long id;
+		@CsvColumn
+		String name;
+		@CsvColumn
+		double score;
+	}
+}
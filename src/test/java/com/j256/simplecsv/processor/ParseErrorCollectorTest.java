@@ -0,0 +1,121 @@
+package com.j256.simplecsv.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.j256.simplecsv.common.CsvColumn;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
+
+public class ParseErrorCollectorTest {
+
+	@Test
+	public void testCollector() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withFirstLineHeader(false);
+		ParseErrorCollector collector =
+				new ParseErrorCollector().withMaxRetained(3).withSampleInterval(2).withRetainLines(false);
+		List<Row> rows = processor.readAll(new StringReader(buildInput(100)), collector);
+		// every 10th row is good
+		assertEquals(10, rows.size());
+		assertEquals(90, collector.getErrorCount());
+		assertEquals(50, collector.getErrorCount(ErrorType.INVALID_FORMAT));
+		assertEquals(40, collector.getErrorCount(ErrorType.TOO_MANY_COLUMNS));
+		assertEquals(0, collector.getErrorCount(ErrorType.INTERNAL_ERROR));
+		Map<ErrorType, Long> counts = collector.getErrorCounts();
+		assertEquals(2, counts.size());
+		assertEquals(50L, (long) counts.get(ErrorType.INVALID_FORMAT));
+
+		// first, third, and fifth errors
+		assertEquals(3, collector.size());
+		Iterator<ParseError> iterator = collector.iterator();
+		ParseError parseError = iterator.next();
+		assertEquals(2, parseError.getLineNumber());
+		assertNull(parseError.getLine());
+		assertEquals(4, iterator.next().getLineNumber());
+		assertEquals(6, iterator.next().getLineNumber());
+		assertFalse(iterator.hasNext());
+
+		collector.clear();
+		assertEquals(0, collector.size());
+		assertEquals(0, collector.getErrorCount());
+		assertTrue(collector.getErrorCounts().isEmpty());
+	}
+
+	@Test
+	public void testRetainLines() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withFirstLineHeader(false);
+		ParseErrorCollector collector = new ParseErrorCollector();
+		processor.readAll(new StringReader(buildInput(20)), collector);
+		assertEquals(18, collector.size());
+		assertNotNull(collector.iterator().next().getLine());
+	}
+
+	@Test
+	public void testMaxParseErrors() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withFirstLineHeader(false).withMaxParseErrors(5);
+		// exactly the max is ok
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Row> rows = processor.readAll(new StringReader(buildInput(6)), parseErrors);
+		assertEquals(1, rows.size());
+		assertEquals(5, parseErrors.size());
+
+		parseErrors.clear();
+		try {
+			processor.readAll(new StringReader(buildInput(100)), parseErrors);
+			fail("should have thrown");
+		} catch (ParseException pe) {
+			assertTrue(pe.getMessage().contains("Aborted after 6 parse errors, last on line 7"));
+		}
+		assertEquals(6, parseErrors.size());
+
+		parseErrors.clear();
+		PipelinedRowReader<Row> reader = processor.withPipelineBatchSize(4)
+				.readAllPipelined(new StringReader(buildInput(100)), parseErrors);
+		int count = 0;
+		try {
+			while (reader.readRow() != null) {
+				count++;
+			}
+			fail("should have thrown");
+		} catch (ParseException pe) {
+			// expected
+		} finally {
+			reader.close();
+		}
+		assertEquals(1, count);
+		assertEquals(6, parseErrors.size());
+	}
+
+	private String buildInput(int lineCount) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < lineCount; i++) {
+			if (i % 10 == 0) {
+				sb.append(i).append(",name\n");
+			} else if (i % 2 == 1) {
+				sb.append("bad").append(i).append(",name\n");
+			} else {
+				sb.append(i).append(",name,extra\n");
+			}
+		}
+		return sb.toString();
+	}
+
+	public static class Row {
+		@CsvColumn
+		int number;
+		@CsvColumn
+		String name;
+	}
+}
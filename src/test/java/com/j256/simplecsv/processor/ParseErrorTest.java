@@ -3,10 +3,21 @@ package com.j256.simplecsv.processor;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 
+import com.j256.simplecsv.common.CsvColumn;
+
 import com.j256.simplecsv.processor.ParseError.ErrorType;
 
 public class ParseErrorTest {
@@ -51,9 +62,76 @@ public class ParseErrorTest {
 		assertNull(parseError.getLine());
 		assertEquals(0, parseError.getLineNumber());
 		assertEquals(0, parseError.getLinePos());
+		assertEquals(-1, parseError.getColumnIndex());
+		assertNull(parseError.getCause());
 		assertFalse(parseError.isError());
 	}
 
+	@Test
+	public void testMessageFormat() {
+		ParseError parseError = new ParseError();
+		parseError.setErrorType(ErrorType.INVALID_FORMAT);
+		assertFalse(parseError.hasMessage());
+		parseError.setMessage("Line does not have %s columns", 5);
+		assertTrue(parseError.hasMessage());
+		assertEquals("Line does not have 5 columns", parseError.getMessage());
+		assertTrue(parseError.toString().startsWith("Line does not have 5 columns, "));
+
+		Exception cause = new IllegalArgumentException("bad value");
+		parseError.setMessage("field '%s' error: %s", "foo", cause);
+		parseError.setCause(cause);
+		assertEquals("field 'foo' error: bad value", parseError.getMessage());
+		assertSame(cause, parseError.getCause());
+
+		parseError.setMessage("not in %s", new Object[] { "a", "b" });
+		assertEquals("not in [a, b]", parseError.getMessage());
+		parseError.setMessage("%s and %s with 100%", 1, null);
+		assertEquals("1 and null with 100%", parseError.getMessage());
+
+		// plain message replaces the format
+		parseError.setMessage("x is %s", 1);
+		parseError.setMessage("plain");
+		assertEquals("plain", parseError.getMessage());
+
+		parseError.setMessage("x is %s", 1);
+		parseError.reset();
+		assertFalse(parseError.hasMessage());
+		assertNull(parseError.getMessage());
+	}
+
+	@Test
+	public void testSerializeFormat() throws Exception {
+		ParseError parseError = new ParseError();
+		parseError.setErrorType(ErrorType.INVALID_FORMAT);
+		parseError.setMessage("value %s from %s", 10, new Object());
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		oos.writeObject(parseError);
+		oos.close();
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		ParseError copy = (ParseError) ois.readObject();
+		assertEquals(parseError.getMessage(), copy.getMessage());
+		assertTrue(copy.getMessage().startsWith("value 10 from java.lang.Object@"));
+	}
+
+	@Test
+	public void testProcessorErrors() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withFirstLineHeader(false);
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		processor.readAll(new StringReader("1,2\n1,x\n1,2,3\n"), parseErrors);
+		assertEquals(2, parseErrors.size());
+
+		ParseError parseError = parseErrors.get(0);
+		assertEquals(ErrorType.INVALID_FORMAT, parseError.getErrorType());
+		assertEquals(1, parseError.getColumnIndex());
+		assertEquals("For input string: \"x\"", parseError.getMessage());
+
+		parseError = parseErrors.get(1);
+		assertEquals(ErrorType.TOO_MANY_COLUMNS, parseError.getErrorType());
+		assertEquals(2, parseError.getColumnIndex());
+		assertEquals("Line has extra information past last column at position 4", parseError.getMessage());
+	}
+
 	@Test
 	public void testToString() {
 		ParseError parseError = new ParseError();
@@ -88,4 +166,11 @@ public class ParseErrorTest {
 		assertTrue(toString.contains(getClass().getSimpleName()));
 		System.out.println(toString);
 	}
+
+	public static class Row {
+		@CsvColumn
+		int first;
+		@CsvColumn
+		int second;
+	}
 }
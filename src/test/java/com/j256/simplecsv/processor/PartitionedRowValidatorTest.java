@@ -0,0 +1,144 @@
+package com.j256.simplecsv.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.j256.simplecsv.common.CsvColumn;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
+
+public class PartitionedRowValidatorTest {
+
+	@Test
+	public void testReadAll() throws Exception {
+		DuplicateValidator validator = new DuplicateValidator();
+		CsvProcessor<Basic> processor = new CsvProcessor<Basic>(Basic.class).withFirstLineHeader(false)
+				.withPartitionedRowValidator(validator);
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Basic> results = processor.readAll(new StringReader("1,one\n2,two\n1,three\n3,four\n2,five\n"), parseErrors);
+		assertEquals(3, results.size());
+		assertEquals(2, parseErrors.size());
+		assertEquals(3, parseErrors.get(0).getLineNumber());
+		assertEquals("duplicate key 1", parseErrors.get(0).getMessage());
+		assertEquals(ErrorType.INVALID_ENTITY, parseErrors.get(0).getErrorType());
+		assertEquals(1, validator.partitionCount);
+		assertEquals(5, validator.rowCount);
+		assertEquals(2, validator.duplicateCount);
+
+		// single row methods don't use it
+		assertEquals(1, processor.processRow("1,one", null).key);
+		assertEquals(1, validator.partitionCount);
+	}
+
+	@Test
+	public void testPipelined() throws Exception {
+		DuplicateValidator validator = new DuplicateValidator();
+		CsvProcessor<Basic> processor = new CsvProcessor<Basic>(Basic.class).withFirstLineHeader(false)
+				.withPartitionedRowValidator(validator)
+				.withPipelineBatchSize(10)
+				.withPipelineWorkerCount(4);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			// each key is repeated in the next row so every batch of 10 has 5 duplicates
+			sb.append(i / 2).append(",value\n");
+		}
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		PipelinedRowReader<Basic> reader = processor.readAllPipelined(new StringReader(sb.toString()), parseErrors);
+		int count = 0;
+		try {
+			while (reader.readRow() != null) {
+				count++;
+			}
+		} finally {
+			reader.close();
+		}
+		assertEquals(50, count);
+		assertEquals(50, parseErrors.size());
+		assertEquals(10, validator.partitionCount);
+		assertEquals(100, validator.rowCount);
+		assertEquals(50, validator.duplicateCount);
+		// merged in the order of the input
+		for (int i = 1; i < validator.firstLineNumbers.size(); i++) {
+			assertTrue(validator.firstLineNumbers.get(i - 1) < validator.firstLineNumbers.get(i));
+		}
+	}
+
+	@Test
+	public void testReadAllPaths() throws Exception {
+		DuplicateValidator validator = new DuplicateValidator();
+		CsvProcessor<Basic> processor = new CsvProcessor<Basic>(Basic.class).withPartitionedRowValidator(validator);
+		List<Path> paths = new ArrayList<Path>();
+		for (int i = 0; i < 3; i++) {
+			File file = new File("target/" + getClass().getSimpleName() + "-" + i + ".csv");
+			Files.write(file.toPath(), "key,value\n1,one\n2,two\n2,three\n".getBytes(StandardCharsets.UTF_8));
+			paths.add(file.toPath());
+		}
+		BulkReadResult<Basic> result = processor.readAll(paths);
+		assertEquals(6, result.getRowCount());
+		assertEquals(3, result.getParseErrorCount());
+		assertEquals(3, validator.partitionCount);
+		assertEquals(9, validator.rowCount);
+		assertEquals(3, validator.duplicateCount);
+	}
+
+	/**
+	 * Rejects keys that were already seen in the partition.
+	 */
+	private static class DuplicateValidator implements PartitionedRowValidator<Basic> {
+		int partitionCount;
+		long rowCount;
+		long duplicateCount;
+		final List<Integer> firstLineNumbers = new ArrayList<Integer>();
+
+		@Override
+		public RowValidator<Basic> createPartition() {
+			return new Partition();
+		}
+
+		@Override
+		public void mergePartition(RowValidator<Basic> rowValidator) {
+			Partition partition = (Partition) rowValidator;
+			partitionCount++;
+			rowCount += partition.rowCount;
+			duplicateCount += partition.duplicateCount;
+			firstLineNumbers.add(partition.firstLineNumber);
+		}
+	}
+
+	private static class Partition implements RowValidator<Basic> {
+		final Set<Integer> keys = new HashSet<Integer>();
+		int firstLineNumber;
+		long rowCount;
+		long duplicateCount;
+
+		@Override
+		public void validateRow(String line, int lineNumber, Basic entity, ParseError parseError) {
+			if (rowCount++ == 0) {
+				firstLineNumber = lineNumber;
+			}
+			if (!keys.add(entity.key)) {
+				duplicateCount++;
+				parseError.setErrorType(ErrorType.INVALID_ENTITY);
+				parseError.setMessage("duplicate key %s", entity.key);
+			}
+		}
+	}
+
+	public static class Basic {
+		@CsvColumn
+		int key;
+		@CsvColumn
+		String value;
+	}
+}
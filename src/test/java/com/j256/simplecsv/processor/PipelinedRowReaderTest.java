@@ -0,0 +1,300 @@
+package com.j256.simplecsv.processor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.j256.simplecsv.common.CsvColumn;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
+
+public class PipelinedRowReaderTest {
+
+	@Test
+	public void testManyRows() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withPipelineWorkerCount(3)
+				.withPipelineBatchSize(7)
+				.withPipelineBufferSize(100);
+		int numRows = 10000;
+		try (PipelinedRowReader<Row> reader = processor.readAllPipelined(new StringReader(buildCsv(numRows)), null)) {
+			for (int i = 0; i < numRows; i++) {
+				Row row = reader.readRow();
+				assertEquals(i, row.number);
+				assertEquals("str" + i, row.string);
+			}
+			assertNull(reader.readRow());
+			assertNull(reader.readRow());
+		}
+	}
+
+	@Test
+	public void testStream() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withPipelineBatchSize(10);
+		List<Integer> numbers;
+		try (PipelinedRowReader<Row> reader = processor.readAllPipelined(new StringReader(buildCsv(100)), null)) {
+			numbers = reader.stream().map(row -> row.number).collect(Collectors.toList());
+		}
+		assertEquals(100, numbers.size());
+		for (int i = 0; i < numbers.size(); i++) {
+			assertEquals(i, (int) numbers.get(i));
+		}
+	}
+
+	@Test
+	public void testParseErrors() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withPipelineBatchSize(2);
+		String csv = "number,string\n" //
+				+ "1,one\n" //
+				+ "bad,two\n" //
+				+ "3,three\n" //
+				+ "4,\"four\n";
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Row> rows = new ArrayList<Row>();
+		try (PipelinedRowReader<Row> reader = processor.readAllPipelined(new StringReader(csv), parseErrors)) {
+			while (reader.hasNext()) {
+				rows.add(reader.next());
+			}
+		}
+		assertEquals(2, rows.size());
+		assertEquals(1, rows.get(0).number);
+		assertEquals(3, rows.get(1).number);
+		assertEquals(2, parseErrors.size());
+		assertEquals(ErrorType.INVALID_FORMAT, parseErrors.get(0).getErrorType());
+		assertEquals(3, parseErrors.get(0).getLineNumber());
+		assertEquals("bad,two", parseErrors.get(0).getLine());
+		assertEquals(ErrorType.TRUNCATED_COLUMN, parseErrors.get(1).getErrorType());
+		assertEquals(5, parseErrors.get(1).getLineNumber());
+	}
+
+	@Test
+	public void testParseException() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		String csv = "number,string\n" //
+				+ "1,one\n" //
+				+ "bad,two\n";
+		try (PipelinedRowReader<Row> reader = processor.readAllPipelined(new StringReader(csv), null)) {
+			assertEquals(1, reader.readRow().number);
+			try {
+				reader.readRow();
+				fail("should have thrown");
+			} catch (ParseException pe) {
+				// expected
+			}
+			assertNull(reader.readRow());
+		}
+
+		// used as an iterator without closing so the exception has to stop the pipeline and close the file
+		File file = new File("target/" + getClass().getSimpleName() + "-exception.csv");
+		processor.writeAll(file, Collections.<Row> emptyList(), true);
+		Files.write(file.toPath(), "1,one\nbad,two\n3,three\n".getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.APPEND);
+		PipelinedRowReader<Row> reader = processor.readAllPipelined(file, null);
+		assertEquals(1, reader.next().number);
+		try {
+			reader.hasNext();
+			fail("should have thrown");
+		} catch (IllegalStateException ise) {
+			assertTrue(ise.getCause() instanceof ParseException);
+		}
+		assertFalse(reader.hasNext());
+		assertTrue(file.delete());
+	}
+
+	@Test
+	public void testInvalidHeader() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		try (PipelinedRowReader<Row> reader =
+				processor.readAllPipelined(new StringReader("wrong,header\n1,one\n"), parseErrors)) {
+			assertFalse(reader.hasNext());
+		}
+		assertEquals(1, parseErrors.size());
+		assertEquals(ErrorType.INVALID_HEADER, parseErrors.get(0).getErrorType());
+	}
+
+	@Test(expected = ParseException.class)
+	public void testInvalidHeaderThrows() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		try (PipelinedRowReader<Row> reader =
+				processor.readAllPipelined(new StringReader("wrong,header\n1,one\n"), null)) {
+			reader.readRow();
+		}
+	}
+
+	@Test
+	public void testNewlineInColumn() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withAllowLineTerminationInColumns(true)
+				.withLineTermination("\n")
+				.withPipelineBatchSize(1);
+		String csv = "number,string\n" //
+				+ "1,\"multi\n\nline, \"\"quoted\"\"\"\n" //
+				+ "2,single\n";
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		try (PipelinedRowReader<Row> reader = processor.readAllPipelined(new StringReader(csv), parseErrors)) {
+			Row row = reader.readRow();
+			assertEquals(1, row.number);
+			assertEquals("multi\n\nline, \"quoted\"", row.string);
+			row = reader.readRow();
+			assertEquals(2, row.number);
+			assertEquals("single", row.string);
+			assertNull(reader.readRow());
+		}
+		assertTrue(parseErrors.isEmpty());
+	}
+
+	@Test
+	public void testCloseEarly() throws Exception {
+		CsvProcessor<Row> processor =
+				new CsvProcessor<Row>(Row.class).withPipelineBatchSize(10).withPipelineBufferSize(64);
+		PipelinedRowReader<Row> reader = processor.readAllPipelined(new StringReader(buildCsv(100000)), null);
+		assertEquals(0, reader.readRow().number);
+		reader.close();
+		reader.close();
+	}
+
+	@Test
+	public void testGzipBlocks() throws Exception {
+		File file = new File("target/" + getClass().getSimpleName() + "-blocks.csv.gz");
+		file.delete();
+		List<StringRow> written = new ArrayList<StringRow>();
+		for (int i = 0; i < 100; i++) {
+			written.add(new StringRow(Integer.toString(i), "str\n" + i));
+		}
+		written.set(50, new StringRow("bad", "bad"));
+		new CsvProcessor<StringRow>(StringRow.class).withAllowLineTerminationInColumns(true)
+				.withLineTermination("\n")
+				.withGzipBlockRowCount(7)
+				.writeAll(file, written, true);
+
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withAllowLineTerminationInColumns(true)
+				.withLineTermination("\n")
+				.withPipelineWorkerCount(3);
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Row> rows = new ArrayList<Row>();
+		try (PipelinedRowReader<Row> reader = processor.readAllPipelined(file, parseErrors)) {
+			while (reader.hasNext()) {
+				rows.add(reader.next());
+			}
+		}
+		assertEquals(99, rows.size());
+		for (Row row : rows) {
+			assertEquals("str\n" + row.number, row.string);
+		}
+		assertEquals(49, rows.get(49).number);
+		assertEquals(51, rows.get(50).number);
+		assertEquals(1, parseErrors.size());
+		// header is line 1 and each row takes 2 lines
+		assertEquals(2 + 50 * 2, parseErrors.get(0).getLineNumber());
+
+		// the blocks can be read as a normal gzip file too
+		parseErrors.clear();
+		List<Row> sequentialRows = processor.readAll(file, parseErrors);
+		assertEquals(99, sequentialRows.size());
+		assertEquals(1, parseErrors.size());
+		assertEquals(2 + 50 * 2, parseErrors.get(0).getLineNumber());
+
+		// the offset spans a number of blocks
+		processor.withReadOffset(45).withReadLimit(10);
+		parseErrors.clear();
+		rows.clear();
+		try (PipelinedRowReader<Row> reader = processor.readAllPipelined(file, parseErrors)) {
+			while (reader.hasNext()) {
+				rows.add(reader.next());
+			}
+		}
+		assertEquals(10, rows.size());
+		assertEquals(45, rows.get(0).number);
+		assertEquals(49, rows.get(4).number);
+		assertEquals(51, rows.get(5).number);
+		assertEquals(55, rows.get(9).number);
+		assertEquals(1, parseErrors.size());
+		assertEquals(2 + 50 * 2, parseErrors.get(0).getLineNumber());
+	}
+
+	@Test
+	public void testGzipBlockSizes() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		GzipBlocks.BlockOutputStream blockStream = new GzipBlocks.BlockOutputStream(baos);
+		byte[] content = "1,one\n2,two\n".getBytes(StandardCharsets.UTF_8);
+		blockStream.write(content);
+		blockStream.finishBlock();
+		blockStream.close();
+		byte[] block = baos.toByteArray();
+
+		byte[] member = GzipBlocks.readBlock(new ByteArrayInputStream(block)).getMember();
+		assertArrayEquals(content, GzipBlocks.inflate(member));
+		// the uncompressed size in the trailer is not used to allocate the output
+		member[member.length - 1] = 0x7F;
+		member[member.length - 2] = (byte) 0xFF;
+		member[member.length - 3] = (byte) 0xFF;
+		member[member.length - 4] = (byte) 0xFF;
+		try {
+			GzipBlocks.inflate(member);
+			fail("should have thrown");
+		} catch (IOException ioe) {
+			// expected
+		}
+
+		// the member size in the header is limited before it is allocated
+		block[16] = 0;
+		block[17] = 0;
+		block[18] = 0;
+		block[19] = 0x7F;
+		try {
+			GzipBlocks.readBlock(new ByteArrayInputStream(block));
+			fail("should have thrown");
+		} catch (IOException ioe) {
+			// expected
+		}
+	}
+
+	private String buildCsv(int numRows) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("number,string\n");
+		for (int i = 0; i < numRows; i++) {
+			sb.append(i).append(",str").append(i).append('\n');
+		}
+		return sb.toString();
+	}
+
+	public static class StringRow {
+		@CsvColumn
+		String number;
+		@CsvColumn
+		String string;
+
+		public StringRow() {
+			// for simplecsv
+		}
+
+		public StringRow(String number, String string) {
+			this.number = number;
+			this.string = string;
+		}
+	}
+
+	public static class Row {
+		@CsvColumn
+		int number;
+		@CsvColumn
+		String string;
+	}
+}
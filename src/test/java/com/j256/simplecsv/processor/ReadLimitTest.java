@@ -0,0 +1,196 @@
+package com.j256.simplecsv.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.j256.simplecsv.common.CsvColumn;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
+
+public class ReadLimitTest {
+
+	@Test
+	public void testOffset() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withReadOffset(3);
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		// the bad row is skipped without being converted
+		List<Row> rows = processor.readAll(new StringReader("number,string\n0,a\nbad,b\n2,c\n3,d\n4,e\n"), parseErrors);
+		assertEquals(2, rows.size());
+		assertEquals(3, rows.get(0).number);
+		assertEquals(4, rows.get(1).number);
+		assertEquals(0, parseErrors.size());
+
+		// line numbers still count the skipped rows
+		rows = processor.readAll(new StringReader("number,string\n0,a\n1,b\n2,c\nbad,d\n"), parseErrors);
+		assertEquals(0, rows.size());
+		assertEquals(1, parseErrors.size());
+		assertEquals(5, parseErrors.get(0).getLineNumber());
+
+		// offset past the end
+		assertEquals(0, processor.readAll(new StringReader("number,string\n0,a\n"), null).size());
+	}
+
+	@Test
+	public void testOffsetMultiLine() throws Exception {
+		CsvProcessor<Row> processor =
+				new CsvProcessor<Row>(Row.class).withAllowLineTerminationInColumns(true).withReadOffset(2);
+		String csv = "number,string\n0,\"zero\nspans\nlines\"\n1,\"one \"\"quoted\nnot\"\" ended\"\n2,\"two\nlines\"\n";
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Row> rows = processor.readAll(new StringReader(csv), parseErrors);
+		assertEquals(0, parseErrors.size());
+		assertEquals(1, rows.size());
+		assertEquals(2, rows.get(0).number);
+		assertEquals("two" + CsvProcessor.DEFAULT_LINE_TERMINATION + "lines", rows.get(0).string);
+	}
+
+	@Test
+	public void testLimit() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withReadLimit(2);
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		// errors are not counted against the limit and the rows after it are not read
+		List<Row> rows =
+				processor.readAll(new StringReader("number,string\n0,a\nbad,b\n2,c\nbad,d\n4,e\n"), parseErrors);
+		assertEquals(2, rows.size());
+		assertEquals(0, rows.get(0).number);
+		assertEquals(2, rows.get(1).number);
+		assertEquals(1, parseErrors.size());
+		assertEquals(3, parseErrors.get(0).getLineNumber());
+
+		processor.setReadOffset(1);
+		rows = processor.readAll(new StringReader("number,string\n0,a\n1,b\n2,c\n3,d\n"), null);
+		assertEquals(2, rows.size());
+		assertEquals(1, rows.get(0).number);
+		assertEquals(2, rows.get(1).number);
+	}
+
+	@Test
+	public void testLimitWithBatchValidator() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withReadLimit(3)
+				.withBatchValidationSize(100)
+				.withBatchRowValidator(new BatchRowValidator<Row>() {
+					@Override
+					public void validateRows(List<Row> entities, int[] lineNumbers, ParseError[] parseErrors) {
+						for (int i = 0; i < entities.size(); i++) {
+							if (entities.get(i).number % 2 == 1) {
+								parseErrors[i].setErrorType(ErrorType.INVALID_ENTITY);
+							}
+						}
+					}
+				});
+		StringBuilder sb = new StringBuilder("number,string\n");
+		for (int i = 0; i < 20; i++) {
+			sb.append(i).append(",str\n");
+		}
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Row> rows = processor.readAll(new StringReader(sb.toString()), parseErrors);
+		assertEquals(3, rows.size());
+		assertEquals(0, rows.get(0).number);
+		assertEquals(4, rows.get(2).number);
+		// only the rows up to the limit have been validated
+		assertEquals(2, parseErrors.size());
+	}
+
+	@Test
+	public void testReadRows() throws Exception {
+		CsvProcessor<Row> processor =
+				new CsvProcessor<Row>(Row.class).withFirstLineHeader(false).withReadOffset(1).withReadLimit(1);
+		BufferedReader reader = new BufferedReader(new StringReader("0,a\n1,b\n2,c\n3,d\n"));
+		List<Row> rows = processor.readRows(reader, null);
+		assertEquals(1, rows.size());
+		assertEquals(1, rows.get(0).number);
+		// the reader is left after the last row read
+		assertEquals("2,c", reader.readLine());
+	}
+
+	@Test
+	public void testCanceller() throws Exception {
+		final List<Row> rows = new ArrayList<Row>();
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withReadCanceller(new ReadCanceller() {
+			@Override
+			public boolean isCancelled() {
+				return (rows.size() >= 3);
+			}
+		});
+		StringBuilder sb = new StringBuilder("number,string\n");
+		for (int i = 0; i < 10; i++) {
+			sb.append(i).append(",str\n");
+		}
+		List<Row> results = new ArrayList<Row>();
+		PipelinedRowReader<Row> reader = processor.withPipelineBatchSize(2)
+				.withPipelineWorkerCount(2)
+				.readAllPipelined(new StringReader(sb.toString()), null);
+		try {
+			Row row;
+			while ((row = reader.readRow()) != null) {
+				rows.add(row);
+			}
+		} finally {
+			reader.close();
+		}
+		assertEquals(3, rows.size());
+		assertNull(reader.readRow());
+
+		// no exception is thrown and the rows read so far are returned
+		final int[] checkCount = new int[1];
+		processor.setReadCanceller(new ReadCanceller() {
+			@Override
+			public boolean isCancelled() {
+				return (++checkCount[0] > 4);
+			}
+		});
+		results = processor.readAll(new StringReader(sb.toString()), null);
+		assertEquals(4, results.size());
+	}
+
+	@Test
+	public void testPipelined() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withReadOffset(5)
+				.withReadLimit(10)
+				.withPipelineBatchSize(3)
+				.withPipelineWorkerCount(2);
+		StringBuilder sb = new StringBuilder("number,string\n");
+		for (int i = 0; i < 100; i++) {
+			if (i == 7) {
+				sb.append("bad,str\n");
+			} else {
+				sb.append(i).append(",str\n");
+			}
+		}
+		List<ParseError> parseErrors = new ArrayList<ParseError>();
+		List<Row> rows = new ArrayList<Row>();
+		StringReader input = new StringReader(sb.toString());
+		try (PipelinedRowReader<Row> reader = processor.readAllPipelined(input, parseErrors)) {
+			while (reader.hasNext()) {
+				rows.add(reader.next());
+			}
+		}
+		assertEquals(10, rows.size());
+		assertEquals(5, rows.get(0).number);
+		assertEquals(6, rows.get(1).number);
+		assertEquals(8, rows.get(2).number);
+		assertEquals(15, rows.get(9).number);
+		assertEquals(1, parseErrors.size());
+		assertEquals(9, parseErrors.get(0).getLineNumber());
+	}
+
+	@Test(expected = ParseException.class)
+	public void testLimitAfterError() throws Exception {
+		// an error before the limit is reached is still thrown
+		new CsvProcessor<Row>(Row.class).withReadLimit(2)
+				.readAll(new StringReader("number,string\n0,a\nbad,b\n2,c\n"), null);
+	}
+
+	public static class Row {
+		@CsvColumn
+		int number;
+		@CsvColumn
+		String string;
+	}
+}
@@ -0,0 +1,245 @@
+package com.j256.simplecsv.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.j256.simplecsv.common.CsvColumn;
+import com.j256.simplecsv.processor.ParseError.ErrorType;
+import com.j256.simplecsv.processor.RowPublisher.Subscriber;
+import com.j256.simplecsv.processor.RowPublisher.Subscription;
+
+public class RowPublisherTest {
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testAll() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		RowPublisher<Row> publisher = processor.publishAll(new StringReader(buildCsv(1000)), executor, null);
+		TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+		publisher.subscribe(subscriber);
+		subscriber.await();
+		assertTrue(subscriber.complete);
+		assertNull(subscriber.error);
+		assertEquals(1000, subscriber.rows.size());
+		for (int i = 0; i < subscriber.rows.size(); i++) {
+			assertEquals(i, subscriber.rows.get(i).number);
+		}
+	}
+
+	@Test
+	public void testDemand() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withPublisherReadAhead(5);
+		CountingReader reader = new CountingReader(new StringReader(buildCsv(100000)));
+		RowPublisher<Row> publisher = processor.publishAll(reader, executor, null);
+		TestSubscriber subscriber = new TestSubscriber(0);
+		publisher.subscribe(subscriber);
+		subscriber.subscription.request(3);
+		waitForExecutor();
+		assertEquals(3, subscriber.rows.size());
+		assertFalse(subscriber.complete);
+		// we read some of the file but not all of it
+		assertTrue(reader.charCount < 100000);
+
+		subscriber.subscription.request(10);
+		waitForExecutor();
+		assertEquals(13, subscriber.rows.size());
+		for (int i = 0; i < subscriber.rows.size(); i++) {
+			assertEquals(i, subscriber.rows.get(i).number);
+		}
+
+		subscriber.subscription.cancel();
+		subscriber.subscription.request(10);
+		waitForExecutor();
+		assertEquals(13, subscriber.rows.size());
+		assertFalse(subscriber.complete);
+		assertNull(subscriber.error);
+	}
+
+	@Test
+	public void testParseErrorListener() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		final List<ParseError> parseErrors = new ArrayList<ParseError>();
+		String csv = "number\n1\nbad\n3\n";
+		RowPublisher<Row> publisher = processor.publishAll(new StringReader(csv), executor, new ParseErrorListener() {
+			@Override
+			public void parseError(ParseError parseError) {
+				parseErrors.add(parseError);
+			}
+		});
+		TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+		publisher.subscribe(subscriber);
+		subscriber.await();
+		assertTrue(subscriber.complete);
+		assertEquals(2, subscriber.rows.size());
+		assertEquals(1, subscriber.rows.get(0).number);
+		assertEquals(3, subscriber.rows.get(1).number);
+		assertEquals(1, parseErrors.size());
+		assertEquals(ErrorType.INVALID_FORMAT, parseErrors.get(0).getErrorType());
+		assertEquals(3, parseErrors.get(0).getLineNumber());
+	}
+
+	@Test
+	public void testParseException() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		RowPublisher<Row> publisher = processor.publishAll(new StringReader("number\n1\nbad\n3\n"), executor, null);
+		TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+		publisher.subscribe(subscriber);
+		subscriber.await();
+		assertFalse(subscriber.complete);
+		assertTrue(subscriber.error instanceof ParseException);
+		assertEquals(1, subscriber.rows.size());
+	}
+
+	@Test
+	public void testInvalidRequest() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		RowPublisher<Row> publisher = processor.publishAll(new StringReader(buildCsv(10)), executor, null);
+		TestSubscriber subscriber = new TestSubscriber(0);
+		publisher.subscribe(subscriber);
+		subscriber.subscription.request(0);
+		subscriber.await();
+		assertTrue(subscriber.error instanceof IllegalArgumentException);
+		assertEquals(0, subscriber.rows.size());
+	}
+
+	@Test
+	public void testOffsetAndLimit() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class).withReadOffset(10).withReadLimit(5);
+		CountingReader reader = new CountingReader(new StringReader(buildCsv(100000)));
+		RowPublisher<Row> publisher = processor.publishAll(reader, executor, null);
+		TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+		publisher.subscribe(subscriber);
+		subscriber.await();
+		// completes once the limit is reached without reading the rest of the input
+		assertTrue(subscriber.complete);
+		assertEquals(5, subscriber.rows.size());
+		for (int i = 0; i < subscriber.rows.size(); i++) {
+			assertEquals(10 + i, subscriber.rows.get(i).number);
+		}
+		assertTrue(reader.charCount < 100000);
+	}
+
+	@Test
+	public void testSecondSubscriber() throws Exception {
+		CsvProcessor<Row> processor = new CsvProcessor<Row>(Row.class);
+		RowPublisher<Row> publisher = processor.publishAll(new StringReader(buildCsv(10)), executor, null);
+		publisher.subscribe(new TestSubscriber(0));
+		TestSubscriber subscriber = new TestSubscriber(0);
+		publisher.subscribe(subscriber);
+		subscriber.await();
+		assertTrue(subscriber.error instanceof IllegalStateException);
+	}
+
+	private void waitForExecutor() throws Exception {
+		// the executor is single threaded so this runs after any of the draining
+		executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				// no-op
+			}
+		}).get();
+	}
+
+	private String buildCsv(int numRows) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("number\n");
+		for (int i = 0; i < numRows; i++) {
+			sb.append(i).append('\n');
+		}
+		return sb.toString();
+	}
+
+	public static class Row {
+		@CsvColumn
+		int number;
+	}
+
+	private static class TestSubscriber implements Subscriber<Row> {
+
+		private final long initialRequest;
+		private final CountDownLatch latch = new CountDownLatch(1);
+		final List<Row> rows = new ArrayList<Row>();
+		volatile Subscription subscription;
+		volatile boolean complete;
+		volatile Throwable error;
+
+		public TestSubscriber(long initialRequest) {
+			this.initialRequest = initialRequest;
+		}
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			this.subscription = subscription;
+			if (initialRequest > 0) {
+				subscription.request(initialRequest);
+			}
+		}
+
+		@Override
+		public void onNext(Row row) {
+			rows.add(row);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+			latch.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			complete = true;
+			latch.countDown();
+		}
+
+		public void await() throws InterruptedException {
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+		}
+	}
+
+	private static class CountingReader extends Reader {
+
+		private final Reader delegate;
+		volatile long charCount;
+
+		public CountingReader(Reader delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			int num = delegate.read(cbuf, off, len);
+			if (num > 0) {
+				charCount += num;
+			}
+			return num;
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
+	}
+}